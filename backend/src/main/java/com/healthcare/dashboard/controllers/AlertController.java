@@ -1,8 +1,10 @@
 package com.healthcare.dashboard.controllers;
 
 import com.healthcare.dashboard.entities.Alert;
+import com.healthcare.dashboard.events.AlertChangedEvent;
 import com.healthcare.dashboard.repositories.AlertRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +19,7 @@ import java.util.Map;
 public class AlertController {
     
     private final AlertRepository alertRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @GetMapping
     public List<Alert> getAllAlerts() {
@@ -54,15 +57,18 @@ public class AlertController {
     
     @PostMapping
     public Alert createAlert(@RequestBody Alert alert) {
-        return alertRepository.save(alert);
+        Alert saved = alertRepository.save(alert);
+        eventPublisher.publishEvent(new AlertChangedEvent(null, AlertChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<Alert> updateAlert(@PathVariable Long id, @RequestBody Alert alert) {
         return alertRepository.findById(id)
                 .map(existing -> {
+                    AlertChangedEvent.Snapshot previous = AlertChangedEvent.Snapshot.of(existing);
                     alert.setId(id);
-                    return ResponseEntity.ok(alertRepository.save(alert));
+                    return ResponseEntity.ok(save(previous, alert));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -71,8 +77,9 @@ public class AlertController {
     public ResponseEntity<Alert> markAsRead(@PathVariable Long id) {
         return alertRepository.findById(id)
                 .map(alert -> {
+                    AlertChangedEvent.Snapshot previous = AlertChangedEvent.Snapshot.of(alert);
                     alert.setLu(true);
-                    return ResponseEntity.ok(alertRepository.save(alert));
+                    return ResponseEntity.ok(save(previous, alert));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -81,19 +88,28 @@ public class AlertController {
     public ResponseEntity<Alert> markAsResolved(@PathVariable Long id) {
         return alertRepository.findById(id)
                 .map(alert -> {
+                    AlertChangedEvent.Snapshot previous = AlertChangedEvent.Snapshot.of(alert);
                     alert.setResolu(true);
                     alert.setDateResolution(java.time.LocalDateTime.now());
-                    return ResponseEntity.ok(alertRepository.save(alert));
+                    return ResponseEntity.ok(save(previous, alert));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteAlert(@PathVariable Long id) {
-        if (alertRepository.existsById(id)) {
-            alertRepository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return alertRepository.findById(id)
+                .map(existing -> {
+                    alertRepository.deleteById(id);
+                    eventPublisher.publishEvent(new AlertChangedEvent(AlertChangedEvent.Snapshot.of(existing), null));
+                    return ResponseEntity.ok().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    private Alert save(AlertChangedEvent.Snapshot previous, Alert alert) {
+        Alert saved = alertRepository.save(alert);
+        eventPublisher.publishEvent(new AlertChangedEvent(previous, AlertChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
 }
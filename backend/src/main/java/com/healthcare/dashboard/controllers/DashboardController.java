@@ -1,14 +1,27 @@
 package com.healthcare.dashboard.controllers;
 
 import com.healthcare.dashboard.dto.ActesByTypeStatsDTO;
+import com.healthcare.dashboard.dto.DashboardOverviewDTO;
 import com.healthcare.dashboard.dto.DashboardStatsDTO;
 import com.healthcare.dashboard.dto.RevenusByMonthStatsDTO;
 import com.healthcare.dashboard.dto.SejoursByServiceStatsDTO;
+import com.healthcare.dashboard.services.DashboardOverviewService;
+import com.healthcare.dashboard.services.DashboardKpiStream;
 import com.healthcare.dashboard.services.DashboardService;
+import com.healthcare.dashboard.services.MonthlyRevenueService;
+import com.healthcare.dashboard.services.TableVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -17,24 +30,129 @@ import java.util.List;
 public class DashboardController {
     
     private final DashboardService dashboardService;
+    private final DashboardOverviewService dashboardOverviewService;
+    private final MonthlyRevenueService monthlyRevenueService;
+    private final DashboardKpiStream dashboardKpiStream;
+    private final TableVersions tableVersions;
     
+    /**
+     * Les lectures ci-dessous portent un ETag calculé à partir des versions des tables lues: une requête
+     * avec If-None-Match correspondant reçoit 304 sans requête en base ni sérialisation
+     */
     @GetMapping("/stats")
-    public ResponseEntity<DashboardStatsDTO> getDashboardStats() {
-        return ResponseEntity.ok(dashboardService.getDashboardStats());
+    public ResponseEntity<DashboardStatsDTO> getDashboardStats(WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.DASHBOARD_COUNTERS))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(dashboardService.getDashboardStats());
     }
     
+    /**
+     * GET /api/dashboard/actes-by-type?startDate=...&endDate=...&service=...
+     * Actes et revenus par type sur les mois de la période (toutes les dates par défaut), tous services
+     * confondus ou pour un service
+     */
     @GetMapping("/actes-by-type")
-    public ResponseEntity<List<ActesByTypeStatsDTO>> getActesByType() {
-        return ResponseEntity.ok(dashboardService.getActesByType());
+    public ResponseEntity<List<ActesByTypeStatsDTO>> getActesByType(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String service,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(tableVersions.etag(request,
+                TableVersions.MONTHLY_ACTE_REVENUE, TableVersions.SERVICES))) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(dashboardService.getActesByType(startDate, endDate, service));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
+    /**
+     * GET /api/dashboard/revenus-by-month?startDate=...&endDate=...&service=...
+     * Revenus par mois sur la période (les 12 derniers mois par défaut), tous services confondus ou pour un service
+     */
     @GetMapping("/revenus-by-month")
-    public ResponseEntity<List<RevenusByMonthStatsDTO>> getRevenusByMonth() {
-        return ResponseEntity.ok(dashboardService.getRevenusByMonth());
+    public ResponseEntity<List<RevenusByMonthStatsDTO>> getRevenusByMonth(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String service,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(tableVersions.etag(request,
+                TableVersions.MONTHLY_ACTE_REVENUE, TableVersions.SERVICES))) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(dashboardService.getRevenusByMonth(startDate, endDate, service));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * POST /api/dashboard/revenus-by-month/rebuild
+     * Reconstruit la table monthly_acte_revenue (toute la table si aucune date n'est fournie)
+     */
+    @PostMapping("/revenus-by-month/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildMonthlyRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        int rows = startDate == null && endDate == null
+                ? monthlyRevenueService.rebuildAll()
+                : monthlyRevenueService.rebuild(
+                        YearMonth.from(startDate != null ? startDate : endDate.minusMonths(12)),
+                        YearMonth.from(endDate != null ? endDate : LocalDate.now()));
+        return ResponseEntity.ok(Map.of("rows", rows));
     }
     
     @GetMapping("/sejours-by-service")
-    public ResponseEntity<List<SejoursByServiceStatsDTO>> getSejoursByService() {
-        return ResponseEntity.ok(dashboardService.getSejoursByService());
+    public ResponseEntity<List<SejoursByServiceStatsDTO>> getSejoursByService(WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.SEJOURS, TableVersions.SERVICES))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(dashboardService.getSejoursByService());
+    }
+    
+    /**
+     * GET /api/dashboard/overview?parts=stats,actes-by-type,revenus-by-month,sejours-by-service
+     * Les quatre vues du tableau de bord en un seul appel, agrégats calculés en parallèle;
+     * toutes les parties si parts est absent
+     */
+    @GetMapping("/overview")
+    public ResponseEntity<DashboardOverviewDTO> getOverview(@RequestParam(required = false) List<String> parts,
+                                                            WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.DASHBOARD_COUNTERS,
+                TableVersions.MONTHLY_ACTE_REVENUE, TableVersions.SEJOURS, TableVersions.SERVICES))) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache())
+                    .body(dashboardOverviewService.getOverview(DashboardOverviewService.parseParts(parts)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * GET /api/dashboard/stream?groups=dashboard,alerts
+     * Flux SSE des indicateurs (tous les groupes si groups est absent): toutes les valeurs à l'abonnement,
+     * puis seulement celles qui changent après une écriture
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamKpis(@RequestParam(required = false) List<String> groups) {
+        try {
+            return ResponseEntity.ok(dashboardKpiStream.subscribe(groups));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 }
@@ -1,8 +1,10 @@
 package com.healthcare.dashboard.controllers;
 
 import com.healthcare.dashboard.entities.Investment;
+import com.healthcare.dashboard.events.InvestmentChangedEvent;
 import com.healthcare.dashboard.repositories.InvestmentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +19,7 @@ import java.util.Map;
 public class InvestmentController {
     
     private final InvestmentRepository investmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @GetMapping
     public List<Investment> getAllInvestments() {
@@ -61,25 +64,32 @@ public class InvestmentController {
     
     @PostMapping
     public Investment createInvestment(@RequestBody Investment investment) {
-        return investmentRepository.save(investment);
+        Investment saved = investmentRepository.save(investment);
+        eventPublisher.publishEvent(new InvestmentChangedEvent(null, InvestmentChangedEvent.Snapshot.of(saved)));
+        return saved;
     }
     
     @PutMapping("/{id}")
     public ResponseEntity<Investment> updateInvestment(@PathVariable Long id, @RequestBody Investment investment) {
         return investmentRepository.findById(id)
                 .map(existing -> {
+                    InvestmentChangedEvent.Snapshot previous = InvestmentChangedEvent.Snapshot.of(existing);
                     investment.setId(id);
-                    return ResponseEntity.ok(investmentRepository.save(investment));
+                    Investment saved = investmentRepository.save(investment);
+                    eventPublisher.publishEvent(new InvestmentChangedEvent(previous, InvestmentChangedEvent.Snapshot.of(saved)));
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteInvestment(@PathVariable Long id) {
-        if (investmentRepository.existsById(id)) {
-            investmentRepository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return investmentRepository.findById(id)
+                .map(existing -> {
+                    investmentRepository.deleteById(id);
+                    eventPublisher.publishEvent(new InvestmentChangedEvent(InvestmentChangedEvent.Snapshot.of(existing), null));
+                    return ResponseEntity.ok().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 }
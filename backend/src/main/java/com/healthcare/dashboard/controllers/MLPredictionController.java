@@ -1,20 +1,48 @@
 package com.healthcare.dashboard.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dashboard.dto.DatasetExportJobDTO;
 import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.dto.ForecastModel;
 import com.healthcare.dashboard.dto.MLPredictionRequestDTO;
 import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.dto.OccupancySimulationDTO;
+import com.healthcare.dashboard.dto.ScenarioRequestDTO;
+import com.healthcare.dashboard.dto.ScenarioResponseDTO;
+import com.healthcare.dashboard.entities.ForecastBacktestResult;
+import com.healthcare.dashboard.services.DailyServiceStatsService;
+import com.healthcare.dashboard.services.DatasetArrowWriter;
+import com.healthcare.dashboard.services.DatasetCsvWriter;
+import com.healthcare.dashboard.services.DatasetExportJobService;
+import com.healthcare.dashboard.services.DatasetNdjsonWriter;
+import com.healthcare.dashboard.services.ForecastBacktestService;
+import com.healthcare.dashboard.services.ForecastPrecomputeService;
+import com.healthcare.dashboard.services.ForecastScenarioService;
+import com.healthcare.dashboard.services.MLDatasetService;
 import com.healthcare.dashboard.services.MLPredictionService;
+import com.healthcare.dashboard.services.OccupancySimulationService;
+import com.healthcare.dashboard.services.TableVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/ml")
@@ -22,78 +50,139 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class MLPredictionController {
     
+    static final String WATERMARK_HEADER = "X-Dataset-Watermark";
+    
     private final MLPredictionService mlPredictionService;
+    private final MLDatasetService mlDatasetService;
+    private final ObjectMapper objectMapper;
+    private final DailyServiceStatsService dailyServiceStatsService;
+    private final DatasetExportJobService datasetExportJobService;
+    private final ForecastBacktestService forecastBacktestService;
+    private final ForecastPrecomputeService forecastPrecomputeService;
+    private final ForecastScenarioService forecastScenarioService;
+    private final OccupancySimulationService occupancySimulationService;
+    private final TableVersions tableVersions;
     
     /**
      * GET /api/ml/dataset/export
-     * Exporte le dataset pour l'entraînement ML
+     * Exporte le dataset pour l'entraînement ML.
+     * Le CSV est écrit dans la réponse au fur et à mesure de la génération des lignes.
+     * shards > 1 calcule la période en tranches parallèles (lignes toujours dans l'ordre des dates).
      */
     @GetMapping("/dataset/export")
-    public ResponseEntity<String> exportDataset(
+    public ResponseEntity<StreamingResponseBody> exportDataset(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "1") int shards
     ) {
-        try {
-            List<DatasetRowDTO> dataset = mlPredictionService.generateDataset(startDate, endDate);
-            
-            // Convertir en CSV
-            StringBuilder csv = new StringBuilder();
-            
-            // Header
-            csv.append("date,service,patients_count,actes_count,sejours_actifs,duree_moyenne_sejour,");
-            csv.append("cout_total,cout_moyen_acte,taux_occupation,personnel_present,equipements_utilises,");
-            csv.append("urgences_admissions,interventions_chirurgicales,examens_radiologie,consultations,");
-            csv.append("hospitalisations,tarif_moyen,cout_maintenance,saison,jour_semaine,est_weekend,");
-            csv.append("est_ferie,meteo,temperature,mois,annee\n");
-            
-            // Données
-            for (DatasetRowDTO row : dataset) {
-                csv.append(row.getDate()).append(",");
-                csv.append(row.getService()).append(",");
-                csv.append(row.getPatientsCount()).append(",");
-                csv.append(row.getActesCount()).append(",");
-                csv.append(row.getSejoursActifs()).append(",");
-                csv.append(row.getDureeMoyenneSejour()).append(",");
-                csv.append(row.getCoutTotal()).append(",");
-                csv.append(row.getCoutMoyenActe()).append(",");
-                csv.append(row.getTauxOccupation()).append(",");
-                csv.append(row.getPersonnelPresent()).append(",");
-                csv.append(row.getEquipementsUtilises()).append(",");
-                csv.append(row.getUrgencesAdmissions()).append(",");
-                csv.append(row.getInterventionsChirurgicales()).append(",");
-                csv.append(row.getExamensRadiologie()).append(",");
-                csv.append(row.getConsultations()).append(",");
-                csv.append(row.getHospitalisations()).append(",");
-                csv.append(row.getTarifMoyen()).append(",");
-                csv.append(row.getCoutMaintenance()).append(",");
-                csv.append(row.getSaison()).append(",");
-                csv.append(row.getJourSemaine()).append(",");
-                csv.append(row.getEstWeekend()).append(",");
-                csv.append(row.getEstFerie()).append(",");
-                csv.append(row.getMeteo()).append(",");
-                csv.append(row.getTemperature()).append(",");
-                csv.append(row.getMois()).append(",");
-                csv.append(row.getAnnee()).append("\n");
-            }
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.parseMediaType("text/csv"));
-            headers.setContentDispositionFormData("attachment", "healthcare_dataset.csv");
-            
-            return new ResponseEntity<>(csv.toString(), headers, HttpStatus.OK);
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                                .body("Erreur lors de la génération du dataset: " + e.getMessage());
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
         }
+        
+        StreamingResponseBody body = outputStream -> {
+            DatasetCsvWriter writer = new DatasetCsvWriter(outputStream);
+            // Envoyer l'en-tête immédiatement, avant les premières requêtes
+            writer.writeHeader();
+            writer.flush();
+            mlDatasetService.streamDataset(startDate, endDate, shards, writer::writeRowUnchecked);
+            writer.flush();
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "healthcare_dataset.csv");
+        
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    /**
+     * GET /api/ml/dataset/export (Accept: application/vnd.apache.arrow.stream)
+     * Exporte le dataset au format columnaire Arrow IPC, par lots de colonnes typées.
+     */
+    @GetMapping(value = "/dataset/export", produces = DatasetArrowWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportDatasetArrow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "1") int shards
+    ) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+    
+        StreamingResponseBody body = outputStream -> {
+            try (DatasetArrowWriter writer = new DatasetArrowWriter(outputStream)) {
+                writer.start();
+                mlDatasetService.streamDataset(startDate, endDate, shards, writer::writeRowUnchecked);
+                writer.finish();
+            }
+        };
+    
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(DatasetArrowWriter.MEDIA_TYPE));
+        headers.setContentDispositionFormData("attachment", "healthcare_dataset.arrows");
+    
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    /**
+     * GET /api/ml/dataset/changes?since=...
+     * Export incrémental: seules les lignes (jour, service) modifiées après le marqueur "since" sont envoyées.
+     * Le marqueur à utiliser pour l'appel suivant est renvoyé dans l'en-tête X-Dataset-Watermark.
+     */
+    @GetMapping("/dataset/changes")
+    public ResponseEntity<StreamingResponseBody> exportDatasetChanges(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since
+    ) {
+        LocalDateTime watermark = mlDatasetService.nextWatermark();
+        
+        StreamingResponseBody body = outputStream -> {
+            DatasetCsvWriter writer = new DatasetCsvWriter(outputStream);
+            writer.writeHeader();
+            mlDatasetService.streamChangesSince(since, writer::writeRowUnchecked);
+            writer.flush();
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("text/csv"));
+        headers.setContentDispositionFormData("attachment", "healthcare_dataset_changes.csv");
+        headers.set(WATERMARK_HEADER, watermark.toString());
+        headers.setAccessControlExposeHeaders(List.of(WATERMARK_HEADER));
+        
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
     
+    /**
+     * GET /api/ml/dataset/changes (Accept: application/vnd.apache.arrow.stream)
+     * Export incrémental au format Arrow IPC
+     */
+    @GetMapping(value = "/dataset/changes", produces = DatasetArrowWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportDatasetChangesArrow(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since
+    ) {
+        LocalDateTime watermark = mlDatasetService.nextWatermark();
+        
+        StreamingResponseBody body = outputStream -> {
+            try (DatasetArrowWriter writer = new DatasetArrowWriter(outputStream)) {
+                writer.start();
+                mlDatasetService.streamChangesSince(since, writer::writeRowUnchecked);
+                writer.finish();
+            }
+        };
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(DatasetArrowWriter.MEDIA_TYPE));
+        headers.setContentDispositionFormData("attachment", "healthcare_dataset_changes.arrows");
+        headers.set(WATERMARK_HEADER, watermark.toString());
+        headers.setAccessControlExposeHeaders(List.of(WATERMARK_HEADER));
+        
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+        
     /**
      * GET /api/ml/dataset/json
      * Retourne le dataset en format JSON
      */
-    @GetMapping("/dataset/json")
+    @GetMapping(value = "/dataset/json", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<List<DatasetRowDTO>> getDatasetJson(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
@@ -107,6 +196,115 @@ public class MLPredictionController {
         }
     }
     
+    /**
+     * GET /api/ml/dataset/json avec "Accept: application/x-ndjson"
+     * Envoie le dataset ligne par ligne (un objet JSON par ligne) au fur et à mesure de sa génération
+     */
+    @GetMapping(value = "/dataset/json", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamDatasetNdjson(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = outputStream -> {
+            DatasetNdjsonWriter writer = new DatasetNdjsonWriter(objectMapper, outputStream);
+            mlDatasetService.streamDataset(startDate, endDate, writer::writeRowUnchecked);
+            writer.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+    
+    /**
+     * POST /api/ml/dataset/jobs
+     * Lance un export du dataset en tâche de fond (format CSV gzip ou ARROW) et renvoie le job.
+     * Une demande identique réutilise l'export en cours ou le fichier déjà produit.
+     */
+    @PostMapping("/dataset/jobs")
+    public ResponseEntity<DatasetExportJobDTO> submitExportJob(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "CSV") DatasetExportJobService.Format format
+    ) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            DatasetExportJobDTO job = datasetExportJobService.submit(startDate, endDate, format);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/ml/dataset/jobs/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            // File d'attente des exports pleine
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    /**
+     * GET /api/ml/dataset/jobs/{id}
+     * Avancement d'un export (jours traités sur le total)
+     */
+    @GetMapping("/dataset/jobs/{id}")
+    public ResponseEntity<DatasetExportJobDTO> getExportJob(@PathVariable String id) {
+        return datasetExportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * GET /api/ml/dataset/jobs/{id}/download
+     * Télécharge le fichier d'un export terminé; les requêtes Range permettent de reprendre un téléchargement
+     */
+    @GetMapping("/dataset/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadExportJob(@PathVariable String id) {
+        Optional<DatasetExportJobDTO> job = datasetExportJobService.getJob(id);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Path> file = datasetExportJobService.getFile(id);
+        if (file.isEmpty()) {
+            // Export pas encore terminé ou en échec
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        boolean arrow = DatasetExportJobService.Format.ARROW.name().equals(job.get().getFormat());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(arrow ? DatasetArrowWriter.MEDIA_TYPE : "application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.get().getFileName() + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(new FileSystemResource(file.get()));
+    }
+    
+    /**
+     * POST /api/ml/daily-stats/rebuild
+     * Reconstruit la table de faits daily_service_stats (toute la table si aucune date n'est fournie)
+     */
+    @PostMapping("/daily-stats/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildDailyStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            int rows = startDate == null && endDate == null
+                    ? dailyServiceStatsService.rebuildAll()
+                    : dailyServiceStatsService.rebuild(
+                            startDate != null ? startDate : endDate.minusDays(90),
+                            endDate != null ? endDate : LocalDate.now());
+            return ResponseEntity.ok(Map.of("rows", rows));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * POST /api/ml/predictions/generate
      * Génère des prédictions ML
@@ -136,6 +334,53 @@ public class MLPredictionController {
         }
     }
     
+    /**
+     * POST /api/ml/predictions/precompute
+     * Relance le précalcul des horizons standards (30, 90, 180 et 365 jours) pour la date du jour
+     */
+    @PostMapping("/predictions/precompute")
+    public ResponseEntity<Map<String, Object>> precomputePredictions() {
+        try {
+            int forecasts = forecastPrecomputeService.precompute(LocalDate.now());
+            return ResponseEntity.ok(Map.of("forecasts", forecasts));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * POST /api/ml/scenarios
+     * Compare des scénarios (médecins, investissements, alertes en plus ou en moins par service) à la prévision
+     * actuelle des services concernés; jusqu'à 200 scénarios par demande
+     */
+    @PostMapping("/scenarios")
+    public ResponseEntity<ScenarioResponseDTO> evaluateScenarios(@RequestBody ScenarioRequestDTO request) {
+        try {
+            return ResponseEntity.ok(forecastScenarioService.evaluate(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * GET /api/ml/occupancy/simulation?service=...
+     * Simulation Monte-Carlo des lits occupés des jours suivants (admissions et durées de séjour tirées de
+     * l'historique) et probabilité de dépasser la capacité du service, jour par jour
+     */
+    @GetMapping("/occupancy/simulation")
+    public ResponseEntity<OccupancySimulationDTO> simulateOccupancy(
+            @RequestParam String service,
+            @RequestParam(defaultValue = "30") int daysAhead,
+            @RequestParam(defaultValue = "10000") int replications
+    ) {
+        try {
+            return ResponseEntity.ok(occupancySimulationService.simulate(service, daysAhead, replications));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     /**
      * GET /api/ml/predictions/service/{serviceName}
      * Prédictions rapides pour un service
@@ -144,7 +389,8 @@ public class MLPredictionController {
     public ResponseEntity<MLPredictionResponseDTO> getPredictionsForService(
             @PathVariable String serviceName,
             @RequestParam(defaultValue = "30") Integer daysAhead,
-            @RequestParam(defaultValue = "COUT") String predictionType
+            @RequestParam(defaultValue = "COUT") String predictionType,
+            @RequestParam(defaultValue = "HEURISTIQUE") ForecastModel modele
     ) {
         try {
             MLPredictionRequestDTO request = new MLPredictionRequestDTO();
@@ -152,6 +398,7 @@ public class MLPredictionController {
             request.setDaysAhead(daysAhead);
             request.setPredictionType(predictionType);
             request.setStartDate(LocalDate.now());
+            request.setModele(modele);
             
             MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(request);
             return ResponseEntity.ok(response);
@@ -164,27 +411,18 @@ public class MLPredictionController {
     
     /**
      * GET /api/ml/predictions/all-services
-     * Prédictions pour tous les services
+     * Prédictions pour tous les services de la table services, calculées en une seule passe.
+     * modele=HOLT_WINTERS_ADDITIF|HOLT_WINTERS_MULTIPLICATIF ajuste un modèle par service sur son historique.
      */
     @GetMapping("/predictions/all-services")
     public ResponseEntity<List<MLPredictionResponseDTO>> getPredictionsAllServices(
             @RequestParam(defaultValue = "30") Integer daysAhead,
-            @RequestParam(defaultValue = "COUT") String predictionType
+            @RequestParam(defaultValue = "COUT") String predictionType,
+            @RequestParam(defaultValue = "HEURISTIQUE") ForecastModel modele
     ) {
         try {
-            List<String> services = List.of("Urgences", "Chirurgie", "Cardiologie", "Pediatrie", 
-                                           "Maternite", "Radiologie", "Oncologie", "Neurologie");
-            
-            List<MLPredictionResponseDTO> predictions = services.stream()
-                    .map(service -> {
-                        MLPredictionRequestDTO request = new MLPredictionRequestDTO();
-                        request.setService(service);
-                        request.setDaysAhead(daysAhead);
-                        request.setPredictionType(predictionType);
-                        request.setStartDate(LocalDate.now());
-                        return mlPredictionService.generateMLPredictions(request);
-                    })
-                    .collect(Collectors.toList());
+            List<MLPredictionResponseDTO> predictions = mlPredictionService.generateMLPredictionsForAllServices(
+                    predictionType, modele, daysAhead, LocalDate.now());
             
             return ResponseEntity.ok(predictions);
             
@@ -194,19 +432,64 @@ public class MLPredictionController {
         }
     }
     
+    /**
+     * POST /api/ml/backtests
+     * Backtest à origine glissante des modèles de prévision (tous si modele est absent): MAPE, sMAPE et
+     * couverture des intervalles par service, enregistrés pour suivre leur évolution
+     */
+    @PostMapping("/backtests")
+    public ResponseEntity<List<ForecastBacktestResult>> runBacktest(
+            @RequestParam(defaultValue = "PATIENTS") String predictionType,
+            @RequestParam(required = false) List<ForecastModel> modele,
+            @RequestParam(defaultValue = "30") int horizon,
+            @RequestParam(defaultValue = "12") int origins,
+            @RequestParam(defaultValue = "7") int step
+    ) {
+        try {
+            return ResponseEntity.ok(forecastBacktestService.run(predictionType, modele, horizon, origins, step));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * GET /api/ml/backtests?service=...&predictionType=...
+     * Historique des backtests d'un service, du plus récent au plus ancien
+     */
+    @GetMapping("/backtests")
+    public ResponseEntity<List<ForecastBacktestResult>> getBacktestHistory(
+            @RequestParam String service,
+            @RequestParam(defaultValue = "PATIENTS") String predictionType,
+            @RequestParam(required = false) ForecastModel modele
+    ) {
+        return ResponseEntity.ok(forecastBacktestService.getHistory(service, predictionType, modele));
+    }
+    
+    /**
+     * GET /api/ml/backtests/{runId}
+     * Résultats d'une exécution de backtest
+     */
+    @GetMapping("/backtests/{runId}")
+    public ResponseEntity<List<ForecastBacktestResult>> getBacktestRun(@PathVariable String runId) {
+        List<ForecastBacktestResult> results = forecastBacktestService.getRun(runId);
+        return results.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(results);
+    }
+    
     /**
      * GET /api/ml/statistics/current
-     * Récupère les statistiques RÉELLES actuelles pour afficher l'état réel
+     * Récupère les statistiques RÉELLES actuelles pour afficher l'état réel (une requête groupée pour tous les services).
+     * ETag calculé à partir des versions des tables séjours et services: 304 sans requête en base si rien n'a changé
      */
     @GetMapping("/statistics/current")
-    public ResponseEntity<?> getCurrentStatistics(@RequestParam(defaultValue = "PATIENTS") String type) {
+    public ResponseEntity<?> getCurrentStatistics(@RequestParam(defaultValue = "PATIENTS") String type,
+                                                  WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.SEJOURS, TableVersions.SERVICES))) {
+            return null;
+        }
         try {
-            List<String> services = List.of("Urgences", "Chirurgie", "Cardiologie", "Pediatrie", 
-                                           "Maternite", "Radiologie", "Oncologie", "Neurologie");
-            
             List<java.util.Map<String, Object>> statistics = mlPredictionService.getCurrentStatisticsForAllServices(type);
             
-            return ResponseEntity.ok(statistics);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(statistics);
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -2,10 +2,13 @@ package com.healthcare.dashboard.controllers;
 
 import com.healthcare.dashboard.dto.ServiceDTO;
 import com.healthcare.dashboard.services.ServiceMedicalService;
+import com.healthcare.dashboard.services.TableVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
 @RestController
@@ -15,15 +18,25 @@ import java.util.List;
 public class ServiceController {
     
     private final ServiceMedicalService serviceMedicalService;
+    private final TableVersions tableVersions;
     
+    /**
+     * ETag calculé à partir de la version de la table services: 304 sans requête en base si rien n'a changé
+     */
     @GetMapping
-    public ResponseEntity<List<ServiceDTO>> getAllServices() {
-        return ResponseEntity.ok(serviceMedicalService.getAllServices());
+    public ResponseEntity<List<ServiceDTO>> getAllServices(WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.SERVICES))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(serviceMedicalService.getAllServices());
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ServiceDTO> getServiceById(@PathVariable Long id) {
-        return ResponseEntity.ok(serviceMedicalService.getServiceById(id));
+    public ResponseEntity<ServiceDTO> getServiceById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(tableVersions.etag(request, TableVersions.SERVICES) + "-" + id)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(serviceMedicalService.getServiceById(id));
     }
     
     @PostMapping
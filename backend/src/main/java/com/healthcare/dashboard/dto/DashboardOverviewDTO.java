@@ -0,0 +1,20 @@
+package com.healthcare.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Vue d'ensemble du tableau de bord: les parties non demandées restent null
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardOverviewDTO {
+    private DashboardStatsDTO stats;
+    private List<ActesByTypeStatsDTO> actesByType;
+    private List<RevenusByMonthStatsDTO> revenusByMonth;
+    private List<SejoursByServiceStatsDTO> sejoursByService;
+}
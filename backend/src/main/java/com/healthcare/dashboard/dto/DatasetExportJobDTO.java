@@ -0,0 +1,25 @@
+package com.healthcare.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatasetExportJobDTO {
+    private String id;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String format; // CSV, ARROW
+    private String status; // EN_ATTENTE, EN_COURS, TERMINE, ECHEC
+    private Integer daysProcessed;
+    private Integer totalDays;
+    private Long sizeBytes;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,12 @@
+package com.healthcare.dashboard.dto;
+
+/**
+ * Modèle de prévision demandé. HEURISTIQUE (par défaut) applique les facteurs saisonniers fixes;
+ * les modèles Holt-Winters sont ajustés sur la série journalière du service et retombent sur
+ * l'heuristique lorsque l'historique ne suffit pas.
+ */
+public enum ForecastModel {
+    HEURISTIQUE,
+    HOLT_WINTERS_ADDITIF,
+    HOLT_WINTERS_MULTIPLICATIF
+}
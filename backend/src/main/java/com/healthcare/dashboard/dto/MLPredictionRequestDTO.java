@@ -14,4 +14,5 @@ public class MLPredictionRequestDTO {
     private Integer daysAhead; // 30, 90, 180, 365
     private String predictionType; // COUT, PATIENTS, OCCUPATION
     private LocalDate startDate;
+    private ForecastModel modele; // HEURISTIQUE par défaut
 }
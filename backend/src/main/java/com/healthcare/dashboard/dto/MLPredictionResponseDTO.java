@@ -21,6 +21,7 @@ public class MLPredictionResponseDTO {
     private Double valeurMax;
     private List<String> facteursCles;
     private List<String> recommandations;
+    private ForecastModel modele; // modèle effectivement utilisé
     
     @Data
     @NoArgsConstructor
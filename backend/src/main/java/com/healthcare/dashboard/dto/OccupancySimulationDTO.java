@@ -0,0 +1,31 @@
+package com.healthcare.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancySimulationDTO {
+    private String service;
+    private Integer capacite;
+    private Integer replications;
+    private Double arriveesParJour; // taux moyen d'admissions ajusté sur l'historique
+    private Double dureeMoyenneSejour; // jours, séjours terminés de l'historique
+    private Integer sejoursEnCours;
+    private List<Day> jours;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate date;
+        private Double occupationMoyenne; // lits occupés
+        private Double tauxOccupation; // % de la capacité
+        private Double probabiliteDepassement; // part des réplications au-delà de la capacité
+    }
+}
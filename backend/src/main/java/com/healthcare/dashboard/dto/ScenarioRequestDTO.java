@@ -0,0 +1,41 @@
+package com.healthcare.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioRequestDTO {
+    private String predictionType; // COUT, PATIENTS, OCCUPATION
+    private Integer daysAhead; // 30 par défaut
+    private LocalDate startDate;
+    private ForecastModel modele; // HEURISTIQUE par défaut
+    private List<Scenario> scenarios;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Scenario {
+        private String nom;
+        private List<Change> changements;
+    }
+    
+    /**
+     * Variation appliquée aux facteurs actuels d'un service
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private String service;
+        private Integer medecins; // médecins ACTIF en plus (ou en moins)
+        private Double investissement; // montant investi en plus (€)
+        private String categorie; // EQUIPEMENT, INFRASTRUCTURE, TECHNOLOGIE, FORMATION
+        private Integer alertes; // alertes actives en plus (ou en moins)
+    }
+}
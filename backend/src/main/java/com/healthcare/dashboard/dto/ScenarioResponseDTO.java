@@ -0,0 +1,30 @@
+package com.healthcare.dashboard.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScenarioResponseDTO {
+    private String predictionType;
+    private Integer daysAhead;
+    private LocalDate startDate;
+    private ForecastModel modele;
+    private List<MLPredictionResponseDTO> reference; // prévisions actuelles des services concernés
+    private List<ScenarioResult> scenarios;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ScenarioResult {
+        private String nom;
+        private List<MLPredictionResponseDTO> predictions;
+        private Map<String, Double> variations; // écart de la valeur moyenne à la référence, en % par service
+    }
+}
@@ -0,0 +1,68 @@
+package com.healthcare.dashboard.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Table de faits journalière par service, dérivée des actes médicaux et des séjours.
+ * Maintenue par DailyServiceStatsService à chaque écriture d'acte ou de séjour.
+ * updated_at n'avance que lorsque les valeurs de la ligne changent: il sert de marqueur aux exports incrémentaux.
+ */
+@Entity
+@Table(name = "daily_service_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_service_stats", columnNames = {"stat_date", "service_id"}),
+       indexes = {
+           @Index(name = "idx_daily_service_stats_service", columnList = "service_id, stat_date"),
+           @Index(name = "idx_daily_service_stats_updated", columnList = "updated_at")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyServiceStats {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+    
+    @Column(nullable = false)
+    private Integer actesCount = 0;
+    
+    @Column(nullable = false)
+    private Double tarifTotal = 0.0;
+    
+    @Column(nullable = false)
+    private Double tarifMoyen = 0.0;
+    
+    @Column(nullable = false)
+    private Integer sejoursCount = 0;
+    
+    @Column(nullable = false)
+    private Double dureeMoyenneSejour = 0.0;
+    
+    @Column(nullable = false)
+    private Integer patientsCount = 0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public DailyServiceStats(LocalDate statDate, Long serviceId) {
+        this.statDate = statDate;
+        this.serviceId = serviceId;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
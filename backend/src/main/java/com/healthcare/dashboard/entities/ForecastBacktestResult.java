@@ -0,0 +1,58 @@
+package com.healthcare.dashboard.entities;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Résultat d'un backtest de prévision pour un service, un type et un modèle: erreurs moyennes et
+ * couverture des intervalles sur toutes les fenêtres d'un même lancement (run_id).
+ * Conservé pour suivre l'évolution de la qualité des modèles dans le temps.
+ */
+@Entity
+@Table(name = "forecast_backtest_results",
+       indexes = @Index(name = "idx_forecast_backtest_lookup", columnList = "service, prediction_type, modele, run_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastBacktestResult {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "run_id", nullable = false, length = 36)
+    private String runId;
+    
+    @Column(name = "run_at", nullable = false)
+    private LocalDateTime runAt;
+    
+    @Column(nullable = false)
+    private String service;
+    
+    @Column(name = "prediction_type", nullable = false)
+    private String predictionType; // COUT, PATIENTS, OCCUPATION
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ForecastModel modele;
+    
+    @Column(nullable = false)
+    private Integer horizon; // jours prévus par fenêtre
+    
+    @Column(nullable = false)
+    private Integer windows; // fenêtres évaluées
+    
+    @Column(nullable = false)
+    private Integer points; // jours prévus comparés au réalisé
+    
+    private Double mape; // en pourcentage, jours à valeur réalisée nulle exclus
+    
+    private Double smape; // en pourcentage
+    
+    private Double coverage; // part des valeurs réalisées dans l'intervalle, en pourcentage
+}
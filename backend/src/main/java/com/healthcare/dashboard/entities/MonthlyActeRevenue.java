@@ -0,0 +1,56 @@
+package com.healthcare.dashboard.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat mensuel des actes médicaux par service et par type (nombre d'actes et revenus).
+ * Maintenu par MonthlyRevenueService à chaque écriture d'acte; mois est le premier jour du mois.
+ */
+@Entity
+@Table(name = "monthly_acte_revenue",
+       uniqueConstraints = @UniqueConstraint(name = "uk_monthly_acte_revenue", columnNames = {"mois", "service_id", "type"}),
+       indexes = @Index(name = "idx_monthly_acte_revenue_service", columnList = "service_id, mois"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyActeRevenue {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDate mois;
+    
+    @Column(name = "service_id", nullable = false)
+    private Long serviceId;
+    
+    @Column(nullable = false)
+    private String type;
+    
+    @Column(nullable = false)
+    private Long actesCount = 0L;
+    
+    @Column(nullable = false)
+    private Double tarifTotal = 0.0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public MonthlyActeRevenue(LocalDate mois, Long serviceId, String type) {
+        this.mois = mois;
+        this.serviceId = serviceId;
+        this.type = type;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
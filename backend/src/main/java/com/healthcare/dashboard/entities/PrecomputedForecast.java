@@ -0,0 +1,58 @@
+package com.healthcare.dashboard.entities;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Prévision précalculée pour un horizon standard: réponse complète sérialisée en JSON, lue par la clé
+ * unique (date de début, type, modèle, horizon, service). position et service_count permettent de
+ * restituer la liste de tous les services dans l'ordre du calcul et de vérifier qu'elle est complète.
+ */
+@Entity
+@Table(name = "precomputed_forecasts",
+       uniqueConstraints = @UniqueConstraint(name = "uk_precomputed_forecasts",
+               columnNames = {"forecast_date", "prediction_type", "modele", "days_ahead", "service"}),
+       indexes = @Index(name = "idx_precomputed_forecasts_service", columnList = "service"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrecomputedForecast {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "forecast_date", nullable = false)
+    private LocalDate forecastDate; // premier jour prévu
+    
+    @Column(name = "prediction_type", nullable = false)
+    private String predictionType; // COUT, PATIENTS, OCCUPATION
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ForecastModel modele;
+    
+    @Column(name = "days_ahead", nullable = false)
+    private Integer daysAhead;
+    
+    @Column(nullable = false)
+    private String service;
+    
+    @Column(nullable = false)
+    private Integer position; // rang du service dans la liste de tous les services
+    
+    @Column(name = "service_count", nullable = false)
+    private Integer serviceCount;
+    
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String payload; // MLPredictionResponseDTO en JSON
+    
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+}
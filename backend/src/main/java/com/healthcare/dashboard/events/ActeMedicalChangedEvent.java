@@ -0,0 +1,38 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.ActeMedical;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un acte médical.
+ * previous est null pour une création, current est null pour une suppression.
+ */
+@Getter
+@AllArgsConstructor
+public class ActeMedicalChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un acte utiles aux agrégats, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final Long serviceId;
+        private final String type;
+        private final LocalDateTime dateRealisation;
+        private final Double tarif;
+
+        public static Snapshot of(ActeMedical acte) {
+            Long serviceId = acte.getSejour() != null && acte.getSejour().getService() != null
+                    ? acte.getSejour().getService().getId() : null;
+            return new Snapshot(acte.getId(), serviceId, acte.getType(), acte.getDateRealisation(), acte.getTarif());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Alert;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié après la création, la modification ou la suppression d'une alerte.
+ * previous est null pour une création, current est null pour une suppression.
+ * L'entité Alert ne porte pas de service: l'écriture concerne potentiellement tous les services.
+ */
+@Getter
+@AllArgsConstructor
+public class AlertChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'une alerte, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final String priorite;
+        private final Boolean lu;
+        private final Boolean resolu;
+
+        public static Snapshot of(Alert alert) {
+            return new Snapshot(alert.getId(), alert.getPriorite(), alert.getLu(), alert.getResolu());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.healthcare.dashboard.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Publié après le recalcul de la table de faits daily_service_stats sur [startDate, endDate].
+ * Des dates nulles signifient que toute la table a été reconstruite; serviceIds nul, que tous les services
+ * ont pu changer.
+ */
+@Getter
+@AllArgsConstructor
+public class DailyServiceStatsUpdatedEvent {
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Set<Long> serviceIds;
+
+    public DailyServiceStatsUpdatedEvent(LocalDate startDate, LocalDate endDate) {
+        this(startDate, endDate, null);
+    }
+
+    public static DailyServiceStatsUpdatedEvent all() {
+        return new DailyServiceStatsUpdatedEvent(null, null);
+    }
+}
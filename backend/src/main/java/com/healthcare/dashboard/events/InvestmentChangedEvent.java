@@ -0,0 +1,37 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Investment;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un investissement.
+ * previous est null pour une création, current est null pour une suppression.
+ * L'entité Investment ne porte pas de service: l'écriture concerne potentiellement tous les services.
+ */
+@Getter
+@AllArgsConstructor
+public class InvestmentChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un investissement, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final String statut;
+        private final Double montant;
+        private final LocalDateTime dateInvestissement;
+
+        public static Snapshot of(Investment investment) {
+            return new Snapshot(investment.getId(), investment.getStatut(), investment.getMontant(),
+                    investment.getDateInvestissement());
+        }
+    }
+}
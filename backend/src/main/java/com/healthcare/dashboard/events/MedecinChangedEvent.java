@@ -0,0 +1,35 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Medecin;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un médecin.
+ * previous est null pour une création, current est null pour une suppression.
+ */
+@Getter
+@AllArgsConstructor
+public class MedecinChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un médecin utiles aux prévisions, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final Long serviceId;
+        private final String statut;
+
+        public static Snapshot of(Medecin medecin) {
+            return new Snapshot(
+                    medecin.getId(),
+                    medecin.getService() != null ? medecin.getService().getId() : null,
+                    medecin.getStatut());
+        }
+    }
+}
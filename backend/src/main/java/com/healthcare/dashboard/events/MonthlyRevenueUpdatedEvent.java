@@ -0,0 +1,17 @@
+package com.healthcare.dashboard.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.YearMonth;
+
+/**
+ * Publié après une modification de la table monthly_acte_revenue sur les mois [startMonth, endMonth]
+ */
+@Getter
+@AllArgsConstructor
+public class MonthlyRevenueUpdatedEvent {
+
+    private final YearMonth startMonth;
+    private final YearMonth endMonth;
+}
@@ -0,0 +1,30 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Patient;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un patient.
+ * previous est null pour une création, current est null pour une suppression.
+ */
+@Getter
+@AllArgsConstructor
+public class PatientChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un patient utiles aux agrégats, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+
+        public static Snapshot of(Patient patient) {
+            return new Snapshot(patient.getId());
+        }
+    }
+}
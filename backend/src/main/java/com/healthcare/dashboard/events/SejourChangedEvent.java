@@ -0,0 +1,45 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Sejour;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un séjour.
+ * previous est null pour une création, current est null pour une suppression.
+ */
+@Getter
+@AllArgsConstructor
+public class SejourChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un séjour utiles aux agrégats, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final Long serviceId;
+        private final Long patientId;
+        private final LocalDateTime dateEntree;
+        private final LocalDateTime dateSortie;
+        private final Sejour.StatutSejour statut;
+        private final Double coutTotal;
+
+        public static Snapshot of(Sejour sejour) {
+            return new Snapshot(
+                    sejour.getId(),
+                    sejour.getService() != null ? sejour.getService().getId() : null,
+                    sejour.getPatient() != null ? sejour.getPatient().getId() : null,
+                    sejour.getDateEntree(),
+                    sejour.getDateSortie(),
+                    sejour.getStatut(),
+                    sejour.getCoutTotal());
+        }
+    }
+}
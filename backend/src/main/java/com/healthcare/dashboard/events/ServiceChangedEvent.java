@@ -0,0 +1,32 @@
+package com.healthcare.dashboard.events;
+
+import com.healthcare.dashboard.entities.Service;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publié après la création, la modification ou la suppression d'un service.
+ * previous est null pour une création, current est null pour une suppression.
+ */
+@Getter
+@AllArgsConstructor
+public class ServiceChangedEvent {
+
+    private final Snapshot previous;
+    private final Snapshot current;
+
+    /**
+     * Copie des champs d'un service gardés en mémoire, prise au moment de l'écriture
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Snapshot {
+        private final Long id;
+        private final String nom;
+        private final Integer capacite;
+
+        public static Snapshot of(Service service) {
+            return new Snapshot(service.getId(), service.getNom(), service.getCapacite());
+        }
+    }
+}
@@ -27,32 +27,24 @@ public interface ActeMedicalRepository extends JpaRepository<ActeMedical, Long>
     @Query("SELECT COUNT(a) FROM ActeMedical a")
     Long countTotalActes();
     
-    @Query(value = "SELECT type, COUNT(*) as count, COALESCE(SUM(tarif), 0) as revenus " +
-           "FROM actes_medicaux GROUP BY type ORDER BY count DESC", nativeQuery = true)
-    List<Object[]> findActesGroupedByType();
-    
-    @Query(value = "SELECT DATE_FORMAT(date_realisation, '%Y-%m') as mois, " +
-           "COALESCE(SUM(tarif), 0) as revenus, COUNT(*) as actes " +
-           "FROM actes_medicaux " +
-           "WHERE date_realisation >= :startDate " +
-           "GROUP BY DATE_FORMAT(date_realisation, '%Y-%m') " +
-           "ORDER BY mois", nativeQuery = true)
-    List<Object[]> findRevenusGroupedByMonth(LocalDateTime startDate);
-    
     // Nouvelles requêtes pour ML
-    @Query(value = "SELECT COUNT(*) as count, COALESCE(SUM(tarif), 0) as total, AVG(tarif) as avg " +
-           "FROM actes_medicaux a " +
-           "JOIN sejours s ON a.sejour_id = s.id " +
-           "JOIN services sv ON s.service_id = sv.id " +
-           "WHERE a.date_realisation >= :startDate AND a.date_realisation < :endDate " +
-           "AND sv.nom = :serviceName", nativeQuery = true)
-    List<Object[]> findStatsByDateAndService(LocalDateTime startDate, LocalDateTime endDate, String serviceName);
-    
-    @Query(value = "SELECT COALESCE(SUM(tarif), 0) as total " +
+    @Query(value = "SELECT CAST(a.date_realisation AS DATE) as jour, s.service_id as service_id, " +
+           "COUNT(*) as count, COALESCE(SUM(a.tarif), 0) as total, AVG(a.tarif) as avg " +
            "FROM actes_medicaux a " +
            "JOIN sejours s ON a.sejour_id = s.id " +
-           "JOIN services sv ON s.service_id = sv.id " +
            "WHERE a.date_realisation >= :startDate AND a.date_realisation < :endDate " +
-           "AND sv.nom = :serviceName", nativeQuery = true)
-    Double findStatsByDateRangeAndService(LocalDateTime startDate, LocalDateTime endDate, String serviceName);
+           "GROUP BY CAST(a.date_realisation AS DATE), s.service_id", nativeQuery = true)
+    List<Object[]> findDailyStatsByService(LocalDateTime startDate, LocalDateTime endDate);
+    
+    /**
+     * Nombre d'actes et revenus par mois (année, mois), service et type, sur [startDate, endDate[
+     */
+    @Query("SELECT YEAR(a.dateRealisation), MONTH(a.dateRealisation), a.sejour.service.id, a.type, " +
+           "COUNT(a), COALESCE(SUM(a.tarif), 0) FROM ActeMedical a " +
+           "WHERE a.dateRealisation >= ?1 AND a.dateRealisation < ?2 " +
+           "GROUP BY YEAR(a.dateRealisation), MONTH(a.dateRealisation), a.sejour.service.id, a.type")
+    List<Object[]> findMonthlyStatsByServiceAndType(LocalDateTime startDate, LocalDateTime endDate);
+    
+    @Query("SELECT MIN(a.dateRealisation) FROM ActeMedical a")
+    LocalDateTime findMinDateRealisation();
 }
@@ -29,8 +29,7 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     @Query("SELECT COUNT(a) FROM Alert a WHERE a.priorite = 'CRITIQUE' AND a.resolu = false")
     Long countCritiquesNonResolues();
     
-    @Query(value = "SELECT COUNT(*) FROM alerts a " +
-           "JOIN services s ON a.service_id = s.id " +
-           "WHERE s.nom = :serviceName AND a.status = :status", nativeQuery = true)
-    Long countByServiceNomAndStatus(String serviceName, String status);
+    @Query(value = "SELECT a.service_id, COUNT(*) FROM alerts a " +
+           "WHERE a.status = :status GROUP BY a.service_id", nativeQuery = true)
+    List<Object[]> countByStatusGroupedByService(String status);
 }
@@ -0,0 +1,57 @@
+package com.healthcare.dashboard.repositories;
+
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyServiceStatsRepository extends JpaRepository<DailyServiceStats, Long> {
+    
+    List<DailyServiceStats> findByStatDateBetween(LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * Lignes des jours de la période, verrouillées jusqu'à la fin de la transaction (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<DailyServiceStats> findForUpdateByStatDateBetween(LocalDate startDate, LocalDate endDate);
+    
+    List<DailyServiceStats> findByServiceIdAndStatDateBetween(Long serviceId, LocalDate startDate, LocalDate endDate);
+    
+    @Query("SELECT MIN(d.statDate) FROM DailyServiceStats d")
+    LocalDate findMinStatDate();
+    
+    @Query("SELECT MAX(d.updatedAt) FROM DailyServiceStats d")
+    LocalDateTime findMaxUpdatedAt();
+    
+    /**
+     * Premier lot des lignes modifiées après une date, dans l'ordre (jour, service)
+     */
+    @Query("SELECT d FROM DailyServiceStats d WHERE d.updatedAt > ?1 ORDER BY d.statDate, d.serviceId")
+    List<DailyServiceStats> findUpdatedAfter(LocalDateTime since, Pageable page);
+    
+    /**
+     * Lot suivant: lignes modifiées après une date et situées après la clé (jour, service) donnée
+     */
+    @Query("SELECT d FROM DailyServiceStats d WHERE d.updatedAt > ?1 " +
+           "AND (d.statDate > ?2 OR (d.statDate = ?2 AND d.serviceId > ?3)) ORDER BY d.statDate, d.serviceId")
+    List<DailyServiceStats> findUpdatedAfter(LocalDateTime since, LocalDate afterDate, Long afterServiceId, Pageable page);
+    
+    @Query("SELECT SUM(d.tarifTotal) FROM DailyServiceStats d, Service s " +
+           "WHERE s.id = d.serviceId AND s.nom = ?3 AND d.statDate >= ?1 AND d.statDate < ?2")
+    Double sumTarifByServiceNom(LocalDate startDate, LocalDate endDate, String serviceName);
+    
+    @Query("SELECT SUM(d.patientsCount) FROM DailyServiceStats d, Service s " +
+           "WHERE s.id = d.serviceId AND s.nom = ?3 AND d.statDate >= ?1 AND d.statDate < ?2")
+    Long sumPatientsByServiceNom(LocalDate startDate, LocalDate endDate, String serviceName);
+    
+    @Query("SELECT SUM(d.dureeMoyenneSejour * d.sejoursCount) / SUM(d.sejoursCount) FROM DailyServiceStats d, Service s " +
+           "WHERE s.id = d.serviceId AND s.nom = ?3 AND d.statDate >= ?1 AND d.statDate < ?2 AND d.sejoursCount > 0")
+    Double averageDureeSejourByServiceNom(LocalDate startDate, LocalDate endDate, String serviceName);
+}
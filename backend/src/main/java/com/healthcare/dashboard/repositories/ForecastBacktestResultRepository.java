@@ -0,0 +1,19 @@
+package com.healthcare.dashboard.repositories;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.entities.ForecastBacktestResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ForecastBacktestResultRepository extends JpaRepository<ForecastBacktestResult, Long> {
+    
+    List<ForecastBacktestResult> findByRunIdOrderByServiceAscModeleAsc(String runId);
+    
+    List<ForecastBacktestResult> findByServiceAndPredictionTypeOrderByRunAtDesc(String service, String predictionType);
+    
+    List<ForecastBacktestResult> findByServiceAndPredictionTypeAndModeleOrderByRunAtDesc(String service, String predictionType,
+                                                                                         ForecastModel modele);
+}
@@ -27,8 +27,7 @@ public interface InvestmentRepository extends JpaRepository<Investment, Long> {
     @Query("SELECT i.categorie, SUM(i.montant) FROM Investment i GROUP BY i.categorie")
     List<Object[]> sumMontantByCategorie();
     
-    @Query(value = "SELECT i.nom, i.montant FROM investments i " +
-           "JOIN services s ON i.service_id = s.id " +
-           "WHERE s.nom = :serviceName AND i.date_investissement >= :afterDate", nativeQuery = true)
-    List<Object[]> findByServiceNomAndDateAfter(String serviceName, LocalDateTime afterDate);
+    @Query(value = "SELECT i.service_id, i.date_investissement, i.montant FROM investments i " +
+           "WHERE i.date_investissement >= :afterDate", nativeQuery = true)
+    List<Object[]> findServiceAmountsSince(LocalDateTime afterDate);
 }
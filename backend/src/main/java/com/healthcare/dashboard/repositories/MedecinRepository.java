@@ -21,8 +21,7 @@ public interface MedecinRepository extends JpaRepository<Medecin, Long> {
     
     List<Medecin> findByNomContainingIgnoreCaseOrPrenomContainingIgnoreCase(String nom, String prenom);
     
-    @Query(value = "SELECT COUNT(*) FROM medecins m " +
-           "JOIN services s ON m.service_id = s.id " +
-           "WHERE s.nom = :serviceName AND m.statut = :statut", nativeQuery = true)
-    Long countByServiceNomAndStatut(String serviceName, String statut);
+    @Query(value = "SELECT m.service_id, COUNT(*) FROM medecins m " +
+           "WHERE m.statut = :statut GROUP BY m.service_id", nativeQuery = true)
+    List<Object[]> countByStatutGroupedByService(String statut);
 }
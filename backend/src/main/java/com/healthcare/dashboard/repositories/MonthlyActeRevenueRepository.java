@@ -0,0 +1,45 @@
+package com.healthcare.dashboard.repositories;
+
+import com.healthcare.dashboard.entities.MonthlyActeRevenue;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyActeRevenueRepository extends JpaRepository<MonthlyActeRevenue, Long> {
+    
+    /**
+     * Lignes des mois de la période, verrouillées jusqu'à la fin de la transaction (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<MonthlyActeRevenue> findByMoisBetween(LocalDate startMonth, LocalDate endMonth);
+    
+    @Query("SELECT MIN(m.mois) FROM MonthlyActeRevenue m")
+    LocalDate findMinMois();
+    
+    /**
+     * Revenus et nombre d'actes par mois, dans l'ordre des mois
+     */
+    @Query("SELECT m.mois, SUM(m.tarifTotal), SUM(m.actesCount) FROM MonthlyActeRevenue m " +
+           "WHERE m.mois BETWEEN ?1 AND ?2 GROUP BY m.mois ORDER BY m.mois")
+    List<Object[]> findRevenusGroupedByMonth(LocalDate startMonth, LocalDate endMonth);
+    
+    @Query("SELECT m.mois, SUM(m.tarifTotal), SUM(m.actesCount) FROM MonthlyActeRevenue m " +
+           "WHERE m.mois BETWEEN ?1 AND ?2 AND m.serviceId = ?3 GROUP BY m.mois ORDER BY m.mois")
+    List<Object[]> findRevenusGroupedByMonth(LocalDate startMonth, LocalDate endMonth, Long serviceId);
+    
+    /**
+     * Nombre d'actes et revenus par type, du type le plus fréquent au moins fréquent
+     */
+    @Query("SELECT m.type, SUM(m.actesCount), SUM(m.tarifTotal) FROM MonthlyActeRevenue m " +
+           "WHERE m.mois BETWEEN ?1 AND ?2 GROUP BY m.type ORDER BY SUM(m.actesCount) DESC")
+    List<Object[]> findActesGroupedByType(LocalDate startMonth, LocalDate endMonth);
+    
+    @Query("SELECT m.type, SUM(m.actesCount), SUM(m.tarifTotal) FROM MonthlyActeRevenue m " +
+           "WHERE m.mois BETWEEN ?1 AND ?2 AND m.serviceId = ?3 GROUP BY m.type ORDER BY SUM(m.actesCount) DESC")
+    List<Object[]> findActesGroupedByType(LocalDate startMonth, LocalDate endMonth, Long serviceId);
+}
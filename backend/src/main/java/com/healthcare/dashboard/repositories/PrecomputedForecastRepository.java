@@ -0,0 +1,45 @@
+package com.healthcare.dashboard.repositories;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.entities.PrecomputedForecast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PrecomputedForecastRepository extends JpaRepository<PrecomputedForecast, Long> {
+    
+    Optional<PrecomputedForecast> findByForecastDateAndPredictionTypeAndModeleAndDaysAheadAndService(
+            LocalDate forecastDate, String predictionType, ForecastModel modele, Integer daysAhead, String service);
+    
+    List<PrecomputedForecast> findByForecastDateAndPredictionTypeAndModeleAndDaysAheadOrderByPositionAsc(
+            LocalDate forecastDate, String predictionType, ForecastModel modele, Integer daysAhead);
+    
+    boolean existsByForecastDate(LocalDate forecastDate);
+    
+    @Modifying
+    @Query("DELETE FROM PrecomputedForecast p WHERE p.service = :service")
+    int deleteByService(@Param("service") String service);
+    
+    @Modifying
+    @Query("DELETE FROM PrecomputedForecast p WHERE p.service IN :services "
+         + "AND p.forecastDate BETWEEN :startDate AND :endDate")
+    int deleteByServicesAndForecastDateBetween(@Param("services") Collection<String> services,
+                                               @Param("startDate") LocalDate startDate,
+                                               @Param("endDate") LocalDate endDate);
+    
+    @Modifying
+    @Query("DELETE FROM PrecomputedForecast p WHERE p.forecastDate BETWEEN :startDate AND :endDate")
+    int deleteByForecastDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    @Modifying
+    @Query("DELETE FROM PrecomputedForecast p")
+    int deleteAllRows();
+}
@@ -26,6 +26,11 @@ public interface SejourRepository extends JpaRepository<Sejour, Long> {
     @Query("SELECT s FROM Sejour s WHERE s.dateEntree BETWEEN ?1 AND ?2")
     List<Sejour> findSejoursByDateRange(LocalDateTime startDate, LocalDateTime endDate);
     
+    // Entrée, sortie et statut des séjours d'un service entrés depuis since ou encore au statut donné (simulation d'occupation)
+    @Query("SELECT s.dateEntree, s.dateSortie, s.statut FROM Sejour s " +
+           "WHERE s.service.id = ?1 AND (s.dateEntree >= ?2 OR s.statut = ?3)")
+    List<Object[]> findStayHistory(Long serviceId, LocalDateTime since, Sejour.StatutSejour statut);
+    
     @Query(value = "SELECT sv.nom as service, " +
            "SUM(CASE WHEN s.statut = 'EN_COURS' THEN 1 ELSE 0 END) as actifs, " +
            "COUNT(s.id) as total " +
@@ -34,21 +39,6 @@ public interface SejourRepository extends JpaRepository<Sejour, Long> {
            "ORDER BY actifs DESC", nativeQuery = true)
     List<Object[]> findSejoursGroupedByService();
     
-    // Nouvelles requêtes pour ML
-    @Query(value = "SELECT COUNT(*) as count, AVG(TIMESTAMPDIFF(DAY, date_entree, COALESCE(date_sortie, NOW()))) as avg_duration " +
-           "FROM sejours s " +
-           "JOIN services sv ON s.service_id = sv.id " +
-           "WHERE s.date_entree >= :startDate AND s.date_entree < :endDate " +
-           "AND sv.nom = :serviceName", nativeQuery = true)
-    List<Object[]> findStatsByDateAndService(LocalDateTime startDate, LocalDateTime endDate, String serviceName);
-    
-    @Query(value = "SELECT AVG(TIMESTAMPDIFF(DAY, date_entree, COALESCE(date_sortie, NOW()))) " +
-           "FROM sejours s " +
-           "JOIN services sv ON s.service_id = sv.id " +
-           "WHERE s.date_entree >= :startDate AND s.date_entree < :endDate " +
-           "AND sv.nom = :serviceName", nativeQuery = true)
-    Double findAverageOccupationByService(LocalDateTime startDate, LocalDateTime endDate, String serviceName);
-    
     // Nouvelles requêtes pour utiliser les données actuelles
     @Query(value = "SELECT AVG(COALESCE(s.cout_total, 0)) " +
            "FROM sejours s " +
@@ -67,4 +57,23 @@ public interface SejourRepository extends JpaRepository<Sejour, Long> {
            "JOIN services sv ON s.service_id = sv.id " +
            "WHERE sv.nom = :serviceName AND s.statut = 'EN_COURS'", nativeQuery = true)
     Long countActiveSejoursByService(String serviceName);
+    
+    /**
+     * Coût moyen, patients distincts et séjours en cours de chaque service, en une seule requête
+     */
+    @Query(value = "SELECT s.service_id, AVG(COALESCE(s.cout_total, 0)), COUNT(DISTINCT s.patient_id), " +
+           "SUM(CASE WHEN s.statut = 'EN_COURS' THEN 1 ELSE 0 END) " +
+           "FROM sejours s GROUP BY s.service_id", nativeQuery = true)
+    List<Object[]> findCurrentStatsGroupedByService();
+    
+    @Query(value = "SELECT CAST(s.date_entree AS DATE) as jour, s.service_id as service_id, COUNT(*) as count, " +
+           "AVG(TIMESTAMPDIFF(DAY, s.date_entree, COALESCE(s.date_sortie, NOW()))) as avg_duration, " +
+           "COUNT(DISTINCT s.patient_id) as patients " +
+           "FROM sejours s " +
+           "WHERE s.date_entree >= :startDate AND s.date_entree < :endDate " +
+           "GROUP BY CAST(s.date_entree AS DATE), s.service_id", nativeQuery = true)
+    List<Object[]> findDailyStatsByService(LocalDateTime startDate, LocalDateTime endDate);
+    
+    @Query("SELECT MIN(s.dateEntree) FROM Sejour s")
+    LocalDateTime findMinDateEntree();
 }
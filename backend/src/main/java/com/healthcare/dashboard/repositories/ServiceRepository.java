@@ -12,6 +12,9 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     
     Optional<Service> findByNom(String nom);
     
-    @Query(value = "SELECT nom FROM services", nativeQuery = true)
-    List<Object[]> findAllBasicInfo();
+    @Query(value = "SELECT id, nom FROM services ORDER BY id", nativeQuery = true)
+    List<Object[]> findAllIdAndNom();
+    
+    @Query(value = "SELECT id, nom, capacite FROM services ORDER BY id", nativeQuery = true)
+    List<Object[]> findAllIdNomAndCapacite();
 }
@@ -3,9 +3,11 @@ package com.healthcare.dashboard.services;
 import com.healthcare.dashboard.dto.ActeMedicalDTO;
 import com.healthcare.dashboard.entities.ActeMedical;
 import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
 import com.healthcare.dashboard.repositories.ActeMedicalRepository;
 import com.healthcare.dashboard.repositories.SejourRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -18,6 +20,7 @@ public class ActeMedicalService {
     
     private final ActeMedicalRepository acteMedicalRepository;
     private final SejourRepository sejourRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<ActeMedicalDTO> getAllActes() {
@@ -66,6 +69,7 @@ public class ActeMedicalService {
         acte.setNotes(acteDTO.getNotes());
         
         ActeMedical savedActe = acteMedicalRepository.save(acte);
+        eventPublisher.publishEvent(new ActeMedicalChangedEvent(null, ActeMedicalChangedEvent.Snapshot.of(savedActe)));
         return convertToDTO(savedActe);
     }
     
@@ -73,6 +77,7 @@ public class ActeMedicalService {
     public ActeMedicalDTO updateActe(Long id, ActeMedicalDTO acteDTO) {
         ActeMedical acte = acteMedicalRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Acte médical non trouvé avec l'id: " + id));
+        ActeMedicalChangedEvent.Snapshot previous = ActeMedicalChangedEvent.Snapshot.of(acte);
         
         acte.setCode(acteDTO.getCode());
         acte.setLibelle(acteDTO.getLibelle());
@@ -83,12 +88,19 @@ public class ActeMedicalService {
         acte.setNotes(acteDTO.getNotes());
         
         ActeMedical updatedActe = acteMedicalRepository.save(acte);
+        eventPublisher.publishEvent(new ActeMedicalChangedEvent(previous, ActeMedicalChangedEvent.Snapshot.of(updatedActe)));
         return convertToDTO(updatedActe);
     }
     
     @Transactional
     public void deleteActe(Long id) {
+        ActeMedicalChangedEvent.Snapshot previous = acteMedicalRepository.findById(id)
+            .map(ActeMedicalChangedEvent.Snapshot::of)
+            .orElse(null);
         acteMedicalRepository.deleteById(id);
+        if (previous != null) {
+            eventPublisher.publishEvent(new ActeMedicalChangedEvent(previous, null));
+        }
     }
     
     private ActeMedicalDTO convertToDTO(ActeMedical acte) {
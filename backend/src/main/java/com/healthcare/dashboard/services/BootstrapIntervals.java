@@ -0,0 +1,165 @@
+package com.healthcare.dashboard.services;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Intervalles de prévision par bootstrap des résidus d'un modèle Holt-Winters ajusté: des milliers de
+ * trajectoires sont simulées en parallèle (fork/join, tableaux primitifs) puis les quantiles de chaque jour
+ * donnent les bornes. La trajectoire i est tirée d'un SplittableRandom initialisé par (graine, i): à nombre
+ * de tirages égal, le résultat ne dépend pas du découpage parallèle.
+ * Le nombre de tirages est plafonné par un budget de latence, à partir du coût mesuré d'un pas de simulation;
+ * un budget nul utilise toujours le nombre maximal de tirages.
+ */
+@Component
+public class BootstrapIntervals {
+
+    // Trajectoires simulées par tâche feuille
+    private static final int LEAF_PATHS = 64;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final double level;
+    private final int maxResamples;
+    private final int minResamples;
+    private final long budgetNanos;
+    private final ForkJoinPool pool;
+
+    // Coût moyen mesuré d'un pas de simulation (nanosecondes, tous cœurs confondus)
+    private final AtomicLong nanosPerStep = new AtomicLong(50);
+
+    public BootstrapIntervals(
+            @Value("${app.ml.bootstrap.level:0.90}") double level,
+            @Value("${app.ml.bootstrap.max-resamples:2000}") int maxResamples,
+            @Value("${app.ml.bootstrap.min-resamples:200}") int minResamples,
+            @Value("${app.ml.bootstrap.budget-ms:50}") long budgetMs,
+            @Value("${app.ml.bootstrap.parallelism:0}") int parallelism) {
+        if (level <= 0 || level >= 1) {
+            throw new IllegalArgumentException("app.ml.bootstrap.level doit être dans ]0, 1[: " + level);
+        }
+        this.level = level;
+        this.maxResamples = Math.max(1, maxResamples);
+        this.minResamples = Math.max(1, Math.min(minResamples, this.maxResamples));
+        this.budgetNanos = budgetMs * 1_000_000L;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Bornes inférieures et supérieures des jours 1..horizon suivant la fin de la série ajustée
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Bands {
+        private final double[] lower;
+        private final double[] upper;
+    }
+
+    public Bands intervals(HoltWinters.Fit fit, int horizon, long seed) {
+        int resamples = resamplesFor(horizon);
+        double[] paths = new double[horizon * resamples];
+        long start = System.nanoTime();
+        pool.invoke(new PathTask(fit, horizon, resamples, seed, paths, 0, resamples));
+        long perStep = (System.nanoTime() - start) / Math.max(1L, (long) horizon * resamples);
+        // Moyenne glissante: une mesure isolée (préchauffage, GC) ne fait pas varier brutalement le plafond
+        nanosPerStep.updateAndGet(previous -> Math.max(1L, (3 * previous + perStep) / 4));
+        return quantiles(paths, horizon, resamples, level);
+    }
+
+    /**
+     * Version séquentielle à nombre de tirages fixe, pour les appelants déjà parallèles (backtests)
+     */
+    public static Bands intervals(HoltWinters.Fit fit, int horizon, int resamples, long seed, double level) {
+        double[] paths = new double[horizon * resamples];
+        simulate(fit, horizon, seed, paths, 0, resamples, resamples);
+        return quantiles(paths, horizon, resamples, level);
+    }
+
+    public double getLevel() {
+        return level;
+    }
+
+    int resamplesFor(int horizon) {
+        if (budgetNanos <= 0) {
+            return maxResamples;
+        }
+        long affordable = budgetNanos / Math.max(1L, nanosPerStep.get() * horizon);
+        // Arrondi à la centaine: de petites variations de la mesure ne changent pas le nombre de tirages
+        long rounded = affordable / 100 * 100;
+        return (int) Math.max(minResamples, Math.min(maxResamples, rounded));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Simule les trajectoires [from, to[; la valeur du jour h de la trajectoire i est rangée en paths[h * resamples + i]
+     */
+    private static void simulate(HoltWinters.Fit fit, int horizon, long seed, double[] paths, int from, int to,
+                                 int resamples) {
+        double[] path = new double[horizon];
+        double[] weekly = new double[HoltWinters.WEEK];
+        double[] annual = new double[HoltWinters.YEAR];
+        for (int i = from; i < to; i++) {
+            fit.simulate(new SplittableRandom(seed + i * GOLDEN_GAMMA), path, weekly, annual);
+            for (int h = 0; h < horizon; h++) {
+                paths[h * resamples + i] = path[h];
+            }
+        }
+    }
+
+    private static Bands quantiles(double[] paths, int horizon, int resamples, double level) {
+        double[] lower = new double[horizon];
+        double[] upper = new double[horizon];
+        double tail = (1 - level) / 2;
+        int low = (int) Math.floor(tail * (resamples - 1));
+        int high = (int) Math.ceil((1 - tail) * (resamples - 1));
+        for (int h = 0; h < horizon; h++) {
+            int offset = h * resamples;
+            Arrays.sort(paths, offset, offset + resamples);
+            lower[h] = paths[offset + low];
+            upper[h] = paths[offset + high];
+        }
+        return new Bands(lower, upper);
+    }
+
+    private static class PathTask extends RecursiveAction {
+        private final HoltWinters.Fit fit;
+        private final int horizon;
+        private final int resamples;
+        private final long seed;
+        private final double[] paths;
+        private final int from;
+        private final int to;
+
+        PathTask(HoltWinters.Fit fit, int horizon, int resamples, long seed, double[] paths, int from, int to) {
+            this.fit = fit;
+            this.horizon = horizon;
+            this.resamples = resamples;
+            this.seed = seed;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_PATHS) {
+                simulate(fit, horizon, seed, paths, from, to, resamples);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PathTask(fit, horizon, resamples, seed, paths, from, middle),
+                      new PathTask(fit, horizon, resamples, seed, paths, middle, to));
+        }
+    }
+}
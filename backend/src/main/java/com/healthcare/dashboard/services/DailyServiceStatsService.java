@@ -0,0 +1,264 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintient la table de faits daily_service_stats (un enregistrement par jour et par service).
+ * Les jours touchés par une écriture d'acte ou de séjour sont recalculés après le commit;
+ * une reconstruction complète reste disponible pour l'initialisation et les corrections. Elle valide chaque
+ * lot de jours dans sa propre transaction: updated_at précède ainsi le commit d'au plus le calcul d'un lot,
+ * ce que suppose le marqueur des exports incrémentaux ({@link MLDatasetService#nextWatermark()}).
+ * Ses écouteurs passent avant ceux des caches dérivés, qui relisent ainsi une table déjà à jour.
+ * Les recalculs d'un même jour sont exécutés l'un après l'autre, chacun dans sa transaction, et verrouillent
+ * les lignes existantes avant de lire les actes et séjours: un recalcul ne peut pas écraser un plus récent.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DailyServiceStatsService {
+    
+    private final DailyServiceStatsRepository dailyServiceStatsRepository;
+    private final ActeMedicalRepository acteMedicalRepository;
+    private final SejourRepository sejourRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final Map<LocalDate, Object> dayLocks = new ConcurrentHashMap<>();
+    
+    /**
+     * Recalcule les statistiques de tous les jours de [startDate, endDate], par lots de jours validés un à un
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return 0;
+        }
+        int written = 0;
+        LocalDate windowStart = startDate;
+        while (!windowStart.isAfter(endDate)) {
+            LocalDate windowEnd = windowStart.plusDays(MLDatasetService.WINDOW_DAYS - 1);
+            if (windowEnd.isAfter(endDate)) {
+                windowEnd = endDate;
+            }
+            LocalDate start = windowStart;
+            LocalDate end = windowEnd;
+            Integer rows = newTransaction().execute(status -> rebuildWindow(start, end));
+            written += rows != null ? rows : 0;
+            windowStart = windowEnd.plusDays(1);
+        }
+        return written;
+    }
+    
+    /**
+     * Recalcule toute la table, du premier jour connu (données ou lignes existantes) à aujourd'hui.
+     * Les lignes ne sont pas supprimées: seules celles dont les valeurs changent sont réécrites.
+     */
+    public int rebuildAll() {
+        LocalDate first = earliestDataDate();
+        LocalDate firstStat = dailyServiceStatsRepository.findMinStatDate();
+        if (first == null || (firstStat != null && firstStat.isBefore(first))) {
+            first = firstStat;
+        }
+        return first != null ? rebuild(first, LocalDate.now()) : 0;
+    }
+    
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        Set<LocalDate> days = new TreeSet<>();
+        if (event.getPrevious() != null && event.getPrevious().getDateRealisation() != null) {
+            days.add(event.getPrevious().getDateRealisation().toLocalDate());
+        }
+        if (event.getCurrent() != null && event.getCurrent().getDateRealisation() != null) {
+            days.add(event.getCurrent().getDateRealisation().toLocalDate());
+        }
+        refreshDays(days);
+    }
+    
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        Set<LocalDate> days = new TreeSet<>();
+        if (event.getPrevious() != null && event.getPrevious().getDateEntree() != null) {
+            days.add(event.getPrevious().getDateEntree().toLocalDate());
+        }
+        if (event.getCurrent() != null && event.getCurrent().getDateEntree() != null) {
+            days.add(event.getCurrent().getDateEntree().toLocalDate());
+        }
+        refreshDays(days);
+    }
+    
+    /**
+     * Initialise la table au démarrage si elle est vide. Aucune transaction n'englobe l'initialisation:
+     * chaque lot de jours est validé par rebuild, et un échec n'annule que son propre lot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        try {
+            if (dailyServiceStatsRepository.count() == 0) {
+                int rows = rebuildAll();
+                log.info("daily_service_stats initialisée: {} lignes", rows);
+            }
+        } catch (Exception e) {
+            log.error("Initialisation de daily_service_stats impossible", e);
+        }
+    }
+    
+    /**
+     * La durée des séjours en cours s'allonge chaque jour: les jours récents sont recalculés chaque nuit
+     */
+    @Scheduled(cron = "${app.daily-stats.refresh-cron:0 15 2 * * *}")
+    public void refreshRecentDays() {
+        try {
+            LocalDate today = LocalDate.now();
+            rebuild(today.minusDays(90), today);
+        } catch (Exception e) {
+            log.error("Rafraîchissement nocturne de daily_service_stats impossible", e);
+        }
+    }
+    
+    private void refreshDays(Set<LocalDate> days) {
+        days.forEach(this::rebuildDay);
+    }
+    
+    /**
+     * Recalcule un jour dans sa propre transaction, après le recalcul en cours du même jour.
+     * Une erreur de recalcul ne doit jamais remonter vers l'écriture qui l'a déclenchée.
+     */
+    void rebuildDay(LocalDate day) {
+        synchronized (dayLocks.computeIfAbsent(day, key -> new Object())) {
+            try {
+                newTransaction().executeWithoutResult(status -> rebuildWindow(day, day));
+            } catch (Exception e) {
+                log.error("Recalcul de daily_service_stats impossible pour le {}", day, e);
+            }
+        }
+    }
+    
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+    
+    /**
+     * Met à jour les lignes de [startDate, endDate] et renvoie le nombre de lignes écrites.
+     * Une ligne n'est réécrite que si ses valeurs changent, afin que updated_at ne marque que les vraies
+     * modifications; une ligne dont les actes et séjours ont disparu est remise à zéro plutôt que supprimée.
+     */
+    private int rebuildWindow(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        // Lignes existantes verrouillées avant la lecture des actes et séjours: un recalcul concurrent attend
+        Map<String, DailyServiceStats> existing = new HashMap<>();
+        for (DailyServiceStats stats : dailyServiceStatsRepository.findForUpdateByStatDateBetween(startDate, endDate)) {
+            existing.put(key(stats.getStatDate(), stats.getServiceId()), stats);
+        }
+        Map<String, DailyServiceStats> rows = new LinkedHashMap<>();
+        
+        for (Object[] stats : acteMedicalRepository.findDailyStatsByService(start, end)) {
+            DailyServiceStats row = row(rows, stats);
+            if (row == null) continue;
+            row.setActesCount(stats[2] != null ? ((Number) stats[2]).intValue() : 0);
+            row.setTarifTotal(stats[3] != null ? ((Number) stats[3]).doubleValue() : 0.0);
+            row.setTarifMoyen(stats[4] != null ? ((Number) stats[4]).doubleValue() : 0.0);
+        }
+        
+        for (Object[] stats : sejourRepository.findDailyStatsByService(start, end)) {
+            DailyServiceStats row = row(rows, stats);
+            if (row == null) continue;
+            row.setSejoursCount(stats[2] != null ? ((Number) stats[2]).intValue() : 0);
+            row.setDureeMoyenneSejour(stats[3] != null ? ((Number) stats[3]).doubleValue() : 0.0);
+            row.setPatientsCount(stats[4] != null ? ((Number) stats[4]).intValue() : 0);
+        }
+        
+        List<DailyServiceStats> changed = new ArrayList<>();
+        for (Map.Entry<String, DailyServiceStats> entry : rows.entrySet()) {
+            DailyServiceStats current = existing.remove(entry.getKey());
+            if (current == null) {
+                changed.add(entry.getValue());
+            } else if (copyIfChanged(entry.getValue(), current)) {
+                changed.add(current);
+            }
+        }
+        DailyServiceStats empty = new DailyServiceStats();
+        for (DailyServiceStats stale : existing.values()) {
+            if (copyIfChanged(empty, stale)) {
+                changed.add(stale);
+            }
+        }
+        
+        if (!changed.isEmpty()) {
+            dailyServiceStatsRepository.saveAll(changed);
+            Set<Long> serviceIds = new TreeSet<>();
+            changed.forEach(stats -> serviceIds.add(stats.getServiceId()));
+            eventPublisher.publishEvent(new DailyServiceStatsUpdatedEvent(startDate, endDate, serviceIds));
+        }
+        return changed.size();
+    }
+    
+    /**
+     * Copie les valeurs calculées dans la ligne existante; renvoie false si elles sont identiques
+     */
+    private static boolean copyIfChanged(DailyServiceStats computed, DailyServiceStats target) {
+        if (computed.getActesCount().equals(target.getActesCount())
+                && computed.getTarifTotal().equals(target.getTarifTotal())
+                && computed.getTarifMoyen().equals(target.getTarifMoyen())
+                && computed.getSejoursCount().equals(target.getSejoursCount())
+                && computed.getDureeMoyenneSejour().equals(target.getDureeMoyenneSejour())
+                && computed.getPatientsCount().equals(target.getPatientsCount())) {
+            return false;
+        }
+        target.setActesCount(computed.getActesCount());
+        target.setTarifTotal(computed.getTarifTotal());
+        target.setTarifMoyen(computed.getTarifMoyen());
+        target.setSejoursCount(computed.getSejoursCount());
+        target.setDureeMoyenneSejour(computed.getDureeMoyenneSejour());
+        target.setPatientsCount(computed.getPatientsCount());
+        return true;
+    }
+    
+    private static DailyServiceStats row(Map<String, DailyServiceStats> rows, Object[] stats) {
+        if (stats[0] == null || stats[1] == null) {
+            return null;
+        }
+        LocalDate day = MLDatasetService.toLocalDate(stats[0]);
+        long serviceId = ((Number) stats[1]).longValue();
+        return rows.computeIfAbsent(key(day, serviceId), key -> new DailyServiceStats(day, serviceId));
+    }
+    
+    private static String key(LocalDate day, long serviceId) {
+        return day + "/" + serviceId;
+    }
+    
+    private LocalDate earliestDataDate() {
+        LocalDateTime firstActe = acteMedicalRepository.findMinDateRealisation();
+        LocalDateTime firstSejour = sejourRepository.findMinDateEntree();
+        if (firstActe == null && firstSejour == null) return null;
+        if (firstActe == null) return firstSejour.toLocalDate();
+        if (firstSejour == null) return firstActe.toLocalDate();
+        return (firstActe.isBefore(firstSejour) ? firstActe : firstSejour).toLocalDate();
+    }
+}
@@ -0,0 +1,205 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.PatientChangedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.PatientRepository;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Compteurs du tableau de bord (patients, séjours en cours, actes, revenus du mois et de l'année) gardés
+ * en mémoire et tenus à jour par les événements d'écriture des patients, séjours et actes.
+ * Ils sont chargés depuis la base au premier accès, au changement de mois et périodiquement: la
+ * réconciliation corrige les écritures faites hors des services et les actes datés dans le futur,
+ * qui ne comptent dans les revenus qu'une fois leur date passée, comme dans la requête SUM(tarif).
+ * Chaque chargement crée une nouvelle génération de compteurs, publiée une fois les valeurs relues: une
+ * variation reçue par la génération précédente est abandonnée avec elle, car son écriture, validée avant
+ * l'écouteur, est déjà comptée par le rechargement (une écriture validée pendant la relecture même est
+ * rattrapée par la réconciliation suivante). Les variations ne prennent aucun verrou.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardCounters {
+
+    private final PatientRepository patientRepository;
+    private final SejourRepository sejourRepository;
+    private final ActeMedicalRepository acteMedicalRepository;
+    private final TableVersions tableVersions;
+
+    // Génération courante, null tant que les compteurs n'ont pas été chargés
+    private volatile Generation generation;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Totals {
+        private final long totalPatients;
+        private final long sejoursEnCours;
+        private final long totalActes;
+        private final double revenusMois;
+        private final double revenusAnnee;
+    }
+
+    public Totals current() {
+        return current(LocalDateTime.now());
+    }
+
+    Totals current(LocalDateTime now) {
+        ensurePeriod(now);
+        Generation counters = generation;
+        return new Totals(counters.patients.sum(), counters.sejoursEnCours.sum(), counters.actes.sum(),
+                round(counters.revenusMois.sum()), round(counters.revenusAnnee.sum()));
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.dashboard.counters.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        reload(LocalDateTime.now());
+    }
+
+    synchronized void reload(LocalDateTime now) {
+        LocalDateTime startOfMonth = now.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime startOfYear = now.toLocalDate().withDayOfYear(1).atStartOfDay();
+        Generation reloaded = new Generation(YearMonth.from(now));
+        add(reloaded.patients, patientRepository.countTotalPatients());
+        add(reloaded.sejoursEnCours, sejourRepository.countSejoursEnCours());
+        add(reloaded.actes, acteMedicalRepository.countTotalActes());
+        add(reloaded.revenusMois, acteMedicalRepository.calculateTotalRevenue(startOfMonth, now));
+        add(reloaded.revenusAnnee, acteMedicalRepository.calculateTotalRevenue(startOfYear, now));
+        generation = reloaded;
+        tableVersions.bump(TableVersions.DASHBOARD_COUNTERS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        update(this::ensureLoaded, counters ->
+                counters.patients.add(presence(event.getCurrent()) - presence(event.getPrevious())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        update(this::ensureLoaded, counters ->
+                counters.sejoursEnCours.add(enCours(event.getCurrent()) - enCours(event.getPrevious())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        onActeChanged(event, LocalDateTime.now());
+    }
+
+    void onActeChanged(ActeMedicalChangedEvent event, LocalDateTime now) {
+        update(() -> ensurePeriod(now), counters -> {
+            counters.actes.add(presence(event.getCurrent()) - presence(event.getPrevious()));
+            addRevenue(counters, event.getPrevious(), -1, now);
+            addRevenue(counters, event.getCurrent(), 1, now);
+        });
+    }
+
+    /**
+     * Revenu d'un acte réalisé au plus tard maintenant, compté dans le mois et l'année de sa date
+     */
+    private static void addRevenue(Generation counters, ActeMedicalChangedEvent.Snapshot acte, int sign,
+                                   LocalDateTime now) {
+        if (acte == null || acte.getTarif() == null || acte.getDateRealisation() == null
+                || acte.getDateRealisation().isAfter(now) || acte.getDateRealisation().getYear() != now.getYear()) {
+            return;
+        }
+        counters.revenusAnnee.add(sign * acte.getTarif());
+        if (acte.getDateRealisation().getMonth() == now.getMonth()) {
+            counters.revenusMois.add(sign * acte.getTarif());
+        }
+    }
+
+    /**
+     * Applique une variation à la génération lue avant la vérification du chargement, sauf si les
+     * compteurs viennent d'être rechargés: elle est alors déjà visible en base. Un rechargement publié
+     * entre la vérification et l'application a lui aussi relu l'écriture: la variation part avec
+     * l'ancienne génération au lieu d'être comptée deux fois
+     */
+    private void update(BooleanSupplier reload, Consumer<Generation> delta) {
+        Generation counters = generation;
+        if (reload.getAsBoolean() || counters == null) {
+            return;
+        }
+        delta.accept(counters);
+        tableVersions.bump(TableVersions.DASHBOARD_COUNTERS);
+    }
+
+    /**
+     * Charge les compteurs au premier accès; renvoie true s'ils l'ont été
+     */
+    private boolean ensureLoaded() {
+        return generation == null && ensurePeriod(LocalDateTime.now());
+    }
+
+    /**
+     * Recharge les compteurs s'ils ne correspondent pas au mois courant; renvoie true s'ils l'ont été
+     */
+    private boolean ensurePeriod(LocalDateTime now) {
+        if (isCurrent(now)) {
+            return false;
+        }
+        synchronized (this) {
+            if (isCurrent(now)) {
+                return false;
+            }
+            reload(now);
+            return true;
+        }
+    }
+
+    private boolean isCurrent(LocalDateTime now) {
+        Generation counters = generation;
+        return counters != null && YearMonth.from(now).equals(counters.period);
+    }
+
+    private static long presence(Object snapshot) {
+        return snapshot != null ? 1 : 0;
+    }
+
+    private static long enCours(SejourChangedEvent.Snapshot sejour) {
+        return sejour != null && sejour.getStatut() == Sejour.StatutSejour.EN_COURS ? 1 : 0;
+    }
+
+    private static void add(LongAdder adder, Long value) {
+        adder.add(value != null ? value : 0L);
+    }
+
+    private static void add(DoubleAdder adder, Double value) {
+        adder.add(value != null ? value : 0.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Compteurs d'un chargement: valeurs relues en base (mois des revenus compris) plus les variations reçues depuis
+     */
+    private static class Generation {
+        final YearMonth period;
+        final LongAdder patients = new LongAdder();
+        final LongAdder sejoursEnCours = new LongAdder();
+        final LongAdder actes = new LongAdder();
+        final DoubleAdder revenusMois = new DoubleAdder();
+        final DoubleAdder revenusAnnee = new DoubleAdder();
+
+        Generation(YearMonth period) {
+            this.period = period;
+        }
+    }
+}
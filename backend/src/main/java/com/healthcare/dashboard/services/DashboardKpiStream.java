@@ -0,0 +1,130 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.PatientChangedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.AlertRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Flux SSE des indicateurs du tableau de bord, à la place de l'interrogation périodique de
+ * /api/dashboard/stats et /api/alerts/stats. Deux groupes: "dashboard" (compteurs en mémoire, modifiés par
+ * les écritures de patients, séjours et actes) et "alerts" (comptes d'alertes, modifiés par les écritures
+ * d'alertes). Les indicateurs d'un groupe ne sont recalculés, une fois pour tous ses abonnés, qu'après
+ * une écriture qui le concerne.
+ */
+@Component
+public class DashboardKpiStream {
+
+    public static final String DASHBOARD = "dashboard";
+    public static final String ALERTS = "alerts";
+
+    private final long timeoutMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, KpiBroadcaster> broadcasters = new LinkedHashMap<>();
+
+    public DashboardKpiStream(
+            DashboardCounters dashboardCounters,
+            AlertRepository alertRepository,
+            MeterRegistry meterRegistry,
+            @Value("${app.dashboard.sse.coalesce-ms:500}") long coalesceMillis,
+            @Value("${app.dashboard.sse.timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-sse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        broadcasters.put(DASHBOARD, new KpiBroadcaster(DASHBOARD, () -> {
+            DashboardCounters.Totals totals = dashboardCounters.current();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("totalPatients", totals.getTotalPatients());
+            values.put("sejoursEnCours", totals.getSejoursEnCours());
+            values.put("totalActes", totals.getTotalActes());
+            values.put("revenusMois", totals.getRevenusMois());
+            values.put("revenusAnnee", totals.getRevenusAnnee());
+            return values;
+        }, scheduler, coalesceMillis, meterRegistry));
+        broadcasters.put(ALERTS, new KpiBroadcaster(ALERTS, () -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("totalAlertes", alertRepository.count());
+            values.put("nonLues", alertRepository.countNonLues());
+            values.put("nonResolues", alertRepository.countNonResolues());
+            values.put("critiquesNonResolues", alertRepository.countCritiquesNonResolues());
+            return values;
+        }, scheduler, coalesceMillis, meterRegistry));
+    }
+
+    /**
+     * Abonne un nouveau client aux groupes demandés (tous si la liste est nulle ou vide)
+     * @throws IllegalArgumentException si un groupe est inconnu
+     */
+    public SseEmitter subscribe(Collection<String> groups) {
+        List<KpiBroadcaster> selected = new ArrayList<>();
+        if (groups == null || groups.isEmpty()) {
+            selected.addAll(broadcasters.values());
+        } else {
+            for (String group : new LinkedHashSet<>(groups)) {
+                KpiBroadcaster broadcaster = broadcasters.get(group.trim().toLowerCase());
+                if (broadcaster == null) {
+                    throw new IllegalArgumentException("Groupe d'indicateurs inconnu: " + group);
+                }
+                selected.add(broadcaster);
+            }
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Runnable unsubscribe = () -> selected.forEach(broadcaster -> broadcaster.unsubscribe(emitter));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        for (KpiBroadcaster broadcaster : selected) {
+            broadcaster.subscribe(emitter);
+        }
+        return emitter;
+    }
+
+    public int subscribers(String group) {
+        return broadcasters.get(group).size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        broadcasters.get(DASHBOARD).markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        broadcasters.get(DASHBOARD).markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        broadcasters.get(DASHBOARD).markDirty();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        broadcasters.get(ALERTS).markDirty();
+    }
+
+    @Scheduled(fixedDelayString = "${app.dashboard.sse.heartbeat-ms:30000}")
+    public void heartbeat() {
+        broadcasters.values().forEach(KpiBroadcaster::heartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,129 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DashboardOverviewDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vue d'ensemble du tableau de bord en un seul appel. Les indicateurs viennent des compteurs en mémoire;
+ * les agrégats demandés sont calculés en même temps, chacun dans sa transaction, sur un pool borné
+ * (chaque agrégat occupe une connexion JDBC), le dernier dans le thread appelant.
+ */
+@Service
+public class DashboardOverviewService {
+
+    public enum Part {
+        STATS("stats"),
+        ACTES_BY_TYPE("actes-by-type"),
+        REVENUS_BY_MONTH("revenus-by-month"),
+        SEJOURS_BY_SERVICE("sejours-by-service");
+
+        private final String key;
+
+        Part(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Partie correspondant au nom de l'endpoint dédié (stats, actes-by-type, ...)
+         * @throws IllegalArgumentException si le nom est inconnu
+         */
+        public static Part fromKey(String key) {
+            for (Part part : values()) {
+                if (part.key.equalsIgnoreCase(key.trim())) {
+                    return part;
+                }
+            }
+            throw new IllegalArgumentException("Partie inconnue: " + key);
+        }
+    }
+
+    private final DashboardService dashboardService;
+    private final ExecutorService executor;
+
+    public DashboardOverviewService(
+            DashboardService dashboardService,
+            @Value("${app.dashboard.overview.parallelism:2}") int parallelism) {
+        this.dashboardService = dashboardService;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-overview-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parties désignées par leurs noms; toutes si la liste est nulle ou vide
+     * @throws IllegalArgumentException si un nom est inconnu
+     */
+    public static Set<Part> parseParts(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return EnumSet.allOf(Part.class);
+        }
+        Set<Part> parts = EnumSet.noneOf(Part.class);
+        for (String key : keys) {
+            parts.add(Part.fromKey(key));
+        }
+        return parts;
+    }
+
+    public DashboardOverviewDTO getOverview(Set<Part> parts) {
+        DashboardOverviewDTO overview = new DashboardOverviewDTO();
+        List<Runnable> queries = new ArrayList<>();
+        if (parts.contains(Part.ACTES_BY_TYPE)) {
+            queries.add(() -> overview.setActesByType(dashboardService.getActesByType()));
+        }
+        if (parts.contains(Part.REVENUS_BY_MONTH)) {
+            queries.add(() -> overview.setRevenusByMonth(dashboardService.getRevenusByMonth()));
+        }
+        if (parts.contains(Part.SEJOURS_BY_SERVICE)) {
+            queries.add(() -> overview.setSejoursByService(dashboardService.getSejoursByService()));
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < queries.size() - 1; i++) {
+                futures.add(executor.submit(queries.get(i)));
+            }
+            if (!queries.isEmpty()) {
+                queries.get(queries.size() - 1).run();
+            }
+            if (parts.contains(Part.STATS)) {
+                overview.setStats(dashboardService.getDashboardStats());
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Vue d'ensemble interrompue", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        // Les champs écrits par les autres threads sont visibles après Future.get
+        return overview;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
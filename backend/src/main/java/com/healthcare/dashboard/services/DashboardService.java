@@ -4,14 +4,13 @@ import com.healthcare.dashboard.dto.ActesByTypeStatsDTO;
 import com.healthcare.dashboard.dto.DashboardStatsDTO;
 import com.healthcare.dashboard.dto.RevenusByMonthStatsDTO;
 import com.healthcare.dashboard.dto.SejoursByServiceStatsDTO;
-import com.healthcare.dashboard.repositories.ActeMedicalRepository;
-import com.healthcare.dashboard.repositories.PatientRepository;
+import com.healthcare.dashboard.repositories.MonthlyActeRevenueRepository;
 import com.healthcare.dashboard.repositories.SejourRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.time.LocalDateTime;
-import java.time.temporal.TemporalAdjusters;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,35 +18,50 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DashboardService {
     
-    private final PatientRepository patientRepository;
+    // Bornes des périodes ouvertes, dans les limites du type DATE de MySQL
+    private static final LocalDate FIRST_MONTH = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_MONTH = LocalDate.of(9999, 12, 1);
+    
     private final SejourRepository sejourRepository;
-    private final ActeMedicalRepository acteMedicalRepository;
+    private final MonthlyActeRevenueRepository monthlyActeRevenueRepository;
+    private final DashboardCounters dashboardCounters;
+    private final ServiceRegistry serviceRegistry;
     
-    @Transactional(readOnly = true)
+    /**
+     * Indicateurs servis depuis les compteurs en mémoire, sans requête par appel
+     */
     public DashboardStatsDTO getDashboardStats() {
+        DashboardCounters.Totals totals = dashboardCounters.current();
         DashboardStatsDTO stats = new DashboardStatsDTO();
         
-        stats.setTotalPatients(patientRepository.countTotalPatients());
-        stats.setSejoursEnCours(sejourRepository.countSejoursEnCours());
-        stats.setTotalActes(acteMedicalRepository.countTotalActes());
-        
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfYear = now.with(TemporalAdjusters.firstDayOfYear()).withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime startOfMonth = now.with(TemporalAdjusters.firstDayOfMonth()).withHour(0).withMinute(0).withSecond(0);
-        
-        Double revenusAnnee = acteMedicalRepository.calculateTotalRevenue(startOfYear, now);
-        Double revenusMois = acteMedicalRepository.calculateTotalRevenue(startOfMonth, now);
-        
-        stats.setRevenusAnnee(revenusAnnee != null ? revenusAnnee : 0.0);
-        stats.setRevenusMois(revenusMois != null ? revenusMois : 0.0);
-        stats.setRevenusTotal(revenusAnnee != null ? revenusAnnee : 0.0);
+        stats.setTotalPatients(totals.getTotalPatients());
+        stats.setSejoursEnCours(totals.getSejoursEnCours());
+        stats.setTotalActes(totals.getTotalActes());
+        stats.setRevenusAnnee(totals.getRevenusAnnee());
+        stats.setRevenusMois(totals.getRevenusMois());
+        stats.setRevenusTotal(totals.getRevenusAnnee());
         
         return stats;
     }
     
     @Transactional(readOnly = true)
     public List<ActesByTypeStatsDTO> getActesByType() {
-        List<Object[]> results = acteMedicalRepository.findActesGroupedByType();
+        return getActesByType(null, null, null);
+    }
+    
+    /**
+     * Actes et revenus par type, lus dans monthly_acte_revenue: les mois de startDate à endDate
+     * (toutes les dates si absentes), pour un service ou pour tous
+     * @throws IllegalArgumentException si la période est inversée ou le service inconnu
+     */
+    @Transactional(readOnly = true)
+    public List<ActesByTypeStatsDTO> getActesByType(LocalDate startDate, LocalDate endDate, String service) {
+        LocalDate startMonth = startDate != null ? startDate.withDayOfMonth(1) : FIRST_MONTH;
+        LocalDate endMonth = endDate != null ? endDate.withDayOfMonth(1) : LAST_MONTH;
+        Long serviceId = resolveService(startMonth, endMonth, service);
+        List<Object[]> results = serviceId != null
+                ? monthlyActeRevenueRepository.findActesGroupedByType(startMonth, endMonth, serviceId)
+                : monthlyActeRevenueRepository.findActesGroupedByType(startMonth, endMonth);
         List<ActesByTypeStatsDTO> stats = new ArrayList<>();
         
         for (Object[] result : results) {
@@ -62,12 +76,27 @@ public class DashboardService {
     
     @Transactional(readOnly = true)
     public List<RevenusByMonthStatsDTO> getRevenusByMonth() {
-        LocalDateTime startDate = LocalDateTime.now().minusMonths(12);
-        List<Object[]> results = acteMedicalRepository.findRevenusGroupedByMonth(startDate);
+        return getRevenusByMonth(null, null, null);
+    }
+    
+    /**
+     * Revenus par mois, lus dans monthly_acte_revenue: les mois de startDate à endDate (par défaut les
+     * 12 derniers mois et le mois courant), pour un service ou pour tous
+     * @throws IllegalArgumentException si la période est inversée ou le service inconnu
+     */
+    @Transactional(readOnly = true)
+    public List<RevenusByMonthStatsDTO> getRevenusByMonth(LocalDate startDate, LocalDate endDate, String service) {
+        LocalDate today = LocalDate.now();
+        LocalDate startMonth = (startDate != null ? startDate : today.minusMonths(12)).withDayOfMonth(1);
+        LocalDate endMonth = (endDate != null ? endDate : today).withDayOfMonth(1);
+        Long serviceId = resolveService(startMonth, endMonth, service);
+        List<Object[]> results = serviceId != null
+                ? monthlyActeRevenueRepository.findRevenusGroupedByMonth(startMonth, endMonth, serviceId)
+                : monthlyActeRevenueRepository.findRevenusGroupedByMonth(startMonth, endMonth);
         List<RevenusByMonthStatsDTO> stats = new ArrayList<>();
         
         for (Object[] result : results) {
-            String mois = (String) result[0];
+            String mois = YearMonth.from((LocalDate) result[0]).toString();
             Double revenus = result[1] != null ? ((Number) result[1]).doubleValue() : 0.0;
             Long actes = ((Number) result[2]).longValue();
             stats.add(new RevenusByMonthStatsDTO(mois, revenus, actes));
@@ -90,4 +119,21 @@ public class DashboardService {
         
         return stats;
     }
+    
+    /**
+     * Identifiant du service filtré, ou null pour tous les services
+     */
+    private Long resolveService(LocalDate startMonth, LocalDate endMonth, String service) {
+        if (endMonth.isBefore(startMonth)) {
+            throw new IllegalArgumentException("Période invalide: " + startMonth + " > " + endMonth);
+        }
+        if (service == null || service.isBlank()) {
+            return null;
+        }
+        ServiceRegistry.ServiceInfo info = serviceRegistry.find(service);
+        if (info == null) {
+            throw new IllegalArgumentException("Service inconnu: " + service);
+        }
+        return info.getId();
+    }
 }
@@ -0,0 +1,189 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.*;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Encodeur Arrow IPC (format stream) du dataset ML.
+ * Les lignes sont accumulées dans des colonnes typées puis écrites par lots compressés en ZSTD;
+ * côté Python: pyarrow.ipc.open_stream(...).read_pandas().
+ */
+public class DatasetArrowWriter implements DatasetRowWriter, AutoCloseable {
+
+    public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    /**
+     * Nombre de lignes par lot (record batch)
+     */
+    static final int BATCH_ROWS = 8192;
+
+    static final Schema SCHEMA = new Schema(List.of(
+            notNull("date", new ArrowType.Date(DateUnit.DAY)),
+            notNull("service", ArrowType.Utf8.INSTANCE),
+            intField("patients_count"),
+            intField("actes_count"),
+            intField("sejours_actifs"),
+            doubleField("duree_moyenne_sejour"),
+            doubleField("cout_total"),
+            doubleField("cout_moyen_acte"),
+            doubleField("taux_occupation"),
+            intField("personnel_present"),
+            intField("equipements_utilises"),
+            intField("urgences_admissions"),
+            intField("interventions_chirurgicales"),
+            intField("examens_radiologie"),
+            intField("consultations"),
+            intField("hospitalisations"),
+            doubleField("tarif_moyen"),
+            doubleField("cout_maintenance"),
+            Field.nullable("saison", ArrowType.Utf8.INSTANCE),
+            Field.nullable("jour_semaine", ArrowType.Utf8.INSTANCE),
+            intField("est_weekend"),
+            intField("est_ferie"),
+            Field.nullable("meteo", ArrowType.Utf8.INSTANCE),
+            intField("temperature"),
+            intField("mois"),
+            intField("annee")
+    ));
+
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter writer;
+    private final FieldVector[] vectors;
+    private int rows;
+
+    public DatasetArrowWriter(OutputStream outputStream) {
+        this.allocator = new RootAllocator();
+        this.root = VectorSchemaRoot.create(SCHEMA, allocator);
+        this.writer = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream), IpcOption.DEFAULT,
+                CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD);
+        this.vectors = root.getFieldVectors().toArray(new FieldVector[0]);
+        root.allocateNew();
+    }
+
+    /**
+     * Écrit le schéma: le client peut commencer à lire avant le premier lot
+     */
+    public void start() throws IOException {
+        writer.start();
+    }
+
+    @Override
+    public void writeRow(DatasetRowDTO row) throws IOException {
+        int i = rows;
+        ((DateDayVector) vectors[0]).setSafe(i, (int) LocalDate.parse(row.getDate()).toEpochDay());
+        setString(1, i, row.getService());
+        setInt(2, i, row.getPatientsCount());
+        setInt(3, i, row.getActesCount());
+        setInt(4, i, row.getSejoursActifs());
+        setDouble(5, i, row.getDureeMoyenneSejour());
+        setDouble(6, i, row.getCoutTotal());
+        setDouble(7, i, row.getCoutMoyenActe());
+        setDouble(8, i, row.getTauxOccupation());
+        setInt(9, i, row.getPersonnelPresent());
+        setInt(10, i, row.getEquipementsUtilises());
+        setInt(11, i, row.getUrgencesAdmissions());
+        setInt(12, i, row.getInterventionsChirurgicales());
+        setInt(13, i, row.getExamensRadiologie());
+        setInt(14, i, row.getConsultations());
+        setInt(15, i, row.getHospitalisations());
+        setDouble(16, i, row.getTarifMoyen());
+        setDouble(17, i, row.getCoutMaintenance());
+        setString(18, i, row.getSaison());
+        setString(19, i, row.getJourSemaine());
+        setInt(20, i, row.getEstWeekend());
+        setInt(21, i, row.getEstFerie());
+        setString(22, i, row.getMeteo());
+        setInt(23, i, row.getTemperature());
+        setInt(24, i, row.getMois());
+        setInt(25, i, row.getAnnee());
+
+        rows++;
+        if (rows == BATCH_ROWS) {
+            writeBatch();
+        }
+    }
+
+    /**
+     * Écrit le dernier lot incomplet et le marqueur de fin de flux
+     */
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeBatch();
+        }
+        writer.end();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        root.close();
+        allocator.close();
+    }
+
+    private void writeBatch() throws IOException {
+        root.setRowCount(rows);
+        writer.writeBatch();
+        rows = 0;
+        // Les vecteurs sont vidés et réalloués pour le lot suivant
+        root.allocateNew();
+    }
+
+    private void setInt(int column, int index, Integer value) {
+        IntVector vector = (IntVector) vectors[column];
+        if (value != null) {
+            vector.setSafe(index, value);
+        } else {
+            vector.setNull(index);
+        }
+    }
+
+    private void setDouble(int column, int index, Double value) {
+        Float8Vector vector = (Float8Vector) vectors[column];
+        if (value != null) {
+            vector.setSafe(index, value);
+        } else {
+            vector.setNull(index);
+        }
+    }
+
+    private void setString(int column, int index, String value) {
+        VarCharVector vector = (VarCharVector) vectors[column];
+        if (value != null) {
+            vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+        } else {
+            vector.setNull(index);
+        }
+    }
+
+    private static Field notNull(String name, ArrowType type) {
+        return new Field(name, FieldType.notNullable(type), null);
+    }
+
+    private static Field intField(String name) {
+        return Field.nullable(name, new ArrowType.Int(32, true));
+    }
+
+    private static Field doubleField(String name) {
+        return Field.nullable(name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+    }
+}
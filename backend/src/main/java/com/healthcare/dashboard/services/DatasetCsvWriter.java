@@ -0,0 +1,76 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodeur CSV du dataset ML, ligne par ligne.
+ * Le tampon de ligne est réutilisé d'une ligne à l'autre: aucune chaîne intermédiaire
+ * n'est conservée, seul le tampon d'écriture est gardé en mémoire.
+ */
+public class DatasetCsvWriter implements DatasetRowWriter {
+
+    public static final String HEADER =
+            "date,service,patients_count,actes_count,sejours_actifs,duree_moyenne_sejour," +
+            "cout_total,cout_moyen_acte,taux_occupation,personnel_present,equipements_utilises," +
+            "urgences_admissions,interventions_chirurgicales,examens_radiologie,consultations," +
+            "hospitalisations,tarif_moyen,cout_maintenance,saison,jour_semaine,est_weekend," +
+            "est_ferie,meteo,temperature,mois,annee\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] chars = new char[256];
+
+    public DatasetCsvWriter(OutputStream outputStream) {
+        this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public void writeHeader() throws IOException {
+        out.write(HEADER);
+    }
+
+    @Override
+    public void writeRow(DatasetRowDTO row) throws IOException {
+        line.setLength(0);
+        line.append(row.getDate()).append(',');
+        line.append(row.getService()).append(',');
+        line.append(row.getPatientsCount()).append(',');
+        line.append(row.getActesCount()).append(',');
+        line.append(row.getSejoursActifs()).append(',');
+        line.append(row.getDureeMoyenneSejour()).append(',');
+        line.append(row.getCoutTotal()).append(',');
+        line.append(row.getCoutMoyenActe()).append(',');
+        line.append(row.getTauxOccupation()).append(',');
+        line.append(row.getPersonnelPresent()).append(',');
+        line.append(row.getEquipementsUtilises()).append(',');
+        line.append(row.getUrgencesAdmissions()).append(',');
+        line.append(row.getInterventionsChirurgicales()).append(',');
+        line.append(row.getExamensRadiologie()).append(',');
+        line.append(row.getConsultations()).append(',');
+        line.append(row.getHospitalisations()).append(',');
+        line.append(row.getTarifMoyen()).append(',');
+        line.append(row.getCoutMaintenance()).append(',');
+        line.append(row.getSaison()).append(',');
+        line.append(row.getJourSemaine()).append(',');
+        line.append(row.getEstWeekend()).append(',');
+        line.append(row.getEstFerie()).append(',');
+        line.append(row.getMeteo()).append(',');
+        line.append(row.getTemperature()).append(',');
+        line.append(row.getMois()).append(',');
+        line.append(row.getAnnee()).append('\n');
+        int length = line.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        line.getChars(0, length, chars, 0);
+        out.write(chars, 0, length);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
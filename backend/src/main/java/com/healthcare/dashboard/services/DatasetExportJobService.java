@@ -0,0 +1,382 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetExportJobDTO;
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports du dataset ML exécutés en tâche de fond.
+ * Chaque export est écrit dans un fichier compressé du répertoire d'exports puis téléchargé séparément;
+ * une demande pour la même période et le même format réutilise l'export en cours ou terminé.
+ * Quand les statistiques journalières d'une période exportée changent, l'export n'est plus réutilisé:
+ * son fichier est renommé (il reste téléchargeable par son identifiant) et une nouvelle demande le régénère.
+ */
+@Slf4j
+@Service
+public class DatasetExportJobService {
+
+    public enum Format {
+        CSV("csv.gz"),
+        ARROW("arrows");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    public static final String EN_ATTENTE = "EN_ATTENTE";
+    public static final String EN_COURS = "EN_COURS";
+    public static final String TERMINE = "TERMINE";
+    public static final String ECHEC = "ECHEC";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MLDatasetService mlDatasetService;
+    private final Path exportDir;
+    private final Duration retention;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ExportJob> jobsByRange = new ConcurrentHashMap<>();
+
+    public DatasetExportJobService(
+            MLDatasetService mlDatasetService,
+            @Value("${app.dataset.export.dir:${java.io.tmpdir}/healthcare-exports}") String exportDir,
+            @Value("${app.dataset.export.retention-hours:24}") long retentionHours,
+            @Value("${app.dataset.export.workers:2}") int workers,
+            @Value("${app.dataset.export.queue-capacity:20}") int queueCapacity) {
+        this.mlDatasetService = mlDatasetService;
+        this.exportDir = Paths.get(exportDir);
+        this.retention = Duration.ofHours(retentionHours);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dataset-export-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Soumet un export ou renvoie l'export existant pour la même période et le même format.
+     * @throws RejectedExecutionException si la file d'attente des exports est pleine
+     */
+    public synchronized DatasetExportJobDTO submit(LocalDate startDate, LocalDate endDate, Format format) {
+        String rangeKey = rangeKey(startDate, endDate, format);
+        ExportJob existing = jobsByRange.get(rangeKey);
+        if (existing != null && existing.isReusable()) {
+            return existing.toDTO();
+        }
+
+        Path file = exportDir.resolve("dataset_" + startDate + "_" + endDate + "." + format.extension);
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), startDate, endDate, format, file);
+        if (isFresh(file)) {
+            // Fichier terminé avant un redémarrage: réutilisé tel quel
+            job.complete(sizeOf(file));
+        } else {
+            executor.execute(() -> run(job));
+        }
+        jobs.put(job.id, job);
+        jobsByRange.put(rangeKey, job);
+        return job.toDTO();
+    }
+
+    public Optional<DatasetExportJobDTO> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ExportJob::toDTO);
+    }
+
+    /**
+     * Fichier d'un export terminé
+     */
+    public Optional<Path> getFile(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !TERMINE.equals(job.status) || !Files.exists(job.file)) {
+            return Optional.empty();
+        }
+        return Optional.of(job.file);
+    }
+
+    /**
+     * Supprime les exports et fichiers plus anciens que la durée de rétention
+     */
+    @Scheduled(fixedDelayString = "${app.dataset.export.cleanup-interval-ms:3600000}")
+    public synchronized void purgeExpired() {
+        LocalDateTime limit = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> (TERMINE.equals(job.status) || ECHEC.equals(job.status))
+                && job.completedAt != null && job.completedAt.isBefore(limit));
+        jobsByRange.values().removeIf(job -> !jobs.containsKey(job.id));
+
+        if (!Files.isDirectory(exportDir)) {
+            return;
+        }
+        Set<Path> inUse = new HashSet<>();
+        // Le fichier partiel d'un export en cours n'est jamais « frais »: il est protégé explicitement
+        jobs.values().forEach(job -> {
+            inUse.add(job.file);
+            inUse.add(job.part);
+        });
+        try (Stream<Path> files = Files.list(exportDir)) {
+            files.filter(file -> !inUse.contains(file) && !isFresh(file)).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("Suppression de l'export {} impossible", file, e);
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Nettoyage du répertoire d'exports impossible", e);
+        }
+    }
+
+    /**
+     * Retire les exports dont la période recoupe les jours recalculés
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onDailyStatsUpdated(DailyServiceStatsUpdatedEvent event) {
+        for (ExportJob job : jobs.values()) {
+            if (!job.stale && job.overlaps(event.getStartDate(), event.getEndDate())) {
+                retire(job);
+            }
+        }
+        for (Format format : Format.values()) {
+            // Fichiers terminés avant un redémarrage, sans export en mémoire
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(exportDir, "dataset_*." + format.extension)) {
+                for (Path file : files) {
+                    if (overlapsFile(file, format, event)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (NoSuchFileException e) {
+                return;
+            } catch (IOException | DirectoryIteratorException e) {
+                log.warn("Invalidation des exports du répertoire {} impossible", exportDir, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ExportJob job) {
+        job.status = EN_COURS;
+        Path part = job.part;
+        try {
+            Files.createDirectories(exportDir);
+            try (OutputStream out = Files.newOutputStream(part)) {
+                write(job, out);
+            }
+            synchronized (this) {
+                // Un export retiré pendant son exécution reste réservé à sa demande
+                if (job.stale) {
+                    job.file = retiredFile(job);
+                }
+                Files.move(part, job.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                job.complete(sizeOf(job.file));
+            }
+        } catch (Exception e) {
+            log.error("Export du dataset {} en échec", job.id, e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // Le fichier partiel sera supprimé par le nettoyage
+            }
+        }
+    }
+
+    private void write(ExportJob job, OutputStream out) throws IOException {
+        if (job.format == Format.ARROW) {
+            // Les buffers Arrow sont déjà compressés en ZSTD
+            try (DatasetArrowWriter writer = new DatasetArrowWriter(out)) {
+                writer.start();
+                mlDatasetService.streamDataset(job.startDate, job.endDate, job.track(writer::writeRowUnchecked));
+                writer.finish();
+            }
+        } else {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+            DatasetCsvWriter writer = new DatasetCsvWriter(gzip);
+            writer.writeHeader();
+            mlDatasetService.streamDataset(job.startDate, job.endDate, job.track(writer::writeRowUnchecked));
+            writer.flush();
+            gzip.finish();
+        }
+    }
+
+    private void retire(ExportJob job) {
+        job.stale = true;
+        jobsByRange.remove(rangeKey(job.startDate, job.endDate, job.format), job);
+        if (!TERMINE.equals(job.status)) {
+            return;
+        }
+        Path retired = retiredFile(job);
+        try {
+            Files.move(job.file, retired, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.file = retired;
+        } catch (NoSuchFileException e) {
+            // Fichier déjà supprimé par le nettoyage
+        } catch (IOException e) {
+            log.warn("Retrait de l'export {} impossible", job.id, e);
+            try {
+                Files.deleteIfExists(job.file);
+            } catch (IOException ignored) {
+                // Le fichier sera supprimé par le nettoyage
+            }
+        }
+    }
+
+    private Path retiredFile(ExportJob job) {
+        return exportDir.resolve("dataset_" + job.startDate + "_" + job.endDate + "_" + job.id + "." + job.format.extension);
+    }
+
+    private static String rangeKey(LocalDate startDate, LocalDate endDate, Format format) {
+        return startDate + "_" + endDate + "_" + format;
+    }
+
+    private static boolean overlapsFile(Path file, Format format, DailyServiceStatsUpdatedEvent event) {
+        LocalDate[] range = parseRange(file, format);
+        return range != null && overlaps(range[0], range[1], event.getStartDate(), event.getEndDate());
+    }
+
+    /**
+     * Période d'un fichier nommé dataset_{début}_{fin}.{extension}, ou null pour un export retiré
+     */
+    private static LocalDate[] parseRange(Path file, Format format) {
+        String name = file.getFileName().toString();
+        String[] parts = name.substring("dataset_".length(), name.length() - format.extension.length() - 1).split("_");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new LocalDate[] { LocalDate.parse(parts[0]), LocalDate.parse(parts[1]) };
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Une période d'évènement sans dates couvre tous les jours
+     */
+    private static boolean overlaps(LocalDate startDate, LocalDate endDate, LocalDate changedStart, LocalDate changedEnd) {
+        return changedStart == null || changedEnd == null
+                || (!startDate.isAfter(changedEnd) && !endDate.isBefore(changedStart));
+    }
+
+    private boolean isFresh(Path file) {
+        try {
+            if (!Files.isRegularFile(file) || file.getFileName().toString().endsWith(".part")) {
+                return false;
+            }
+            FileTime modified = Files.getLastModifiedTime(file);
+            return modified.toInstant().isAfter(Instant.now().minus(retention));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * État d'un export, mis à jour par le thread d'export et lu par les requêtes de suivi
+     */
+    private static class ExportJob {
+        final String id;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        final Format format;
+        final int totalDays;
+        // Un export retiré et son remplaçant peuvent s'exécuter en même temps
+        final Path part;
+        volatile Path file;
+        volatile boolean stale;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger daysProcessed = new AtomicInteger();
+        volatile String status = EN_ATTENTE;
+        volatile long sizeBytes;
+        volatile String error;
+        volatile LocalDateTime completedAt;
+
+        ExportJob(String id, LocalDate startDate, LocalDate endDate, Format format, Path file) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.format = format;
+            this.file = file;
+            this.part = file.resolveSibling(file.getFileName() + "." + id + ".part");
+            this.totalDays = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        }
+
+        /**
+         * Compte un jour traité à la première ligne de chaque date (les lignes arrivent dans l'ordre des dates)
+         */
+        Consumer<DatasetRowDTO> track(Consumer<DatasetRowDTO> sink) {
+            String[] lastDate = new String[1];
+            return row -> {
+                sink.accept(row);
+                if (!row.getDate().equals(lastDate[0])) {
+                    lastDate[0] = row.getDate();
+                    daysProcessed.incrementAndGet();
+                }
+            };
+        }
+
+        void complete(long size) {
+            sizeBytes = size;
+            daysProcessed.set(totalDays);
+            completedAt = LocalDateTime.now();
+            status = TERMINE;
+        }
+
+        void fail(String message) {
+            error = message;
+            completedAt = LocalDateTime.now();
+            status = ECHEC;
+        }
+
+        boolean overlaps(LocalDate changedStart, LocalDate changedEnd) {
+            return DatasetExportJobService.overlaps(startDate, endDate, changedStart, changedEnd);
+        }
+
+        boolean isReusable() {
+            return EN_ATTENTE.equals(status) || EN_COURS.equals(status)
+                    || (TERMINE.equals(status) && Files.exists(file));
+        }
+
+        DatasetExportJobDTO toDTO() {
+            return new DatasetExportJobDTO(id, startDate, endDate, format.name(), status, daysProcessed.get(),
+                    totalDays, TERMINE.equals(status) ? sizeBytes : null, error, createdAt, completedAt);
+        }
+    }
+}
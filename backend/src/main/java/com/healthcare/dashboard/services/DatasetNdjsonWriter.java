@@ -0,0 +1,40 @@
+package com.healthcare.dashboard.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodeur NDJSON (un objet JSON par ligne) du dataset ML.
+ * Toutes les lignes passent par un seul JsonGenerator: chaque ligne est sérialisée dès qu'elle est reçue,
+ * sans construire de document complet.
+ */
+public class DatasetNdjsonWriter implements DatasetRowWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter rowWriter;
+
+    public DatasetNdjsonWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(outputStream);
+        // Le flux de la réponse reste géré par le conteneur
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Laisser le tampon du générateur regrouper les écritures au lieu de vider après chaque ligne
+        this.rowWriter = objectMapper.writerFor(DatasetRowDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void writeRow(DatasetRowDTO row) throws IOException {
+        rowWriter.writeValue(generator, row);
+        generator.writeRaw('\n');
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
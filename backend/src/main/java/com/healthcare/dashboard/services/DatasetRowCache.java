@@ -0,0 +1,143 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des lignes de dataset déjà calculées, par jour (une ligne par service).
+ * Seuls les jours antérieurs à la date de coupure (aujourd'hui - mutable-days) sont conservés:
+ * ils ne sont évincés que lorsqu'un acte ou un séjour de ce jour est écrit, ou que la table de faits
+ * est recalculée pour ce jour. Les lignes mises en cache sont partagées et ne doivent pas être modifiées.
+ * Chaque éviction avance une génération: des lignes calculées avant l'éviction de leur jour, relevée par
+ * {@link #stamp()}, ne sont pas conservées (elles ont pu lire des données déjà périmées).
+ */
+@Component
+public class DatasetRowCache {
+
+    private final int mutableDays;
+    private final Map<LocalDate, CachedDay> days;
+
+    // Génération de la dernière éviction de chaque jour et de la dernière éviction de tous les jours
+    private final Map<LocalDate, Long> invalidatedAt = new HashMap<>();
+    private long generation;
+    private long allInvalidatedAt;
+
+    public DatasetRowCache(
+            @Value("${app.dataset.cache.mutable-days:7}") int mutableDays,
+            @Value("${app.dataset.cache.max-days:1500}") int maxDays) {
+        this.mutableDays = mutableDays;
+        // Ordre d'accès: les jours les moins récemment lus sont retirés au-delà de max-days
+        this.days = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, CachedDay> eldest) {
+                return size() > maxDays;
+            }
+        };
+    }
+
+    /**
+     * Un jour est mis en cache s'il est strictement antérieur à la date de coupure
+     */
+    public boolean isCacheable(LocalDate date) {
+        return date.isBefore(LocalDate.now().minusDays(mutableDays));
+    }
+
+    /**
+     * Lignes d'un jour, ou null si le jour est absent ou a été calculé pour une autre liste de services
+     */
+    public synchronized DatasetRowDTO[] get(LocalDate date, List<String> services) {
+        CachedDay day = days.get(date);
+        return day != null && day.services.equals(services) ? day.rows : null;
+    }
+
+    /**
+     * Génération à relever avant de lire les données des lignes, puis à passer à {@link #put}
+     */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    public synchronized void put(LocalDate date, List<String> services, long stamp, DatasetRowDTO[] rows) {
+        if (isCacheable(date) && allInvalidatedAt <= stamp && invalidatedAt.getOrDefault(date, 0L) <= stamp) {
+            days.put(date, new CachedDay(List.copyOf(services), rows));
+        }
+    }
+
+    public synchronized void evict(LocalDate date) {
+        days.remove(date);
+        if (isCacheable(date)) {
+            invalidatedAt.put(date, ++generation);
+        }
+    }
+
+    public synchronized void evictRange(LocalDate startDate, LocalDate endDate) {
+        days.keySet().removeIf(date -> !date.isBefore(startDate) && !date.isAfter(endDate));
+        long evictedAt = ++generation;
+        // Les jours postérieurs à la date de coupure ne sont jamais mis en cache
+        for (LocalDate date = startDate; !date.isAfter(endDate) && isCacheable(date); date = date.plusDays(1)) {
+            invalidatedAt.put(date, evictedAt);
+        }
+    }
+
+    public synchronized void clear() {
+        days.clear();
+        invalidatedAt.clear();
+        allInvalidatedAt = ++generation;
+    }
+
+    public synchronized int size() {
+        return days.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        if (event.getPrevious() != null) evict(event.getPrevious().getDateRealisation());
+        if (event.getCurrent() != null) evict(event.getCurrent().getDateRealisation());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        if (event.getPrevious() != null) evict(event.getPrevious().getDateEntree());
+        if (event.getCurrent() != null) evict(event.getCurrent().getDateEntree());
+    }
+
+    /**
+     * Les agrégats viennent de la table de faits: une ligne lue pendant son recalcul serait périmée
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDailyStatsUpdated(DailyServiceStatsUpdatedEvent event) {
+        if (event.getStartDate() == null || event.getEndDate() == null) {
+            clear();
+        } else {
+            evictRange(event.getStartDate(), event.getEndDate());
+        }
+    }
+
+    private void evict(LocalDateTime dateTime) {
+        if (dateTime != null) {
+            evict(dateTime.toLocalDate());
+        }
+    }
+
+    private static class CachedDay {
+        final List<String> services;
+        final DatasetRowDTO[] rows;
+
+        CachedDay(List<String> services, DatasetRowDTO[] rows) {
+            this.services = services;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodeur du dataset ML ligne par ligne (CSV, NDJSON, Arrow)
+ */
+public interface DatasetRowWriter {
+
+    void writeRow(DatasetRowDTO row) throws IOException;
+
+    /**
+     * Variante utilisable comme Consumer: les erreurs d'écriture (client déconnecté) interrompent le parcours
+     */
+    default void writeRowUnchecked(DatasetRowDTO row) {
+        try {
+            writeRow(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
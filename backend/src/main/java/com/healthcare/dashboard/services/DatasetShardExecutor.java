@@ -0,0 +1,51 @@
+package com.healthcare.dashboard.services;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool partagé des tranches (shards) de génération du dataset ML.
+ * Chaque tranche occupe une connexion JDBC pendant ses lectures: le nombre de threads est borné
+ * par la taille du pool Hikari moins une réserve laissée au reste de l'API, quel que soit
+ * le nombre d'exports en cours.
+ */
+@Component
+public class DatasetShardExecutor {
+    
+    private final int parallelism;
+    private final ExecutorService executor;
+    
+    public DatasetShardExecutor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+            @Value("${app.dataset.reserved-connections:2}") int reservedConnections) {
+        this.parallelism = Math.max(1, poolSize - reservedConnections);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "dataset-shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public <T> Future<T> submit(Callable<T> task) {
+        return executor.submit(task);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,180 @@
+package com.healthcare.dashboard.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Calendrier des variables contextuelles du dataset ML (saison, jour de la semaine, jours fériés
+ * français, météo et température simulées), calculé une fois au démarrage.
+ * Les valeurs sont stockées dans des tableaux primitifs indexés par jour depuis le 1er janvier
+ * de l'année de début; la météo simulée est tirée d'un générateur initialisé par la date:
+ * deux exports de la même période produisent exactement les mêmes valeurs.
+ */
+@Component
+public class FeatureCalendar {
+
+    static final String[] SAISONS = {"hiver", "printemps", "ete", "automne"};
+    static final String[] METEOS = {"ensoleille", "nuageux", "pluie", "neige"};
+    private static final String[] JOURS = new String[8];
+
+    static {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            JOURS[day.getValue()] = day.getDisplayName(TextStyle.FULL, Locale.FRENCH).toLowerCase();
+        }
+    }
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final long firstEpochDay;
+    private final byte[] saison;
+    private final byte[] meteo;
+    private final byte[] temperature;
+    private final byte[] jourSemaine;
+    private final boolean[] ferie;
+
+    public FeatureCalendar(
+            @Value("${app.dataset.calendar.start-year:2010}") int startYear,
+            @Value("${app.dataset.calendar.end-year:2040}") int endYear) {
+        LocalDate first = LocalDate.of(startYear, 1, 1);
+        LocalDate last = LocalDate.of(endYear, 12, 31);
+        this.firstEpochDay = first.toEpochDay();
+        int days = (int) (last.toEpochDay() - firstEpochDay) + 1;
+        this.saison = new byte[days];
+        this.meteo = new byte[days];
+        this.temperature = new byte[days];
+        this.jourSemaine = new byte[days];
+        this.ferie = new boolean[days];
+
+        for (int i = 0; i < days; i++) {
+            LocalDate date = first.plusDays(i);
+            saison[i] = (byte) computeSaison(date);
+            jourSemaine[i] = (byte) date.getDayOfWeek().getValue();
+            SplittableRandom random = randomFor(date);
+            meteo[i] = (byte) computeMeteo(date, random);
+            temperature[i] = (byte) computeTemperature(date, random);
+        }
+        for (int year = startYear; year <= endYear; year++) {
+            for (LocalDate holiday : joursFeries(year)) {
+                ferie[(int) (holiday.toEpochDay() - firstEpochDay)] = true;
+            }
+        }
+    }
+
+    public String getSaison(LocalDate date) {
+        int i = index(date);
+        return SAISONS[i >= 0 ? saison[i] : computeSaison(date)];
+    }
+
+    public String getJourSemaine(LocalDate date) {
+        int i = index(date);
+        return JOURS[i >= 0 ? jourSemaine[i] : date.getDayOfWeek().getValue()];
+    }
+
+    public boolean isWeekend(LocalDate date) {
+        int i = index(date);
+        int day = i >= 0 ? jourSemaine[i] : date.getDayOfWeek().getValue();
+        return day >= DayOfWeek.SATURDAY.getValue();
+    }
+
+    public boolean isFerie(LocalDate date) {
+        int i = index(date);
+        return i >= 0 ? ferie[i] : joursFeriesContains(date);
+    }
+
+    public String getMeteo(LocalDate date) {
+        int i = index(date);
+        return METEOS[i >= 0 ? meteo[i] : computeMeteo(date, randomFor(date))];
+    }
+
+    public int getTemperature(LocalDate date) {
+        int i = index(date);
+        if (i >= 0) {
+            return temperature[i];
+        }
+        SplittableRandom random = randomFor(date);
+        computeMeteo(date, random);
+        return computeTemperature(date, random);
+    }
+
+    /**
+     * Date de Pâques (calendrier grégorien, algorithme de Meeus/Jones/Butcher)
+     */
+    static LocalDate easterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = (h + l - 7 * m + 114) % 31 + 1;
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Jours fériés français: fêtes fixes, lundi de Pâques, Ascension et lundi de Pentecôte
+     */
+    static LocalDate[] joursFeries(int year) {
+        LocalDate easter = easterSunday(year);
+        return new LocalDate[]{
+            LocalDate.of(year, 1, 1), easter.plusDays(1), LocalDate.of(year, 5, 1), LocalDate.of(year, 5, 8),
+            easter.plusDays(39), easter.plusDays(50), LocalDate.of(year, 7, 14), LocalDate.of(year, 8, 15),
+            LocalDate.of(year, 11, 1), LocalDate.of(year, 11, 11), LocalDate.of(year, 12, 25)
+        };
+    }
+
+    private int index(LocalDate date) {
+        long i = date.toEpochDay() - firstEpochDay;
+        return i >= 0 && i < saison.length ? (int) i : -1;
+    }
+
+    private static boolean joursFeriesContains(LocalDate date) {
+        for (LocalDate holiday : joursFeries(date.getYear())) {
+            if (holiday.equals(date)) return true;
+        }
+        return false;
+    }
+
+    private static SplittableRandom randomFor(LocalDate date) {
+        return new SplittableRandom(SEED ^ date.toEpochDay());
+    }
+
+    private static int computeSaison(LocalDate date) {
+        int month = date.getMonthValue();
+        if (month >= 3 && month <= 5) return 1;
+        if (month >= 6 && month <= 8) return 2;
+        if (month >= 9 && month <= 11) return 3;
+        return 0;
+    }
+
+    // Mêmes distributions que l'ancienne simulation, tirées du générateur du jour
+
+    private static int computeMeteo(LocalDate date, SplittableRandom random) {
+        int month = date.getMonthValue();
+        double r = random.nextDouble();
+        if (month >= 6 && month <= 8) return 0;
+        if (month >= 12 || month <= 2) return r > 0.7 ? 3 : 1;
+        return r > 0.5 ? 1 : 2;
+    }
+
+    private static int computeTemperature(LocalDate date, SplittableRandom random) {
+        int month = date.getMonthValue();
+        double r = random.nextDouble();
+        if (month >= 12 || month <= 2) return (int) (r * 8); // 0-8°C
+        if (month >= 3 && month <= 5) return (int) (10 + r * 10); // 10-20°C
+        if (month >= 6 && month <= 8) return (int) (20 + r * 15); // 20-35°C
+        return (int) (10 + r * 8); // 10-18°C
+    }
+}
@@ -0,0 +1,329 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.entities.ForecastBacktestResult;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.ForecastBacktestResultRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Backtests des modèles de prévision à origine glissante: pour chaque service, la prévision est rejouée
+ * depuis plusieurs dates passées (origines espacées de step jours) et comparée au réalisé.
+ * Les séries journalières sont lues en une requête puis gardées en mémoire; les fenêtres sont évaluées en
+ * parallèle (fork/join) sans autre accès à la base. Les facteurs d'impact, qui ne sont pas historisés,
+ * ne sont pas appliqués; une fenêtre sans historique exploitable est ignorée.
+ */
+@Service
+public class ForecastBacktestService {
+
+    public static final int MAX_HORIZON = 365;
+    public static final int MAX_ORIGINS = 104;
+    private static final Set<String> TYPES = Set.of("COUT", "PATIENTS", "OCCUPATION");
+
+    // Fenêtres évaluées par tâche feuille
+    private static final int LEAF_WINDOWS = 4;
+
+    // Tirages bootstrap par fenêtre: les fenêtres sont déjà évaluées en parallèle, chacune simule séquentiellement
+    static final int RESAMPLES = 500;
+
+    private final DailyServiceStatsRepository dailyServiceStatsRepository;
+    private final ServiceRepository serviceRepository;
+    private final ForecastBacktestResultRepository resultRepository;
+    private final BootstrapIntervals bootstrapIntervals;
+    private final ForkJoinPool pool;
+
+    public ForecastBacktestService(
+            DailyServiceStatsRepository dailyServiceStatsRepository,
+            ServiceRepository serviceRepository,
+            ForecastBacktestResultRepository resultRepository,
+            BootstrapIntervals bootstrapIntervals,
+            @Value("${app.ml.backtest.parallelism:0}") int parallelism) {
+        this.dailyServiceStatsRepository = dailyServiceStatsRepository;
+        this.serviceRepository = serviceRepository;
+        this.resultRepository = resultRepository;
+        this.bootstrapIntervals = bootstrapIntervals;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Lance un backtest, enregistre un résultat par service et par modèle et les renvoie.
+     * @throws IllegalArgumentException si le type ou les bornes (horizon, origines, pas) sont invalides
+     */
+    public List<ForecastBacktestResult> run(String predictionType, List<ForecastModel> models, int horizon,
+                                            int origins, int step) {
+        return run(predictionType, models, horizon, origins, step, LocalDate.now());
+    }
+
+    List<ForecastBacktestResult> run(String predictionType, List<ForecastModel> models, int horizon, int origins,
+                                     int step, LocalDate today) {
+        if (!TYPES.contains(predictionType)) {
+            throw new IllegalArgumentException("Type de prévision inconnu: " + predictionType);
+        }
+        if (horizon < 1 || horizon > MAX_HORIZON || origins < 1 || origins > MAX_ORIGINS || step < 1 || step > MAX_HORIZON) {
+            throw new IllegalArgumentException("Paramètres de backtest hors bornes");
+        }
+        List<ForecastModel> evaluated = models == null || models.isEmpty()
+                ? List.of(ForecastModel.values()) : List.copyOf(new LinkedHashSet<>(models));
+
+        // Historique d'entraînement d'une prévision réelle, plus la période rejouée
+        int days = MLPredictionService.SERIES_DAYS + horizon + (origins - 1) * step;
+        LocalDate start = today.minusDays(days);
+        Map<Long, List<DailyServiceStats>> rowsByService = new HashMap<>();
+        for (DailyServiceStats stats : dailyServiceStatsRepository.findByStatDateBetween(start, today.minusDays(1))) {
+            rowsByService.computeIfAbsent(stats.getServiceId(), id -> new ArrayList<>()).add(stats);
+        }
+
+        List<Window> windows = new ArrayList<>();
+        for (Object[] info : serviceRepository.findAllIdAndNom()) {
+            if (info[0] == null || info[1] == null) continue;
+            List<DailyServiceStats> rows = rowsByService.get(((Number) info[0]).longValue());
+            if (rows == null) continue;
+            double[] series = MLPredictionService.dailySeries(rows, start, days, predictionType);
+            // La série se termine la veille: l'indice i correspond au jour today - length + i
+            LocalDate seriesStart = today.minusDays(series.length);
+            for (int k = 0; k < origins; k++) {
+                int origin = series.length - horizon - k * step;
+                if (origin < HoltWinters.MIN_LENGTH) break;
+                for (ForecastModel model : evaluated) {
+                    windows.add(new Window(info[1].toString(), predictionType, model, series, seriesStart, origin, horizon,
+                            bootstrapIntervals.getLevel()));
+                }
+            }
+        }
+        pool.invoke(new WindowTask(windows, 0, windows.size()));
+
+        // Agrégation dans l'ordre des fenêtres: le résultat ne dépend pas du découpage parallèle
+        Map<String, Accumulator> totals = new LinkedHashMap<>();
+        for (Window window : windows) {
+            totals.computeIfAbsent(window.service + "|" + window.model, key -> new Accumulator(window.service, window.model))
+                    .add(window);
+        }
+        String runId = UUID.randomUUID().toString();
+        LocalDateTime runAt = LocalDateTime.now();
+        List<ForecastBacktestResult> results = new ArrayList<>();
+        for (Accumulator total : totals.values()) {
+            if (total.windows > 0) {
+                results.add(total.toResult(runId, runAt, predictionType, horizon));
+            }
+        }
+        return resultRepository.saveAll(results);
+    }
+
+    public List<ForecastBacktestResult> getRun(String runId) {
+        return resultRepository.findByRunIdOrderByServiceAscModeleAsc(runId);
+    }
+
+    /**
+     * Historique des résultats d'un service, du plus récent au plus ancien
+     */
+    public List<ForecastBacktestResult> getHistory(String service, String predictionType, ForecastModel model) {
+        return model != null
+                ? resultRepository.findByServiceAndPredictionTypeAndModeleOrderByRunAtDesc(service, predictionType, model)
+                : resultRepository.findByServiceAndPredictionTypeOrderByRunAtDesc(service, predictionType);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Découpe la liste des fenêtres en deux jusqu'à LEAF_WINDOWS fenêtres par tâche
+     */
+    private static class WindowTask extends RecursiveAction {
+        private final List<Window> windows;
+        private final int from;
+        private final int to;
+
+        WindowTask(List<Window> windows, int from, int to) {
+            this.windows = windows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_WINDOWS) {
+                for (int i = from; i < to; i++) {
+                    windows.get(i).evaluate();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new WindowTask(windows, from, middle), new WindowTask(windows, middle, to));
+        }
+    }
+
+    /**
+     * Une prévision rejouée: entraînement sur la série avant origin, comparaison sur [origin, origin + horizon[.
+     * Les sommes d'erreurs sont écrites par la tâche qui l'évalue et lues après la fin du fork/join.
+     */
+    static class Window {
+        final String service;
+        final String type;
+        final ForecastModel model;
+        final double[] series;
+        final LocalDate seriesStart;
+        final int origin;
+        final int horizon;
+        final double level;
+
+        boolean evaluated;
+        double apeSum;
+        int apeCount;
+        double smapeSum;
+        int covered;
+        int points;
+
+        Window(String service, String type, ForecastModel model, double[] series, LocalDate seriesStart, int origin,
+               int horizon, double level) {
+            this.service = service;
+            this.type = type;
+            this.model = model;
+            this.series = series;
+            this.seriesStart = seriesStart;
+            this.origin = origin;
+            this.horizon = horizon;
+            this.level = level;
+        }
+
+        void evaluate() {
+            double[] values = new double[horizon];
+            double[] lower = new double[horizon];
+            double[] upper = new double[horizon];
+            if (!forecast(values, lower, upper)) {
+                return;
+            }
+            for (int i = 0; i < horizon; i++) {
+                double actual = series[origin + i];
+                double error = Math.abs(actual - values[i]);
+                if (actual != 0) {
+                    apeSum += error / Math.abs(actual);
+                    apeCount++;
+                }
+                double scale = Math.abs(actual) + Math.abs(values[i]);
+                smapeSum += scale > 0 ? 2 * error / scale : 0.0;
+                if (actual >= lower[i] && actual <= upper[i]) covered++;
+                points++;
+            }
+            evaluated = true;
+        }
+
+        /**
+         * Mêmes calculs que MLPredictionService (modèle ajusté, ou heuristique en repli), sans facteur d'impact.
+         * La graine des tirages dépend de la fenêtre: le résultat est reproductible.
+         */
+        private boolean forecast(double[] values, double[] lower, double[] upper) {
+            int trainFrom = Math.max(0, origin - MLPredictionService.SERIES_DAYS);
+            long seed = Objects.hash(service, type, model, origin);
+            if (model != ForecastModel.HEURISTIQUE) {
+                HoltWinters.Mode mode = model == ForecastModel.HOLT_WINTERS_MULTIPLICATIF
+                        ? HoltWinters.Mode.MULTIPLICATIVE : HoltWinters.Mode.ADDITIVE;
+                HoltWinters.Fit fit = HoltWinters.fit(series, trainFrom, origin, mode);
+                if (fit != null) {
+                    double[] forecast = fit.forecast(horizon);
+                    BootstrapIntervals.Bands bands = BootstrapIntervals.intervals(fit, horizon, RESAMPLES, seed, level);
+                    for (int i = 0; i < horizon; i++) {
+                        values[i] = Math.max(0.0, forecast[i]);
+                        lower[i] = Math.min(values[i], Math.max(0.0, bands.getLower()[i]));
+                        upper[i] = Math.max(values[i], bands.getUpper()[i]);
+                    }
+                    return true;
+                }
+            }
+
+            // Heuristique: moyenne des 90 derniers jours, tendance entre le premier et le dernier mois
+            double baseValue = mean(Math.max(trainFrom, origin - 90), origin);
+            if (baseValue <= 0) {
+                return false;
+            }
+            double olderAvg = mean(Math.max(trainFrom, origin - 90), Math.max(trainFrom, origin - 60));
+            double recentAvg = mean(Math.max(trainFrom, origin - 30), origin);
+            double trend = olderAvg > 0 ? (recentAvg - olderAvg) / olderAvg : 0.0;
+            LocalDate originDate = seriesStart.plusDays(origin);
+            double ratio = MLPredictionService.heuristicIntervalRatio(
+                    MLPredictionService.heuristicConfiance(service, type, originDate));
+            HoltWinters.Fit noise = HoltWinters.fit(series, Math.max(trainFrom, origin - MLPredictionService.NOISE_DAYS),
+                    origin, HoltWinters.Mode.ADDITIVE);
+            double[] center = noise != null ? noise.forecast(horizon) : null;
+            BootstrapIntervals.Bands bands = noise != null
+                    ? BootstrapIntervals.intervals(noise, horizon, RESAMPLES, seed, level) : null;
+            for (int i = 0; i < horizon; i++) {
+                values[i] = MLPredictionService.heuristicValue(service, baseValue, trend, i, originDate.plusDays(i));
+                if (center != null && center[i] > 0) {
+                    lower[i] = Math.min(values[i], values[i] * Math.max(0.0, bands.getLower()[i]) / center[i]);
+                    upper[i] = Math.max(values[i], values[i] * bands.getUpper()[i] / center[i]);
+                } else {
+                    lower[i] = values[i] * (1 - ratio);
+                    upper[i] = values[i] * (1 + ratio);
+                }
+            }
+            return true;
+        }
+
+        private double mean(int from, int to) {
+            if (to <= from) return 0.0;
+            double sum = 0.0;
+            for (int i = from; i < to; i++) {
+                sum += series[i];
+            }
+            return sum / (to - from);
+        }
+    }
+
+    private static class Accumulator {
+        final String service;
+        final ForecastModel model;
+        int windows;
+        int points;
+        double apeSum;
+        int apeCount;
+        double smapeSum;
+        int covered;
+
+        Accumulator(String service, ForecastModel model) {
+            this.service = service;
+            this.model = model;
+        }
+
+        void add(Window window) {
+            if (!window.evaluated) return;
+            windows++;
+            points += window.points;
+            apeSum += window.apeSum;
+            apeCount += window.apeCount;
+            smapeSum += window.smapeSum;
+            covered += window.covered;
+        }
+
+        ForecastBacktestResult toResult(String runId, LocalDateTime runAt, String type, int horizon) {
+            ForecastBacktestResult result = new ForecastBacktestResult();
+            result.setRunId(runId);
+            result.setRunAt(runAt);
+            result.setService(service);
+            result.setPredictionType(type);
+            result.setModele(model);
+            result.setHorizon(horizon);
+            result.setWindows(windows);
+            result.setPoints(points);
+            result.setMape(apeCount > 0 ? round(100.0 * apeSum / apeCount) : null);
+            result.setSmape(points > 0 ? round(100.0 * smapeSum / points) : null);
+            result.setCoverage(points > 0 ? round(100.0 * covered / points) : null);
+            return result;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100.0) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.InvestmentChangedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache des prévisions ML par (service, type, modèle, horizon, date de début), borné en taille et en durée de vie.
+ * Les entrées d'un service sont évincées dès qu'un acte, un séjour ou un médecin de ce service est écrit;
+ * une écriture d'alerte ou d'investissement (entités sans service) évince tout le cache.
+ * Les réponses mises en cache sont partagées et ne doivent pas être modifiées.
+ */
+@Component
+public class ForecastCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ServiceRepository serviceRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, CachedForecast> entries;
+
+    // Génération courante et dernière éviction de chaque service (ou de tout le cache), protégées par this
+    private long generation;
+    private long allInvalidatedAt;
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+
+    public ForecastCache(
+            @Value("${app.ml.forecast-cache.max-entries:500}") int maxEntries,
+            @Value("${app.ml.forecast-cache.ttl-seconds:300}") long ttlSeconds,
+            MeterRegistry meterRegistry,
+            ServiceRepository serviceRepository) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.serviceRepository = serviceRepository;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedForecast> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.hits = Counter.builder("ml.forecast.cache.requests").tag("result", "hit")
+                .description("Prévisions servies depuis le cache").register(meterRegistry);
+        this.misses = Counter.builder("ml.forecast.cache.requests").tag("result", "miss")
+                .description("Prévisions recalculées").register(meterRegistry);
+        Gauge.builder("ml.forecast.cache.size", this, ForecastCache::size)
+                .description("Nombre de prévisions en cache").register(meterRegistry);
+    }
+
+    public static String key(String service, String predictionType, ForecastModel model, Integer daysAhead,
+                             LocalDate startDate) {
+        return service + "|" + predictionType + "|" + model + "|" + daysAhead + "|" + startDate;
+    }
+
+    /**
+     * Prévision en cache, ou calculée puis mise en cache. Le calcul se fait hors verrou; son résultat n'est pas
+     * conservé si le service a été évincé entre-temps (il a pu lire des données déjà périmées).
+     */
+    public MLPredictionResponseDTO getOrCompute(String service, String key, Supplier<MLPredictionResponseDTO> compute) {
+        MLPredictionResponseDTO cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp();
+        MLPredictionResponseDTO computed = compute.get();
+        put(service, key, stamp, computed);
+        return computed;
+    }
+
+    /**
+     * Prévision en cache et non expirée, ou null. Compte un succès ou un échec.
+     */
+    public synchronized MLPredictionResponseDTO get(String key) {
+        CachedForecast entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.storedAt > ttlNanos) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.response;
+    }
+
+    /**
+     * Génération à relever avant de lire les données d'une prévision, puis à passer à {@link #put}
+     */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    public synchronized void put(String service, String key, long stamp, MLPredictionResponseDTO response) {
+        if (maxEntries <= 0 || allInvalidatedAt > stamp || invalidatedAt.getOrDefault(service, 0L) > stamp) {
+            return;
+        }
+        entries.put(key, new CachedForecast(service, response, System.nanoTime()));
+    }
+
+    public synchronized void evictService(String service) {
+        invalidatedAt.put(service, ++generation);
+        entries.values().removeIf(entry -> entry.service.equals(service));
+    }
+
+    public synchronized void clear() {
+        allInvalidatedAt = ++generation;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMedecinChanged(MedecinChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    /**
+     * Les prévisions d'un service renommé restent indexées par son ancien nom: les deux sont évincés
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onServiceChanged(ServiceChangedEvent event) {
+        evictService(event.getPrevious());
+        if (event.getPrevious() == null || event.getCurrent() == null
+                || !Objects.equals(event.getPrevious().getNom(), event.getCurrent().getNom())) {
+            evictService(event.getCurrent());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInvestmentChanged(InvestmentChangedEvent event) {
+        clear();
+    }
+
+    /**
+     * L'instantané d'une suppression ne porte que l'id du service, qui n'est alors plus en base
+     */
+    private void evictService(ServiceChangedEvent.Snapshot service) {
+        if (service == null) {
+            return;
+        }
+        if (service.getNom() != null) {
+            evictService(service.getNom());
+        } else {
+            evictServiceId(service.getId());
+        }
+    }
+
+    /**
+     * Les prévisions sont indexées par nom de service: un id inconnu évince tout le cache
+     */
+    private void evictServiceId(Long serviceId) {
+        if (serviceId == null) {
+            return;
+        }
+        try {
+            serviceRepository.findById(serviceId)
+                    .ifPresentOrElse(service -> evictService(service.getNom()), this::clear);
+        } catch (Exception e) {
+            clear();
+        }
+    }
+
+    private static class CachedForecast {
+        final String service;
+        final MLPredictionResponseDTO response;
+        final long storedAt;
+
+        CachedForecast(String service, MLPredictionResponseDTO response, long storedAt) {
+            this.service = service;
+            this.response = response;
+            this.storedAt = storedAt;
+        }
+    }
+}
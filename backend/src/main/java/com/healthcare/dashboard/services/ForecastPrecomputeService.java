@@ -0,0 +1,131 @@
+package com.healthcare.dashboard.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.PrecomputedForecast;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.LinkedHashSet;
+
+/**
+ * Précalcule chaque nuit les prévisions de tous les services pour les horizons standards (30, 90, 180 et
+ * 365 jours), les trois types et les modèles configurés, après le rafraîchissement de daily_service_stats.
+ * En journée, seuls les services dont des écritures ont supprimé les lignes sont recalculés; tout est
+ * recalculé si la table ne couvre pas encore la date du jour (démarrage, passage de minuit) ou si une
+ * écriture a supprimé les lignes de tous les services.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ForecastPrecomputeService {
+
+    private final MLPredictionService mlPredictionService;
+    private final PrecomputedForecastStore precomputedForecastStore;
+
+    // Date et générations relevées au début du dernier précalcul enregistré
+    private LocalDate computedFor;
+    private PrecomputedForecastStore.Stamp computedStamp;
+
+    @Scheduled(cron = "${app.ml.precompute.cron:0 45 2 * * *}")
+    public void precomputeNightly() {
+        try {
+            precompute(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Précalcul nocturne des prévisions impossible", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ml.precompute.refresh-interval-ms:300000}",
+               initialDelayString = "${app.ml.precompute.refresh-interval-ms:300000}")
+    public void refreshIfStale() {
+        try {
+            refresh(LocalDate.now());
+        } catch (Exception e) {
+            log.error("Rafraîchissement des prévisions précalculées impossible", e);
+        }
+    }
+
+    /**
+     * Recalcule les services dont la génération a avancé depuis le dernier précalcul, ou tous au changement
+     * de date
+     * @return le nombre de prévisions enregistrées
+     */
+    synchronized int refresh(LocalDate today) throws JsonProcessingException {
+        PrecomputedForecastStore.Stamp services = precomputedForecastStore.stampServices();
+        if (!today.equals(computedFor)) {
+            return precompute(today, services, null);
+        }
+        Set<String> changed = services.changedSince(computedStamp);
+        if (changed != null && changed.isEmpty()) {
+            return 0;
+        }
+        return precompute(today, services, changed);
+    }
+
+    /**
+     * Calcule et enregistre toutes les combinaisons standards pour startDate.
+     * Les services écrits pendant le calcul ont pu être lus à moitié: leurs lignes sont écartées et recalculées
+     * au prochain rafraîchissement, celles des autres services sont enregistrées.
+     * @return le nombre de prévisions enregistrées
+     */
+    public synchronized int precompute(LocalDate startDate) throws JsonProcessingException {
+        return precompute(startDate, precomputedForecastStore.stampServices(), null);
+    }
+
+    /**
+     * Précalcul des services nommés (de tous si null): seules leurs lignes sont remplacées
+     */
+    private int precompute(LocalDate startDate, PrecomputedForecastStore.Stamp services, Set<String> only)
+            throws JsonProcessingException {
+        LocalDateTime computedAt = LocalDateTime.now();
+        List<PrecomputedForecast> rows = new ArrayList<>();
+        for (String type : PrecomputedForecastStore.TYPES) {
+            for (ForecastModel model : precomputedForecastStore.getModels()) {
+                for (int daysAhead : PrecomputedForecastStore.HORIZONS) {
+                    List<MLPredictionResponseDTO> responses = mlPredictionService.computeMLPredictions(
+                            type, model, daysAhead, startDate, only);
+                    rows.addAll(precomputedForecastStore.toRows(startDate, type, model, daysAhead, responses, computedAt));
+                }
+            }
+        }
+        Set<String> stale = staleServices(services, rows);
+        rows.removeIf(row -> stale.contains(row.getService()));
+        if (only == null) {
+            precomputedForecastStore.replace(rows);
+        } else {
+            precomputedForecastStore.replace(only, rows);
+        }
+
+        // Une écriture entre le contrôle et l'enregistrement: ses lignes sont retirées après coup
+        Set<String> late = staleServices(services, rows);
+        if (!late.isEmpty()) {
+            precomputedForecastStore.discard(late);
+            stale.addAll(late);
+        }
+        if (!stale.isEmpty()) {
+            log.info("Prévisions précalculées écartées pour {}: données modifiées pendant le calcul", stale);
+        }
+        // La génération relevée avant le calcul: des services écartés font recalculer au prochain passage
+        computedFor = startDate;
+        computedStamp = services;
+        int stored = (int) rows.stream().filter(row -> !late.contains(row.getService())).count();
+        log.info("{} prévisions précalculées pour le {}{}", stored, startDate, only != null ? " (" + only + ")" : "");
+        return stored;
+    }
+
+    private Set<String> staleServices(PrecomputedForecastStore.Stamp services, List<PrecomputedForecast> rows) {
+        Set<String> stale = new LinkedHashSet<>();
+        rows.forEach(row -> stale.add(row.getService()));
+        stale.removeIf(service -> !precomputedForecastStore.isStale(services, service));
+        return stale;
+    }
+}
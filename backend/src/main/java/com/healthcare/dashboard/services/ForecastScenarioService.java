@@ -0,0 +1,181 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.dto.ScenarioRequestDTO;
+import com.healthcare.dashboard.dto.ScenarioResponseDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Scénarios de planification («+2 médecins ACTIF aux Urgences», «+200k€ d'équipement en Radiologie»):
+ * chaque scénario modifie les facteurs d'impact actuels des services qu'il cite et renvoie leurs prévisions.
+ * L'historique des services concernés est lu et leurs modèles ajustés une seule fois; les scénarios ne
+ * font ensuite que recalculer les facteurs, en parallèle (fork/join) et sans accès à la base.
+ * La catégorie d'un investissement est contrôlée mais n'est pas pondérée, comme pour les investissements réels.
+ */
+@Service
+public class ForecastScenarioService {
+
+    public static final int MAX_SCENARIOS = 200;
+    public static final int MAX_HORIZON = 365;
+    private static final Set<String> TYPES = Set.of("COUT", "PATIENTS", "OCCUPATION");
+    private static final Set<String> CATEGORIES = Set.of("EQUIPEMENT", "INFRASTRUCTURE", "TECHNOLOGIE", "FORMATION");
+
+    // Scénarios évalués par tâche feuille
+    private static final int LEAF_SCENARIOS = 4;
+
+    private final MLPredictionService mlPredictionService;
+    private final ServiceRegistry serviceRegistry;
+    private final ForkJoinPool pool;
+
+    public ForecastScenarioService(
+            MLPredictionService mlPredictionService,
+            ServiceRegistry serviceRegistry,
+            @Value("${app.ml.scenarios.parallelism:0}") int parallelism) {
+        this.mlPredictionService = mlPredictionService;
+        this.serviceRegistry = serviceRegistry;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Évalue tous les scénarios de la demande, dans leur ordre.
+     * @throws IllegalArgumentException si le type, l'horizon, le nombre de scénarios, un service ou une
+     * catégorie est invalide
+     */
+    public ScenarioResponseDTO evaluate(ScenarioRequestDTO request) {
+        String type = request.getPredictionType() != null ? request.getPredictionType() : "COUT";
+        int daysAhead = request.getDaysAhead() != null ? request.getDaysAhead() : 30;
+        ForecastModel model = request.getModele() != null ? request.getModele() : ForecastModel.HEURISTIQUE;
+        LocalDate startDate = request.getStartDate() != null ? request.getStartDate() : LocalDate.now();
+        List<ScenarioRequestDTO.Scenario> scenarios = request.getScenarios();
+        if (!TYPES.contains(type)) {
+            throw new IllegalArgumentException("Type de prévision inconnu: " + type);
+        }
+        if (daysAhead < 1 || daysAhead > MAX_HORIZON) {
+            throw new IllegalArgumentException("Horizon hors bornes: " + daysAhead);
+        }
+        if (scenarios == null || scenarios.isEmpty() || scenarios.size() > MAX_SCENARIOS) {
+            throw new IllegalArgumentException("Entre 1 et " + MAX_SCENARIOS + " scénarios sont attendus");
+        }
+
+        // Services cités par au moins un scénario, dans l'ordre du registre
+        Map<String, Long> ids = new HashMap<>();
+        for (ServiceRegistry.ServiceInfo info : serviceRegistry.getServices()) {
+            ids.put(info.getNom(), info.getId());
+        }
+        Set<String> cited = new HashSet<>();
+        for (ScenarioRequestDTO.Scenario scenario : scenarios) {
+            for (ScenarioRequestDTO.Change change : changes(scenario)) {
+                if (change == null || change.getService() == null || !ids.containsKey(change.getService())) {
+                    throw new IllegalArgumentException("Service inconnu: " + (change != null ? change.getService() : null));
+                }
+                if (change.getCategorie() != null && !CATEGORIES.contains(change.getCategorie())) {
+                    throw new IllegalArgumentException("Catégorie d'investissement inconnue: " + change.getCategorie());
+                }
+                cited.add(change.getService());
+            }
+        }
+        Map<Long, String> services = new LinkedHashMap<>();
+        for (ServiceRegistry.ServiceInfo info : serviceRegistry.getServices()) {
+            if (cited.contains(info.getNom())) {
+                services.put(info.getId(), info.getNom());
+            }
+        }
+
+        Map<Long, MLPredictionService.PreparedForecast> prepared = services.isEmpty() ? Map.of()
+                : mlPredictionService.prepareForecasts(services, type, model, daysAhead, startDate);
+        Map<String, MLPredictionResponseDTO> reference = new LinkedHashMap<>();
+        for (Map.Entry<Long, String> service : services.entrySet()) {
+            MLPredictionService.PreparedForecast forecast = prepared.get(service.getKey());
+            reference.put(service.getValue(), mlPredictionService.forecastWith(forecast, forecast.getFactors()));
+        }
+
+        ScenarioResponseDTO.ScenarioResult[] results = new ScenarioResponseDTO.ScenarioResult[scenarios.size()];
+        pool.invoke(new ScenarioTask(scenarios, results, ids, prepared, reference, 0, scenarios.size()));
+        return new ScenarioResponseDTO(type, daysAhead, startDate, model, new ArrayList<>(reference.values()),
+                Arrays.asList(results));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private static List<ScenarioRequestDTO.Change> changes(ScenarioRequestDTO.Scenario scenario) {
+        return scenario != null && scenario.getChangements() != null ? scenario.getChangements() : List.of();
+    }
+
+    /**
+     * Prévisions d'un scénario: les variations d'un même service s'additionnent, les facteurs restent positifs
+     */
+    private ScenarioResponseDTO.ScenarioResult evaluate(ScenarioRequestDTO.Scenario scenario, Map<String, Long> ids,
+                                                        Map<Long, MLPredictionService.PreparedForecast> prepared,
+                                                        Map<String, MLPredictionResponseDTO> reference) {
+        Map<String, ServiceImpactSnapshot.Factors> factors = new LinkedHashMap<>();
+        for (ScenarioRequestDTO.Change change : changes(scenario)) {
+            ServiceImpactSnapshot.Factors current = factors.getOrDefault(change.getService(),
+                    prepared.get(ids.get(change.getService())).getFactors());
+            factors.put(change.getService(), new ServiceImpactSnapshot.Factors(
+                    Math.max(0L, current.getActiveMedecins() + (change.getMedecins() != null ? change.getMedecins() : 0)),
+                    Math.max(0.0, current.getRecentInvestments() + (change.getInvestissement() != null ? change.getInvestissement() : 0.0)),
+                    Math.max(0L, current.getActiveAlerts() + (change.getAlertes() != null ? change.getAlertes() : 0))));
+        }
+
+        List<MLPredictionResponseDTO> predictions = new ArrayList<>(factors.size());
+        Map<String, Double> variations = new LinkedHashMap<>();
+        for (Map.Entry<String, ServiceImpactSnapshot.Factors> service : factors.entrySet()) {
+            MLPredictionResponseDTO prediction = mlPredictionService.forecastWith(
+                    prepared.get(ids.get(service.getKey())), service.getValue());
+            predictions.add(prediction);
+            double base = reference.get(service.getKey()).getValeurMoyenne();
+            variations.put(service.getKey(), base != 0
+                    ? Math.round((prediction.getValeurMoyenne() - base) / base * 10000.0) / 100.0 : 0.0);
+        }
+        return new ScenarioResponseDTO.ScenarioResult(scenario != null ? scenario.getNom() : null, predictions, variations);
+    }
+
+    /**
+     * Découpe la liste des scénarios en deux jusqu'à LEAF_SCENARIOS scénarios par tâche
+     */
+    private class ScenarioTask extends RecursiveAction {
+        private final List<ScenarioRequestDTO.Scenario> scenarios;
+        private final ScenarioResponseDTO.ScenarioResult[] results;
+        private final Map<String, Long> ids;
+        private final Map<Long, MLPredictionService.PreparedForecast> prepared;
+        private final Map<String, MLPredictionResponseDTO> reference;
+        private final int from;
+        private final int to;
+
+        ScenarioTask(List<ScenarioRequestDTO.Scenario> scenarios, ScenarioResponseDTO.ScenarioResult[] results,
+                     Map<String, Long> ids, Map<Long, MLPredictionService.PreparedForecast> prepared,
+                     Map<String, MLPredictionResponseDTO> reference, int from, int to) {
+            this.scenarios = scenarios;
+            this.results = results;
+            this.ids = ids;
+            this.prepared = prepared;
+            this.reference = reference;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SCENARIOS) {
+                for (int i = from; i < to; i++) {
+                    results[i] = evaluate(scenarios.get(i), ids, prepared, reference);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScenarioTask(scenarios, results, ids, prepared, reference, from, middle),
+                      new ScenarioTask(scenarios, results, ids, prepared, reference, middle, to));
+        }
+    }
+}
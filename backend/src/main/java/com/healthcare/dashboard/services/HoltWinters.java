@@ -0,0 +1,336 @@
+package com.healthcare.dashboard.services;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.SplittableRandom;
+
+/**
+ * Lissage exponentiel de Holt-Winters à double saisonnalité (hebdomadaire et annuelle, Taylor 2003),
+ * en versions additive et multiplicative, sur des séries journalières en tableaux primitifs.
+ * La saisonnalité annuelle n'est estimée qu'à partir de deux ans d'historique; en deçà seule la
+ * saisonnalité hebdomadaire est utilisée. Les paramètres de lissage sont choisis sur une grille fixe en
+ * minimisant l'erreur de prévision à un pas: l'ajustement est déterministe et ne fait aucune allocation
+ * par point de grille hors des deux tampons saisonniers.
+ */
+public final class HoltWinters {
+
+    public enum Mode { ADDITIVE, MULTIPLICATIVE }
+
+    public static final int WEEK = 7;
+    public static final int YEAR = 365;
+
+    /**
+     * Longueur minimale d'une série: deux semaines pour initialiser niveau, tendance et saison hebdomadaire
+     */
+    public static final int MIN_LENGTH = 2 * WEEK;
+
+    private static final double[] ALPHAS = {0.05, 0.1, 0.2, 0.3, 0.5, 0.7};
+    private static final double[] BETAS = {0.0, 0.01, 0.05};
+    private static final double[] GAMMAS = {0.05, 0.1, 0.2, 0.4};
+    private static final double[] DELTAS = {0.05, 0.1, 0.3};
+    private static final double[] NO_DELTA = {0.0};
+
+    private HoltWinters() {
+    }
+
+    /**
+     * Ajuste le modèle sur les n premières valeurs de y.
+     * @return le modèle ajusté, ou null si la série est trop courte ou, en multiplicatif, non strictement positive
+     */
+    public static Fit fit(double[] y, int n, Mode mode) {
+        return fit(y, 0, n, mode);
+    }
+
+    /**
+     * Ajuste le modèle sur y[from, to[ sans copier la série (fenêtres glissantes des backtests)
+     */
+    public static Fit fit(double[] y, int from, int to, Mode mode) {
+        int n = to - from;
+        if (n < MIN_LENGTH || (mode == Mode.MULTIPLICATIVE && !allPositive(y, from, to))) {
+            return null;
+        }
+        boolean yearly = n >= 2 * YEAR;
+        State initial = initialState(y, from, n, mode, yearly);
+        if (initial == null) {
+            return null;
+        }
+
+        double[] weekly = new double[WEEK];
+        double[] annual = yearly ? new double[YEAR] : null;
+        double bestSse = Double.POSITIVE_INFINITY;
+        double bestAlpha = 0, bestBeta = 0, bestGamma = 0, bestDelta = 0;
+        for (double alpha : ALPHAS) {
+            for (double beta : BETAS) {
+                for (double gamma : GAMMAS) {
+                    for (double delta : yearly ? DELTAS : NO_DELTA) {
+                        double sse = run(y, from, n, mode, alpha, beta, gamma, delta, initial, weekly, annual, null, null);
+                        if (sse < bestSse) {
+                            bestSse = sse;
+                            bestAlpha = alpha;
+                            bestBeta = beta;
+                            bestGamma = gamma;
+                            bestDelta = delta;
+                        }
+                    }
+                }
+            }
+        }
+        if (Double.isInfinite(bestSse)) {
+            return null;
+        }
+
+        // Dernier passage avec les meilleurs paramètres pour obtenir l'état final et les erreurs résiduelles
+        double[] end = new double[3];
+        double[] residuals = new double[n - WEEK];
+        run(y, from, n, mode, bestAlpha, bestBeta, bestGamma, bestDelta, initial, weekly, annual, end, residuals);
+        // Erreurs centrées: les trajectoires simulées restent autour de la prévision ponctuelle
+        double mean = 0.0;
+        for (double residual : residuals) {
+            mean += residual / residuals.length;
+        }
+        for (int i = 0; i < residuals.length; i++) {
+            residuals[i] -= mean;
+        }
+        return new Fit(mode, bestAlpha, bestBeta, bestGamma, bestDelta, end[0], end[1], weekly, annual, n, end[2], residuals);
+    }
+
+    /**
+     * Un passage de lissage. Renvoie la somme des carrés des erreurs à un pas (relatives en multiplicatif);
+     * si end est fourni, y écrit niveau, tendance et écart-type résiduel finaux, et si residuals est fourni,
+     * les erreurs à un pas à partir de la deuxième semaine.
+     */
+    private static double run(double[] y, int from, int n, Mode mode, double alpha, double beta, double gamma, double delta,
+                              State initial, double[] weekly, double[] annual, double[] end, double[] residuals) {
+        boolean additive = mode == Mode.ADDITIVE;
+        double neutral = additive ? 0.0 : 1.0;
+        System.arraycopy(initial.weekly, 0, weekly, 0, WEEK);
+        if (annual != null) {
+            System.arraycopy(initial.annual, 0, annual, 0, YEAR);
+        }
+        double level = initial.level;
+        double trend = initial.trend;
+        double sse = 0.0;
+        int count = 0;
+
+        for (int t = 0; t < n; t++) {
+            int w = t % WEEK;
+            int a = t % YEAR;
+            double s1 = weekly[w];
+            double s2 = annual != null ? annual[a] : neutral;
+            double value = y[from + t];
+            double expected = additive ? level + trend + s1 + s2 : (level + trend) * s1 * s2;
+            if (t >= WEEK) {
+                double error = additive ? value - expected : (value - expected) / expected;
+                sse += error * error;
+                count++;
+                if (residuals != null) residuals[t - WEEK] = error;
+            }
+
+            double previousLevel = level;
+            if (additive) {
+                level = alpha * (value - s1 - s2) + (1 - alpha) * (level + trend);
+                trend = beta * (level - previousLevel) + (1 - beta) * trend;
+                weekly[w] = gamma * (value - level - s2) + (1 - gamma) * s1;
+                if (annual != null) annual[a] = delta * (value - level - s1) + (1 - delta) * s2;
+            } else {
+                level = alpha * (value / (s1 * s2)) + (1 - alpha) * (level + trend);
+                if (level <= 0) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                trend = beta * (level - previousLevel) + (1 - beta) * trend;
+                weekly[w] = gamma * (value / (level * s2)) + (1 - gamma) * s1;
+                if (annual != null) annual[a] = delta * (value / (level * s1)) + (1 - delta) * s2;
+            }
+        }
+
+        if (end != null) {
+            end[0] = level;
+            end[1] = trend;
+            end[2] = count > 0 ? Math.sqrt(sse / count) : 0.0;
+        }
+        return sse;
+    }
+
+    /**
+     * État initial: niveau et tendance tirés des deux premières périodes, saison annuelle lissée sur 7 jours
+     * et saison hebdomadaire moyenne de la première période
+     */
+    private static State initialState(double[] y, int from, int n, Mode mode, boolean yearly) {
+        boolean additive = mode == Mode.ADDITIVE;
+        int period = yearly ? YEAR : WEEK;
+        double first = mean(y, from, from + period);
+        double second = mean(y, from + period, from + Math.min(2 * period, n));
+        if (!additive && first <= 0) {
+            return null;
+        }
+        double trend = (second - first) / period;
+        // Le niveau moyen de la première période est centré sur son milieu
+        double level = first - trend * (period + 1) / 2.0;
+
+        double[] weekly = new double[WEEK];
+        double[] annual = yearly ? new double[YEAR] : null;
+        int[] counts = new int[WEEK];
+        if (yearly) {
+            for (int j = 0; j < YEAR; j++) {
+                double smoothed = mean(y, from + Math.max(0, j - 3), from + Math.min(YEAR, j + 4));
+                annual[j] = additive ? smoothed - first : smoothed / first;
+                weekly[j % WEEK] += additive ? y[from + j] - smoothed : y[from + j] / smoothed;
+                counts[j % WEEK]++;
+            }
+        } else {
+            int weeks = Math.min(n / WEEK, 4);
+            for (int k = 0; k < weeks; k++) {
+                int weekStart = from + k * WEEK;
+                double weekMean = mean(y, weekStart, weekStart + WEEK);
+                for (int d = 0; d < WEEK; d++) {
+                    weekly[d] += additive ? y[weekStart + d] - weekMean : y[weekStart + d] / weekMean;
+                    counts[d]++;
+                }
+            }
+        }
+        for (int d = 0; d < WEEK; d++) {
+            weekly[d] = counts[d] > 0 ? weekly[d] / counts[d] : (additive ? 0.0 : 1.0);
+        }
+        return new State(level, trend, weekly, annual);
+    }
+
+    private static double mean(double[] y, int from, int to) {
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += y[i];
+        }
+        return to > from ? sum / (to - from) : 0.0;
+    }
+
+    private static boolean allPositive(double[] y, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!(y[i] > 0)) return false;
+        }
+        return true;
+    }
+
+    private static class State {
+        final double level;
+        final double trend;
+        final double[] weekly;
+        final double[] annual;
+
+        State(double level, double trend, double[] weekly, double[] annual) {
+            this.level = level;
+            this.trend = trend;
+            this.weekly = weekly;
+            this.annual = annual;
+        }
+    }
+
+    /**
+     * Modèle ajusté: paramètres, état à la fin de la série et erreur résiduelle à un pas
+     */
+    @Getter
+    public static final class Fit {
+        private final Mode mode;
+        private final double alpha;
+        private final double beta;
+        private final double gamma;
+        private final double delta;
+        private final double level;
+        private final double trend;
+        @Getter(AccessLevel.NONE)
+        private final double[] weekly;
+        @Getter(AccessLevel.NONE)
+        private final double[] annual;
+        private final int length;
+        private final double residualStd;
+        @Getter(AccessLevel.NONE)
+        private final double[] residuals;
+
+        Fit(Mode mode, double alpha, double beta, double gamma, double delta, double level, double trend,
+            double[] weekly, double[] annual, int length, double residualStd, double[] residuals) {
+            this.mode = mode;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.gamma = gamma;
+            this.delta = delta;
+            this.level = level;
+            this.trend = trend;
+            this.weekly = weekly;
+            this.annual = annual;
+            this.length = length;
+            this.residualStd = residualStd;
+            this.residuals = residuals;
+        }
+
+        /**
+         * Prévisions pour les jours 1..horizon suivant la fin de la série
+         */
+        public double[] forecast(int horizon) {
+            double[] values = new double[horizon];
+            for (int h = 1; h <= horizon; h++) {
+                int t = length - 1 + h;
+                double s1 = weekly[t % WEEK];
+                if (mode == Mode.ADDITIVE) {
+                    values[h - 1] = level + h * trend + s1 + (annual != null ? annual[t % YEAR] : 0.0);
+                } else {
+                    values[h - 1] = (level + h * trend) * s1 * (annual != null ? annual[t % YEAR] : 1.0);
+                }
+            }
+            return values;
+        }
+
+        /**
+         * Tire une trajectoire des jours 1..path.length suivant la fin de la série: à chaque pas, une erreur à un
+         * pas observée est tirée au hasard et ajoutée à la prévision (relative en multiplicatif), puis l'état est
+         * mis à jour avec la valeur simulée, si bien que les erreurs se propagent comme dans la série réelle.
+         * weekly et annual sont des tampons de travail (7 et 365 valeurs) fournis par l'appelant.
+         */
+        public void simulate(SplittableRandom random, double[] path, double[] weekly, double[] annual) {
+            boolean additive = mode == Mode.ADDITIVE;
+            System.arraycopy(this.weekly, 0, weekly, 0, WEEK);
+            if (this.annual != null) {
+                System.arraycopy(this.annual, 0, annual, 0, YEAR);
+            }
+            double level = this.level;
+            double trend = this.trend;
+            for (int h = 1; h <= path.length; h++) {
+                int t = length - 1 + h;
+                int w = t % WEEK;
+                int a = t % YEAR;
+                double s1 = weekly[w];
+                double s2 = this.annual != null ? annual[a] : (additive ? 0.0 : 1.0);
+                double expected = additive ? level + trend + s1 + s2 : (level + trend) * s1 * s2;
+                double error = residuals[random.nextInt(residuals.length)];
+                double value = additive ? expected + error : expected * (1 + error);
+                path[h - 1] = value;
+
+                double previousLevel = level;
+                if (additive) {
+                    level = alpha * (value - s1 - s2) + (1 - alpha) * (level + trend);
+                    trend = beta * (level - previousLevel) + (1 - beta) * trend;
+                    weekly[w] = gamma * (value - level - s2) + (1 - gamma) * s1;
+                    if (this.annual != null) annual[a] = delta * (value - level - s1) + (1 - delta) * s2;
+                } else {
+                    // Une trajectoire qui s'effondre garde un niveau minimal pour rester définie
+                    level = Math.max(1e-9, alpha * (value / (s1 * s2)) + (1 - alpha) * (level + trend));
+                    trend = beta * (level - previousLevel) + (1 - beta) * trend;
+                    weekly[w] = gamma * (value / (level * s2)) + (1 - gamma) * s1;
+                    if (this.annual != null) annual[a] = delta * (value / (level * s1)) + (1 - delta) * s2;
+                }
+            }
+        }
+
+        /**
+         * Erreur à un pas rapportée au niveau courant (sans unité dans les deux modes)
+         */
+        public double relativeError() {
+            if (mode == Mode.MULTIPLICATIVE) {
+                return residualStd;
+            }
+            return level != 0 ? residualStd / Math.abs(level) : Double.POSITIVE_INFINITY;
+        }
+
+        public boolean hasYearlySeason() {
+            return annual != null;
+        }
+    }
+}
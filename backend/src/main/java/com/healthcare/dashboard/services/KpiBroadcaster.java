@@ -0,0 +1,158 @@
+package com.healthcare.dashboard.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Diffusion SSE d'un groupe d'indicateurs (événement nommé comme le groupe).
+ * Un abonné reçoit d'abord toutes les valeurs, puis seulement celles qui changent. Les écritures signalées
+ * pendant la fenêtre de regroupement donnent un seul calcul des indicateurs et un seul envoi par abonné.
+ * Un abonné dont l'envoi échoue est retiré et compté comme perdu.
+ * Les valeurs sont calculées sous le verrou de l'instance mais envoyées après: un abonné bloqué ne retient que
+ * ses propres envois, et {@link #markDirty()}, appelé par les écritures, ne prend aucun verrou. Les diffusions
+ * s'exécutent sur le seul thread du planificateur, ce qui garde leur ordre pour chaque abonné.
+ */
+public class KpiBroadcaster {
+
+    private final String group;
+    private final Supplier<Map<String, Object>> snapshot;
+    private final ScheduledExecutorService scheduler;
+    private final long coalesceMillis;
+    private final Set<SseEmitter> subscribers = new CopyOnWriteArraySet<>();
+    private final Timer fanOut;
+    private final Counter dropped;
+
+    // Dernières valeurs envoyées, protégées par this
+    private Map<String, Object> last;
+    // Instant de la première écriture non encore diffusée, -1 sans écriture en attente
+    private final AtomicLong dirtySince = new AtomicLong(-1);
+    // Écriture signalée sans abonné: le prochain abonné relit les valeurs
+    private volatile boolean unobserved;
+
+    public KpiBroadcaster(String group, Supplier<Map<String, Object>> snapshot, ScheduledExecutorService scheduler,
+                          long coalesceMillis, MeterRegistry meterRegistry) {
+        this.group = group;
+        this.snapshot = snapshot;
+        this.scheduler = scheduler;
+        this.coalesceMillis = coalesceMillis;
+        Gauge.builder("dashboard.sse.connections", subscribers, Set::size).tag("group", group)
+                .description("Abonnés SSE connectés").register(meterRegistry);
+        this.fanOut = Timer.builder("dashboard.sse.fanout").tag("group", group)
+                .description("Délai entre la première écriture regroupée et la fin de l'envoi à tous les abonnés")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("dashboard.sse.dropped").tag("group", group)
+                .description("Abonnés SSE retirés après un échec d'envoi").register(meterRegistry);
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int size() {
+        return subscribers.size();
+    }
+
+    /**
+     * Ajoute un abonné et lui envoie toutes les valeurs courantes. L'abonné est verrouillé jusqu'à cet envoi:
+     * une diffusion calculée ensuite ne peut pas le précéder.
+     */
+    public void subscribe(SseEmitter emitter) {
+        synchronized (emitter) {
+            Map<String, Object> values;
+            synchronized (this) {
+                // Ajouté avant la lecture: une écriture concurrente le voit et programme une diffusion
+                subscribers.add(emitter);
+                if (last == null || unobserved) {
+                    unobserved = false;
+                    last = snapshot.get();
+                }
+                values = last;
+            }
+            send(emitter, SseEmitter.event().name(group).data(values));
+        }
+    }
+
+    public void unsubscribe(SseEmitter emitter) {
+        subscribers.remove(emitter);
+    }
+
+    /**
+     * Signale une écriture: la diffusion part à la fin de la fenêtre ouverte par la première écriture
+     */
+    public void markDirty() {
+        if (subscribers.isEmpty()) {
+            // Personne n'écoute: le prochain abonné relira les valeurs au lieu de recevoir les dernières envoyées
+            unobserved = true;
+            if (subscribers.isEmpty()) {
+                return;
+            }
+        }
+        if (dirtySince.compareAndSet(-1, System.nanoTime())) {
+            scheduler.schedule(this::flush, coalesceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Recalcule les indicateurs et envoie aux abonnés les valeurs qui ont changé
+     */
+    public void flush() {
+        long since = dirtySince.getAndSet(-1);
+        Map<String, Object> delta = new LinkedHashMap<>();
+        List<SseEmitter> targets;
+        synchronized (this) {
+            Map<String, Object> current = snapshot.get();
+            for (Map.Entry<String, Object> entry : current.entrySet()) {
+                if (last == null || !Objects.equals(last.get(entry.getKey()), entry.getValue())) {
+                    delta.put(entry.getKey(), entry.getValue());
+                }
+            }
+            last = current;
+            targets = List.copyOf(subscribers);
+        }
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (SseEmitter emitter : targets) {
+            synchronized (emitter) {
+                send(emitter, SseEmitter.event().name(group).data(delta));
+            }
+        }
+        if (since >= 0) {
+            fanOut.record(System.nanoTime() - since, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Commentaire SSE envoyé à intervalle régulier: garde la connexion ouverte et détecte les abonnés partis
+     */
+    public void heartbeat() {
+        for (SseEmitter emitter : subscribers) {
+            send(emitter, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (Exception e) {
+            if (subscribers.remove(emitter)) {
+                dropped.increment();
+            }
+            emitter.completeWithError(e);
+        }
+    }
+}
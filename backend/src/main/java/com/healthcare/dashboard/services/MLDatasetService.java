@@ -0,0 +1,387 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Moteur de génération du dataset ML.
+ * Les agrégats (actes, séjours, patients distincts) sont lus par lots de jours dans la table
+ * de faits daily_service_stats puis les lignes sont assemblées en mémoire.
+ */
+@Service
+@RequiredArgsConstructor
+public class MLDatasetService {
+
+    /**
+     * Nombre de jours agrégés par lot lors du parcours d'une période
+     */
+    static final int WINDOW_DAYS = 92;
+
+    /**
+     * Retard du marqueur des exports incrémentaux sur la dernière modification validée: couvre les transactions
+     * encore ouvertes, dont les lignes portent une date de modification antérieure à leur commit. Les écritures
+     * de daily_service_stats sont validées par jour ou par lot de jours, bien en deçà de ce délai.
+     */
+    static final long WATERMARK_LAG_SECONDS = 60;
+
+    /**
+     * Marqueur renvoyé tant que la table de faits est vide: l'appel suivant reçoit toutes les lignes
+     */
+    static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    /**
+     * Nombre de lignes de faits lues par requête lors d'un export incrémental
+     */
+    static final int CHANGES_BATCH_ROWS = 1000;
+
+    private final DailyServiceStatsRepository dailyServiceStatsRepository;
+    private final ServiceRepository serviceRepository;
+    private final DatasetShardExecutor datasetShardExecutor;
+    private final DatasetRowCache datasetRowCache;
+    private final FeatureCalendar featureCalendar;
+
+    /**
+     * Génère le dataset complet entre deux dates (incluses)
+     */
+    @Transactional(readOnly = true)
+    public List<DatasetRowDTO> generateDataset(LocalDate startDate, LocalDate endDate) {
+        List<DatasetRowDTO> dataset = new ArrayList<>();
+        streamDataset(startDate, endDate, dataset::add);
+        return dataset;
+    }
+
+    /**
+     * Parcourt le dataset entre deux dates (incluses) et transmet chaque ligne dès qu'elle est construite.
+     * Les agrégats sont chargés par lots de {@link #WINDOW_DAYS} jours: la mémoire utilisée ne dépend pas
+     * de la longueur de la période. Aucune transaction n'est tenue pendant le parcours.
+     */
+    public void streamDataset(LocalDate startDate, LocalDate endDate, Consumer<DatasetRowDTO> sink) {
+        if (endDate.isBefore(startDate)) {
+            return;
+        }
+
+        ServiceLayout layout = loadServiceLayout();
+        emitRange(startDate, endDate, layout, sink);
+    }
+
+    /**
+     * Variante parallèle: la période est découpée en tranches de jours consécutifs calculées en même temps
+     * sur {@link DatasetShardExecutor}. Les lignes sont transmises dans l'ordre des dates; au plus
+     * deux tranches par thread du pool sont en mémoire à un instant donné.
+     */
+    public void streamDataset(LocalDate startDate, LocalDate endDate, int shards, Consumer<DatasetRowDTO> sink) {
+        if (endDate.isBefore(startDate)) {
+            return;
+        }
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        int shardCount = Math.min(Math.max(shards, 1), days);
+        if (shardCount == 1) {
+            streamDataset(startDate, endDate, sink);
+            return;
+        }
+
+        ServiceLayout layout = loadServiceLayout();
+        int maxInFlight = datasetShardExecutor.getParallelism() * 2;
+        Deque<Future<List<DatasetRowDTO>>> inFlight = new ArrayDeque<>();
+        int nextShard = 0;
+        try {
+            while (nextShard < shardCount || !inFlight.isEmpty()) {
+                while (nextShard < shardCount && inFlight.size() < maxInFlight) {
+                    // Répartition des jours au plus égale: les premières tranches prennent le reste
+                    LocalDate shardStart = startDate.plusDays((long) nextShard * days / shardCount);
+                    LocalDate shardEnd = startDate.plusDays((long) (nextShard + 1) * days / shardCount - 1);
+                    inFlight.add(datasetShardExecutor.submit(() -> {
+                        List<DatasetRowDTO> rows = new ArrayList<>();
+                        emitRange(shardStart, shardEnd, layout, rows::add);
+                        return rows;
+                    }));
+                    nextShard++;
+                }
+                inFlight.peekFirst().get().forEach(sink);
+                inFlight.pollFirst();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Génération du dataset interrompue", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new RuntimeException("Erreur lors de la génération du dataset", e.getCause());
+        } finally {
+            // Client déconnecté ou tranche en erreur: les tranches restantes sont abandonnées
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Marqueur à transmettre au prochain export incrémental, calculé avant la lecture des modifications à partir
+     * de la dernière date de modification validée (et non de l'horloge du serveur): toute écriture validée
+     * ensuite sera renvoyée par l'appel suivant (au prix de quelques doublons)
+     */
+    public LocalDateTime nextWatermark() {
+        LocalDateTime lastUpdate = dailyServiceStatsRepository.findMaxUpdatedAt();
+        return lastUpdate != null ? lastUpdate.minusSeconds(WATERMARK_LAG_SECONDS) : INITIAL_WATERMARK;
+    }
+
+    /**
+     * Transmet les lignes (jour, service) dont les agrégats ont changé après le marqueur donné,
+     * dans l'ordre des dates. Les lignes sont lues par lots sur la clé (jour, service) de la table de faits.
+     * Un jour dont tous les actes ou séjours ont été supprimés est renvoyé avec des valeurs nulles.
+     */
+    public void streamChangesSince(LocalDateTime since, Consumer<DatasetRowDTO> sink) {
+        Map<Long, String> services = findServices();
+        Pageable batch = PageRequest.of(0, CHANGES_BATCH_ROWS);
+        DailyAggregates aggregates = new DailyAggregates(1, 1);
+
+        List<DailyServiceStats> changes = dailyServiceStatsRepository.findUpdatedAfter(since, batch);
+        while (!changes.isEmpty()) {
+            for (DailyServiceStats stats : changes) {
+                String serviceName = services.get(stats.getServiceId());
+                if (serviceName == null) continue;
+                fill(aggregates, 0, stats);
+                sink.accept(buildDatasetRow(stats.getStatDate(), serviceName, aggregates, 0, 0));
+            }
+            if (changes.size() < CHANGES_BATCH_ROWS) {
+                break;
+            }
+            DailyServiceStats last = changes.get(changes.size() - 1);
+            changes = dailyServiceStatsRepository.findUpdatedAfter(since, last.getStatDate(), last.getServiceId(), batch);
+        }
+    }
+
+    /**
+     * Construit les lignes de [startDate, endDate]. Les jours présents dans le cache sont relus tels quels;
+     * les suites de jours absents sont calculées par lots d'au plus {@link #WINDOW_DAYS} jours.
+     */
+    private void emitRange(LocalDate startDate, LocalDate endDate, ServiceLayout layout, Consumer<DatasetRowDTO> sink) {
+        LocalDate date = startDate;
+        while (!date.isAfter(endDate)) {
+            DatasetRowDTO[] cached = datasetRowCache.get(date, layout.names);
+            if (cached != null) {
+                for (DatasetRowDTO row : cached) {
+                    sink.accept(row);
+                }
+                date = date.plusDays(1);
+                continue;
+            }
+
+            // Suite de jours absents du cache, bornée à un lot
+            LocalDate windowStart = date;
+            LocalDate windowEnd = date;
+            while (windowEnd.isBefore(endDate)
+                    && ChronoUnit.DAYS.between(windowStart, windowEnd) + 1 < WINDOW_DAYS
+                    && datasetRowCache.get(windowEnd.plusDays(1), layout.names) == null) {
+                windowEnd = windowEnd.plusDays(1);
+            }
+
+            long stamp = datasetRowCache.stamp();
+            DailyAggregates aggregates = loadAggregates(windowStart, windowEnd, layout.index);
+            for (int day = 0; day < aggregates.days; day++) {
+                LocalDate rowDate = windowStart.plusDays(day);
+                DatasetRowDTO[] rows = new DatasetRowDTO[layout.names.size()];
+                for (int s = 0; s < rows.length; s++) {
+                    rows[s] = buildDatasetRow(rowDate, layout.names.get(s), aggregates, day, s);
+                    sink.accept(rows[s]);
+                }
+                datasetRowCache.put(rowDate, layout.names, stamp, rows);
+            }
+
+            date = windowEnd.plusDays(1);
+        }
+    }
+
+    private ServiceLayout loadServiceLayout() {
+        Map<Long, String> servicesById = findServices();
+        List<String> names = new ArrayList<>(servicesById.values());
+        Map<Long, Integer> index = new HashMap<>();
+        for (Long id : servicesById.keySet()) {
+            index.put(id, index.size());
+        }
+        return new ServiceLayout(names, index);
+    }
+
+    /**
+     * Services (id, nom) dans l'ordre de la table services
+     */
+    Map<Long, String> findServices() {
+        Map<Long, String> services = new LinkedHashMap<>();
+        for (Object[] info : serviceRepository.findAllIdAndNom()) {
+            if (info[0] != null && info[1] != null) {
+                services.put(((Number) info[0]).longValue(), info[1].toString());
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Charge les agrégats journaliers par service pour la période [startDate, endDate]
+     */
+    private DailyAggregates loadAggregates(LocalDate startDate, LocalDate endDate, Map<Long, Integer> serviceIndex) {
+        int days = (int) ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        DailyAggregates aggregates = new DailyAggregates(days, serviceIndex.size());
+
+        for (DailyServiceStats stats : dailyServiceStatsRepository.findByStatDateBetween(startDate, endDate)) {
+            Integer s = serviceIndex.get(stats.getServiceId());
+            long day = ChronoUnit.DAYS.between(startDate, stats.getStatDate());
+            if (s == null || day < 0 || day >= days) continue;
+            fill(aggregates, (int) day * aggregates.services + s, stats);
+        }
+
+        return aggregates;
+    }
+
+    private static void fill(DailyAggregates aggregates, int cell, DailyServiceStats stats) {
+        aggregates.actesCount[cell] = stats.getActesCount();
+        aggregates.coutTotal[cell] = stats.getTarifTotal();
+        aggregates.tarifMoyen[cell] = stats.getTarifMoyen();
+        aggregates.sejoursCount[cell] = stats.getSejoursCount();
+        aggregates.dureeMoyenne[cell] = stats.getDureeMoyenneSejour();
+        aggregates.patientsCount[cell] = stats.getPatientsCount();
+    }
+
+    /**
+     * Construit une ligne de dataset pour une date et un service à partir des agrégats chargés
+     */
+    private DatasetRowDTO buildDatasetRow(LocalDate date, String serviceName, DailyAggregates aggregates,
+                                          int day, int serviceIdx) {
+        int cell = day * aggregates.services + serviceIdx;
+
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate(date.toString());
+        row.setService(serviceName);
+
+        // Informations temporelles et météo simulée, lues dans le calendrier précalculé
+        row.setMois(date.getMonthValue());
+        row.setAnnee(date.getYear());
+        row.setJourSemaine(featureCalendar.getJourSemaine(date));
+        row.setEstWeekend(featureCalendar.isWeekend(date) ? 1 : 0);
+        row.setEstFerie(featureCalendar.isFerie(date) ? 1 : 0);
+        row.setSaison(featureCalendar.getSaison(date));
+        row.setMeteo(featureCalendar.getMeteo(date));
+        row.setTemperature(featureCalendar.getTemperature(date));
+
+        // Statistiques des actes médicaux
+        row.setActesCount(aggregates.actesCount[cell]);
+        row.setCoutTotal(aggregates.coutTotal[cell]);
+        row.setTarifMoyen(aggregates.tarifMoyen[cell]);
+
+        // Statistiques des séjours
+        row.setSejoursActifs(aggregates.sejoursCount[cell]);
+        row.setDureeMoyenneSejour(aggregates.dureeMoyenne[cell]);
+
+        // Patients uniques
+        row.setPatientsCount(aggregates.patientsCount[cell]);
+
+        // Autres statistiques (valeurs simulées - à remplacer par vraies données)
+        row.setCoutMoyenActe(row.getActesCount() > 0 ? row.getCoutTotal() / row.getActesCount() : 0.0);
+        row.setTauxOccupation(calculateSimulatedOccupation(serviceName, row.getSejoursActifs()));
+        row.setPersonnelPresent(getSimulatedStaff(serviceName));
+        row.setEquipementsUtilises(getSimulatedEquipment(serviceName));
+        row.setUrgencesAdmissions(serviceName.equals("Urgences") ? row.getPatientsCount() : 0);
+        row.setInterventionsChirurgicales(serviceName.equals("Chirurgie") ? (int)(row.getActesCount() * 0.4) : 0);
+        row.setExamensRadiologie(serviceName.equals("Radiologie") ? row.getActesCount() :
+                                  (int)(row.getActesCount() * 0.2));
+        row.setConsultations((int)(row.getActesCount() * 0.6));
+        row.setHospitalisations(row.getSejoursActifs());
+        row.setCoutMaintenance(getSimulatedMaintenanceCost(serviceName));
+
+        return row;
+    }
+
+    static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate) return (LocalDate) value;
+        if (value instanceof java.sql.Date) return ((java.sql.Date) value).toLocalDate();
+        if (value instanceof java.sql.Timestamp) return ((java.sql.Timestamp) value).toLocalDateTime().toLocalDate();
+        if (value instanceof LocalDateTime) return ((LocalDateTime) value).toLocalDate();
+        return LocalDate.parse(value.toString().substring(0, 10));
+    }
+
+    /**
+     * Services dans l'ordre de la table et position de chaque id dans les tableaux d'agrégats
+     */
+    private static class ServiceLayout {
+        final List<String> names;
+        final Map<Long, Integer> index;
+
+        ServiceLayout(List<String> names, Map<Long, Integer> index) {
+            this.names = names;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Agrégats journaliers stockés dans des tableaux primitifs indexés par [jour * services + service]
+     */
+    private static class DailyAggregates {
+        final int days;
+        final int services;
+        final int[] actesCount;
+        final double[] coutTotal;
+        final double[] tarifMoyen;
+        final int[] sejoursCount;
+        final double[] dureeMoyenne;
+        final int[] patientsCount;
+
+        DailyAggregates(int days, int services) {
+            this.days = days;
+            this.services = services;
+            int size = days * services;
+            this.actesCount = new int[size];
+            this.coutTotal = new double[size];
+            this.tarifMoyen = new double[size];
+            this.sejoursCount = new int[size];
+            this.dureeMoyenne = new double[size];
+            this.patientsCount = new int[size];
+        }
+    }
+
+    // Méthodes de simulation (à remplacer par vraies données)
+
+    private double calculateSimulatedOccupation(String service, int sejoursActifs) {
+        Map<String, Integer> capacities = Map.of(
+            "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
+            "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
+        );
+        int capacity = capacities.getOrDefault(service, 30);
+        return Math.min(1.0, (double) sejoursActifs / capacity);
+    }
+
+    private int getSimulatedStaff(String service) {
+        Map<String, Integer> staffCounts = Map.of(
+            "Urgences", 16, "Chirurgie", 23, "Cardiologie", 19, "Pediatrie", 15,
+            "Maternite", 13, "Radiologie", 10, "Oncologie", 15, "Neurologie", 12
+        );
+        return staffCounts.getOrDefault(service, 15);
+    }
+
+    private int getSimulatedEquipment(String service) {
+        Map<String, Integer> equipmentCounts = Map.of(
+            "Urgences", 9, "Chirurgie", 13, "Cardiologie", 11, "Pediatrie", 9,
+            "Maternite", 7, "Radiologie", 15, "Oncologie", 8, "Neurologie", 9
+        );
+        return equipmentCounts.getOrDefault(service, 10);
+    }
+
+    private double getSimulatedMaintenanceCost(String service) {
+        Map<String, Double> costs = Map.of(
+            "Urgences", 450.0, "Chirurgie", 680.0, "Cardiologie", 520.0, "Pediatrie", 380.0,
+            "Maternite", 320.0, "Radiologie", 780.0, "Oncologie", 650.0, "Neurologie", 420.0
+        );
+        return costs.getOrDefault(service, 500.0);
+    }
+}
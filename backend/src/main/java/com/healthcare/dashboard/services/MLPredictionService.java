@@ -1,18 +1,27 @@
 package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.dto.ForecastModel;
 import com.healthcare.dashboard.dto.MLPredictionRequestDTO;
 import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
 import com.healthcare.dashboard.repositories.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.TextStyle;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,161 +32,277 @@ public class MLPredictionService {
     private final SejourRepository sejourRepository;
     private final ServiceRepository serviceRepository;
     private final PatientRepository patientRepository;
-    private final MedecinRepository medecinRepository;
-    private final InvestmentRepository investmentRepository;
-    private final AlertRepository alertRepository;
+    private final MLDatasetService mlDatasetService;
+    private final DailyServiceStatsRepository dailyServiceStatsRepository;
+    private final ForecastCache forecastCache;
+    private final ServiceImpactSnapshot serviceImpactSnapshot;
+    private final PrecomputedForecastStore precomputedForecastStore;
+    private final ServiceRegistry serviceRegistry;
+    private final BootstrapIntervals bootstrapIntervals;
+    
+    // Durée de vie des statistiques courantes (0: pas de cache), pour les écrans qui les interrogent en boucle
+    @Value("${app.ml.current-stats.ttl-ms:0}")
+    private long currentStatisticsTtlMs;
+    private final Map<String, CachedStatistics> currentStatistics = new ConcurrentHashMap<>();
+    // Avance à chaque invalidation: un calcul commencé avant n'est pas remis en cache
+    private final AtomicLong currentStatisticsGeneration = new AtomicLong();
+    
+    /**
+     * Historique journalier ajusté par les modèles Holt-Winters (trois ans: deux pour initialiser la saison annuelle)
+     */
+    static final int SERIES_DAYS = 3 * HoltWinters.YEAR;
+    
+    /**
+     * Historique du modèle de bruit de l'heuristique (Holt-Winters additif hebdomadaire), dont les résidus
+     * donnent la largeur relative de ses intervalles
+     */
+    static final int NOISE_DAYS = HoltWinters.YEAR;
     
     /**
      * Génère un dataset pour l'entraînement ML
      */
-    @Transactional(readOnly = true)
     public List<DatasetRowDTO> generateDataset(LocalDate startDate, LocalDate endDate) {
-        List<DatasetRowDTO> dataset = new ArrayList<>();
-        
-        // Pour chaque jour de la période
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            final LocalDate date = currentDate;
-            
-            // Pour chaque service
-            List<Object[]> services = serviceRepository.findAllBasicInfo();
-            for (Object[] serviceInfo : services) {
-                String serviceName = (String) serviceInfo[0];
-                
-                DatasetRowDTO row = buildDatasetRow(date, serviceName);
-                if (row != null) {
-                    dataset.add(row);
-                }
-            }
-            
-            currentDate = currentDate.plusDays(1);
-        }
-        
-        return dataset;
+        return mlDatasetService.generateDataset(startDate, endDate);
     }
     
     /**
-     * Construit une ligne de dataset pour une date et un service
+     * Génère des prédictions ML basées sur les patterns historiques ET les données réelles actuelles.
+     * Les horizons standards sont lus dans la table des prévisions précalculées; les autres demandes,
+     * ou une prévision absente de la table, sont calculées à la volée.
      */
-    private DatasetRowDTO buildDatasetRow(LocalDate date, String serviceName) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.plusDays(1).atStartOfDay();
+    public MLPredictionResponseDTO generateMLPredictions(MLPredictionRequestDTO request) {
+        LocalDate currentDate = request.getStartDate() != null ? request.getStartDate() : LocalDate.now();
+        ForecastModel model = request.getModele() != null ? request.getModele() : ForecastModel.HEURISTIQUE;
+        MLPredictionResponseDTO precomputed = precomputedForecastStore.find(request.getService(),
+                request.getPredictionType(), model, request.getDaysAhead(), currentDate);
+        if (precomputed != null) {
+            return precomputed;
+        }
+        String key = ForecastCache.key(request.getService(), request.getPredictionType(), model, request.getDaysAhead(),
+                                       currentDate);
+        return forecastCache.getOrCompute(request.getService(), key, () -> computeMLPredictions(request, model, currentDate));
+    }
+    
+    private MLPredictionResponseDTO computeMLPredictions(MLPredictionRequestDTO request, ForecastModel model,
+                                                         LocalDate currentDate) {
+        int historyDays = model != ForecastModel.HEURISTIQUE ? SERIES_DAYS : NOISE_DAYS;
+        List<DailyServiceStats> rows = serviceRepository.findByNom(request.getService())
+                .map(service -> dailyServiceStatsRepository.findByServiceIdAndStatDateBetween(
+                        service.getId(), currentDate.minusDays(historyDays), currentDate.minusDays(1)))
+                .orElse(List.of());
+        if (model != ForecastModel.HEURISTIQUE) {
+            HoltWinters.Fit fit = fitSeries(rows, request.getPredictionType(), model, currentDate);
+            if (fit != null) {
+                return buildPredictionResponse(request, currentDate,
+                        new ForecastInputs(fit, model, serviceImpactSnapshot.forServiceNom(request.getService())));
+            }
+        }
         
-        DatasetRowDTO row = new DatasetRowDTO();
-        row.setDate(date.toString());
-        row.setService(serviceName);
+        // Récupérer les données historiques pour calculer la tendance
+        LocalDateTime startHistory = currentDate.minusMonths(3).atStartOfDay();
+        LocalDateTime endHistory = currentDate.atStartOfDay();
         
-        // Informations temporelles
-        row.setMois(date.getMonthValue());
-        row.setAnnee(date.getYear());
-        row.setJourSemaine(date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.FRENCH).toLowerCase());
-        row.setEstWeekend(date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY ? 1 : 0);
-        row.setEstFerie(isHoliday(date) ? 1 : 0);
-        row.setSaison(getSeason(date));
+        double baseValue = calculateHistoricalAverage(request.getService(), request.getPredictionType(), 
+                                                       startHistory, endHistory);
+        double trend = calculateTrend(request.getService(), request.getPredictionType(), 
+                                      startHistory, endHistory);
         
-        // Météo simulée (à remplacer par vraies données si disponible)
-        row.setMeteo(getSimulatedWeather(date));
-        row.setTemperature(getSimulatedTemperature(date));
+        // NOUVEAUX FACTEURS DYNAMIQUES basés sur les données actuelles
+        return buildPredictionResponse(request, currentDate,
+                new ForecastInputs(baseValue, trend, serviceImpactSnapshot.forServiceNom(request.getService()),
+                        fitNoise(rows, request.getPredictionType(), currentDate)));
+    }
+    
+    /**
+     * Prédictions de tous les services de la table services.
+     * Les données de tous les services sont lues en deux requêtes groupées (table de faits, séjours), les
+     * facteurs d'impact viennent de ServiceImpactSnapshot, puis les prévisions sont calculées en mémoire:
+     * le nombre de requêtes ne dépend pas du nombre de services.
+     */
+    public List<MLPredictionResponseDTO> generateMLPredictionsForAllServices(String predictionType, int daysAhead,
+                                                                             LocalDate startDate) {
+        return generateMLPredictionsForAllServices(predictionType, ForecastModel.HEURISTIQUE, daysAhead, startDate);
+    }
+    
+    public List<MLPredictionResponseDTO> generateMLPredictionsForAllServices(String predictionType, ForecastModel model,
+                                                                             int daysAhead, LocalDate startDate) {
+        LocalDate currentDate = startDate != null ? startDate : LocalDate.now();
+        List<MLPredictionResponseDTO> precomputed = precomputedForecastStore.findAll(predictionType, model, daysAhead,
+                                                                                     currentDate);
+        return precomputed != null ? precomputed
+                : computeMLPredictionsForAllServices(predictionType, model, daysAhead, currentDate);
+    }
+    
+    /**
+     * Calcul à la volée des prédictions de tous les services, sans lire la table des prévisions précalculées
+     */
+    public List<MLPredictionResponseDTO> computeMLPredictionsForAllServices(String predictionType, ForecastModel model,
+                                                                            int daysAhead, LocalDate currentDate) {
+        return computeMLPredictions(predictionType, model, daysAhead, currentDate, null);
+    }
+    
+    /**
+     * Calcul à la volée limité aux services nommés (tous si null). La liste garde la place de chaque service
+     * de la table services, null pour ceux qui ne sont pas demandés
+     */
+    public List<MLPredictionResponseDTO> computeMLPredictions(String predictionType, ForecastModel model, int daysAhead,
+                                                              LocalDate currentDate, Set<String> only) {
+        Map<Long, String> services = new LinkedHashMap<>();
+        for (Object[] info : serviceRepository.findAllIdAndNom()) {
+            if (info[0] != null && info[1] != null) {
+                services.put(((Number) info[0]).longValue(), info[1].toString());
+            }
+        }
+        Map<Long, String> requested = new LinkedHashMap<>(services);
+        if (only != null) {
+            requested.values().retainAll(only);
+        }
         
-        try {
-            // Statistiques des actes médicaux
-            List<Object[]> actesStats = acteMedicalRepository.findStatsByDateAndService(startOfDay, endOfDay, serviceName);
-            if (!actesStats.isEmpty()) {
-                Object[] stats = actesStats.get(0);
-                row.setActesCount(stats[0] != null ? ((Number) stats[0]).intValue() : 0);
-                row.setCoutTotal(stats[1] != null ? ((Number) stats[1]).doubleValue() : 0.0);
-                row.setTarifMoyen(stats[2] != null ? ((Number) stats[2]).doubleValue() : 0.0);
-            } else {
-                row.setActesCount(0);
-                row.setCoutTotal(0.0);
-                row.setTarifMoyen(0.0);
+        // Prévisions déjà en cache; les données ne sont chargées que s'il en manque au moins une
+        MLPredictionResponseDTO[] responses = new MLPredictionResponseDTO[services.size()];
+        boolean missing = false;
+        int i = 0;
+        for (Map.Entry<Long, String> service : services.entrySet()) {
+            if (requested.containsKey(service.getKey())) {
+                responses[i] = forecastCache.get(ForecastCache.key(service.getValue(), predictionType, model, daysAhead, currentDate));
+                missing |= responses[i] == null;
             }
-            
-            // Statistiques des séjours
-            List<Object[]> sejoursStats = sejourRepository.findStatsByDateAndService(startOfDay, endOfDay, serviceName);
-            if (!sejoursStats.isEmpty()) {
-                Object[] stats = sejoursStats.get(0);
-                row.setSejoursActifs(stats[0] != null ? ((Number) stats[0]).intValue() : 0);
-                row.setDureeMoyenneSejour(stats[1] != null ? ((Number) stats[1]).doubleValue() : 0.0);
-            } else {
-                row.setSejoursActifs(0);
-                row.setDureeMoyenneSejour(0.0);
+            i++;
+        }
+        
+        if (missing) {
+            long stamp = forecastCache.stamp();
+            Map<Long, ForecastInputs> inputs = loadForecastInputs(requested, predictionType, model, currentDate);
+            i = 0;
+            for (Map.Entry<Long, String> service : services.entrySet()) {
+                if (responses[i] == null && requested.containsKey(service.getKey())) {
+                    MLPredictionRequestDTO request = new MLPredictionRequestDTO();
+                    request.setService(service.getValue());
+                    request.setPredictionType(predictionType);
+                    request.setDaysAhead(daysAhead);
+                    request.setStartDate(currentDate);
+                    request.setModele(model);
+                    responses[i] = buildPredictionResponse(request, currentDate, inputs.get(service.getKey()));
+                    forecastCache.put(service.getValue(),
+                            ForecastCache.key(service.getValue(), predictionType, model, daysAhead, currentDate), stamp, responses[i]);
+                }
+                i++;
             }
-            
-            // Patients uniques
-            Long patientsCount = patientRepository.countDistinctPatientsWithSejoursOnDate(startOfDay, endOfDay, serviceName);
-            row.setPatientsCount(patientsCount != null ? patientsCount.intValue() : 0);
-            
-            // Autres statistiques (valeurs simulées - à remplacer par vraies données)
-            row.setCoutMoyenActe(row.getActesCount() > 0 ? row.getCoutTotal() / row.getActesCount() : 0.0);
-            row.setTauxOccupation(calculateSimulatedOccupation(serviceName, row.getSejoursActifs()));
-            row.setPersonnelPresent(getSimulatedStaff(serviceName));
-            row.setEquipementsUtilises(getSimulatedEquipment(serviceName));
-            row.setUrgencesAdmissions(serviceName.equals("Urgences") ? row.getPatientsCount() : 0);
-            row.setInterventionsChirurgicales(serviceName.equals("Chirurgie") ? (int)(row.getActesCount() * 0.4) : 0);
-            row.setExamensRadiologie(serviceName.equals("Radiologie") ? row.getActesCount() : 
-                                      (int)(row.getActesCount() * 0.2));
-            row.setConsultations((int)(row.getActesCount() * 0.6));
-            row.setHospitalisations(row.getSejoursActifs());
-            row.setCoutMaintenance(getSimulatedMaintenanceCost(serviceName));
-            
-            return row;
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
         }
+        return Arrays.asList(responses);
     }
     
     /**
-     * Génère des prédictions ML basées sur les patterns historiques ET les données réelles actuelles
+     * Prévisions d'un ensemble de services prêtes à être recalculées avec d'autres facteurs d'impact
+     * (scénarios): historique, modèles ajustés et bornes simulées sont calculés ici une seule fois,
+     * sans passer par le cache ni par les prévisions précalculées
      */
-    public MLPredictionResponseDTO generateMLPredictions(MLPredictionRequestDTO request) {
+    public Map<Long, PreparedForecast> prepareForecasts(Map<Long, String> services, String predictionType,
+                                                        ForecastModel model, int daysAhead, LocalDate currentDate) {
+        Map<Long, ForecastInputs> inputs = loadForecastInputs(services, predictionType, model, currentDate);
+        Map<Long, PreparedForecast> prepared = new LinkedHashMap<>();
+        for (Map.Entry<Long, String> service : services.entrySet()) {
+            MLPredictionRequestDTO request = new MLPredictionRequestDTO();
+            request.setService(service.getValue());
+            request.setPredictionType(predictionType);
+            request.setDaysAhead(daysAhead);
+            request.setStartDate(currentDate);
+            request.setModele(model);
+            ForecastInputs serviceInputs = inputs.get(service.getKey());
+            prepared.put(service.getKey(), new PreparedForecast(request, currentDate, serviceInputs,
+                    project(request, currentDate, serviceInputs)));
+        }
+        return prepared;
+    }
+    
+    /**
+     * Prévision préparée recalculée avec les facteurs d'impact donnés; sans accès à la base, utilisable en parallèle
+     */
+    public MLPredictionResponseDTO forecastWith(PreparedForecast prepared, ServiceImpactSnapshot.Factors factors) {
+        return buildPredictionResponse(prepared.request, prepared.currentDate, prepared.inputs.withFactors(factors),
+                prepared.projection);
+    }
+    
+    /**
+     * Construit la réponse (points, statistiques, tendance, recommandations) à partir des données d'un service
+     */
+    private MLPredictionResponseDTO buildPredictionResponse(MLPredictionRequestDTO request, LocalDate currentDate,
+                                                            ForecastInputs inputs) {
+        return buildPredictionResponse(request, currentDate, inputs, project(request, currentDate, inputs));
+    }
+    
+    /**
+     * Prévisions Holt-Winters des jours 1..daysAhead suivant la fin de l'historique (veille de currentDate);
+     * bornes par bootstrap des résidus du modèle ajusté, ou du modèle de bruit pour l'heuristique.
+     * Rien ici ne dépend des facteurs d'impact.
+     */
+    private Projection project(MLPredictionRequestDTO request, LocalDate currentDate, ForecastInputs inputs) {
+        int horizon = request.getDaysAhead();
+        double[] modelValues = inputs.fit != null ? inputs.fit.forecast(horizon) : null;
+        long seed = Objects.hash(request.getService(), request.getPredictionType(), currentDate);
+        BootstrapIntervals.Bands bands = inputs.fit != null ? bootstrapIntervals.intervals(inputs.fit, horizon, seed)
+                : inputs.noise != null ? bootstrapIntervals.intervals(inputs.noise, horizon, seed) : null;
+        double[] noiseCenter = inputs.fit == null && bands != null ? inputs.noise.forecast(horizon) : null;
+        return new Projection(modelValues, bands, noiseCenter);
+    }
+    
+    private MLPredictionResponseDTO buildPredictionResponse(MLPredictionRequestDTO request, LocalDate currentDate,
+                                                            ForecastInputs inputs, Projection projection) {
         MLPredictionResponseDTO response = new MLPredictionResponseDTO();
         response.setService(request.getService());
         response.setPredictionType(request.getPredictionType());
+        response.setModele(inputs.fit != null ? inputs.model : ForecastModel.HEURISTIQUE);
         
         List<MLPredictionResponseDTO.PredictionPoint> predictions = new ArrayList<>();
-        LocalDate currentDate = request.getStartDate() != null ? request.getStartDate() : LocalDate.now();
-        
-        // Récupérer les données historiques pour calculer la tendance
-        LocalDateTime startHistory = currentDate.minusMonths(3).atStartOfDay();
-        LocalDateTime endHistory = currentDate.atStartOfDay();
-        
-        double baseValue = calculateHistoricalAverage(request.getService(), request.getPredictionType(), 
-                                                       startHistory, endHistory);
-        double trend = calculateTrend(request.getService(), request.getPredictionType(), 
-                                      startHistory, endHistory);
-        
-        // NOUVEAUX FACTEURS DYNAMIQUES basés sur les données actuelles
-        double medecinImpact = calculateMedecinImpact(request.getService());
-        double investmentImpact = calculateInvestmentImpact(request.getService());
-        double alertImpact = calculateAlertImpact(request.getService());
+        double baseValue = inputs.baseValue;
+        double trend = inputs.trend;
+        double medecinImpact = inputs.medecinImpact;
+        double investmentImpact = inputs.investmentImpact;
+        double alertImpact = inputs.alertImpact;
         
         // Facteur global d'impact (médecins, investissements, alertes)
         double dynamicFactor = 1.0 + medecinImpact + investmentImpact - alertImpact;
         
-        // Confiance basée sur la disponibilité des données
-        double confiance = 85.0 + Math.random() * 5;
-        if (medecinImpact > 0) confiance += 2.0;
-        if (investmentImpact > 0) confiance += 3.0;
-        response.setConfiance(Math.min(confiance, 95.0));
+        if (inputs.fit != null) {
+            // Confiance tirée de l'erreur à un pas du modèle ajusté
+            response.setConfiance(Math.max(50.0, Math.min(95.0, 100.0 * (1 - inputs.fit.relativeError()))));
+        } else {
+            // Confiance basée sur la disponibilité des données (part variable fixée par service, type et date)
+            double confiance = heuristicConfiance(request.getService(), request.getPredictionType(), currentDate);
+            if (medecinImpact > 0) confiance += 2.0;
+            if (investmentImpact > 0) confiance += 3.0;
+            response.setConfiance(Math.min(confiance, 95.0));
+        }
+        
+        double[] modelValues = projection.modelValues;
+        BootstrapIntervals.Bands bands = projection.bands;
+        double[] noiseCenter = projection.noiseCenter;
         
         // Générer les prédictions pour chaque jour
         for (int i = 0; i < request.getDaysAhead(); i++) {
             LocalDate predDate = currentDate.plusDays(i);
+            double predictedValue;
+            double min;
+            double max;
             
-            // Calculer la valeur prédite avec TOUS les facteurs
-            double seasonalFactor = getSeasonalFactor(predDate, request.getService());
-            double weekdayFactor = getWeekdayFactor(predDate);
-            
-            double predictedValue = baseValue * (1 + trend * i / 365.0) * 
-                                    seasonalFactor * weekdayFactor * dynamicFactor;
-            
-            // Intervalle de confiance (±8-12% selon confiance)
-            double confidenceInterval = 0.10 * (100 - response.getConfiance()) / 10;
-            double min = predictedValue * (1 - confidenceInterval);
-            double max = predictedValue * (1 + confidenceInterval);
+            if (modelValues != null) {
+                predictedValue = Math.max(0.0, modelValues[i]) * dynamicFactor;
+                min = Math.min(predictedValue, Math.max(0.0, bands.getLower()[i]) * dynamicFactor);
+                max = Math.max(predictedValue, Math.max(0.0, bands.getUpper()[i]) * dynamicFactor);
+            } else {
+                // Calculer la valeur prédite avec TOUS les facteurs
+                predictedValue = heuristicValue(request.getService(), baseValue, trend, i, predDate) * dynamicFactor;
+                
+                if (noiseCenter != null && noiseCenter[i] > 0) {
+                    // Écart relatif des bornes simulées autour de la prévision du modèle de bruit
+                    min = Math.min(predictedValue, predictedValue * Math.max(0.0, bands.getLower()[i]) / noiseCenter[i]);
+                    max = Math.max(predictedValue, predictedValue * bands.getUpper()[i] / noiseCenter[i]);
+                } else {
+                    double confidenceInterval = heuristicIntervalRatio(response.getConfiance());
+                    min = predictedValue * (1 - confidenceInterval);
+                    max = predictedValue * (1 + confidenceInterval);
+                }
+            }
             
             MLPredictionResponseDTO.PredictionPoint point = new MLPredictionResponseDTO.PredictionPoint();
             point.setDate(predDate);
@@ -213,12 +338,178 @@ public class MLPredictionService {
         return response;
     }
     
+    /**
+     * Charge les données de prévision de tous les services en requêtes groupées par service_id
+     */
+    private Map<Long, ForecastInputs> loadForecastInputs(Map<Long, String> services, String type, ForecastModel model,
+                                                         LocalDate currentDate) {
+        LocalDate historyStart = currentDate.minusMonths(3);
+        LocalDate olderEnd = historyStart.plusMonths(1);
+        LocalDate recentStart = currentDate.minusMonths(1);
+        boolean fitModel = model != ForecastModel.HEURISTIQUE;
+        LocalDate queryStart = currentDate.minusDays(fitModel ? SERIES_DAYS : NOISE_DAYS);
+        
+        // Trois fenêtres (3 mois, premier mois, dernier mois) accumulées en un seul parcours de la table de faits;
+        // les séries des modèles Holt-Winters et du modèle de bruit sont lues dans la même requête
+        Map<Long, WindowSums[]> windows = new HashMap<>();
+        Map<Long, List<DailyServiceStats>> series = new HashMap<>();
+        for (DailyServiceStats stats : dailyServiceStatsRepository.findByStatDateBetween(queryStart, currentDate.minusDays(1))) {
+            series.computeIfAbsent(stats.getServiceId(), id -> new ArrayList<>()).add(stats);
+            if (stats.getStatDate().isBefore(historyStart)) {
+                continue;
+            }
+            WindowSums[] sums = windows.computeIfAbsent(stats.getServiceId(),
+                    id -> new WindowSums[]{new WindowSums(), new WindowSums(), new WindowSums()});
+            sums[0].add(stats);
+            if (stats.getStatDate().isBefore(olderEnd)) sums[1].add(stats);
+            if (!stats.getStatDate().isBefore(recentStart)) sums[2].add(stats);
+        }
+        
+        Map<Long, Object[]> sejourStats = groupByServiceId(sejourRepository.findCurrentStatsGroupedByService());
+        
+        Map<Long, ForecastInputs> inputs = new HashMap<>();
+        for (Map.Entry<Long, String> service : services.entrySet()) {
+            Long id = service.getKey();
+            String name = service.getValue();
+            List<DailyServiceStats> rows = series.getOrDefault(id, List.of());
+            HoltWinters.Fit fit = fitModel ? fitSeries(rows, type, model, currentDate) : null;
+            if (fit != null) {
+                inputs.put(id, new ForecastInputs(fit, model, serviceImpactSnapshot.forService(id)));
+                continue;
+            }
+            WindowSums[] sums = windows.getOrDefault(id, new WindowSums[]{new WindowSums(), new WindowSums(), new WindowSums()});
+            Object[] current = sejourStats.get(id);
+            Double avgCout = current != null && current[1] != null ? ((Number) current[1]).doubleValue() : null;
+            long patients = current != null && current[2] != null ? ((Number) current[2]).longValue() : 0L;
+            long activeSejours = current != null && current[3] != null ? ((Number) current[3]).longValue() : 0L;
+            double fallback = currentAverageValue(name, type, avgCout, patients, activeSejours);
+            
+            double baseValue = sums[0].average(type, fallback);
+            double olderAvg = sums[1].average(type, fallback);
+            double recentAvg = sums[2].average(type, fallback);
+            double trend = olderAvg > 0 ? (recentAvg - olderAvg) / olderAvg : 0.0;
+            
+            inputs.put(id, new ForecastInputs(baseValue, trend, serviceImpactSnapshot.forService(id),
+                    fitNoise(rows, type, currentDate)));
+        }
+        return inputs;
+    }
+    
+    /**
+     * Valeur de repli d'un service sans historique, calculée à partir des statistiques de séjours déjà chargées
+     * (mêmes règles que getCurrentAverageValue)
+     */
+    private double currentAverageValue(String service, String type, Double avgCout, long patients, long activeSejours) {
+        switch (type) {
+            case "COUT":
+                return avgCout != null && avgCout > 0 ? avgCout : defaultValue(service, type);
+            case "PATIENTS":
+                return patients > 0 ? Math.max(patients / 30.0, patients) : defaultValue(service, type);
+            case "OCCUPATION":
+                if (activeSejours > 0) {
+                    int capacity = serviceRegistry.capacity(service);
+                    return Math.min(100.0, ((double) activeSejours / capacity) * 100.0);
+                }
+                return defaultValue(service, type);
+            default:
+                return 0.0;
+        }
+    }
+    
+    /**
+     * Ajuste le modèle Holt-Winters demandé sur la série journalière d'un service, ou null si elle ne suffit pas
+     */
+    private static HoltWinters.Fit fitSeries(List<DailyServiceStats> rows, String type, ForecastModel model,
+                                             LocalDate currentDate) {
+        double[] series = dailySeries(rows, currentDate.minusDays(SERIES_DAYS), SERIES_DAYS, type);
+        HoltWinters.Mode mode = model == ForecastModel.HOLT_WINTERS_MULTIPLICATIF
+                ? HoltWinters.Mode.MULTIPLICATIVE : HoltWinters.Mode.ADDITIVE;
+        return HoltWinters.fit(series, series.length, mode);
+    }
+    
+    /**
+     * Modèle de bruit de l'heuristique: Holt-Winters additif sur la dernière année, ou null si elle ne suffit pas
+     */
+    private static HoltWinters.Fit fitNoise(List<DailyServiceStats> rows, String type, LocalDate currentDate) {
+        double[] series = dailySeries(rows, currentDate.minusDays(NOISE_DAYS), NOISE_DAYS, type);
+        return HoltWinters.fit(series, series.length, HoltWinters.Mode.ADDITIVE);
+    }
+    
+    /**
+     * Série journalière d'un service sur [start, start + days[: montant facturé (COUT), patients (PATIENTS)
+     * ou durée moyenne de séjour (OCCUPATION, reportée sur les jours sans séjour). Un jour absent de la table
+     * de faits n'a pas d'activité. Les jours précédant la première donnée sont retirés.
+     */
+    static double[] dailySeries(List<DailyServiceStats> rows, LocalDate start, int days, String type) {
+        double[] values = new double[days];
+        boolean[] present = new boolean[days];
+        long startDay = start.toEpochDay();
+        for (DailyServiceStats stats : rows) {
+            int i = (int) (stats.getStatDate().toEpochDay() - startDay);
+            if (i < 0 || i >= days) continue;
+            switch (type) {
+                case "COUT":
+                    values[i] = stats.getTarifTotal() != null ? stats.getTarifTotal() : 0.0;
+                    present[i] = true;
+                    break;
+                case "PATIENTS":
+                    values[i] = stats.getPatientsCount() != null ? stats.getPatientsCount() : 0;
+                    present[i] = true;
+                    break;
+                case "OCCUPATION":
+                    if (stats.getSejoursCount() != null && stats.getSejoursCount() > 0 && stats.getDureeMoyenneSejour() != null) {
+                        values[i] = stats.getDureeMoyenneSejour();
+                        present[i] = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        int first = 0;
+        while (first < days && !present[first]) first++;
+        if (first == days) {
+            return new double[0];
+        }
+        if ("OCCUPATION".equals(type)) {
+            for (int i = first + 1; i < days; i++) {
+                if (!present[i]) values[i] = values[i - 1];
+            }
+        }
+        return Arrays.copyOfRange(values, first, days);
+    }
+    
+    /**
+     * Valeur dans [0, 1[ tirée d'un générateur initialisé par (service, type, date):
+     * deux calculs de la même prévision donnent la même confiance
+     */
+    private static double stableFraction(String service, String type, LocalDate date) {
+        return new SplittableRandom(Objects.hash(service, type, date)).nextDouble();
+    }
+    
+    private static Map<Long, Object[]> groupByServiceId(List<Object[]> rows) {
+        Map<Long, Object[]> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                grouped.put(((Number) row[0]).longValue(), row);
+            }
+        }
+        return grouped;
+    }
+    
     // Méthodes utilitaires
     
+    /**
+     * Moyennes historiques lues dans la table de faits daily_service_stats sur [start, end[
+     */
     private double calculateHistoricalAverage(String service, String type, LocalDateTime start, LocalDateTime end) {
+        LocalDate startDay = start.toLocalDate();
+        // Un jour entamé est compté dans la période
+        LocalDate endDay = end.toLocalTime().equals(LocalTime.MIDNIGHT) ? end.toLocalDate() : end.toLocalDate().plusDays(1);
         switch (type) {
             case "COUT":
-                Double totalCout = acteMedicalRepository.findStatsByDateRangeAndService(start, end, service);
+                Double totalCout = dailyServiceStatsRepository.sumTarifByServiceNom(startDay, endDay, service);
                 if (totalCout != null && totalCout > 0) {
                     return totalCout / 90.0; // Moyenne quotidienne
                 }
@@ -226,7 +517,9 @@ public class MLPredictionService {
                 return getCurrentAverageValue(service, "COUT");
                 
             case "PATIENTS":
-                Long patientsCount = patientRepository.countDistinctPatientsWithSejoursInRange(start, end, service);
+                // Somme des patients distincts par jour d'entrée, comme WindowSums: un patient admis plusieurs fois
+                // sur la période compte à chaque admission (nombre d'admissions-patients, pas de patients distincts)
+                Long patientsCount = dailyServiceStatsRepository.sumPatientsByServiceNom(startDay, endDay, service);
                 if (patientsCount != null && patientsCount > 0) {
                     return patientsCount.doubleValue() / 90.0;
                 }
@@ -234,7 +527,7 @@ public class MLPredictionService {
                 return getCurrentAverageValue(service, "PATIENTS");
                 
             case "OCCUPATION":
-                Double avgDuration = sejourRepository.findAverageOccupationByService(start, end, service);
+                Double avgDuration = dailyServiceStatsRepository.averageDureeSejourByServiceNom(startDay, endDay, service);
                 if (avgDuration != null && avgDuration > 0) {
                     return avgDuration;
                 }
@@ -270,11 +563,7 @@ public class MLPredictionService {
                     // Taux d'occupation basé sur les séjours actuels
                     Long activeSejoursCount = sejourRepository.countActiveSejoursByService(service);
                     if (activeSejoursCount != null && activeSejoursCount > 0) {
-                        Map<String, Integer> capacities = Map.of(
-                            "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
-                            "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
-                        );
-                        int capacity = capacities.getOrDefault(service, 30);
+                        int capacity = serviceRegistry.capacity(service);
                         return Math.min(100.0, (activeSejoursCount.doubleValue() / capacity) * 100.0);
                     }
                     return getDefaultValue(service, "OCCUPATION");
@@ -298,7 +587,28 @@ public class MLPredictionService {
         return 0.0;
     }
     
-    private double getSeasonalFactor(LocalDate date, String service) {
+    /**
+     * Valeur heuristique du jour i de l'horizon, hors facteurs d'impact
+     */
+    static double heuristicValue(String service, double baseValue, double trend, int i, LocalDate date) {
+        return baseValue * (1 + trend * i / 365.0) * getSeasonalFactor(date, service) * getWeekdayFactor(date);
+    }
+    
+    /**
+     * Confiance de l'heuristique hors facteurs d'impact (part variable fixée par service, type et date)
+     */
+    static double heuristicConfiance(String service, String type, LocalDate date) {
+        return 85.0 + stableFraction(service, type, date) * 5;
+    }
+    
+    /**
+     * Demi-largeur relative de l'intervalle heuristique (±8-12% selon confiance)
+     */
+    static double heuristicIntervalRatio(double confiance) {
+        return 0.10 * (100 - confiance) / 10;
+    }
+    
+    private static double getSeasonalFactor(LocalDate date, String service) {
         int month = date.getMonthValue();
         
         // Facteurs saisonniers par type de service
@@ -320,7 +630,7 @@ public class MLPredictionService {
         return 1.0;
     }
     
-    private double getWeekdayFactor(LocalDate date) {
+    private static double getWeekdayFactor(LocalDate date) {
         // Moins d'activité le weekend
         if (date.getDayOfWeek() == DayOfWeek.SATURDAY) return 0.85;
         if (date.getDayOfWeek() == DayOfWeek.SUNDAY) return 0.75;
@@ -331,63 +641,35 @@ public class MLPredictionService {
      * Calcule l'impact du nombre de médecins actifs sur les prédictions
      * Plus de médecins = plus de capacité = augmentation potentielle des revenus/patients
      */
-    private double calculateMedecinImpact(String serviceName) {
-        try {
-            Long medecinCount = medecinRepository.countByServiceNomAndStatut(serviceName, "ACTIF");
-            if (medecinCount == null || medecinCount == 0) return 0.0;
-            
-            // Impact: +2% par médecin actif au-delà de 2 (max +20%)
-            double baseCount = 2.0;
-            if (medecinCount > baseCount) {
-                return Math.min((medecinCount - baseCount) * 0.02, 0.20);
-            }
-            return 0.0;
-        } catch (Exception e) {
-            return 0.0;
+    private static double medecinImpact(long medecinCount) {
+        if (medecinCount == 0) return 0.0;
+        
+        // Impact: +2% par médecin actif au-delà de 2 (max +20%)
+        double baseCount = 2.0;
+        if (medecinCount > baseCount) {
+            return Math.min((medecinCount - baseCount) * 0.02, 0.20);
         }
+        return 0.0;
     }
     
     /**
      * Calcule l'impact des investissements récents (3 derniers mois)
      * Nouveaux équipements = augmentation efficacité = plus de patients/revenus
      */
-    private double calculateInvestmentImpact(String serviceName) {
-        try {
-            LocalDateTime threeMonthsAgo = LocalDateTime.now().minusMonths(3);
-            List<Object[]> recentInvestments = investmentRepository
-                .findByServiceNomAndDateAfter(serviceName, threeMonthsAgo);
-            
-            if (recentInvestments.isEmpty()) return 0.0;
-            
-            // Calculer l'impact basé sur le montant total investi
-            double totalAmount = 0.0;
-            for (Object[] inv : recentInvestments) {
-                if (inv[1] != null) {
-                    totalAmount += ((Number) inv[1]).doubleValue();
-                }
-            }
-            
-            // Impact: +1% par tranche de 50k€ investis (max +15%)
-            return Math.min(totalAmount / 50000.0 * 0.01, 0.15);
-        } catch (Exception e) {
-            return 0.0;
-        }
+    private static double investmentImpact(double totalAmount) {
+        // Impact: +1% par tranche de 50k€ investis (max +15%)
+        return Math.min(totalAmount / 50000.0 * 0.01, 0.15);
     }
     
     /**
      * Calcule l'impact négatif des alertes actives
      * Plus d'alertes = problèmes = potentielle diminution activité
      */
-    private double calculateAlertImpact(String serviceName) {
-        try {
-            Long activeAlerts = alertRepository.countByServiceNomAndStatus(serviceName, "ACTIVE");
-            if (activeAlerts == null || activeAlerts == 0) return 0.0;
-            
-            // Impact négatif: -3% par alerte active (max -15%)
-            return Math.min(activeAlerts * 0.03, 0.15);
-        } catch (Exception e) {
-            return 0.0;
-        }
+    private static double alertImpact(long activeAlerts) {
+        if (activeAlerts == 0) return 0.0;
+        
+        // Impact négatif: -3% par alerte active (max -15%)
+        return Math.min(activeAlerts * 0.03, 0.15);
     }
     
     private double getDefaultValue(String service, String type) {
@@ -415,11 +697,7 @@ public class MLPredictionService {
                     // Calculer le taux d'occupation RÉEL
                     Long activeSejours = sejourRepository.countActiveSejoursByService(service);
                     if (activeSejours != null && activeSejours > 0) {
-                        Map<String, Integer> capacities = Map.of(
-                            "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
-                            "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
-                        );
-                        int capacity = capacities.getOrDefault(service, 30);
+                        int capacity = serviceRegistry.capacity(service);
                         return Math.min(100.0, (activeSejours.doubleValue() / capacity) * 100.0);
                     }
                     break;
@@ -428,7 +706,13 @@ public class MLPredictionService {
             // En cas d'erreur, utiliser les valeurs par défaut ci-dessous
         }
         
-        // Valeurs par défaut MINIMALES (utilisées uniquement si aucune donnée réelle)
+        return defaultValue(service, type);
+    }
+    
+    /**
+     * Valeurs par défaut MINIMALES (utilisées uniquement si aucune donnée réelle)
+     */
+    private static double defaultValue(String service, String type) {
         Map<String, Map<String, Double>> defaults = Map.of(
             "Urgences", Map.of("COUT", 8000.0, "PATIENTS", 15.0, "OCCUPATION", 75.0),
             "Chirurgie", Map.of("COUT", 25000.0, "PATIENTS", 10.0, "OCCUPATION", 80.0),
@@ -505,126 +789,232 @@ public class MLPredictionService {
         return recommandations;
     }
     
-    // Méthodes de simulation (à remplacer par vraies données)
-    
-    private String getSeason(LocalDate date) {
-        int month = date.getMonthValue();
-        if (month >= 3 && month <= 5) return "printemps";
-        if (month >= 6 && month <= 8) return "ete";
-        if (month >= 9 && month <= 11) return "automne";
-        return "hiver";
+    /**
+     * Récupère les statistiques actuelles RÉELLES pour tous les services.
+     * Avec app.ml.current-stats.ttl-ms > 0 le résultat est réutilisé pendant cette durée: la liste est alors
+     * partagée et ne doit pas être modifiée.
+     */
+    public List<Map<String, Object>> getCurrentStatisticsForAllServices(String type) {
+        if (currentStatisticsTtlMs <= 0) {
+            return computeCurrentStatistics(type);
+        }
+        long now = System.currentTimeMillis();
+        CachedStatistics cached = currentStatistics.get(type);
+        if (cached == null || now - cached.computedAt > currentStatisticsTtlMs) {
+            long generation = currentStatisticsGeneration.get();
+            cached = new CachedStatistics(computeCurrentStatistics(type), now);
+            synchronized (currentStatistics) {
+                if (generation == currentStatisticsGeneration.get()) {
+                    currentStatistics.put(type, cached);
+                }
+            }
+        }
+        return cached.statistics;
     }
     
-    private boolean isHoliday(LocalDate date) {
-        // Jours fériés français simplifiés
-        int month = date.getMonthValue();
-        int day = date.getDayOfMonth();
-        return (month == 1 && day == 1) || (month == 5 && day == 1) || 
-               (month == 5 && day == 8) || (month == 7 && day == 14) ||
-               (month == 11 && day == 1) || (month == 11 && day == 11) ||
-               (month == 12 && day == 25);
+    /**
+     * Invalide les statistiques courantes après une écriture de séjour ou de service, avant que la version
+     * de la table n'avance (TableVersions): un ETag neuf ne doit jamais accompagner des valeurs du cache
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onSejourChanged(SejourChangedEvent event) {
+        evictCurrentStatistics();
     }
     
-    private String getSimulatedWeather(LocalDate date) {
-        String[] weathers = {"ensoleille", "nuageux", "pluie", "neige"};
-        int month = date.getMonthValue();
-        if (month >= 6 && month <= 8) return "ensoleille";
-        if (month >= 12 || month <= 2) return Math.random() > 0.7 ? "neige" : "nuageux";
-        return Math.random() > 0.5 ? "nuageux" : "pluie";
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onServiceChanged(ServiceChangedEvent event) {
+        evictCurrentStatistics();
     }
     
-    private int getSimulatedTemperature(LocalDate date) {
-        int month = date.getMonthValue();
-        if (month >= 12 || month <= 2) return (int)(Math.random() * 8); // 0-8°C
-        if (month >= 3 && month <= 5) return (int)(10 + Math.random() * 10); // 10-20°C
-        if (month >= 6 && month <= 8) return (int)(20 + Math.random() * 15); // 20-35°C
-        return (int)(10 + Math.random() * 8); // 10-18°C
+    private void evictCurrentStatistics() {
+        synchronized (currentStatistics) {
+            currentStatisticsGeneration.incrementAndGet();
+            currentStatistics.clear();
+        }
     }
     
-    private double calculateSimulatedOccupation(String service, int sejoursActifs) {
-        Map<String, Integer> capacities = Map.of(
-            "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
-            "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
-        );
-        int capacity = capacities.getOrDefault(service, 30);
-        return Math.min(1.0, (double) sejoursActifs / capacity);
+    /**
+     * Statistiques de tous les services du registre, à partir d'une seule requête groupée sur les séjours
+     */
+    private List<Map<String, Object>> computeCurrentStatistics(String type) {
+        Map<Long, Object[]> sejourStats;
+        String error = null;
+        try {
+            sejourStats = groupByServiceId(sejourRepository.findCurrentStatsGroupedByService());
+        } catch (Exception e) {
+            sejourStats = Map.of();
+            error = e.getMessage();
+        }
+        
+        List<Map<String, Object>> statistics = new ArrayList<>();
+        for (ServiceRegistry.ServiceInfo service : serviceRegistry.getServices()) {
+            Map<String, Object> stat = new HashMap<>();
+            stat.put("service", service.getNom());
+            if (error != null) {
+                stat.put("total", 0);
+                stat.put("error", error);
+                statistics.add(stat);
+                continue;
+            }
+            
+            Object[] current = sejourStats.get(service.getId());
+            Double avgCout = current != null && current[1] != null ? ((Number) current[1]).doubleValue() : null;
+            long totalPatients = current != null && current[2] != null ? ((Number) current[2]).longValue() : 0L;
+            long activeSejours = current != null && current[3] != null ? ((Number) current[3]).longValue() : 0L;
+            switch (type) {
+                case "PATIENTS":
+                    stat.put("total", totalPatients);
+                    stat.put("actifs", activeSejours);
+                    stat.put("moyenne_journaliere", totalPatients / 30.0);
+                    break;
+                    
+                case "COUT":
+                    stat.put("cout_moyen", avgCout != null ? avgCout : 0.0);
+                    stat.put("total", avgCout != null ? avgCout : 0.0);
+                    break;
+                    
+                case "OCCUPATION":
+                    int capacity = service.getCapacite();
+                    stat.put("taux", Math.min(100.0, ((double) activeSejours / capacity) * 100.0));
+                    stat.put("capacite", capacity);
+                    stat.put("occupe", activeSejours);
+                    break;
+            }
+            statistics.add(stat);
+        }
+        
+        return statistics;
     }
     
-    private int getSimulatedStaff(String service) {
-        Map<String, Integer> staffCounts = Map.of(
-            "Urgences", 16, "Chirurgie", 23, "Cardiologie", 19, "Pediatrie", 15,
-            "Maternite", 13, "Radiologie", 10, "Oncologie", 15, "Neurologie", 12
-        );
-        return staffCounts.getOrDefault(service, 15);
+    private static class CachedStatistics {
+        final List<Map<String, Object>> statistics;
+        final long computedAt;
+        
+        CachedStatistics(List<Map<String, Object>> statistics, long computedAt) {
+            this.statistics = statistics;
+            this.computedAt = computedAt;
+        }
     }
     
-    private int getSimulatedEquipment(String service) {
-        Map<String, Integer> equipmentCounts = Map.of(
-            "Urgences", 9, "Chirurgie", 13, "Cardiologie", 11, "Pediatrie", 9,
-            "Maternite", 7, "Radiologie", 15, "Oncologie", 8, "Neurologie", 9
-        );
-        return equipmentCounts.getOrDefault(service, 10);
+    /**
+     * Données d'entrée d'une prévision: niveau de base, tendance, facteurs d'impact du service et,
+     * pour un modèle Holt-Winters, le modèle ajusté (null pour l'heuristique). Le modèle de bruit de
+     * l'heuristique ne sert qu'aux bornes (null sans historique suffisant).
+     */
+    private static class ForecastInputs {
+        final double baseValue;
+        final double trend;
+        final double medecinImpact;
+        final double investmentImpact;
+        final double alertImpact;
+        final HoltWinters.Fit fit;
+        final ForecastModel model;
+        final HoltWinters.Fit noise;
+        final ServiceImpactSnapshot.Factors factors;
+        
+        ForecastInputs(double baseValue, double trend, ServiceImpactSnapshot.Factors factors, HoltWinters.Fit noise) {
+            this(baseValue, trend, factors, null, ForecastModel.HEURISTIQUE, noise);
+        }
+        
+        /**
+         * Entrées d'un modèle ajusté: la tendance est la variation relative du niveau sur deux mois,
+         * comparable à l'écart entre premier et dernier mois de l'heuristique
+         */
+        ForecastInputs(HoltWinters.Fit fit, ForecastModel model, ServiceImpactSnapshot.Factors factors) {
+            this(fit.getLevel(), fit.getLevel() > 0 ? fit.getTrend() * 60 / fit.getLevel() : 0.0, factors, fit, model, null);
+        }
+        
+        private ForecastInputs(double baseValue, double trend, ServiceImpactSnapshot.Factors factors,
+                               HoltWinters.Fit fit, ForecastModel model, HoltWinters.Fit noise) {
+            this.baseValue = baseValue;
+            this.trend = trend;
+            this.medecinImpact = medecinImpact(factors.getActiveMedecins());
+            this.investmentImpact = investmentImpact(factors.getRecentInvestments());
+            this.alertImpact = alertImpact(factors.getActiveAlerts());
+            this.fit = fit;
+            this.model = model;
+            this.noise = noise;
+            this.factors = factors;
+        }
+        
+        ForecastInputs withFactors(ServiceImpactSnapshot.Factors factors) {
+            return new ForecastInputs(baseValue, trend, factors, fit, model, noise);
+        }
     }
     
-    private double getSimulatedMaintenanceCost(String service) {
-        Map<String, Double> costs = Map.of(
-            "Urgences", 450.0, "Chirurgie", 680.0, "Cardiologie", 520.0, "Pediatrie", 380.0,
-            "Maternite", 320.0, "Radiologie", 780.0, "Oncologie", 650.0, "Neurologie", 420.0
-        );
-        return costs.getOrDefault(service, 500.0);
+    /**
+     * Valeurs du modèle et bornes simulées d'une prévision, hors facteurs d'impact
+     */
+    private static class Projection {
+        final double[] modelValues;
+        final BootstrapIntervals.Bands bands;
+        final double[] noiseCenter;
+        
+        Projection(double[] modelValues, BootstrapIntervals.Bands bands, double[] noiseCenter) {
+            this.modelValues = modelValues;
+            this.bands = bands;
+            this.noiseCenter = noiseCenter;
+        }
     }
     
     /**
-     * Récupère les statistiques actuelles RÉELLES pour tous les services
+     * Prévision d'un service préparée par prepareForecasts
      */
-    public List<Map<String, Object>> getCurrentStatisticsForAllServices(String type) {
-        List<String> services = List.of("Urgences", "Chirurgie", "Cardiologie", "Pediatrie", 
-                                       "Maternite", "Radiologie", "Oncologie", "Neurologie");
+    public static class PreparedForecast {
+        private final MLPredictionRequestDTO request;
+        private final LocalDate currentDate;
+        private final ForecastInputs inputs;
+        private final Projection projection;
         
-        List<Map<String, Object>> statistics = new ArrayList<>();
+        private PreparedForecast(MLPredictionRequestDTO request, LocalDate currentDate, ForecastInputs inputs,
+                                 Projection projection) {
+            this.request = request;
+            this.currentDate = currentDate;
+            this.inputs = inputs;
+            this.projection = projection;
+        }
         
-        for (String service : services) {
-            Map<String, Object> stat = new HashMap<>();
-            stat.put("service", service);
-            
-            try {
-                switch (type) {
-                    case "PATIENTS":
-                        Long totalPatients = sejourRepository.countDistinctPatientsByService(service);
-                        Long activePatients = sejourRepository.countActiveSejoursByService(service);
-                        stat.put("total", totalPatients != null ? totalPatients : 0);
-                        stat.put("actifs", activePatients != null ? activePatients : 0);
-                        stat.put("moyenne_journaliere", totalPatients != null ? totalPatients.doubleValue() / 30.0 : 0.0);
-                        break;
-                        
-                    case "COUT":
-                        Double avgCout = sejourRepository.findAverageCoutByService(service);
-                        stat.put("cout_moyen", avgCout != null ? avgCout : 0.0);
-                        stat.put("total", avgCout != null ? avgCout : 0.0);
-                        break;
-                        
-                    case "OCCUPATION":
-                        Long activeSejours = sejourRepository.countActiveSejoursByService(service);
-                        Map<String, Integer> capacities = Map.of(
-                            "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
-                            "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
-                        );
-                        int capacity = capacities.getOrDefault(service, 30);
-                        double occupation = activeSejours != null ? 
-                            Math.min(100.0, (activeSejours.doubleValue() / capacity) * 100.0) : 0.0;
-                        stat.put("taux", occupation);
-                        stat.put("capacite", capacity);
-                        stat.put("occupe", activeSejours != null ? activeSejours : 0);
-                        break;
-                }
-            } catch (Exception e) {
-                stat.put("total", 0);
-                stat.put("error", e.getMessage());
+        /**
+         * Facteurs d'impact actuels du service
+         */
+        public ServiceImpactSnapshot.Factors getFactors() {
+            return inputs.factors;
+        }
+    }
+    
+    /**
+     * Sommes d'une fenêtre de la table de faits, avec les mêmes règles que calculateHistoricalAverage
+     */
+    private static class WindowSums {
+        double tarifTotal;
+        long patients;
+        double dureeTotale;
+        long sejours;
+        
+        void add(DailyServiceStats stats) {
+            tarifTotal += stats.getTarifTotal();
+            patients += stats.getPatientsCount();
+            if (stats.getSejoursCount() > 0) {
+                dureeTotale += stats.getDureeMoyenneSejour() * stats.getSejoursCount();
+                sejours += stats.getSejoursCount();
             }
-            
-            statistics.add(stat);
         }
         
-        return statistics;
+        double average(String type, double fallback) {
+            switch (type) {
+                case "COUT":
+                    return tarifTotal > 0 ? tarifTotal / 90.0 : fallback;
+                case "PATIENTS":
+                    // Somme des patients distincts de chaque jour: un patient réadmis compte plusieurs fois
+                    return patients > 0 ? patients / 90.0 : fallback;
+                case "OCCUPATION":
+                    double avgDuration = sejours > 0 ? dureeTotale / sejours : 0.0;
+                    return avgDuration > 0 ? avgDuration : fallback;
+                default:
+                    return 0.0;
+            }
+        }
     }
 }
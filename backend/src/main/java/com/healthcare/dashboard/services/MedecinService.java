@@ -2,9 +2,11 @@ package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.MedecinDTO;
 import com.healthcare.dashboard.entities.Medecin;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
 import com.healthcare.dashboard.repositories.MedecinRepository;
 import com.healthcare.dashboard.repositories.ServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 
 // Don't import Service entity to avoid ambiguity with @Service annotation
@@ -20,6 +22,7 @@ public class MedecinService {
     
     private final MedecinRepository medecinRepository;
     private final ServiceRepository serviceRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public List<MedecinDTO> getAllMedecins() {
         return medecinRepository.findAll().stream()
@@ -71,6 +74,7 @@ public class MedecinService {
         }
         
         Medecin saved = medecinRepository.save(medecin);
+        eventPublisher.publishEvent(new MedecinChangedEvent(null, MedecinChangedEvent.Snapshot.of(saved)));
         return convertToDTO(saved);
     }
     
@@ -78,6 +82,7 @@ public class MedecinService {
     public MedecinDTO updateMedecin(Long id, MedecinDTO medecinDTO) {
         Medecin medecin = medecinRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Médecin non trouvé avec l'ID: " + id));
+        MedecinChangedEvent.Snapshot previous = MedecinChangedEvent.Snapshot.of(medecin);
         
         medecin.setNom(medecinDTO.getNom());
         medecin.setPrenom(medecinDTO.getPrenom());
@@ -95,15 +100,16 @@ public class MedecinService {
         }
         
         Medecin updated = medecinRepository.save(medecin);
+        eventPublisher.publishEvent(new MedecinChangedEvent(previous, MedecinChangedEvent.Snapshot.of(updated)));
         return convertToDTO(updated);
     }
     
     @Transactional
     public void deleteMedecin(Long id) {
-        if (!medecinRepository.existsById(id)) {
-            throw new RuntimeException("Médecin non trouvé avec l'ID: " + id);
-        }
+        Medecin medecin = medecinRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Médecin non trouvé avec l'ID: " + id));
         medecinRepository.deleteById(id);
+        eventPublisher.publishEvent(new MedecinChangedEvent(MedecinChangedEvent.Snapshot.of(medecin), null));
     }
     
     private MedecinDTO convertToDTO(Medecin medecin) {
@@ -0,0 +1,182 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.MonthlyActeRevenue;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.MonthlyRevenueUpdatedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.MonthlyActeRevenueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintient la table monthly_acte_revenue (un enregistrement par mois, service et type d'acte).
+ * Les mois touchés par une écriture d'acte sont recalculés après le commit, par une requête sur la plage
+ * de dates du mois; une reconstruction complète reste disponible pour l'initialisation et les corrections.
+ * Chaque mois est recalculé dans sa propre transaction, un seul à la fois par mois, lignes existantes
+ * verrouillées: un recalcul plus ancien ne peut pas écraser un plus récent. Les mois récents sont
+ * réconciliés périodiquement, pour les écritures faites hors des services ou dont le recalcul a échoué.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MonthlyRevenueService {
+
+    private final MonthlyActeRevenueRepository monthlyActeRevenueRepository;
+    private final ActeMedicalRepository acteMedicalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+
+    // Nombre de mois, mois courant compris, réconciliés périodiquement
+    @Value("${app.dashboard.monthly-revenue.reconcile-months:3}")
+    private int reconcileMonths;
+    private final Map<YearMonth, Object> monthLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Recalcule les mois de [startMonth, endMonth] et renvoie le nombre de lignes écrites ou supprimées.
+     * Une ligne n'est réécrite que si ses valeurs changent; celle d'un mois sans acte de ce type est supprimée.
+     */
+    @Transactional
+    public int rebuild(YearMonth startMonth, YearMonth endMonth) {
+        if (endMonth.isBefore(startMonth)) {
+            return 0;
+        }
+        // Lignes verrouillées avant la lecture des actes: un recalcul concurrent du même mois attend ce commit
+        Map<String, MonthlyActeRevenue> existing = new HashMap<>();
+        for (MonthlyActeRevenue revenue : monthlyActeRevenueRepository.findByMoisBetween(
+                startMonth.atDay(1), endMonth.atDay(1))) {
+            existing.put(key(revenue), revenue);
+        }
+
+        Map<String, MonthlyActeRevenue> rows = new LinkedHashMap<>();
+        for (Object[] stats : acteMedicalRepository.findMonthlyStatsByServiceAndType(
+                startMonth.atDay(1).atStartOfDay(), endMonth.plusMonths(1).atDay(1).atStartOfDay())) {
+            if (stats[2] == null || stats[3] == null) continue;
+            LocalDate mois = LocalDate.of(((Number) stats[0]).intValue(), ((Number) stats[1]).intValue(), 1);
+            MonthlyActeRevenue row = new MonthlyActeRevenue(mois, ((Number) stats[2]).longValue(), stats[3].toString());
+            row.setActesCount(((Number) stats[4]).longValue());
+            row.setTarifTotal(stats[5] != null ? ((Number) stats[5]).doubleValue() : 0.0);
+            rows.put(key(row), row);
+        }
+
+        List<MonthlyActeRevenue> changed = new ArrayList<>();
+        for (Map.Entry<String, MonthlyActeRevenue> entry : rows.entrySet()) {
+            MonthlyActeRevenue current = existing.remove(entry.getKey());
+            if (current == null) {
+                changed.add(entry.getValue());
+            } else if (!current.getActesCount().equals(entry.getValue().getActesCount())
+                    || !current.getTarifTotal().equals(entry.getValue().getTarifTotal())) {
+                current.setActesCount(entry.getValue().getActesCount());
+                current.setTarifTotal(entry.getValue().getTarifTotal());
+                changed.add(current);
+            }
+        }
+        if (!changed.isEmpty()) {
+            monthlyActeRevenueRepository.saveAll(changed);
+        }
+        if (!existing.isEmpty()) {
+            monthlyActeRevenueRepository.deleteAll(new ArrayList<>(existing.values()));
+        }
+        if (!changed.isEmpty() || !existing.isEmpty()) {
+            eventPublisher.publishEvent(new MonthlyRevenueUpdatedEvent(startMonth, endMonth));
+        }
+        return changed.size() + existing.size();
+    }
+
+    /**
+     * Recalcule toute la table, du premier mois connu (actes ou lignes existantes) au mois courant
+     */
+    @Transactional
+    public int rebuildAll() {
+        LocalDateTime firstActe = acteMedicalRepository.findMinDateRealisation();
+        LocalDate firstRow = monthlyActeRevenueRepository.findMinMois();
+        YearMonth first = firstActe != null ? YearMonth.from(firstActe) : null;
+        if (first == null || (firstRow != null && YearMonth.from(firstRow).isBefore(first))) {
+            first = firstRow != null ? YearMonth.from(firstRow) : null;
+        }
+        return first != null ? rebuild(first, YearMonth.now()) : 0;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        Set<YearMonth> months = new TreeSet<>();
+        if (event.getPrevious() != null && event.getPrevious().getDateRealisation() != null) {
+            months.add(YearMonth.from(event.getPrevious().getDateRealisation()));
+        }
+        if (event.getCurrent() != null && event.getCurrent().getDateRealisation() != null) {
+            months.add(YearMonth.from(event.getCurrent().getDateRealisation()));
+        }
+        months.forEach(this::rebuildMonth);
+    }
+
+    /**
+     * Réconcilie les mois récents avec la table des actes
+     */
+    @Scheduled(fixedDelayString = "${app.dashboard.monthly-revenue.reconcile-interval-ms:900000}",
+               initialDelayString = "${app.dashboard.monthly-revenue.reconcile-interval-ms:900000}")
+    public void reconcileRecentMonths() {
+        YearMonth current = YearMonth.now();
+        for (YearMonth month = current.minusMonths(Math.max(reconcileMonths, 1) - 1L);
+                !month.isAfter(current); month = month.plusMonths(1)) {
+            rebuildMonth(month);
+        }
+    }
+
+    /**
+     * Recalcule un mois dans sa propre transaction, après le recalcul en cours du même mois.
+     * Une erreur de recalcul ne doit jamais remonter vers l'écriture qui l'a déclenchée.
+     */
+    void rebuildMonth(YearMonth month) {
+        synchronized (monthLocks.computeIfAbsent(month, key -> new Object())) {
+            try {
+                newTransaction().executeWithoutResult(status -> rebuild(month, month));
+            } catch (Exception e) {
+                log.error("Recalcul de monthly_acte_revenue impossible pour {}", month, e);
+            }
+        }
+    }
+
+    /**
+     * Initialise la table au démarrage si elle est vide
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        try {
+            if (monthlyActeRevenueRepository.count() == 0) {
+                Integer rows = newTransaction().execute(status -> rebuildAll());
+                log.info("monthly_acte_revenue initialisée: {} lignes", rows);
+            }
+        } catch (Exception e) {
+            log.error("Initialisation de monthly_acte_revenue impossible", e);
+        }
+    }
+
+    /**
+     * Transaction distincte: un échec l'annule seule, au lieu de marquer celle de l'appelant
+     */
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private static String key(MonthlyActeRevenue revenue) {
+        return revenue.getMois() + "/" + revenue.getServiceId() + "/" + revenue.getType();
+    }
+}
@@ -0,0 +1,346 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.OccupancySimulationDTO;
+import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulation Monte-Carlo de l'occupation des lits d'un service sur les jours suivant aujourd'hui.
+ * Les admissions suivent une loi de Poisson dont le taux dépend du jour de la semaine, les durées de séjour
+ * sont tirées de la distribution empirique des séjours terminés, et un séjour en cours dure jusqu'à une
+ * durée tirée parmi celles qui dépassent son ancienneté. Le modèle est ajusté sur l'historique de sejours
+ * une fois par service et par jour, puis gardé jusqu'à la prochaine écriture de séjour du service.
+ * Les réplications sont réparties sur un pool fork/join; une tâche feuille réutilise ses tableaux de travail
+ * et la réplication i tire ses nombres d'un générateur SplitMix64 initialisé par (graine, i), sans allocation:
+ * le résultat ne dépend pas du découpage parallèle.
+ */
+@Service
+public class OccupancySimulationService {
+
+    public static final int MAX_HORIZON = 365;
+    public static final int MAX_REPLICATIONS = 100_000;
+
+    // Réplications simulées par tâche feuille
+    private static final int LEAF_REPLICATIONS = 256;
+    // Durée de séjour retenue pour un service sans aucun séjour terminé dans l'historique
+    static final int DEFAULT_STAY_DAYS = 5;
+    // Au-delà de ce taux journalier, la loi de Poisson est approchée par une loi normale
+    private static final double POISSON_NORMAL_THRESHOLD = 30.0;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SejourRepository sejourRepository;
+    private final ServiceRegistry serviceRegistry;
+    private final int historyDays;
+    private final ForkJoinPool pool;
+    private final Map<Long, Model> models = new ConcurrentHashMap<>();
+
+    public OccupancySimulationService(
+            SejourRepository sejourRepository,
+            ServiceRegistry serviceRegistry,
+            @Value("${app.ml.occupancy.history-days:365}") int historyDays,
+            @Value("${app.ml.occupancy.parallelism:0}") int parallelism) {
+        this.sejourRepository = sejourRepository;
+        this.serviceRegistry = serviceRegistry;
+        this.historyDays = Math.max(7, historyDays);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Occupation simulée des jours 1..horizon suivant aujourd'hui et probabilité de dépasser Service.capacite.
+     * @throws IllegalArgumentException si le service est inconnu ou si l'horizon ou le nombre de réplications
+     * est hors bornes
+     */
+    public OccupancySimulationDTO simulate(String serviceName, int horizon, int replications) {
+        return simulate(serviceName, horizon, replications, LocalDate.now());
+    }
+
+    OccupancySimulationDTO simulate(String serviceName, int horizon, int replications, LocalDate today) {
+        if (horizon < 1 || horizon > MAX_HORIZON || replications < 1 || replications > MAX_REPLICATIONS) {
+            throw new IllegalArgumentException("Paramètres de simulation hors bornes");
+        }
+        ServiceRegistry.ServiceInfo service = serviceRegistry.find(serviceName);
+        if (service == null) {
+            throw new IllegalArgumentException("Service inconnu: " + serviceName);
+        }
+        Model model = models.compute(service.getId(),
+                (id, cached) -> cached != null && cached.fittedOn.equals(today) ? cached : fit(id, today));
+
+        int capacity = service.getCapacite();
+        long seed = Objects.hash(serviceName, today);
+        Tally tally = pool.invoke(new ReplicationTask(model, capacity, horizon, seed, 0, replications));
+
+        List<OccupancySimulationDTO.Day> days = new ArrayList<>(horizon);
+        for (int d = 0; d < horizon; d++) {
+            double mean = (double) tally.occupancy[d] / replications;
+            days.add(new OccupancySimulationDTO.Day(
+                    today.plusDays(d + 1),
+                    round(mean, 100.0),
+                    capacity > 0 ? round(100.0 * mean / capacity, 100.0) : null,
+                    round((double) tally.exceeded[d] / replications, 10000.0)));
+        }
+        return new OccupancySimulationDTO(serviceName, capacity, replications, round(model.meanArrivals, 100.0),
+                round(model.meanStay, 100.0), model.elapsed.length, days);
+    }
+
+    /**
+     * Le modèle du service est retiré; s'il est en cours d'ajustement, le retrait attend la fin de l'ajustement
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSejourChanged(SejourChangedEvent event) {
+        if (event.getPrevious() != null && event.getPrevious().getServiceId() != null) {
+            models.remove(event.getPrevious().getServiceId());
+        }
+        if (event.getCurrent() != null && event.getCurrent().getServiceId() != null) {
+            models.remove(event.getCurrent().getServiceId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Taux d'admission par jour de la semaine depuis la première admission de l'historique, durées des séjours
+     * terminés entrés dans l'historique, ancienneté des séjours en cours. Les séjours annulés sont ignorés.
+     */
+    private Model fit(Long serviceId, LocalDate today) {
+        LocalDate since = today.minusDays(historyDays);
+        long[] arrivals = new long[7];
+        List<Integer> stays = new ArrayList<>();
+        List<Integer> elapsed = new ArrayList<>();
+        LocalDate first = null;
+        for (Object[] row : sejourRepository.findStayHistory(serviceId, since.atStartOfDay(), Sejour.StatutSejour.EN_COURS)) {
+            LocalDateTime entree = (LocalDateTime) row[0];
+            LocalDateTime sortie = (LocalDateTime) row[1];
+            Sejour.StatutSejour statut = (Sejour.StatutSejour) row[2];
+            if (entree == null || statut == Sejour.StatutSejour.ANNULE) continue;
+            LocalDate entry = entree.toLocalDate();
+            if (statut == Sejour.StatutSejour.EN_COURS && !entry.isAfter(today)) {
+                elapsed.add((int) ChronoUnit.DAYS.between(entry, today));
+            }
+            if (entry.isBefore(since) || !entry.isBefore(today)) continue;
+            arrivals[entry.getDayOfWeek().getValue() - 1]++;
+            first = first == null || entry.isBefore(first) ? entry : first;
+            if (sortie != null && statut != Sejour.StatutSejour.EN_COURS) {
+                // Un séjour sorti le jour de son entrée occupe un lit ce jour-là
+                stays.add((int) Math.max(1, ChronoUnit.DAYS.between(entry, sortie.toLocalDate())));
+            }
+        }
+
+        // Nombre de chaque jour de la semaine entre la première admission et hier
+        long[] weekdays = new long[7];
+        if (first != null) {
+            for (LocalDate day = first; day.isBefore(today); day = day.plusDays(1)) {
+                weekdays[day.getDayOfWeek().getValue() - 1]++;
+            }
+        }
+        double[] rates = new double[7];
+        for (int w = 0; w < 7; w++) {
+            rates[w] = weekdays[w] > 0 ? (double) arrivals[w] / weekdays[w] : 0.0;
+        }
+        int[] sortedStays = stays.isEmpty()
+                ? new int[]{DEFAULT_STAY_DAYS} : stays.stream().mapToInt(Integer::intValue).sorted().toArray();
+        return new Model(today, rates, sortedStays, elapsed.stream().mapToInt(Integer::intValue).toArray(),
+                today.plusDays(1).getDayOfWeek().getValue() - 1);
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    /**
+     * Modèle ajusté d'un service, en lecture seule pendant les simulations
+     */
+    private static class Model {
+        final LocalDate fittedOn;
+        final double[] rates;
+        final double[] expNegRates;
+        final int[] stays;
+        final int[] elapsed;
+        final int firstWeekday;
+        final double meanArrivals;
+        final double meanStay;
+
+        Model(LocalDate fittedOn, double[] rates, int[] stays, int[] elapsed, int firstWeekday) {
+            this.fittedOn = fittedOn;
+            this.rates = rates;
+            this.stays = stays;
+            this.elapsed = elapsed;
+            this.firstWeekday = firstWeekday;
+            this.expNegRates = new double[rates.length];
+            double arrivals = 0.0;
+            for (int w = 0; w < rates.length; w++) {
+                expNegRates[w] = Math.exp(-rates[w]);
+                arrivals += rates[w] / rates.length;
+            }
+            this.meanArrivals = arrivals;
+            this.meanStay = Arrays.stream(stays).average().orElse(0.0);
+        }
+
+        /**
+         * Indice du premier séjour de durée strictement supérieure à days (stays.length s'il n'y en a pas)
+         */
+        int firstLonger(int days) {
+            int low = 0;
+            int high = stays.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (stays[middle] <= days) low = middle + 1; else high = middle;
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Sommes des réplications: lits occupés et nombre de dépassements de capacité par jour
+     */
+    private static class Tally {
+        final long[] occupancy;
+        final int[] exceeded;
+
+        Tally(int horizon) {
+            this.occupancy = new long[horizon];
+            this.exceeded = new int[horizon];
+        }
+
+        Tally add(Tally other) {
+            for (int d = 0; d < occupancy.length; d++) {
+                occupancy[d] += other.occupancy[d];
+                exceeded[d] += other.exceeded[d];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Générateur SplitMix64 réinitialisé à chaque réplication, pour ne rien allouer dans la boucle
+     */
+    private static final class SplitMix {
+        long state;
+
+        void reset(long seed, int replication) {
+            state = mix(seed + replication * GOLDEN_GAMMA);
+        }
+
+        long nextLong() {
+            return mix(state += GOLDEN_GAMMA);
+        }
+
+        double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+
+        int nextInt(int bound) {
+            return (int) (((nextLong() >>> 33) * bound) >>> 31);
+        }
+
+        double nextGaussian() {
+            return Math.sqrt(-2 * Math.log(1 - nextDouble())) * Math.cos(2 * Math.PI * nextDouble());
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+
+    /**
+     * Découpe les réplications [from, to[ en deux jusqu'à LEAF_REPLICATIONS par tâche
+     */
+    private static class ReplicationTask extends RecursiveTask<Tally> {
+        private final Model model;
+        private final int capacity;
+        private final int horizon;
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        ReplicationTask(Model model, int capacity, int horizon, long seed, int from, int to) {
+            this.model = model;
+            this.capacity = capacity;
+            this.horizon = horizon;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= LEAF_REPLICATIONS) {
+                Tally tally = new Tally(horizon);
+                int[] departures = new int[horizon];
+                SplitMix random = new SplitMix();
+                for (int i = from; i < to; i++) {
+                    random.reset(seed, i);
+                    replicate(random, departures, tally);
+                }
+                return tally;
+            }
+            int middle = (from + to) >>> 1;
+            ReplicationTask right = new ReplicationTask(model, capacity, horizon, seed, middle, to);
+            right.fork();
+            Tally left = new ReplicationTask(model, capacity, horizon, seed, from, middle).compute();
+            return left.add(right.join());
+        }
+
+        /**
+         * Une réplication: departures[d] compte les sorties du jour d (indice 0 = demain), réutilisé d'une
+         * réplication à l'autre. Un séjour entré le jour d pour L jours occupe un lit des jours d à d + L - 1.
+         */
+        private void replicate(SplitMix random, int[] departures, Tally tally) {
+            Arrays.fill(departures, 0);
+            int beds = model.elapsed.length;
+            for (int elapsed : model.elapsed) {
+                // Durée tirée parmi celles qui dépassent l'ancienneté; s'il n'y en a pas, une durée complète de plus
+                int longer = model.firstLonger(elapsed);
+                int remaining = longer < model.stays.length
+                        ? model.stays[longer + random.nextInt(model.stays.length - longer)] - elapsed
+                        : model.stays[random.nextInt(model.stays.length)];
+                if (remaining - 1 < horizon) departures[remaining - 1]++;
+            }
+            for (int d = 0; d < horizon; d++) {
+                beds -= departures[d];
+                int weekday = (model.firstWeekday + d) % 7;
+                int arrivals = poisson(random, model.rates[weekday], model.expNegRates[weekday]);
+                for (int a = 0; a < arrivals; a++) {
+                    int stay = model.stays[random.nextInt(model.stays.length)];
+                    if (d + stay < horizon) departures[d + stay]++;
+                }
+                beds += arrivals;
+                tally.occupancy[d] += beds;
+                if (beds > capacity) tally.exceeded[d]++;
+            }
+        }
+
+        private static int poisson(SplitMix random, double rate, double expNegRate) {
+            if (rate <= 0) {
+                return 0;
+            }
+            if (rate > POISSON_NORMAL_THRESHOLD) {
+                return (int) Math.max(0, Math.round(rate + Math.sqrt(rate) * random.nextGaussian()));
+            }
+            int k = 0;
+            double product = random.nextDouble();
+            while (product > expNegRate) {
+                k++;
+                product *= random.nextDouble();
+            }
+            return k;
+        }
+    }
+}
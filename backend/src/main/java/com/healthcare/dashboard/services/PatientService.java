@@ -2,8 +2,10 @@ package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.PatientDTO;
 import com.healthcare.dashboard.entities.Patient;
+import com.healthcare.dashboard.events.PatientChangedEvent;
 import com.healthcare.dashboard.repositories.PatientRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -14,6 +16,7 @@ import java.util.stream.Collectors;
 public class PatientService {
     
     private final PatientRepository patientRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<PatientDTO> getAllPatients() {
@@ -33,6 +36,7 @@ public class PatientService {
     public PatientDTO createPatient(PatientDTO patientDTO) {
         Patient patient = convertToEntity(patientDTO);
         Patient savedPatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(null, PatientChangedEvent.Snapshot.of(savedPatient)));
         return convertToDTO(savedPatient);
     }
     
@@ -40,6 +44,7 @@ public class PatientService {
     public PatientDTO updatePatient(Long id, PatientDTO patientDTO) {
         Patient patient = patientRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Patient non trouvé avec l'id: " + id));
+        PatientChangedEvent.Snapshot previous = PatientChangedEvent.Snapshot.of(patient);
         
         patient.setNom(patientDTO.getNom());
         patient.setPrenom(patientDTO.getPrenom());
@@ -51,12 +56,19 @@ public class PatientService {
         patient.setEmail(patientDTO.getEmail());
         
         Patient updatedPatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(previous, PatientChangedEvent.Snapshot.of(updatedPatient)));
         return convertToDTO(updatedPatient);
     }
     
     @Transactional
     public void deletePatient(Long id) {
+        PatientChangedEvent.Snapshot previous = patientRepository.findById(id)
+            .map(PatientChangedEvent.Snapshot::of)
+            .orElse(null);
         patientRepository.deleteById(id);
+        if (previous != null) {
+            eventPublisher.publishEvent(new PatientChangedEvent(previous, null));
+        }
     }
     
     @Transactional(readOnly = true)
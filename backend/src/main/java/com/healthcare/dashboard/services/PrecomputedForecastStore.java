@@ -0,0 +1,386 @@
+package com.healthcare.dashboard.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.PrecomputedForecast;
+import com.healthcare.dashboard.entities.Service;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.InvestmentChangedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.PrecomputedForecastRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prévisions précalculées des horizons standards (table precomputed_forecasts), lues par une seule
+ * requête sur clé unique. Une demande hors des horizons, types et modèles standards n'interroge pas la table.
+ * Les lignes d'un service sont supprimées dès qu'un acte, un séjour ou un médecin de ce service est écrit;
+ * un recalcul de la table de faits ne supprime que les services et les dates de prévision dont l'historique
+ * couvre les jours recalculés; une écriture d'alerte ou d'investissement les supprime toutes.
+ * Chaque suppression avance la génération des services concernés, que ForecastPrecomputeService surveille
+ * pour ne recalculer que ces services et pour écarter ceux écrits pendant un précalcul. La création ou la
+ * suppression d'un service déplace les positions de toutes les lignes: elle les supprime toutes.
+ */
+@Slf4j
+@Component
+public class PrecomputedForecastStore {
+
+    public static final List<Integer> HORIZONS = List.of(30, 90, 180, 365);
+    public static final List<String> TYPES = List.of("COUT", "PATIENTS", "OCCUPATION");
+
+    private final PrecomputedForecastRepository repository;
+    private final ServiceRepository serviceRepository;
+    private final ObjectMapper objectMapper;
+    private final Set<ForecastModel> models;
+    // Avance à chaque suppression de tous les services; serviceGenerations, à chaque suppression d'un service
+    private final AtomicLong allGeneration = new AtomicLong();
+    private final Map<String, AtomicLong> serviceGenerations = new ConcurrentHashMap<>();
+
+    public PrecomputedForecastStore(
+            PrecomputedForecastRepository repository,
+            ServiceRepository serviceRepository,
+            ObjectMapper objectMapper,
+            @Value("${app.ml.precompute.models:HEURISTIQUE}") Set<ForecastModel> models) {
+        this.repository = repository;
+        this.serviceRepository = serviceRepository;
+        this.objectMapper = objectMapper;
+        this.models = Set.copyOf(models);
+    }
+
+    public Set<ForecastModel> getModels() {
+        return models;
+    }
+
+    public boolean isStandard(String predictionType, ForecastModel model, Integer daysAhead) {
+        return TYPES.contains(predictionType) && models.contains(model) && HORIZONS.contains(daysAhead);
+    }
+
+    /**
+     * Prévision précalculée d'un service, ou null (demande non standard, ligne absente ou illisible)
+     */
+    public MLPredictionResponseDTO find(String service, String predictionType, ForecastModel model, Integer daysAhead,
+                                        LocalDate startDate) {
+        if (!isStandard(predictionType, model, daysAhead)) {
+            return null;
+        }
+        try {
+            return repository.findByForecastDateAndPredictionTypeAndModeleAndDaysAheadAndService(
+                            startDate, predictionType, model, daysAhead, service)
+                    .map(this::read)
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("Lecture de la prévision précalculée de {} impossible", service, e);
+            return null;
+        }
+    }
+
+    /**
+     * Prévisions précalculées de tous les services dans l'ordre du calcul, ou null si la liste est incomplète
+     */
+    public List<MLPredictionResponseDTO> findAll(String predictionType, ForecastModel model, Integer daysAhead,
+                                                 LocalDate startDate) {
+        if (!isStandard(predictionType, model, daysAhead)) {
+            return null;
+        }
+        try {
+            List<PrecomputedForecast> rows = repository
+                    .findByForecastDateAndPredictionTypeAndModeleAndDaysAheadOrderByPositionAsc(
+                            startDate, predictionType, model, daysAhead);
+            if (rows.isEmpty() || rows.size() != rows.get(0).getServiceCount()) {
+                return null;
+            }
+            List<MLPredictionResponseDTO> responses = new ArrayList<>(rows.size());
+            for (PrecomputedForecast row : rows) {
+                responses.add(read(row));
+            }
+            return responses;
+        } catch (Exception e) {
+            log.warn("Lecture des prévisions précalculées {} {} impossible", predictionType, daysAhead, e);
+            return null;
+        }
+    }
+
+    /**
+     * Générations de chaque service, à relever avant de calculer des prévisions à enregistrer
+     */
+    public Stamp stampServices() {
+        long all = allGeneration.get();
+        Map<String, Long> services = new HashMap<>();
+        serviceGenerations.forEach((service, serviceGeneration) -> services.put(service, serviceGeneration.get()));
+        return new Stamp(all, services);
+    }
+
+    /**
+     * Vrai si les lignes du service ont été supprimées depuis le relevé: une prévision calculée entre-temps
+     * a pu lire des données périmées
+     */
+    public boolean isStale(Stamp stamp, String service) {
+        AtomicLong serviceGeneration = serviceGenerations.get(service);
+        return allGeneration.get() != stamp.all
+                || (serviceGeneration != null ? serviceGeneration.get() : 0L) != stamp.services.getOrDefault(service, 0L);
+    }
+
+    /**
+     * Lignes des prévisions calculées; un service non recalculé (null) garde sa position dans la liste
+     */
+    public List<PrecomputedForecast> toRows(LocalDate startDate, String predictionType, ForecastModel model,
+                                            int daysAhead, List<MLPredictionResponseDTO> responses,
+                                            LocalDateTime computedAt) throws JsonProcessingException {
+        List<PrecomputedForecast> rows = new ArrayList<>(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            MLPredictionResponseDTO response = responses.get(i);
+            if (response == null) {
+                continue;
+            }
+            rows.add(new PrecomputedForecast(null, startDate, predictionType, model, daysAhead, response.getService(), i,
+                    responses.size(), objectMapper.writeValueAsString(response), computedAt));
+        }
+        return rows;
+    }
+
+    /**
+     * Remplace tout le contenu de la table
+     */
+    @Transactional
+    public void replace(List<PrecomputedForecast> rows) {
+        repository.deleteAllRows();
+        repository.saveAll(rows);
+    }
+
+    /**
+     * Remplace les lignes des services indiqués, sans toucher aux autres
+     */
+    @Transactional
+    public void replace(Collection<String> services, List<PrecomputedForecast> rows) {
+        services.forEach(repository::deleteByService);
+        repository.saveAll(rows);
+    }
+
+    @Transactional
+    public void clear() {
+        allGeneration.incrementAndGet();
+        repository.deleteAllRows();
+    }
+
+    /**
+     * Retire les lignes de services écartés d'un précalcul, sans avancer leur génération
+     */
+    @Transactional
+    public void discard(Collection<String> services) {
+        services.forEach(repository::deleteByService);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onActeChanged(ActeMedicalChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSejourChanged(SejourChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onMedecinChanged(MedecinChangedEvent event) {
+        if (event.getPrevious() != null) evictServiceId(event.getPrevious().getServiceId());
+        if (event.getCurrent() != null) evictServiceId(event.getCurrent().getServiceId());
+    }
+
+    /**
+     * Les lignes d'un service renommé portent son ancien nom: les deux sont évincés. Un service créé ou
+     * supprimé change la position et le nombre de services de toutes les lignes
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onServiceChanged(ServiceChangedEvent event) {
+        if (event.getPrevious() == null || event.getCurrent() == null) {
+            evictAll();
+            return;
+        }
+        evictService(event.getPrevious());
+        if (!Objects.equals(event.getPrevious().getNom(), event.getCurrent().getNom())) {
+            evictService(event.getCurrent());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onAlertChanged(AlertChangedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onInvestmentChanged(InvestmentChangedEvent event) {
+        evictAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onDailyStatsUpdated(DailyServiceStatsUpdatedEvent event) {
+        List<String> services = event.getServiceIds() != null ? serviceNames(event.getServiceIds()) : null;
+        if (event.getStartDate() == null || event.getEndDate() == null) {
+            if (services == null) {
+                evictAll();
+            } else {
+                services.forEach(this::evictService);
+            }
+            return;
+        }
+        // Une prévision datée du jour F lit l'historique [F - SERIES_DAYS, F - 1]
+        LocalDate first = event.getStartDate().plusDays(1);
+        LocalDate last = event.getEndDate().plusDays(MLPredictionService.SERIES_DAYS);
+        advance(services);
+        try {
+            if (services == null) {
+                repository.deleteByForecastDateBetween(first, last);
+            } else if (!services.isEmpty()) {
+                repository.deleteByServicesAndForecastDateBetween(services, first, last);
+            }
+        } catch (Exception e) {
+            log.warn("Suppression des prévisions précalculées du {} au {} impossible", first, last, e);
+        }
+    }
+
+    /**
+     * Avance la génération des services indiqués (de tous si null)
+     */
+    private void advance(Collection<String> services) {
+        if (services == null) {
+            allGeneration.incrementAndGet();
+        } else {
+            services.forEach(service ->
+                    serviceGenerations.computeIfAbsent(service, key -> new AtomicLong()).incrementAndGet());
+        }
+    }
+
+    /**
+     * Noms des services, ou null si l'un d'eux est introuvable ou illisible: tous sont alors concernés
+     */
+    private List<String> serviceNames(Collection<Long> serviceIds) {
+        try {
+            List<String> names = new ArrayList<>();
+            for (Service service : serviceRepository.findAllById(serviceIds)) {
+                names.add(service.getNom());
+            }
+            return names.size() == serviceIds.size() ? names : null;
+        } catch (Exception e) {
+            log.warn("Lecture des services {} impossible", serviceIds, e);
+            return null;
+        }
+    }
+
+    private MLPredictionResponseDTO read(PrecomputedForecast row) {
+        try {
+            return objectMapper.readValue(row.getPayload(), MLPredictionResponseDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Prévision précalculée illisible: " + row.getId(), e);
+        }
+    }
+
+    /**
+     * La génération avance avant la suppression: un précalcul en cours voit qu'il a pu lire des données périmées.
+     * Une erreur de suppression ne doit jamais remonter vers l'écriture qui l'a déclenchée.
+     */
+    private void evictServiceId(Long serviceId) {
+        if (serviceId == null) {
+            return;
+        }
+        List<String> services = serviceNames(List.of(serviceId));
+        if (services == null) {
+            evictAll();
+        } else {
+            services.forEach(this::evictService);
+        }
+    }
+
+    /**
+     * L'instantané d'une suppression ne porte que l'id du service, qui n'est alors plus en base
+     */
+    private void evictService(ServiceChangedEvent.Snapshot service) {
+        if (service == null) {
+            return;
+        }
+        if (service.getNom() != null) {
+            evictService(service.getNom());
+        } else {
+            evictServiceId(service.getId());
+        }
+    }
+
+    private void evictService(String service) {
+        advance(List.of(service));
+        try {
+            repository.deleteByService(service);
+        } catch (Exception e) {
+            log.warn("Suppression des prévisions précalculées du service {} impossible", service, e);
+        }
+    }
+
+    private void evictAll() {
+        advance(null);
+        try {
+            repository.deleteAllRows();
+        } catch (Exception e) {
+            log.warn("Suppression des prévisions précalculées impossible", e);
+        }
+    }
+
+    /**
+     * Générations relevées par stampServices
+     */
+    public static final class Stamp {
+        private final long all;
+        private final Map<String, Long> services;
+
+        Stamp(long all, Map<String, Long> services) {
+            this.all = all;
+            this.services = services;
+        }
+
+        /**
+         * Services dont la génération a avancé depuis le relevé earlier, ou null si tous ont été supprimés
+         */
+        public Set<String> changedSince(Stamp earlier) {
+            if (all != earlier.all) {
+                return null;
+            }
+            Set<String> changed = new HashSet<>();
+            services.forEach((service, serviceGeneration) -> {
+                if (!serviceGeneration.equals(earlier.services.getOrDefault(service, 0L))) {
+                    changed.add(service);
+                }
+            });
+            return changed;
+        }
+    }
+}
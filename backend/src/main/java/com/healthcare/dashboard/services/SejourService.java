@@ -3,10 +3,12 @@ package com.healthcare.dashboard.services;
 import com.healthcare.dashboard.dto.SejourDTO;
 import com.healthcare.dashboard.entities.Patient;
 import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.SejourChangedEvent;
 import com.healthcare.dashboard.repositories.PatientRepository;
 import com.healthcare.dashboard.repositories.SejourRepository;
 import com.healthcare.dashboard.repositories.ServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -20,6 +22,7 @@ public class SejourService {
     private final SejourRepository sejourRepository;
     private final PatientRepository patientRepository;
     private final ServiceRepository serviceRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<SejourDTO> getAllSejours() {
@@ -67,6 +70,7 @@ public class SejourService {
         sejour.setCoutTotal(sejourDTO.getCoutTotal());
         
         Sejour savedSejour = sejourRepository.save(sejour);
+        eventPublisher.publishEvent(new SejourChangedEvent(null, SejourChangedEvent.Snapshot.of(savedSejour)));
         return convertToDTO(savedSejour);
     }
     
@@ -74,6 +78,7 @@ public class SejourService {
     public SejourDTO updateSejour(Long id, SejourDTO sejourDTO) {
         Sejour sejour = sejourRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Séjour non trouvé avec l'id: " + id));
+        SejourChangedEvent.Snapshot previous = SejourChangedEvent.Snapshot.of(sejour);
         
         sejour.setDateSortie(sejourDTO.getDateSortie());
         sejour.setMotif(sejourDTO.getMotif());
@@ -82,12 +87,19 @@ public class SejourService {
         sejour.setCoutTotal(sejourDTO.getCoutTotal());
         
         Sejour updatedSejour = sejourRepository.save(sejour);
+        eventPublisher.publishEvent(new SejourChangedEvent(previous, SejourChangedEvent.Snapshot.of(updatedSejour)));
         return convertToDTO(updatedSejour);
     }
     
     @Transactional
     public void deleteSejour(Long id) {
+        SejourChangedEvent.Snapshot previous = sejourRepository.findById(id)
+            .map(SejourChangedEvent.Snapshot::of)
+            .orElse(null);
         sejourRepository.deleteById(id);
+        if (previous != null) {
+            eventPublisher.publishEvent(new SejourChangedEvent(previous, null));
+        }
     }
     
     private SejourDTO convertToDTO(Sejour sejour) {
@@ -0,0 +1,224 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.InvestmentChangedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.repositories.AlertRepository;
+import com.healthcare.dashboard.repositories.InvestmentRepository;
+import com.healthcare.dashboard.repositories.MedecinRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facteurs d'impact des prévisions par service, gardés en mémoire: médecins actifs, montant investi
+ * sur les 3 derniers mois et alertes actives.
+ * Le nombre de médecins actifs est ajusté à chaque écriture de médecin; les alertes et investissements
+ * n'ont pas de service dans le modèle JPA, leur écriture recharge donc ce seul facteur en une requête groupée.
+ * Une resynchronisation complète est faite au premier accès puis périodiquement.
+ * Ses écouteurs passent avant l'éviction du cache des prévisions, qui relisent ainsi des facteurs à jour.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ServiceImpactSnapshot {
+
+    static final String MEDECIN_ACTIF = "ACTIF";
+    static final String ALERTE_ACTIVE = "ACTIVE";
+    static final int INVESTMENT_WINDOW_MONTHS = 3;
+
+    private final ServiceRepository serviceRepository;
+    private final MedecinRepository medecinRepository;
+    private final InvestmentRepository investmentRepository;
+    private final AlertRepository alertRepository;
+
+    // État protégé par this
+    private boolean loaded;
+    private final Map<String, Long> serviceIds = new HashMap<>();
+    private final Map<Long, Long> activeMedecins = new HashMap<>();
+    private final Map<Long, Long> activeAlerts = new HashMap<>();
+    private final Map<Long, List<DatedAmount>> investments = new HashMap<>();
+
+    /**
+     * Facteurs bruts d'un service; les pondérations restent dans MLPredictionService
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Factors {
+        public static final Factors NONE = new Factors(0L, 0.0, 0L);
+
+        private final long activeMedecins;
+        private final double recentInvestments;
+        private final long activeAlerts;
+    }
+
+    public synchronized Factors forService(Long serviceId) {
+        ensureLoaded();
+        if (serviceId == null) {
+            return Factors.NONE;
+        }
+        return new Factors(activeMedecins.getOrDefault(serviceId, 0L), recentInvestments(serviceId),
+                activeAlerts.getOrDefault(serviceId, 0L));
+    }
+
+    public synchronized Factors forServiceNom(String serviceName) {
+        ensureLoaded();
+        return forService(serviceIds.get(serviceName));
+    }
+
+    /**
+     * Resynchronisation complète, qui corrige aussi une dérive éventuelle des compteurs incrémentaux
+     */
+    @Scheduled(fixedDelayString = "${app.ml.impact-snapshot.refresh-interval-ms:3600000}")
+    public synchronized void refresh() {
+        loadServices();
+        loadMedecins();
+        loadInvestments();
+        loadAlerts();
+        loaded = true;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMedecinChanged(MedecinChangedEvent event) {
+        if (!loaded) {
+            // Le chargement initial lira l'état déjà validé
+            return;
+        }
+        if (isActive(event.getPrevious())) {
+            activeMedecins.merge(event.getPrevious().getServiceId(), -1L, Long::sum);
+        }
+        if (isActive(event.getCurrent())) {
+            Long serviceId = event.getCurrent().getServiceId();
+            activeMedecins.merge(serviceId, 1L, Long::sum);
+            if (!serviceIds.containsValue(serviceId)) {
+                loadServices();
+            }
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onInvestmentChanged(InvestmentChangedEvent event) {
+        if (loaded) {
+            loadInvestments();
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onAlertChanged(AlertChangedEvent event) {
+        if (loaded) {
+            loadAlerts();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+
+    private static boolean isActive(MedecinChangedEvent.Snapshot medecin) {
+        return medecin != null && medecin.getServiceId() != null && MEDECIN_ACTIF.equals(medecin.getStatut());
+    }
+
+    /**
+     * Somme des investissements encore dans la fenêtre glissante; les plus anciens sont retirés au passage
+     */
+    private double recentInvestments(Long serviceId) {
+        List<DatedAmount> amounts = investments.get(serviceId);
+        if (amounts == null) {
+            return 0.0;
+        }
+        LocalDateTime since = LocalDateTime.now().minusMonths(INVESTMENT_WINDOW_MONTHS);
+        amounts.removeIf(amount -> amount.date.isBefore(since));
+        double total = 0.0;
+        for (DatedAmount amount : amounts) {
+            total += amount.montant;
+        }
+        return total;
+    }
+
+    private void loadServices() {
+        serviceIds.clear();
+        for (Object[] info : serviceRepository.findAllIdAndNom()) {
+            if (info[0] != null && info[1] != null) {
+                serviceIds.put(info[1].toString(), ((Number) info[0]).longValue());
+            }
+        }
+    }
+
+    // Les facteurs d'impact sont facultatifs: une requête en erreur les ramène à zéro
+
+    private void loadMedecins() {
+        activeMedecins.clear();
+        try {
+            loadCounts(medecinRepository.countByStatutGroupedByService(MEDECIN_ACTIF), activeMedecins);
+        } catch (Exception e) {
+            log.warn("Chargement des médecins actifs par service impossible: {}", e.getMessage());
+        }
+    }
+
+    private void loadAlerts() {
+        activeAlerts.clear();
+        try {
+            loadCounts(alertRepository.countByStatusGroupedByService(ALERTE_ACTIVE), activeAlerts);
+        } catch (Exception e) {
+            log.warn("Chargement des alertes actives par service impossible: {}", e.getMessage());
+        }
+    }
+
+    private void loadInvestments() {
+        investments.clear();
+        try {
+            LocalDateTime since = LocalDateTime.now().minusMonths(INVESTMENT_WINDOW_MONTHS);
+            for (Object[] row : investmentRepository.findServiceAmountsSince(since)) {
+                if (row[0] != null && row[1] != null && row[2] != null) {
+                    investments.computeIfAbsent(((Number) row[0]).longValue(), id -> new ArrayList<>())
+                            .add(new DatedAmount(toDateTime(row[1]), ((Number) row[2]).doubleValue()));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Chargement des investissements par service impossible: {}", e.getMessage());
+        }
+    }
+
+    private static void loadCounts(List<Object[]> rows, Map<Long, Long> counts) {
+        for (Object[] row : rows) {
+            if (row[0] != null && row[1] != null) {
+                counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+            }
+        }
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private static class DatedAmount {
+        final LocalDateTime date;
+        final double montant;
+
+        DatedAmount(LocalDateTime date, double montant) {
+            this.date = date;
+            this.montant = montant;
+        }
+    }
+}
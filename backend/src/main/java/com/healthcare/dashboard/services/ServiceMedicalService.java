@@ -1,8 +1,10 @@
 package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.ServiceDTO;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
 import com.healthcare.dashboard.repositories.ServiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -13,6 +15,7 @@ import java.util.stream.Collectors;
 public class ServiceMedicalService {
     
     private final ServiceRepository serviceRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public List<ServiceDTO> getAllServices() {
@@ -32,6 +35,7 @@ public class ServiceMedicalService {
     public ServiceDTO createService(ServiceDTO serviceDTO) {
         com.healthcare.dashboard.entities.Service service = convertToEntity(serviceDTO);
         com.healthcare.dashboard.entities.Service savedService = serviceRepository.save(service);
+        eventPublisher.publishEvent(new ServiceChangedEvent(null, ServiceChangedEvent.Snapshot.of(savedService)));
         return convertToDTO(savedService);
     }
     
@@ -39,6 +43,7 @@ public class ServiceMedicalService {
     public ServiceDTO updateService(Long id, ServiceDTO serviceDTO) {
         com.healthcare.dashboard.entities.Service service = serviceRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Service non trouvé avec l'id: " + id));
+        ServiceChangedEvent.Snapshot previous = ServiceChangedEvent.Snapshot.of(service);
         
         service.setNom(serviceDTO.getNom());
         service.setDescription(serviceDTO.getDescription());
@@ -50,12 +55,14 @@ public class ServiceMedicalService {
         service.setDepense(serviceDTO.getDepense());
         
         com.healthcare.dashboard.entities.Service updatedService = serviceRepository.save(service);
+        eventPublisher.publishEvent(new ServiceChangedEvent(previous, ServiceChangedEvent.Snapshot.of(updatedService)));
         return convertToDTO(updatedService);
     }
     
     @Transactional
     public void deleteService(Long id) {
         serviceRepository.deleteById(id);
+        eventPublisher.publishEvent(new ServiceChangedEvent(new ServiceChangedEvent.Snapshot(id, null, null), null));
     }
     
     private ServiceDTO convertToDTO(com.healthcare.dashboard.entities.Service service) {
@@ -0,0 +1,116 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Métadonnées des services gardées en mémoire (id, nom, capacité), chargées en une requête au premier
+ * accès puis rechargées à chaque écriture de service et périodiquement. Les lectures ne touchent pas la base.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceRegistry {
+
+    // Capacités historiques, utilisées pour un service sans capacité renseignée
+    private static final Map<String, Integer> DEFAULT_CAPACITIES = Map.of(
+        "Urgences", 40, "Chirurgie", 60, "Cardiologie", 35, "Pediatrie", 30,
+        "Maternite", 25, "Radiologie", 15, "Oncologie", 20, "Neurologie", 18
+    );
+    static final int DEFAULT_CAPACITY = 30;
+
+    private final ServiceRepository serviceRepository;
+
+    // Contenu immuable, remplacé en bloc à chaque chargement
+    private volatile Snapshot snapshot;
+
+    @Getter
+    @AllArgsConstructor
+    public static class ServiceInfo {
+        private final Long id;
+        private final String nom;
+        private final int capacite;
+    }
+
+    /**
+     * Services dans l'ordre des identifiants
+     */
+    public List<ServiceInfo> getServices() {
+        return current().services;
+    }
+
+    /**
+     * Service de ce nom, ou null s'il n'existe pas
+     */
+    public ServiceInfo find(String nom) {
+        return current().byNom.get(nom);
+    }
+
+    /**
+     * Capacité en lits d'un service: Service.capacite si elle est renseignée, sinon la valeur par défaut
+     */
+    public int capacity(String nom) {
+        ServiceInfo info = current().byNom.get(nom);
+        return info != null ? info.capacite : defaultCapacity(nom);
+    }
+
+    public static int defaultCapacity(String nom) {
+        return DEFAULT_CAPACITIES.getOrDefault(nom, DEFAULT_CAPACITY);
+    }
+
+    @Scheduled(fixedDelayString = "${app.services.registry.refresh-interval-ms:3600000}")
+    public synchronized void refresh() {
+        List<ServiceInfo> services = new ArrayList<>();
+        for (Object[] row : serviceRepository.findAllIdNomAndCapacite()) {
+            if (row[0] == null || row[1] == null) continue;
+            String nom = row[1].toString();
+            int capacite = row[2] != null && ((Number) row[2]).intValue() > 0
+                    ? ((Number) row[2]).intValue() : defaultCapacity(nom);
+            services.add(new ServiceInfo(((Number) row[0]).longValue(), nom, capacite));
+        }
+        snapshot = new Snapshot(services);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onServiceChanged(ServiceChangedEvent event) {
+        refresh();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        final List<ServiceInfo> services;
+        final Map<String, ServiceInfo> byNom = new HashMap<>();
+
+        Snapshot(List<ServiceInfo> services) {
+            this.services = List.copyOf(services);
+            for (ServiceInfo service : services) {
+                byNom.put(service.getNom(), service);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.MonthlyRevenueUpdatedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs de modifications par table, pour les ETag des lectures du tableau de bord: une requête
+ * conditionnelle dont l'ETag correspond reçoit 304 sans requête en base ni sérialisation.
+ * Les compteurs avancent après le commit, une fois les caches dérivés à jour: leurs écouteurs passent
+ * avant ceux-ci. L'ETag contient aussi l'instant de démarrage (les compteurs repartent de zéro), la date
+ * du jour (périodes par défaut glissantes) et les paramètres de la requête.
+ */
+@Component
+public class TableVersions {
+
+    public static final String SEJOURS = "sejours";
+    public static final String SERVICES = "services";
+    public static final String MONTHLY_ACTE_REVENUE = "monthly_acte_revenue";
+    // Compteurs en mémoire de DashboardCounters, qui avancent à chaque variation ou rechargement
+    public static final String DASHBOARD_COUNTERS = "dashboard_counters";
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public long version(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0L;
+    }
+
+    public void bump(String table) {
+        versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * ETag d'une lecture qui ne dépend que des tables indiquées
+     */
+    public String etag(WebRequest request, String... tables) {
+        StringBuilder etag = new StringBuilder(epoch).append('-').append(LocalDate.now());
+        for (String table : tables) {
+            etag.append('-').append(version(table));
+        }
+        StringBuilder parameters = new StringBuilder();
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) ->
+                parameters.append(name).append('=').append(String.join(",", values)).append('&'));
+        return etag.append('-').append(Integer.toHexString(parameters.toString().hashCode())).toString();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onSejourChanged(SejourChangedEvent event) {
+        bump(SEJOURS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onServiceChanged(ServiceChangedEvent event) {
+        bump(SERVICES);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onMonthlyRevenueUpdated(MonthlyRevenueUpdatedEvent event) {
+        bump(MONTHLY_ACTE_REVENUE);
+    }
+}
@@ -94,7 +94,7 @@ class AlertControllerTest {
     @Test
     @WithMockUser
     void deleteAlert_ShouldReturnOk() throws Exception {
-        when(alertRepository.existsById(1L)).thenReturn(true);
+        when(alertRepository.findById(1L)).thenReturn(Optional.of(alert));
 
         mockMvc.perform(delete("/api/alerts/1")
                 .with(csrf()))
@@ -206,7 +206,7 @@ class AlertControllerTest {
     @Test
     @WithMockUser
     void deleteAlert_ShouldReturnNotFound() throws Exception {
-        when(alertRepository.existsById(999L)).thenReturn(false);
+        when(alertRepository.findById(999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(delete("/api/alerts/999")
                 .with(csrf()))
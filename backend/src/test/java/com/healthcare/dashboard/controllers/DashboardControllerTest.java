@@ -1,36 +1,66 @@
 package com.healthcare.dashboard.controllers;
 
 import com.healthcare.dashboard.dto.ActesByTypeStatsDTO;
+import com.healthcare.dashboard.dto.DashboardOverviewDTO;
 import com.healthcare.dashboard.dto.DashboardStatsDTO;
 import com.healthcare.dashboard.dto.RevenusByMonthStatsDTO;
 import com.healthcare.dashboard.dto.SejoursByServiceStatsDTO;
 import com.healthcare.dashboard.security.JwtTokenProvider;
+import com.healthcare.dashboard.services.DashboardKpiStream;
+import com.healthcare.dashboard.services.DashboardOverviewService;
 import com.healthcare.dashboard.services.DashboardService;
+import com.healthcare.dashboard.services.MonthlyRevenueService;
+import com.healthcare.dashboard.services.TableVersions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(DashboardController.class)
+@Import(TableVersions.class)
 class DashboardControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private TableVersions tableVersions;
+
     @MockBean
     private DashboardService dashboardService;
 
+    @MockBean
+    private DashboardOverviewService dashboardOverviewService;
+
+    @MockBean
+    private MonthlyRevenueService monthlyRevenueService;
+
+    @MockBean
+    private DashboardKpiStream dashboardKpiStream;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -53,12 +83,48 @@ class DashboardControllerTest {
                 .andExpect(jsonPath("$.sejoursEnCours").value(50));
     }
 
+    @Test
+    @WithMockUser
+    void getDashboardStats_MatchingIfNoneMatch_ShouldReturn304UntilCountersChange() throws Exception {
+        when(dashboardService.getDashboardStats()).thenReturn(new DashboardStatsDTO());
+
+        String etag = mockMvc.perform(get("/api/dashboard/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/dashboard/stats").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(dashboardService, times(1)).getDashboardStats();
+
+        tableVersions.bump(TableVersions.DASHBOARD_COUNTERS);
+        mockMvc.perform(get("/api/dashboard/stats").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(dashboardService, times(2)).getDashboardStats();
+    }
+
+    @Test
+    @WithMockUser
+    void getActesByType_EtagShouldDependOnParameters() throws Exception {
+        String etag = mockMvc.perform(get("/api/dashboard/actes-by-type"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/dashboard/actes-by-type").param("service", "Cardiologie")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        // Une écriture de séjour ne change pas cette vue
+        tableVersions.bump(TableVersions.SEJOURS);
+        mockMvc.perform(get("/api/dashboard/actes-by-type").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     @WithMockUser
     void getActesByType_ShouldReturnList() throws Exception {
         ActesByTypeStatsDTO dto = new ActesByTypeStatsDTO("Consultation", 50L, 2500.0);
         ActesByTypeStatsDTO dto2 = new ActesByTypeStatsDTO("Chirurgie", 20L, 15000.0);
-        when(dashboardService.getActesByType()).thenReturn(Arrays.asList(dto, dto2));
+        when(dashboardService.getActesByType(null, null, null)).thenReturn(Arrays.asList(dto, dto2));
 
         mockMvc.perform(get("/api/dashboard/actes-by-type"))
                 .andExpect(status().isOk())
@@ -71,7 +137,7 @@ class DashboardControllerTest {
     void getRevenusByMonth_ShouldReturnList() throws Exception {
         RevenusByMonthStatsDTO dto1 = new RevenusByMonthStatsDTO("2024-01", 50000.0, 100L);
         RevenusByMonthStatsDTO dto2 = new RevenusByMonthStatsDTO("2024-02", 55000.0, 110L);
-        when(dashboardService.getRevenusByMonth()).thenReturn(Arrays.asList(dto1, dto2));
+        when(dashboardService.getRevenusByMonth(null, null, null)).thenReturn(Arrays.asList(dto1, dto2));
 
         mockMvc.perform(get("/api/dashboard/revenus-by-month"))
                 .andExpect(status().isOk())
@@ -115,7 +181,7 @@ class DashboardControllerTest {
     @Test
     @WithMockUser
     void getActesByType_ShouldReturnEmptyList_WhenNoData() throws Exception {
-        when(dashboardService.getActesByType()).thenReturn(Collections.emptyList());
+        when(dashboardService.getActesByType(null, null, null)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/dashboard/actes-by-type"))
                 .andExpect(status().isOk())
@@ -126,7 +192,7 @@ class DashboardControllerTest {
     @Test
     @WithMockUser
     void getRevenusByMonth_ShouldReturnEmptyList_WhenNoData() throws Exception {
-        when(dashboardService.getRevenusByMonth()).thenReturn(Collections.emptyList());
+        when(dashboardService.getRevenusByMonth(null, null, null)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/dashboard/revenus-by-month"))
                 .andExpect(status().isOk())
@@ -151,7 +217,7 @@ class DashboardControllerTest {
         ActesByTypeStatsDTO dto1 = new ActesByTypeStatsDTO("Consultation", 50L, 2500.0);
         ActesByTypeStatsDTO dto2 = new ActesByTypeStatsDTO("Chirurgie", 20L, 15000.0);
         ActesByTypeStatsDTO dto3 = new ActesByTypeStatsDTO("Radiologie", 30L, 4500.0);
-        when(dashboardService.getActesByType()).thenReturn(Arrays.asList(dto1, dto2, dto3));
+        when(dashboardService.getActesByType(null, null, null)).thenReturn(Arrays.asList(dto1, dto2, dto3));
 
         mockMvc.perform(get("/api/dashboard/actes-by-type"))
                 .andExpect(status().isOk())
@@ -168,7 +234,7 @@ class DashboardControllerTest {
         RevenusByMonthStatsDTO dto1 = new RevenusByMonthStatsDTO("2024-01", 50000.0, 100L);
         RevenusByMonthStatsDTO dto2 = new RevenusByMonthStatsDTO("2024-02", 55000.0, 110L);
         RevenusByMonthStatsDTO dto3 = new RevenusByMonthStatsDTO("2024-03", 60000.0, 120L);
-        when(dashboardService.getRevenusByMonth()).thenReturn(Arrays.asList(dto1, dto2, dto3));
+        when(dashboardService.getRevenusByMonth(null, null, null)).thenReturn(Arrays.asList(dto1, dto2, dto3));
 
         mockMvc.perform(get("/api/dashboard/revenus-by-month"))
                 .andExpect(status().isOk())
@@ -176,5 +242,69 @@ class DashboardControllerTest {
                 .andExpect(jsonPath("$[2].mois").value("2024-03"))
                 .andExpect(jsonPath("$[2].revenus").value(60000.0));
     }
-}
 
+    @Test
+    @WithMockUser
+    void getOverview_ShouldReturnRequestedParts() throws Exception {
+        DashboardStatsDTO stats = new DashboardStatsDTO();
+        stats.setTotalPatients(100L);
+        DashboardOverviewDTO overview = new DashboardOverviewDTO(stats,
+                Collections.singletonList(new ActesByTypeStatsDTO("Consultation", 50L, 2500.0)), null, null);
+        when(dashboardOverviewService.getOverview(EnumSet.of(DashboardOverviewService.Part.STATS,
+                DashboardOverviewService.Part.ACTES_BY_TYPE))).thenReturn(overview);
+
+        mockMvc.perform(get("/api/dashboard/overview").param("parts", "stats,actes-by-type"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stats.totalPatients").value(100))
+                .andExpect(jsonPath("$.actesByType[0].type").value("Consultation"))
+                .andExpect(jsonPath("$.revenusByMonth").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void getOverview_UnknownPart_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/dashboard/overview").param("parts", "stats,inconnu"))
+                .andExpect(status().isBadRequest());
+        verify(dashboardOverviewService, never()).getOverview(any());
+    }
+
+    @Test
+    @WithMockUser
+    void getRevenusByMonth_WithFilters_ShouldPassThemToService() throws Exception {
+        when(dashboardService.getRevenusByMonth(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 6, 30), "Urgences"))
+                .thenReturn(Collections.singletonList(new RevenusByMonthStatsDTO("2023-01", 1000.0, 10L)));
+
+        mockMvc.perform(get("/api/dashboard/revenus-by-month")
+                        .param("startDate", "2023-01-01").param("endDate", "2023-06-30").param("service", "Urgences"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].mois").value("2023-01"));
+    }
+
+    @Test
+    @WithMockUser
+    void getActesByType_UnknownService_ShouldReturnBadRequest() throws Exception {
+        when(dashboardService.getActesByType(null, null, "Inconnu")).thenThrow(new IllegalArgumentException("Service inconnu"));
+
+        mockMvc.perform(get("/api/dashboard/actes-by-type").param("service", "Inconnu"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void streamKpis_ShouldStartEventStream() throws Exception {
+        when(dashboardKpiStream.subscribe(List.of("alerts"))).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/dashboard/stream").param("groups", "alerts"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @WithMockUser
+    void streamKpis_UnknownGroup_ShouldReturnBadRequest() throws Exception {
+        when(dashboardKpiStream.subscribe(List.of("inconnu"))).thenThrow(new IllegalArgumentException("Groupe inconnu"));
+
+        mockMvc.perform(get("/api/dashboard/stream").param("groups", "inconnu"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -91,7 +91,7 @@ class InvestmentControllerTest {
     @Test
     @WithMockUser
     void deleteInvestment_ShouldReturnOk() throws Exception {
-        when(investmentRepository.existsById(1L)).thenReturn(true);
+        when(investmentRepository.findById(1L)).thenReturn(Optional.of(investment));
 
         mockMvc.perform(delete("/api/investments/1")
                 .with(csrf()))
@@ -176,7 +176,7 @@ class InvestmentControllerTest {
     @Test
     @WithMockUser
     void deleteInvestment_ShouldReturnNotFound() throws Exception {
-        when(investmentRepository.existsById(999L)).thenReturn(false);
+        when(investmentRepository.findById(999L)).thenReturn(Optional.empty());
 
         mockMvc.perform(delete("/api/investments/999")
                 .with(csrf()))
@@ -1,32 +1,73 @@
 package com.healthcare.dashboard.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dashboard.dto.DatasetExportJobDTO;
 import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.dto.ForecastModel;
 import com.healthcare.dashboard.dto.MLPredictionRequestDTO;
 import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.dto.OccupancySimulationDTO;
+import com.healthcare.dashboard.dto.ScenarioRequestDTO;
+import com.healthcare.dashboard.dto.ScenarioResponseDTO;
+import com.healthcare.dashboard.entities.ForecastBacktestResult;
 import com.healthcare.dashboard.security.JwtTokenProvider;
+import com.healthcare.dashboard.services.DailyServiceStatsService;
+import com.healthcare.dashboard.services.DatasetArrowWriter;
+import com.healthcare.dashboard.services.DatasetCsvWriter;
+import com.healthcare.dashboard.services.DatasetExportJobService;
+import com.healthcare.dashboard.services.ForecastBacktestService;
+import com.healthcare.dashboard.services.ForecastPrecomputeService;
+import com.healthcare.dashboard.services.ForecastScenarioService;
+import com.healthcare.dashboard.services.MLDatasetService;
 import com.healthcare.dashboard.services.MLPredictionService;
+import com.healthcare.dashboard.services.OccupancySimulationService;
+import com.healthcare.dashboard.services.TableVersions;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(MLPredictionController.class)
+@Import(TableVersions.class)
 class MLPredictionControllerTest {
 
     @Autowired
@@ -35,6 +76,30 @@ class MLPredictionControllerTest {
     @MockBean
     private MLPredictionService mlPredictionService;
 
+    @MockBean
+    private MLDatasetService mlDatasetService;
+
+    @MockBean
+    private DailyServiceStatsService dailyServiceStatsService;
+
+    @MockBean
+    private DatasetExportJobService datasetExportJobService;
+
+    @MockBean
+    private ForecastBacktestService forecastBacktestService;
+
+    @MockBean
+    private ForecastPrecomputeService forecastPrecomputeService;
+
+    @MockBean
+    private ForecastScenarioService forecastScenarioService;
+
+    @MockBean
+    private OccupancySimulationService occupancySimulationService;
+
+    @TempDir
+    Path tempDir;
+
     @MockBean
     private JwtTokenProvider jwtTokenProvider;
 
@@ -63,21 +128,304 @@ class MLPredictionControllerTest {
 
     @Test
     @WithMockUser
-    void exportDataset_ShouldReturnCsv() throws Exception {
+    void getDatasetJson_WithBrowserAcceptHeader_ShouldReturnList() throws Exception {
         DatasetRowDTO row = new DatasetRowDTO();
         row.setService("Urgences");
-        row.setPatientsCount(100);
         
         when(mlPredictionService.generateDataset(any(LocalDate.class), any(LocalDate.class)))
                 .thenReturn(Arrays.asList(row));
 
-        mockMvc.perform(get("/api/ml/dataset/export")
+        for (String accept : List.of("*/*", "application/json", "application/json, text/plain, */*")) {
+            mockMvc.perform(get("/api/ml/dataset/json")
+                    .header("Accept", accept)
+                    .param("startDate", "2024-01-01")
+                    .param("endDate", "2024-01-31"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$[0].service").value("Urgences"));
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void getDatasetJson_WithNdjsonAccept_ShouldStreamOneRowPerLine() throws Exception {
+        DatasetRowDTO row1 = new DatasetRowDTO();
+        row1.setDate("2024-01-01");
+        row1.setService("Urgences");
+        DatasetRowDTO row2 = new DatasetRowDTO();
+        row2.setDate("2024-01-01");
+        row2.setService("Chirurgie");
+        
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(2);
+            sink.accept(row1);
+            sink.accept(row2);
+            return null;
+        }).when(mlDatasetService).streamDataset(any(LocalDate.class), any(LocalDate.class), any());
+
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/json")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-01-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Urgences", objectMapper.readTree(lines[0]).get("service").asText());
+        assertEquals("Chirurgie", objectMapper.readTree(lines[1]).get("service").asText());
+        verify(mlPredictionService, never()).generateDataset(any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void exportDataset_ShouldStreamCsv() throws Exception {
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate("2024-01-01");
+        row.setService("Urgences");
+        row.setPatientsCount(100);
+        
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(3);
+            sink.accept(row);
+            return null;
+        }).when(mlDatasetService).streamDataset(any(LocalDate.class), any(LocalDate.class), eq(1), any());
+
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/export")
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(startsWith(DatasetCsvWriter.HEADER)))
+                .andExpect(content().string(containsString("2024-01-01,Urgences,100,")));
+    }
+
+    @Test
+    @WithMockUser
+    void exportDataset_WithArrowAccept_ShouldStreamArrowIpc() throws Exception {
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate("2024-01-01");
+        row.setService("Urgences");
+        row.setPatientsCount(100);
+
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(3);
+            sink.accept(row);
+            return null;
+        }).when(mlDatasetService).streamDataset(any(LocalDate.class), any(LocalDate.class), eq(1), any());
+
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/export")
+                .accept(DatasetArrowWriter.MEDIA_TYPE)
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(DatasetArrowWriter.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(body), allocator,
+                     CommonsCompressionFactory.INSTANCE)) {
+            assertTrue(reader.loadNextBatch());
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(1, root.getRowCount());
+            assertEquals(100, ((IntVector) root.getVector("patients_count")).get(0));
+        }
+    }
+
+    @Test
+    @WithMockUser
+    void exportDataset_WithWildcardAccept_ShouldStreamCsv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/export")
+                .accept(MediaType.ALL)
                 .param("startDate", "2024-01-01")
                 .param("endDate", "2024-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("text/csv"));
     }
 
+    @Test
+    @WithMockUser
+    void exportDataset_WithShards_ShouldUseParallelGeneration() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/export")
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-12-31")
+                .param("shards", "4"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        verify(mlDatasetService).streamDataset(eq(LocalDate.of(2024, 1, 1)), eq(LocalDate.of(2024, 12, 31)), eq(4), any());
+    }
+
+    @Test
+    @WithMockUser
+    void exportDatasetChanges_ShouldStreamChangedRowsWithNextWatermark() throws Exception {
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate("2024-01-01");
+        row.setService("Urgences");
+        row.setPatientsCount(12);
+        LocalDateTime since = LocalDateTime.of(2024, 1, 2, 3, 0);
+        when(mlDatasetService.nextWatermark()).thenReturn(LocalDateTime.of(2024, 1, 3, 3, 0));
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(1);
+            sink.accept(row);
+            return null;
+        }).when(mlDatasetService).streamChangesSince(eq(since), any());
+
+        MvcResult result = mockMvc.perform(get("/api/ml/dataset/changes")
+                .param("since", "2024-01-02T03:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Dataset-Watermark", "2024-01-03T03:00"))
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string(startsWith(DatasetCsvWriter.HEADER)))
+                .andExpect(content().string(containsString("2024-01-01,Urgences,12,")));
+    }
+
+    @Test
+    @WithMockUser
+    void exportDatasetChanges_WithoutWatermark_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/ml/dataset/changes"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void exportDataset_WithEndBeforeStart_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/ml/dataset/export")
+                .param("startDate", "2024-02-01")
+                .param("endDate", "2024-01-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void submitExportJob_ShouldReturnAcceptedJob() throws Exception {
+        DatasetExportJobDTO job = exportJob("job-1", DatasetExportJobService.EN_ATTENTE);
+        when(datasetExportJobService.submit(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31),
+                DatasetExportJobService.Format.ARROW)).thenReturn(job);
+
+        mockMvc.perform(post("/api/ml/dataset/jobs")
+                .with(csrf())
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-12-31")
+                .param("format", "ARROW"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/ml/dataset/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.totalDays").value(366));
+    }
+
+    @Test
+    @WithMockUser
+    void submitExportJob_WhenQueueIsFull_ShouldReturnServiceUnavailable() throws Exception {
+        when(datasetExportJobService.submit(any(), any(), any())).thenThrow(new RejectedExecutionException());
+
+        mockMvc.perform(post("/api/ml/dataset/jobs")
+                .with(csrf())
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-12-31"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser
+    void getExportJob_ShouldReturnProgress() throws Exception {
+        DatasetExportJobDTO job = exportJob("job-1", DatasetExportJobService.EN_COURS);
+        job.setDaysProcessed(120);
+        when(datasetExportJobService.getJob("job-1")).thenReturn(Optional.of(job));
+
+        mockMvc.perform(get("/api/ml/dataset/jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("EN_COURS"))
+                .andExpect(jsonPath("$.daysProcessed").value(120));
+    }
+
+    @Test
+    @WithMockUser
+    void getExportJob_WhenUnknown_ShouldReturnNotFound() throws Exception {
+        when(datasetExportJobService.getJob("inconnu")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/ml/dataset/jobs/inconnu"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void downloadExportJob_WhenRunning_ShouldReturnConflict() throws Exception {
+        when(datasetExportJobService.getJob("job-1")).thenReturn(Optional.of(exportJob("job-1", DatasetExportJobService.EN_COURS)));
+        when(datasetExportJobService.getFile("job-1")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/ml/dataset/jobs/job-1/download"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser
+    void downloadExportJob_WithRange_ShouldReturnPartialContent() throws Exception {
+        Path file = tempDir.resolve("dataset_2024-01-01_2024-12-31.csv.gz");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.UTF_8));
+        when(datasetExportJobService.getJob("job-1")).thenReturn(Optional.of(exportJob("job-1", DatasetExportJobService.TERMINE)));
+        when(datasetExportJobService.getFile("job-1")).thenReturn(Optional.of(file));
+
+        mockMvc.perform(get("/api/ml/dataset/jobs/job-1/download"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(content().string("0123456789"));
+
+        mockMvc.perform(get("/api/ml/dataset/jobs/job-1/download")
+                .header("Range", "bytes=4-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 4-9/10"))
+                .andExpect(content().string("456789"));
+    }
+
+    @Test
+    @WithMockUser
+    void rebuildDailyStats_WithoutDates_ShouldRebuildAll() throws Exception {
+        when(dailyServiceStatsService.rebuildAll()).thenReturn(120);
+
+        mockMvc.perform(post("/api/ml/daily-stats/rebuild")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(120));
+    }
+
+    @Test
+    @WithMockUser
+    void rebuildDailyStats_WithDates_ShouldRebuildRange() throws Exception {
+        when(dailyServiceStatsService.rebuild(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31))).thenReturn(31);
+
+        mockMvc.perform(post("/api/ml/daily-stats/rebuild")
+                .with(csrf())
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(31));
+    }
+
     @Test
     @WithMockUser
     void generatePredictions_ShouldReturnResponse() throws Exception {
@@ -146,13 +494,120 @@ class MLPredictionControllerTest {
         response2.setService("Chirurgie");
         response2.setPredictionType("COUT");
         
-        when(mlPredictionService.generateMLPredictions(any(MLPredictionRequestDTO.class)))
-                .thenReturn(response1, response2);
+        when(mlPredictionService.generateMLPredictionsForAllServices(eq("COUT"), eq(ForecastModel.HEURISTIQUE), eq(30),
+                any(LocalDate.class)))
+                .thenReturn(List.of(response1, response2));
 
         mockMvc.perform(get("/api/ml/predictions/all-services")
                 .param("daysAhead", "30")
                 .param("predictionType", "COUT"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].service").value("Chirurgie"));
+        verify(mlPredictionService, never()).generateMLPredictions(any());
+    }
+
+    @Test
+    @WithMockUser
+    void runBacktest_ShouldReturnStoredResults() throws Exception {
+        ForecastBacktestResult result = new ForecastBacktestResult();
+        result.setService("Urgences");
+        result.setModele(ForecastModel.HOLT_WINTERS_ADDITIF);
+        result.setMape(8.5);
+        when(forecastBacktestService.run("PATIENTS", List.of(ForecastModel.HOLT_WINTERS_ADDITIF), 14, 12, 7))
+                .thenReturn(List.of(result));
+
+        mockMvc.perform(post("/api/ml/backtests").with(csrf())
+                .param("modele", "HOLT_WINTERS_ADDITIF")
+                .param("horizon", "14"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].service").value("Urgences"))
+                .andExpect(jsonPath("$[0].mape").value(8.5));
+    }
+
+    @Test
+    @WithMockUser
+    void runBacktest_InvalidParameters_ShouldReturnBadRequest() throws Exception {
+        when(forecastBacktestService.run(any(), any(), eq(0), eq(12), eq(7)))
+                .thenThrow(new IllegalArgumentException("Paramètres de backtest hors bornes"));
+
+        mockMvc.perform(post("/api/ml/backtests").with(csrf())
+                .param("horizon", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void getBacktestRun_Unknown_ShouldReturnNotFound() throws Exception {
+        when(forecastBacktestService.getRun("inconnu")).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/ml/backtests/inconnu"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void precomputePredictions_ShouldReturnForecastCount() throws Exception {
+        when(forecastPrecomputeService.precompute(any(LocalDate.class))).thenReturn(96);
+
+        mockMvc.perform(post("/api/ml/predictions/precompute").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.forecasts").value(96));
+    }
+
+    @Test
+    @WithMockUser
+    void evaluateScenarios_ShouldReturnComparison() throws Exception {
+        MLPredictionResponseDTO prediction = new MLPredictionResponseDTO();
+        prediction.setService("Urgences");
+        prediction.setValeurMoyenne(104.0);
+        ScenarioResponseDTO response = new ScenarioResponseDTO("PATIENTS", 30, LocalDate.of(2024, 6, 1),
+                ForecastModel.HEURISTIQUE, List.of(), List.of(new ScenarioResponseDTO.ScenarioResult(
+                        "+2 médecins", List.of(prediction), Map.of("Urgences", 4.0))));
+        when(forecastScenarioService.evaluate(any(ScenarioRequestDTO.class))).thenReturn(response);
+
+        mockMvc.perform(post("/api/ml/scenarios").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"predictionType\":\"PATIENTS\",\"scenarios\":[{\"nom\":\"+2 médecins\","
+                        + "\"changements\":[{\"service\":\"Urgences\",\"medecins\":2}]}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scenarios[0].nom").value("+2 médecins"))
+                .andExpect(jsonPath("$.scenarios[0].variations.Urgences").value(4.0));
+    }
+
+    @Test
+    @WithMockUser
+    void evaluateScenarios_UnknownService_ShouldReturnBadRequest() throws Exception {
+        when(forecastScenarioService.evaluate(any(ScenarioRequestDTO.class)))
+                .thenThrow(new IllegalArgumentException("Service inconnu: Inconnu"));
+
+        mockMvc.perform(post("/api/ml/scenarios").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"scenarios\":[{\"changements\":[{\"service\":\"Inconnu\"}]}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void simulateOccupancy_ShouldReturnDailyExceedanceProbabilities() throws Exception {
+        OccupancySimulationDTO simulation = new OccupancySimulationDTO("Urgences", 50, 10000, 12.5, 3.2, 41,
+                List.of(new OccupancySimulationDTO.Day(LocalDate.of(2024, 6, 16), 47.3, 94.6, 0.27)));
+        when(occupancySimulationService.simulate("Urgences", 30, 10000)).thenReturn(simulation);
+
+        mockMvc.perform(get("/api/ml/occupancy/simulation").param("service", "Urgences"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.capacite").value(50))
+                .andExpect(jsonPath("$.jours[0].probabiliteDepassement").value(0.27));
+    }
+
+    @Test
+    @WithMockUser
+    void simulateOccupancy_InvalidParameters_ShouldReturnBadRequest() throws Exception {
+        when(occupancySimulationService.simulate("Urgences", 30, 0))
+                .thenThrow(new IllegalArgumentException("Paramètres de simulation hors bornes"));
+
+        mockMvc.perform(get("/api/ml/occupancy/simulation").param("service", "Urgences").param("replications", "0"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -216,5 +671,16 @@ class MLPredictionControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].service").value("Neurologie"));
     }
-}
 
+    private static DatasetExportJobDTO exportJob(String id, String status) {
+        DatasetExportJobDTO job = new DatasetExportJobDTO();
+        job.setId(id);
+        job.setStartDate(LocalDate.of(2024, 1, 1));
+        job.setEndDate(LocalDate.of(2024, 12, 31));
+        job.setFormat("CSV");
+        job.setStatus(status);
+        job.setDaysProcessed(0);
+        job.setTotalDays(366);
+        return job;
+    }
+}
@@ -0,0 +1,119 @@
+package com.healthcare.dashboard.integration;
+
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.MonthlyActeRevenueRepository;
+import com.healthcare.dashboard.repositories.PatientRepository;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for conditional GETs on the read-heavy dashboard endpoints:
+ * a matching If-None-Match must be answered with 304 without any repository call
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.jwt.secret=testSecretKeyForJwtTokenGenerationWhichMustBeLongEnoughForHS256Algorithm123456789",
+    "app.jwt.expiration=3600000",
+    "google.ai.api.key=test-api-key-disabled"
+})
+class ConditionalGetIntegrationTest {
+
+    private static final List<String> ENDPOINTS = List.of(
+            "/api/dashboard/stats",
+            "/api/dashboard/actes-by-type",
+            "/api/dashboard/revenus-by-month",
+            "/api/dashboard/sejours-by-service",
+            "/api/dashboard/overview",
+            "/api/services",
+            "/api/ml/statistics/current");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @SpyBean
+    private PatientRepository patientRepository;
+
+    @SpyBean
+    private SejourRepository sejourRepository;
+
+    @SpyBean
+    private ActeMedicalRepository acteMedicalRepository;
+
+    @SpyBean
+    private ServiceRepository serviceRepository;
+
+    @SpyBean
+    private MonthlyActeRevenueRepository monthlyActeRevenueRepository;
+
+    @Test
+    @WithMockUser
+    void unchangedTables_ShouldAnswer304WithoutRepositoryCalls() throws Exception {
+        Map<String, String> etags = new LinkedHashMap<>();
+        for (String endpoint : ENDPOINTS) {
+            String etag = mockMvc.perform(get(endpoint))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotNull(etag, endpoint);
+            etags.put(endpoint, etag);
+        }
+        Mockito.<Object>clearInvocations(patientRepository, sejourRepository, acteMedicalRepository,
+                serviceRepository, monthlyActeRevenueRepository);
+
+        for (Map.Entry<String, String> entry : etags.entrySet()) {
+            mockMvc.perform(get(entry.getKey()).header(HttpHeaders.IF_NONE_MATCH, entry.getValue()))
+                    .andExpect(status().isNotModified());
+        }
+
+        verifyNoInteractions(patientRepository, sejourRepository, acteMedicalRepository,
+                serviceRepository, monthlyActeRevenueRepository);
+    }
+
+    @Test
+    @WithMockUser
+    void serviceWrite_ShouldInvalidateEtagsOfViewsReadingServices() throws Exception {
+        String services = mockMvc.perform(get("/api/services"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // The first read loads the counters, which advances their version
+        mockMvc.perform(get("/api/dashboard/stats"));
+        String stats = mockMvc.perform(get("/api/dashboard/stats"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        eventPublisher.publishEvent(new ServiceChangedEvent(null, new ServiceChangedEvent.Snapshot(999L, "Test", 10)));
+
+        mockMvc.perform(get("/api/services").header(HttpHeaders.IF_NONE_MATCH, services))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/dashboard/stats").header(HttpHeaders.IF_NONE_MATCH, stats))
+                .andExpect(status().isNotModified());
+    }
+}
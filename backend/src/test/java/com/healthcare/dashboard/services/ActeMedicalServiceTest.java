@@ -3,14 +3,17 @@ package com.healthcare.dashboard.services;
 import com.healthcare.dashboard.dto.ActeMedicalDTO;
 import com.healthcare.dashboard.entities.ActeMedical;
 import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
 import com.healthcare.dashboard.repositories.ActeMedicalRepository;
 import com.healthcare.dashboard.repositories.SejourRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -31,6 +34,9 @@ class ActeMedicalServiceTest {
     @Mock
     private SejourRepository sejourRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ActeMedicalService acteMedicalService;
 
@@ -164,4 +170,31 @@ class ActeMedicalServiceTest {
         acteMedicalService.deleteActe(1L);
         verify(acteMedicalRepository).deleteById(1L);
     }
+
+    @Test
+    void updateActe_ShouldPublishPreviousAndCurrentSnapshots() {
+        LocalDateTime previousDate = LocalDateTime.of(2024, 1, 10, 9, 0);
+        acteMedical.setDateRealisation(previousDate);
+        when(acteMedicalRepository.findById(1L)).thenReturn(Optional.of(acteMedical));
+        when(acteMedicalRepository.save(any(ActeMedical.class))).thenReturn(acteMedical);
+
+        acteMedicalService.updateActe(1L, acteMedicalDTO);
+
+        ArgumentCaptor<ActeMedicalChangedEvent> captor = ArgumentCaptor.forClass(ActeMedicalChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getPrevious().getDateRealisation()).isEqualTo(previousDate);
+        assertThat(captor.getValue().getCurrent().getDateRealisation()).isEqualTo(acteMedicalDTO.getDateRealisation());
+    }
+
+    @Test
+    void deleteActe_ShouldPublishDeletedSnapshot() {
+        when(acteMedicalRepository.findById(1L)).thenReturn(Optional.of(acteMedical));
+
+        acteMedicalService.deleteActe(1L);
+
+        ArgumentCaptor<ActeMedicalChangedEvent> captor = ArgumentCaptor.forClass(ActeMedicalChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getPrevious().getId()).isEqualTo(1L);
+        assertThat(captor.getValue().getCurrent()).isNull();
+    }
 }
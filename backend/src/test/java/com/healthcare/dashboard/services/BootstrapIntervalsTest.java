@@ -0,0 +1,109 @@
+package com.healthcare.dashboard.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour BootstrapIntervals
+ * Vérifie la couverture sur une série bruitée, la reproductibilité et le plafond du budget de latence
+ */
+class BootstrapIntervalsTest {
+
+    private final BootstrapIntervals bootstrapIntervals = new BootstrapIntervals(0.90, 1000, 200, 0, 4);
+
+    @AfterEach
+    void tearDown() {
+        bootstrapIntervals.shutdown();
+    }
+
+    @Test
+    void intervals_NoisySeries_ShouldCoverHeldOutValues() {
+        int n = 400;
+        int horizon = 28;
+        double[] y = noisySeries(n + horizon);
+        HoltWinters.Fit fit = HoltWinters.fit(y, n, HoltWinters.Mode.ADDITIVE);
+
+        BootstrapIntervals.Bands bands = bootstrapIntervals.intervals(fit, horizon, 7L);
+
+        int covered = 0;
+        for (int h = 0; h < horizon; h++) {
+            assertTrue(bands.getLower()[h] < bands.getUpper()[h], "h=" + h);
+            if (y[n + h] >= bands.getLower()[h] && y[n + h] <= bands.getUpper()[h]) covered++;
+        }
+        assertTrue(covered >= horizon * 0.75, "couverture " + covered + "/" + horizon);
+        // L'incertitude s'accumule avec l'horizon
+        assertTrue(width(bands, horizon - 1) > width(bands, 0));
+    }
+
+    @Test
+    void intervals_ShouldNotDependOnParallelSplit() {
+        double[] y = noisySeries(200);
+        HoltWinters.Fit fit = HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE);
+
+        BootstrapIntervals.Bands parallel = bootstrapIntervals.intervals(fit, 30, 11L);
+        BootstrapIntervals.Bands sequential = BootstrapIntervals.intervals(fit, 30, 1000, 11L, 0.90);
+
+        assertArrayEquals(sequential.getLower(), parallel.getLower());
+        assertArrayEquals(sequential.getUpper(), parallel.getUpper());
+    }
+
+    @Test
+    void intervals_WiderLevel_ShouldWidenBands() {
+        double[] y = noisySeries(200);
+        HoltWinters.Fit fit = HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE);
+
+        BootstrapIntervals.Bands narrow = BootstrapIntervals.intervals(fit, 14, 500, 3L, 0.50);
+        BootstrapIntervals.Bands wide = BootstrapIntervals.intervals(fit, 14, 500, 3L, 0.95);
+
+        for (int h = 0; h < 14; h++) {
+            assertTrue(width(wide, h) > width(narrow, h), "h=" + h);
+        }
+    }
+
+    @Test
+    void resamplesFor_ShouldRespectBudgetBounds() {
+        // Budget nul: toujours le maximum de tirages
+        BootstrapIntervals unlimited = new BootstrapIntervals(0.90, 1000, 200, 0, 1);
+        // Budget d'une milliseconde: le nombre de tirages baisse avec l'horizon, dans les bornes
+        BootstrapIntervals budgeted = new BootstrapIntervals(0.90, 5000, 200, 1, 1);
+        try {
+            assertEquals(1000, unlimited.resamplesFor(365));
+            assertEquals(1000, unlimited.resamplesFor(1));
+            int shortHorizon = budgeted.resamplesFor(7);
+            int longHorizon = budgeted.resamplesFor(365);
+            assertTrue(longHorizon < shortHorizon);
+            assertEquals(200, longHorizon);
+            assertTrue(shortHorizon <= 5000);
+            assertEquals(0, shortHorizon % 100);
+        } finally {
+            unlimited.shutdown();
+            budgeted.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_InvalidLevel_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new BootstrapIntervals(1.0, 1000, 200, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new BootstrapIntervals(0.0, 1000, 200, 0, 1));
+    }
+
+    private static double width(BootstrapIntervals.Bands bands, int h) {
+        return bands.getUpper()[h] - bands.getLower()[h];
+    }
+
+    /**
+     * Niveau 100 avec motif hebdomadaire et bruit pseudo-aléatoire reproductible d'écart-type environ 6
+     */
+    private static double[] noisySeries(int n) {
+        double[] y = new double[n];
+        Random random = new Random(1234);
+        for (int t = 0; t < n; t++) {
+            y[t] = 100 + (t % 7 >= 5 ? -25 : 5) + 6 * random.nextGaussian();
+        }
+        return y;
+    }
+}
@@ -0,0 +1,258 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour DailyServiceStatsService
+ * Vérifie le calcul des lignes de faits et le recalcul des jours touchés par une écriture
+ */
+@ExtendWith(MockitoExtension.class)
+class DailyServiceStatsServiceTest {
+
+    @Mock
+    private DailyServiceStatsRepository dailyServiceStatsRepository;
+
+    @Mock
+    private ActeMedicalRepository acteMedicalRepository;
+
+    @Mock
+    private SejourRepository sejourRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DailyServiceStatsService dailyServiceStatsService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ShouldMergeActeAndSejourAggregatesPerDayAndService() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        List<Object[]> actes = new ArrayList<>();
+        actes.add(new Object[]{Date.valueOf(day), 2L, 5L, 1000.0, 200.0});
+        when(acteMedicalRepository.findDailyStatsByService(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+            .thenReturn(actes);
+        List<Object[]> sejours = new ArrayList<>();
+        sejours.add(new Object[]{Date.valueOf(day), 2L, 3L, 4.0, 2L});
+        sejours.add(new Object[]{Date.valueOf(day), 1L, 1L, 1.0, 1L});
+        when(sejourRepository.findDailyStatsByService(day.atStartOfDay(), day.plusDays(1).atStartOfDay()))
+            .thenReturn(sejours);
+
+        int rows = dailyServiceStatsService.rebuild(day, day);
+
+        assertEquals(2, rows);
+        verify(eventPublisher).publishEvent(any(DailyServiceStatsUpdatedEvent.class));
+        ArgumentCaptor<Iterable<DailyServiceStats>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(dailyServiceStatsRepository).saveAll(captor.capture());
+        List<DailyServiceStats> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+
+        DailyServiceStats chirurgie = saved.get(0);
+        assertEquals(day, chirurgie.getStatDate());
+        assertEquals(2L, chirurgie.getServiceId());
+        assertEquals(5, chirurgie.getActesCount());
+        assertEquals(1000.0, chirurgie.getTarifTotal());
+        assertEquals(200.0, chirurgie.getTarifMoyen());
+        assertEquals(3, chirurgie.getSejoursCount());
+        assertEquals(4.0, chirurgie.getDureeMoyenneSejour());
+        assertEquals(2, chirurgie.getPatientsCount());
+
+        DailyServiceStats urgences = saved.get(1);
+        assertEquals(1L, urgences.getServiceId());
+        assertEquals(0, urgences.getActesCount());
+        assertEquals(1, urgences.getSejoursCount());
+    }
+
+    @Test
+    void rebuild_ShouldProcessLongPeriodsByWindow() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = start.plusDays(MLDatasetService.WINDOW_DAYS * 2);
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+
+        dailyServiceStatsService.rebuild(start, end);
+
+        verify(acteMedicalRepository, times(3)).findDailyStatsByService(any(), any());
+        verify(dailyServiceStatsRepository, times(3)).findForUpdateByStatDateBetween(any(), any());
+        // Chaque lot est validé dans sa propre transaction
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void rebuild_ShouldOnlyRewriteRowsWhoseValuesChanged() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        List<Object[]> actes = new ArrayList<>();
+        actes.add(new Object[]{Date.valueOf(day), 1L, 2L, 50.0, 25.0});
+        actes.add(new Object[]{Date.valueOf(day), 2L, 4L, 400.0, 100.0});
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenReturn(actes);
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+        DailyServiceStats unchanged = stats(day, 1L, 2, 50.0, 25.0);
+        DailyServiceStats changed = stats(day, 2L, 3, 300.0, 100.0);
+        DailyServiceStats emptied = stats(day, 3L, 1, 80.0, 80.0);
+        when(dailyServiceStatsRepository.findForUpdateByStatDateBetween(day, day)).thenReturn(List.of(unchanged, changed, emptied));
+
+        int rows = dailyServiceStatsService.rebuild(day, day);
+
+        assertEquals(2, rows);
+        verify(dailyServiceStatsRepository).saveAll(List.of(changed, emptied));
+        assertEquals(4, changed.getActesCount());
+        assertEquals(400.0, changed.getTarifTotal());
+        assertEquals(0, emptied.getActesCount());
+        assertEquals(0.0, emptied.getTarifTotal());
+        assertNotNull(emptied.getId());
+    }
+
+    @Test
+    void rebuild_WithoutChanges_ShouldNotWriteOrPublish() {
+        LocalDate day = LocalDate.of(2024, 3, 4);
+        List<Object[]> actes = new ArrayList<>();
+        actes.add(new Object[]{Date.valueOf(day), 1L, 2L, 50.0, 25.0});
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenReturn(actes);
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+        when(dailyServiceStatsRepository.findForUpdateByStatDateBetween(day, day)).thenReturn(List.of(stats(day, 1L, 2, 50.0, 25.0)));
+
+        assertEquals(0, dailyServiceStatsService.rebuild(day, day));
+
+        verify(dailyServiceStatsRepository, never()).saveAll(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void onActeChanged_ShouldRefreshPreviousAndCurrentDays() {
+        LocalDateTime before = LocalDateTime.of(2024, 2, 1, 10, 0);
+        LocalDateTime after = LocalDateTime.of(2024, 2, 3, 15, 30);
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+
+        dailyServiceStatsService.onActeChanged(new ActeMedicalChangedEvent(
+            new ActeMedicalChangedEvent.Snapshot(1L, 1L, "CONSULTATION", before, 25.0),
+            new ActeMedicalChangedEvent.Snapshot(1L, 1L, "CONSULTATION", after, 30.0)));
+
+        verify(dailyServiceStatsRepository).findForUpdateByStatDateBetween(before.toLocalDate(), before.toLocalDate());
+        verify(dailyServiceStatsRepository).findForUpdateByStatDateBetween(after.toLocalDate(), after.toLocalDate());
+    }
+
+    @Test
+    void onSejourChanged_ShouldNotPropagateFailures() {
+        LocalDateTime entree = LocalDateTime.of(2024, 2, 1, 10, 0);
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenThrow(new RuntimeException("indisponible"));
+
+        assertDoesNotThrow(() -> dailyServiceStatsService.onSejourChanged(new SejourChangedEvent(null,
+            new SejourChangedEvent.Snapshot(1L, 1L, 1L, entree, null, null, 0.0))));
+        verify(dailyServiceStatsRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void rebuildDay_SameDay_ShouldNotOverlapAndLockRowsFirst() throws Exception {
+        LocalDate day = LocalDate.of(2024, 2, 1);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            firstStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return new ArrayList<>();
+        });
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> dailyServiceStatsService.rebuildDay(day));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> dailyServiceStatsService.rebuildDay(day));
+            // Le second recalcul attend le premier: il ne lit les actes qu'après son commit
+            Thread.sleep(100);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxInFlight.get());
+        InOrder order = inOrder(dailyServiceStatsRepository, acteMedicalRepository);
+        order.verify(dailyServiceStatsRepository).findForUpdateByStatDateBetween(day, day);
+        order.verify(acteMedicalRepository).findDailyStatsByService(any(), any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void rebuildAll_ShouldStartFromEarliestDataOrStatsRow() {
+        LocalDate today = LocalDate.now();
+        when(acteMedicalRepository.findMinDateRealisation()).thenReturn(today.minusDays(3).atTime(9, 0));
+        when(sejourRepository.findMinDateEntree()).thenReturn(today.minusDays(10).atTime(8, 0));
+        when(acteMedicalRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+
+        when(dailyServiceStatsRepository.findMinStatDate()).thenReturn(today.minusDays(20));
+
+        dailyServiceStatsService.rebuildAll();
+
+        verify(dailyServiceStatsRepository, never()).deleteAllInBatch();
+        verify(dailyServiceStatsRepository).findForUpdateByStatDateBetween(today.minusDays(20), today);
+    }
+
+    @Test
+    void initializeIfEmpty_WhenAWindowFails_ShouldKeepCommittedWindows() {
+        LocalDate today = LocalDate.now();
+        when(dailyServiceStatsRepository.count()).thenReturn(0L);
+        when(acteMedicalRepository.findMinDateRealisation()).thenReturn(today.minusDays(MLDatasetService.WINDOW_DAYS + 10).atTime(9, 0));
+        when(acteMedicalRepository.findDailyStatsByService(any(), any()))
+            .thenReturn(new ArrayList<>())
+            .thenThrow(new RuntimeException("base indisponible"));
+        when(sejourRepository.findDailyStatsByService(any(), any())).thenReturn(new ArrayList<>());
+
+        assertDoesNotThrow(() -> dailyServiceStatsService.initializeIfEmpty());
+
+        // Le premier lot reste validé, seul le lot en échec est annulé
+        verify(transactionManager, times(1)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    private static DailyServiceStats stats(LocalDate day, long serviceId, int actes, double tarifTotal, double tarifMoyen) {
+        DailyServiceStats stats = new DailyServiceStats(day, serviceId);
+        stats.setId(serviceId * 10);
+        stats.setActesCount(actes);
+        stats.setTarifTotal(tarifTotal);
+        stats.setTarifMoyen(tarifMoyen);
+        return stats;
+    }
+}
@@ -0,0 +1,203 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.PatientChangedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.PatientRepository;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour DashboardCounters
+ * Vérifie le chargement unique, l'application des événements d'écriture, le changement de mois et la
+ * réconciliation avec la base
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardCountersTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 15, 12, 0);
+    private static final LocalDateTime START_OF_MONTH = LocalDateTime.of(2024, 6, 1, 0, 0);
+    private static final LocalDateTime START_OF_YEAR = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private PatientRepository patientRepository;
+    @Mock
+    private SejourRepository sejourRepository;
+    @Mock
+    private ActeMedicalRepository acteMedicalRepository;
+    @Mock
+    private TableVersions tableVersions;
+
+    @InjectMocks
+    private DashboardCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        when(patientRepository.countTotalPatients()).thenReturn(100L);
+        when(sejourRepository.countSejoursEnCours()).thenReturn(5L);
+        when(acteMedicalRepository.countTotalActes()).thenReturn(50L);
+        when(acteMedicalRepository.calculateTotalRevenue(eq(START_OF_MONTH), any())).thenReturn(200.0);
+        when(acteMedicalRepository.calculateTotalRevenue(eq(START_OF_YEAR), any())).thenReturn(1000.0);
+    }
+
+    @Test
+    void current_ShouldLoadOnceThenAnswerFromMemory() {
+        DashboardCounters.Totals first = counters.current(NOW);
+        DashboardCounters.Totals second = counters.current(NOW.plusHours(1));
+
+        assertEquals(100L, second.getTotalPatients());
+        assertEquals(5L, second.getSejoursEnCours());
+        assertEquals(50L, second.getTotalActes());
+        assertEquals(200.0, second.getRevenusMois());
+        assertEquals(1000.0, first.getRevenusAnnee());
+        verify(patientRepository, times(1)).countTotalPatients();
+        verify(acteMedicalRepository, times(2)).calculateTotalRevenue(any(), any());
+    }
+
+    @Test
+    void events_ShouldAdjustCounters() {
+        counters.current(NOW);
+
+        counters.onPatientChanged(new PatientChangedEvent(null, new PatientChangedEvent.Snapshot(1L)));
+        counters.onPatientChanged(new PatientChangedEvent(new PatientChangedEvent.Snapshot(2L), new PatientChangedEvent.Snapshot(2L)));
+        counters.onSejourChanged(new SejourChangedEvent(null, sejour(Sejour.StatutSejour.EN_COURS)));
+        counters.onSejourChanged(new SejourChangedEvent(sejour(Sejour.StatutSejour.EN_COURS), sejour(Sejour.StatutSejour.TERMINE)));
+        counters.onSejourChanged(new SejourChangedEvent(sejour(Sejour.StatutSejour.EN_COURS), null));
+        // Acte du mois créé, acte de mars déplacé en juin, acte de l'an dernier et acte futur supprimés
+        counters.onActeChanged(new ActeMedicalChangedEvent(null, acte(NOW.minusDays(2), 30.0)), NOW);
+        counters.onActeChanged(new ActeMedicalChangedEvent(acte(NOW.minusMonths(3), 40.0), acte(NOW.minusDays(1), 45.0)), NOW);
+        counters.onActeChanged(new ActeMedicalChangedEvent(acte(NOW.minusYears(1), 500.0), null), NOW);
+        counters.onActeChanged(new ActeMedicalChangedEvent(acte(NOW.plusDays(3), 80.0), null), NOW);
+
+        DashboardCounters.Totals totals = counters.current(NOW);
+        assertEquals(101L, totals.getTotalPatients());
+        assertEquals(4L, totals.getSejoursEnCours());
+        assertEquals(49L, totals.getTotalActes());
+        assertEquals(275.0, totals.getRevenusMois());
+        assertEquals(1035.0, totals.getRevenusAnnee());
+        verify(patientRepository, times(1)).countTotalPatients();
+        // Un chargement et neuf variations: la version des compteurs avance à chaque fois (ETag de /stats)
+        verify(tableVersions, times(10)).bump(TableVersions.DASHBOARD_COUNTERS);
+    }
+
+    @Test
+    void concurrentEvents_ShouldNotLoseUpdates() throws Exception {
+        counters.current(NOW);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> counters.onActeChanged(
+                        new ActeMedicalChangedEvent(null, acte(NOW.minusHours(1), 1.5)), NOW)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        DashboardCounters.Totals totals = counters.current(NOW);
+        assertEquals(1050L, totals.getTotalActes());
+        assertEquals(1700.0, totals.getRevenusMois());
+    }
+
+    @Test
+    void monthRollover_ShouldReloadFromDatabase() {
+        counters.current(NOW);
+        counters.onActeChanged(new ActeMedicalChangedEvent(null, acte(NOW.minusDays(1), 30.0)), NOW);
+        when(acteMedicalRepository.calculateTotalRevenue(eq(LocalDateTime.of(2024, 7, 1, 0, 0)), any())).thenReturn(10.0);
+
+        DashboardCounters.Totals totals = counters.current(LocalDateTime.of(2024, 7, 1, 8, 0));
+
+        assertEquals(10.0, totals.getRevenusMois());
+        assertEquals(1000.0, totals.getRevenusAnnee());
+        assertEquals(50L, totals.getTotalActes());
+        verify(patientRepository, times(2)).countTotalPatients();
+    }
+
+    @Test
+    void reconcile_ShouldReplaceDriftedCounters() {
+        counters.current(NOW);
+        counters.onPatientChanged(new PatientChangedEvent(null, new PatientChangedEvent.Snapshot(1L)));
+        when(patientRepository.countTotalPatients()).thenReturn(120L);
+        when(acteMedicalRepository.calculateTotalRevenue(eq(START_OF_MONTH), any())).thenReturn(null);
+
+        counters.reload(NOW);
+
+        DashboardCounters.Totals totals = counters.current(NOW);
+        assertEquals(120L, totals.getTotalPatients());
+        assertEquals(0.0, totals.getRevenusMois());
+    }
+
+    @Test
+    void eventDuringReload_ShouldNotBeCountedTwice() {
+        counters.current(NOW);
+        // Écriture validée avant la relecture, dont l'écouteur passe pendant le rechargement
+        when(patientRepository.countTotalPatients()).thenAnswer(invocation -> {
+            counters.onPatientChanged(new PatientChangedEvent(null, new PatientChangedEvent.Snapshot(1L)));
+            return 101L;
+        });
+
+        counters.reload(NOW);
+
+        assertEquals(101L, counters.current(NOW).getTotalPatients());
+        counters.onPatientChanged(new PatientChangedEvent(null, new PatientChangedEvent.Snapshot(2L)));
+        assertEquals(102L, counters.current(NOW).getTotalPatients());
+    }
+
+    @Test
+    void reloadBetweenCheckAndApply_ShouldNotCountEventTwice() throws Exception {
+        counters.current(NOW);
+        LocalDateTime july = LocalDateTime.of(2024, 7, 1, 8, 0);
+        when(acteMedicalRepository.calculateTotalRevenue(eq(LocalDateTime.of(2024, 7, 1, 0, 0)), any())).thenReturn(10.0);
+        Thread listener = new Thread(() -> counters.onActeChanged(
+                new ActeMedicalChangedEvent(null, acte(july.minusHours(1), 30.0)), july));
+
+        // L'écouteur a lu la génération de juin et attend le verrou du rechargement de juillet, qui relit
+        // déjà son acte puis publie la nouvelle génération avant qu'il n'applique sa variation
+        synchronized (counters) {
+            listener.start();
+            while (listener.getState() != Thread.State.BLOCKED) {
+                Thread.onSpinWait();
+            }
+            counters.reload(july);
+        }
+        listener.join(5000);
+
+        DashboardCounters.Totals totals = counters.current(july);
+        assertEquals(50L, totals.getTotalActes());
+        assertEquals(10.0, totals.getRevenusMois());
+        verify(patientRepository, times(2)).countTotalPatients();
+    }
+
+    private static SejourChangedEvent.Snapshot sejour(Sejour.StatutSejour statut) {
+        return new SejourChangedEvent.Snapshot(1L, 1L, 1L, NOW.minusDays(3), null, statut, null);
+    }
+
+    private static ActeMedicalChangedEvent.Snapshot acte(LocalDateTime date, Double tarif) {
+        return new ActeMedicalChangedEvent.Snapshot(1L, 1L, "CONSULTATION", date, tarif);
+    }
+}
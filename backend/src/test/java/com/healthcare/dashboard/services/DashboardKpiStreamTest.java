@@ -0,0 +1,73 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.PatientChangedEvent;
+import com.healthcare.dashboard.repositories.AlertRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour DashboardKpiStream
+ * Vérifie l'abonnement par groupe et l'aiguillage des écritures vers le groupe concerné
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardKpiStreamTest {
+
+    @Mock
+    private DashboardCounters dashboardCounters;
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    private DashboardKpiStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new DashboardKpiStream(dashboardCounters, alertRepository, new SimpleMeterRegistry(), 20, 60000);
+        when(dashboardCounters.current()).thenReturn(new DashboardCounters.Totals(100L, 5L, 50L, 200.0, 1000.0));
+        when(alertRepository.count()).thenReturn(3L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.shutdown();
+    }
+
+    @Test
+    void subscribe_ShouldRegisterOnRequestedGroups() {
+        stream.subscribe(null);
+        stream.subscribe(List.of(" ALERTS "));
+
+        assertEquals(1, stream.subscribers(DashboardKpiStream.DASHBOARD));
+        assertEquals(2, stream.subscribers(DashboardKpiStream.ALERTS));
+        assertThrows(IllegalArgumentException.class, () -> stream.subscribe(List.of("inconnu")));
+    }
+
+    @Test
+    void writes_ShouldOnlyRecomputeTheirGroup() {
+        stream.subscribe(null);
+        clearInvocations(dashboardCounters, alertRepository);
+
+        stream.onAlertChanged(new AlertChangedEvent(null, new AlertChangedEvent.Snapshot(1L, "CRITIQUE", false, false)));
+        stream.onAlertChanged(new AlertChangedEvent(null, new AlertChangedEvent.Snapshot(2L, "HAUTE", false, false)));
+
+        verify(alertRepository, timeout(2000).times(1)).countCritiquesNonResolues();
+        verifyNoInteractions(dashboardCounters);
+
+        stream.onPatientChanged(new PatientChangedEvent(null, new PatientChangedEvent.Snapshot(1L)));
+        verify(dashboardCounters, timeout(2000).times(1)).current();
+    }
+}
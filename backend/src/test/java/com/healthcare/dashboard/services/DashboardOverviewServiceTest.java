@@ -0,0 +1,112 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ActesByTypeStatsDTO;
+import com.healthcare.dashboard.dto.DashboardOverviewDTO;
+import com.healthcare.dashboard.dto.DashboardStatsDTO;
+import com.healthcare.dashboard.dto.RevenusByMonthStatsDTO;
+import com.healthcare.dashboard.dto.SejoursByServiceStatsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour DashboardOverviewService
+ * Vérifie la sélection des parties, l'exécution simultanée des agrégats et la remontée des erreurs
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DashboardOverviewServiceTest {
+
+    @Mock
+    private DashboardService dashboardService;
+
+    private DashboardOverviewService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DashboardOverviewService(dashboardService, 2);
+        DashboardStatsDTO stats = new DashboardStatsDTO();
+        stats.setTotalPatients(100L);
+        when(dashboardService.getDashboardStats()).thenReturn(stats);
+        when(dashboardService.getActesByType()).thenReturn(List.of(new ActesByTypeStatsDTO("CONSULTATION", 10L, 500.0)));
+        when(dashboardService.getRevenusByMonth()).thenReturn(List.of(new RevenusByMonthStatsDTO("2024-01", 2000.0, 20L)));
+        when(dashboardService.getSejoursByService()).thenReturn(List.of(new SejoursByServiceStatsDTO("Urgences", 5L, 10L)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void getOverview_AllParts_ShouldRunAggregatesConcurrently() {
+        // Chaque agrégat attend que les trois aient démarré: une exécution séquentielle expirerait
+        CountDownLatch started = new CountDownLatch(3);
+        when(dashboardService.getActesByType()).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return List.of(new ActesByTypeStatsDTO("CONSULTATION", 10L, 500.0));
+        });
+        when(dashboardService.getRevenusByMonth()).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return List.of(new RevenusByMonthStatsDTO("2024-01", 2000.0, 20L));
+        });
+        when(dashboardService.getSejoursByService()).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return List.of(new SejoursByServiceStatsDTO("Urgences", 5L, 10L));
+        });
+
+        DashboardOverviewDTO overview = service.getOverview(DashboardOverviewService.parseParts(null));
+
+        assertEquals(100L, overview.getStats().getTotalPatients());
+        assertEquals("CONSULTATION", overview.getActesByType().get(0).getType());
+        assertEquals("2024-01", overview.getRevenusByMonth().get(0).getMois());
+        assertEquals("Urgences", overview.getSejoursByService().get(0).getService());
+    }
+
+    @Test
+    void getOverview_SelectedParts_ShouldOnlyRunThose() {
+        DashboardOverviewDTO overview = service.getOverview(
+                DashboardOverviewService.parseParts(Arrays.asList("revenus-by-month", " STATS ")));
+
+        assertNotNull(overview.getStats());
+        assertNotNull(overview.getRevenusByMonth());
+        assertNull(overview.getActesByType());
+        assertNull(overview.getSejoursByService());
+        verify(dashboardService, never()).getActesByType();
+        verify(dashboardService, never()).getSejoursByService();
+    }
+
+    @Test
+    void getOverview_FailingAggregate_ShouldPropagateError() {
+        when(dashboardService.getActesByType()).thenThrow(new IllegalStateException("base indisponible"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> service.getOverview(
+                EnumSet.of(DashboardOverviewService.Part.ACTES_BY_TYPE, DashboardOverviewService.Part.SEJOURS_BY_SERVICE)));
+        assertEquals("base indisponible", error.getMessage());
+    }
+
+    @Test
+    void parseParts_UnknownPart_ShouldThrow() {
+        assertEquals(EnumSet.allOf(DashboardOverviewService.Part.class), DashboardOverviewService.parseParts(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> DashboardOverviewService.parseParts(List.of("stats", "inconnu")));
+    }
+
+    private static void awaitOthers(CountDownLatch started) throws InterruptedException {
+        started.countDown();
+        assertTrue(started.await(5, TimeUnit.SECONDS), "agrégats exécutés l'un après l'autre");
+    }
+}
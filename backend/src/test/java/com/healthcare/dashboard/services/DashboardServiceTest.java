@@ -4,8 +4,7 @@ import com.healthcare.dashboard.dto.ActesByTypeStatsDTO;
 import com.healthcare.dashboard.dto.DashboardStatsDTO;
 import com.healthcare.dashboard.dto.RevenusByMonthStatsDTO;
 import com.healthcare.dashboard.dto.SejoursByServiceStatsDTO;
-import com.healthcare.dashboard.repositories.ActeMedicalRepository;
-import com.healthcare.dashboard.repositories.PatientRepository;
+import com.healthcare.dashboard.repositories.MonthlyActeRevenueRepository;
 import com.healthcare.dashboard.repositories.SejourRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,34 +12,34 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DashboardServiceTest {
 
-    @Mock
-    private PatientRepository patientRepository;
     @Mock
     private SejourRepository sejourRepository;
     @Mock
-    private ActeMedicalRepository acteMedicalRepository;
+    private MonthlyActeRevenueRepository monthlyActeRevenueRepository;
+    @Mock
+    private DashboardCounters dashboardCounters;
+    @Mock
+    private ServiceRegistry serviceRegistry;
 
     @InjectMocks
     private DashboardService dashboardService;
 
     @Test
     void getDashboardStats_ShouldReturnAggregatedStats() {
-        when(patientRepository.countTotalPatients()).thenReturn(100L);
-        when(sejourRepository.countSejoursEnCours()).thenReturn(5L);
-        when(acteMedicalRepository.countTotalActes()).thenReturn(50L);
-        when(acteMedicalRepository.calculateTotalRevenue(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(1000.0);
+        when(dashboardCounters.current()).thenReturn(new DashboardCounters.Totals(100L, 5L, 50L, 200.0, 1000.0));
 
         DashboardStatsDTO stats = dashboardService.getDashboardStats();
 
@@ -49,6 +48,9 @@ class DashboardServiceTest {
         assertEquals(5L, stats.getSejoursEnCours());
         assertEquals(50L, stats.getTotalActes());
         assertEquals(1000.0, stats.getRevenusAnnee());
+        assertEquals(200.0, stats.getRevenusMois());
+        assertEquals(1000.0, stats.getRevenusTotal());
+        verifyNoInteractions(sejourRepository, monthlyActeRevenueRepository);
     }
 
     @Test
@@ -56,7 +58,7 @@ class DashboardServiceTest {
         List<Object[]> mockResult = new ArrayList<>();
         mockResult.add(new Object[]{"CONSULTATION", 10L, 500.0});
         
-        when(acteMedicalRepository.findActesGroupedByType()).thenReturn(mockResult);
+        when(monthlyActeRevenueRepository.findActesGroupedByType(any(LocalDate.class), any(LocalDate.class))).thenReturn(mockResult);
 
         List<ActesByTypeStatsDTO> result = dashboardService.getActesByType();
 
@@ -69,14 +71,14 @@ class DashboardServiceTest {
     @Test
     void getRevenusByMonth_ShouldReturnStats() {
         List<Object[]> mockResult = new ArrayList<>();
-        mockResult.add(new Object[]{"JANUARY", 2000.0, 20L});
+        mockResult.add(new Object[]{LocalDate.of(2024, 1, 1), 2000.0, 20L});
         
-        when(acteMedicalRepository.findRevenusGroupedByMonth(any(LocalDateTime.class))).thenReturn(mockResult);
+        when(monthlyActeRevenueRepository.findRevenusGroupedByMonth(any(LocalDate.class), any(LocalDate.class))).thenReturn(mockResult);
 
         List<RevenusByMonthStatsDTO> result = dashboardService.getRevenusByMonth();
 
         assertNotNull(result);
-        assertEquals("JANUARY", result.get(0).getMois());
+        assertEquals("2024-01", result.get(0).getMois());
     }
 
     @Test
@@ -92,27 +94,12 @@ class DashboardServiceTest {
         assertEquals("CARDIOLOGIE", result.get(0).getService());
     }
 
-    @Test
-    void getDashboardStats_ShouldHandleNullRevenue() {
-        when(patientRepository.countTotalPatients()).thenReturn(50L);
-        when(sejourRepository.countSejoursEnCours()).thenReturn(3L);
-        when(acteMedicalRepository.countTotalActes()).thenReturn(25L);
-        when(acteMedicalRepository.calculateTotalRevenue(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(null);
-
-        DashboardStatsDTO stats = dashboardService.getDashboardStats();
-
-        assertNotNull(stats);
-        assertEquals(0.0, stats.getRevenusAnnee());
-        assertEquals(0.0, stats.getRevenusMois());
-    }
-
     @Test
     void getActesByType_ShouldHandleNullRevenue() {
         List<Object[]> mockResult = new ArrayList<>();
         mockResult.add(new Object[]{"CONSULTATION", 5L, null});
         
-        when(acteMedicalRepository.findActesGroupedByType()).thenReturn(mockResult);
+        when(monthlyActeRevenueRepository.findActesGroupedByType(any(LocalDate.class), any(LocalDate.class))).thenReturn(mockResult);
 
         List<ActesByTypeStatsDTO> result = dashboardService.getActesByType();
 
@@ -124,9 +111,9 @@ class DashboardServiceTest {
     @Test
     void getRevenusByMonth_ShouldHandleNullRevenue() {
         List<Object[]> mockResult = new ArrayList<>();
-        mockResult.add(new Object[]{"JANUARY", null, 15L});
+        mockResult.add(new Object[]{LocalDate.of(2024, 1, 1), null, 15L});
         
-        when(acteMedicalRepository.findRevenusGroupedByMonth(any(LocalDateTime.class))).thenReturn(mockResult);
+        when(monthlyActeRevenueRepository.findRevenusGroupedByMonth(any(LocalDate.class), any(LocalDate.class))).thenReturn(mockResult);
 
         List<RevenusByMonthStatsDTO> result = dashboardService.getRevenusByMonth();
 
@@ -136,7 +123,7 @@ class DashboardServiceTest {
 
     @Test
     void getActesByType_ShouldReturnEmptyList() {
-        when(acteMedicalRepository.findActesGroupedByType()).thenReturn(new ArrayList<>());
+        when(monthlyActeRevenueRepository.findActesGroupedByType(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
 
         List<ActesByTypeStatsDTO> result = dashboardService.getActesByType();
 
@@ -146,7 +133,7 @@ class DashboardServiceTest {
 
     @Test
     void getRevenusByMonth_ShouldReturnEmptyList() {
-        when(acteMedicalRepository.findRevenusGroupedByMonth(any(LocalDateTime.class))).thenReturn(new ArrayList<>());
+        when(monthlyActeRevenueRepository.findRevenusGroupedByMonth(any(LocalDate.class), any(LocalDate.class))).thenReturn(new ArrayList<>());
 
         List<RevenusByMonthStatsDTO> result = dashboardService.getRevenusByMonth();
 
@@ -163,4 +150,26 @@ class DashboardServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
     }
+
+    @Test
+    void getRevenusByMonth_ShouldFilterByServiceAndMonthRange() {
+        when(serviceRegistry.find("Urgences")).thenReturn(new ServiceRegistry.ServiceInfo(1L, "Urgences", 40));
+        when(monthlyActeRevenueRepository.findRevenusGroupedByMonth(LocalDate.of(2023, 11, 1), LocalDate.of(2024, 2, 1), 1L))
+                .thenReturn(new ArrayList<>());
+
+        List<RevenusByMonthStatsDTO> result = dashboardService.getRevenusByMonth(
+                LocalDate.of(2023, 11, 20), LocalDate.of(2024, 2, 10), "Urgences");
+
+        assertTrue(result.isEmpty());
+        verify(monthlyActeRevenueRepository).findRevenusGroupedByMonth(LocalDate.of(2023, 11, 1), LocalDate.of(2024, 2, 1), 1L);
+    }
+
+    @Test
+    void getActesByType_InvalidFilters_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getActesByType(null, null, "Inconnu"));
+        assertThrows(IllegalArgumentException.class,
+                () -> dashboardService.getActesByType(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 1, 1), null));
+        verifyNoInteractions(monthlyActeRevenueRepository);
+    }
 }
@@ -0,0 +1,139 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour DatasetArrowWriter
+ * Relit le flux Arrow IPC produit et compare sa taille à celle du CSV
+ */
+class DatasetArrowWriterTest {
+
+    @Test
+    void writeRow_ShouldProduceReadableTypedColumnsAcrossBatches() throws Exception {
+        int rowCount = DatasetArrowWriter.BATCH_ROWS + 10;
+        LocalDate start = LocalDate.of(2022, 1, 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DatasetArrowWriter writer = new DatasetArrowWriter(out)) {
+            writer.start();
+            for (int i = 0; i < rowCount; i++) {
+                writer.writeRow(row(start.plusDays(i / 8), i));
+            }
+            writer.finish();
+        }
+
+        int read = 0;
+        int batches = 0;
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()),
+                     allocator, CommonsCompressionFactory.INSTANCE)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(DatasetArrowWriter.SCHEMA, root.getSchema());
+            while (reader.loadNextBatch()) {
+                batches++;
+                DateDayVector date = (DateDayVector) root.getVector("date");
+                VarCharVector service = (VarCharVector) root.getVector("service");
+                IntVector actes = (IntVector) root.getVector("actes_count");
+                Float8Vector cout = (Float8Vector) root.getVector("cout_total");
+                VarCharVector meteo = (VarCharVector) root.getVector("meteo");
+                for (int i = 0; i < root.getRowCount(); i++, read++) {
+                    assertEquals(start.plusDays(read / 8).toEpochDay(), date.get(i));
+                    assertEquals("Service" + (read % 8), new String(service.get(i)));
+                    assertEquals(read, actes.get(i));
+                    assertEquals(read * 10.0, cout.get(i));
+                    assertTrue(meteo.isNull(i));
+                }
+            }
+        }
+
+        assertEquals(rowCount, read);
+        assertEquals(2, batches);
+    }
+
+    @Test
+    void finish_WithoutRows_ShouldWriteSchemaOnly() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DatasetArrowWriter writer = new DatasetArrowWriter(out)) {
+            writer.start();
+            writer.finish();
+        }
+
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+            assertEquals(DatasetArrowWriter.SCHEMA, reader.getVectorSchemaRoot().getSchema());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    /**
+     * Taille: trois ans de données pour 8 services, Arrow compressé contre CSV
+     */
+    @Test
+    void arrowExport_ShouldBeSmallerThanCsv() throws Exception {
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        int rowCount = 1095 * 8;
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        DatasetCsvWriter csvWriter = new DatasetCsvWriter(csv);
+        csvWriter.writeHeader();
+        ByteArrayOutputStream arrow = new ByteArrayOutputStream();
+        try (DatasetArrowWriter arrowWriter = new DatasetArrowWriter(arrow)) {
+            arrowWriter.start();
+            for (int i = 0; i < rowCount; i++) {
+                DatasetRowDTO row = row(start.plusDays(i / 8), i % 200);
+                row.setMeteo(i % 3 == 0 ? "pluie" : "nuageux");
+                csvWriter.writeRow(row);
+                arrowWriter.writeRow(row);
+            }
+            arrowWriter.finish();
+        }
+        csvWriter.flush();
+
+        assertTrue(arrow.size() < csv.size());
+    }
+
+    private static DatasetRowDTO row(LocalDate date, int value) {
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate(date.toString());
+        row.setService("Service" + (value % 8));
+        row.setPatientsCount(value % 50);
+        row.setActesCount(value);
+        row.setSejoursActifs(value % 30);
+        row.setDureeMoyenneSejour(2.5);
+        row.setCoutTotal(value * 10.0);
+        row.setCoutMoyenActe(10.0);
+        row.setTauxOccupation(0.5);
+        row.setPersonnelPresent(15);
+        row.setEquipementsUtilises(9);
+        row.setUrgencesAdmissions(0);
+        row.setInterventionsChirurgicales(0);
+        row.setExamensRadiologie(value / 5);
+        row.setConsultations(value / 2);
+        row.setHospitalisations(value % 30);
+        row.setTarifMoyen(10.0);
+        row.setCoutMaintenance(450.0);
+        row.setSaison("hiver");
+        row.setJourSemaine("lundi");
+        row.setEstWeekend(0);
+        row.setEstFerie(0);
+        row.setTemperature(5);
+        row.setMois(date.getMonthValue());
+        row.setAnnee(date.getYear());
+        return row;
+    }
+}
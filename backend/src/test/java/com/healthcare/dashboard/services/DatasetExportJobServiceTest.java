@@ -0,0 +1,259 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetExportJobDTO;
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour DatasetExportJobService
+ * Vérifie l'écriture des fichiers d'export, le suivi de l'avancement et la réutilisation des exports
+ */
+@ExtendWith(MockitoExtension.class)
+class DatasetExportJobServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 3);
+
+    @Mock
+    private MLDatasetService mlDatasetService;
+
+    @TempDir
+    Path exportDir;
+
+    private DatasetExportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DatasetExportJobService(mlDatasetService, exportDir.toString(), 24, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void submit_ShouldWriteCompressedCsvAndReportProgress() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(2);
+            for (int day = 0; day < 3; day++) {
+                sink.accept(row(START.plusDays(day), "Urgences"));
+                sink.accept(row(START.plusDays(day), "Chirurgie"));
+            }
+            return null;
+        }).when(mlDatasetService).streamDataset(eq(START), eq(END), any());
+
+        DatasetExportJobDTO job = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        DatasetExportJobDTO done = awaitCompletion(job.getId());
+
+        assertEquals(DatasetExportJobService.TERMINE, done.getStatus());
+        assertEquals(3, done.getTotalDays());
+        assertEquals(3, done.getDaysProcessed());
+        Path file = service.getFile(job.getId()).orElseThrow();
+        assertEquals(Files.size(file), done.getSizeBytes());
+        String csv;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(csv.startsWith(DatasetCsvWriter.HEADER));
+        assertEquals(7, csv.split("\n").length);
+    }
+
+    @Test
+    void submit_SameRange_ShouldReuseExistingJob() throws Exception {
+        DatasetExportJobDTO first = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        awaitCompletion(first.getId());
+
+        DatasetExportJobDTO second = service.submit(START, END, DatasetExportJobService.Format.CSV);
+
+        assertEquals(first.getId(), second.getId());
+        verify(mlDatasetService, times(1)).streamDataset(any(), any(), any());
+    }
+
+    @Test
+    void submit_AfterRestart_ShouldReuseFreshFile() throws Exception {
+        DatasetExportJobDTO first = service.submit(START, END, DatasetExportJobService.Format.ARROW);
+        awaitCompletion(first.getId());
+        service.shutdown();
+
+        DatasetExportJobService restarted = new DatasetExportJobService(mlDatasetService, exportDir.toString(), 24, 1, 2);
+        try {
+            DatasetExportJobDTO reused = restarted.submit(START, END, DatasetExportJobService.Format.ARROW);
+
+            assertEquals(DatasetExportJobService.TERMINE, reused.getStatus());
+            assertTrue(restarted.getFile(reused.getId()).isPresent());
+            verify(mlDatasetService, times(1)).streamDataset(any(), any(), any());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void onDailyStatsUpdated_OverlappingRange_ShouldRegenerateExport() throws Exception {
+        DatasetExportJobDTO first = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        awaitCompletion(first.getId());
+
+        service.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(END, END.plusDays(5)));
+        DatasetExportJobDTO second = service.submit(START, END, DatasetExportJobService.Format.CSV);
+
+        assertNotEquals(first.getId(), second.getId());
+        awaitCompletion(second.getId());
+        verify(mlDatasetService, times(2)).streamDataset(any(), any(), any());
+        // L'export retiré reste téléchargeable, sous un autre fichier
+        Path retired = service.getFile(first.getId()).orElseThrow();
+        assertNotEquals(service.getFile(second.getId()).orElseThrow(), retired);
+        assertTrue(Files.exists(retired));
+    }
+
+    @Test
+    void onDailyStatsUpdated_OtherRange_ShouldKeepExport() throws Exception {
+        DatasetExportJobDTO first = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        awaitCompletion(first.getId());
+
+        service.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(END.plusDays(1), END.plusDays(5)));
+
+        assertEquals(first.getId(), service.submit(START, END, DatasetExportJobService.Format.CSV).getId());
+        verify(mlDatasetService, times(1)).streamDataset(any(), any(), any());
+    }
+
+    @Test
+    void onDailyStatsUpdated_DuringExport_ShouldNotReuseItsFile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(30, TimeUnit.SECONDS));
+            return null;
+        }).doNothing().when(mlDatasetService).streamDataset(any(), any(), any());
+
+        DatasetExportJobDTO first = service.submit(START, END, DatasetExportJobService.Format.ARROW);
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        service.onDailyStatsUpdated(DailyServiceStatsUpdatedEvent.all());
+        release.countDown();
+        awaitCompletion(first.getId());
+
+        assertTrue(service.getFile(first.getId()).isPresent());
+        assertNotEquals(first.getId(), service.submit(START, END, DatasetExportJobService.Format.ARROW).getId());
+    }
+
+    @Test
+    void onDailyStatsUpdated_AfterRestart_ShouldDeleteOverlappingFiles() throws Exception {
+        awaitCompletion(service.submit(START, END, DatasetExportJobService.Format.CSV).getId());
+        service.shutdown();
+
+        DatasetExportJobService restarted = new DatasetExportJobService(mlDatasetService, exportDir.toString(), 24, 1, 2);
+        try {
+            restarted.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(START, START));
+
+            try (var files = Files.list(exportDir)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    @Test
+    void submit_WhenGenerationFails_ShouldMarkJobFailedAndAllowRetry() throws Exception {
+        doThrow(new RuntimeException("base indisponible"))
+            .doNothing()
+            .when(mlDatasetService).streamDataset(any(), any(), any());
+
+        DatasetExportJobDTO failed = awaitCompletion(service.submit(START, END, DatasetExportJobService.Format.CSV).getId());
+
+        assertEquals(DatasetExportJobService.ECHEC, failed.getStatus());
+        assertEquals("base indisponible", failed.getError());
+        assertTrue(service.getFile(failed.getId()).isEmpty());
+        try (var files = Files.list(exportDir)) {
+            assertEquals(0, files.count());
+        }
+
+        DatasetExportJobDTO retry = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        assertNotEquals(failed.getId(), retry.getId());
+        assertEquals(DatasetExportJobService.TERMINE, awaitCompletion(retry.getId()).getStatus());
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteFilesOlderThanRetention() throws Exception {
+        DatasetExportJobService noRetention = new DatasetExportJobService(mlDatasetService, exportDir.toString(), 0, 1, 2);
+        try {
+            DatasetExportJobDTO job = noRetention.submit(START, END, DatasetExportJobService.Format.CSV);
+            awaitCompletion(noRetention, job.getId());
+
+            noRetention.purgeExpired();
+
+            assertTrue(noRetention.getJob(job.getId()).isEmpty());
+            try (var files = Files.list(exportDir)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            noRetention.shutdown();
+        }
+    }
+
+    @Test
+    void purgeExpired_DuringExport_ShouldKeepPartialFile() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Consumer<DatasetRowDTO> sink = invocation.getArgument(2);
+            sink.accept(row(START, "Urgences"));
+            started.countDown();
+            assertTrue(release.await(30, TimeUnit.SECONDS));
+            return null;
+        }).when(mlDatasetService).streamDataset(any(), any(), any());
+
+        DatasetExportJobDTO job = service.submit(START, END, DatasetExportJobService.Format.CSV);
+        assertTrue(started.await(30, TimeUnit.SECONDS));
+        service.purgeExpired();
+        release.countDown();
+
+        DatasetExportJobDTO done = awaitCompletion(job.getId());
+        assertEquals(DatasetExportJobService.TERMINE, done.getStatus());
+        assertTrue(service.getFile(job.getId()).isPresent());
+    }
+
+    private DatasetExportJobDTO awaitCompletion(String id) throws InterruptedException {
+        return awaitCompletion(service, id);
+    }
+
+    private static DatasetExportJobDTO awaitCompletion(DatasetExportJobService service, String id) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            DatasetExportJobDTO job = service.getJob(id).orElseThrow();
+            if (DatasetExportJobService.TERMINE.equals(job.getStatus()) || DatasetExportJobService.ECHEC.equals(job.getStatus())) {
+                return job;
+            }
+            Thread.sleep(25);
+        }
+        fail("Export non terminé: " + id);
+        return null;
+    }
+
+    private static DatasetRowDTO row(LocalDate date, String service) {
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setDate(date.toString());
+        row.setService(service);
+        return row;
+    }
+}
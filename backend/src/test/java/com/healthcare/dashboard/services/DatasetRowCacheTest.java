@@ -0,0 +1,119 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour DatasetRowCache
+ */
+class DatasetRowCacheTest {
+
+    private static final List<String> SERVICES = List.of("Urgences", "Chirurgie");
+
+    private final DatasetRowCache cache = new DatasetRowCache(7, 3);
+
+    @Test
+    void put_ShouldOnlyKeepDaysBeforeCutoff() {
+        LocalDate old = LocalDate.now().minusDays(30);
+        LocalDate recent = LocalDate.now().minusDays(2);
+
+        cache.put(old, SERVICES, cache.stamp(), rows(old));
+        cache.put(recent, SERVICES, cache.stamp(), rows(recent));
+
+        assertNotNull(cache.get(old, SERVICES));
+        assertNull(cache.get(recent, SERVICES));
+    }
+
+    @Test
+    void get_WithDifferentServiceList_ShouldMiss() {
+        LocalDate day = LocalDate.of(2023, 5, 1);
+        cache.put(day, SERVICES, cache.stamp(), rows(day));
+
+        assertNull(cache.get(day, List.of("Urgences", "Chirurgie", "Oncologie")));
+    }
+
+    @Test
+    void put_BeyondMaxDays_ShouldDropLeastRecentlyReadDay() {
+        LocalDate d1 = LocalDate.of(2023, 5, 1);
+        LocalDate d2 = d1.plusDays(1);
+        LocalDate d3 = d1.plusDays(2);
+        cache.put(d1, SERVICES, cache.stamp(), rows(d1));
+        cache.put(d2, SERVICES, cache.stamp(), rows(d2));
+        cache.put(d3, SERVICES, cache.stamp(), rows(d3));
+        cache.get(d1, SERVICES);
+
+        cache.put(d3.plusDays(1), SERVICES, cache.stamp(), rows(d3.plusDays(1)));
+
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(d1, SERVICES));
+        assertNull(cache.get(d2, SERVICES));
+    }
+
+    @Test
+    void onSejourChanged_ShouldEvictPreviousAndCurrentDays() {
+        LocalDate before = LocalDate.of(2023, 5, 1);
+        LocalDate after = LocalDate.of(2023, 5, 2);
+        cache.put(before, SERVICES, cache.stamp(), rows(before));
+        cache.put(after, SERVICES, cache.stamp(), rows(after));
+
+        cache.onSejourChanged(new SejourChangedEvent(
+            new SejourChangedEvent.Snapshot(1L, 1L, 1L, before.atTime(8, 0), null, null, 0.0),
+            new SejourChangedEvent.Snapshot(1L, 1L, 1L, after.atTime(8, 0), null, null, 0.0)));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_AfterEvictionDuringComputation_ShouldNotCacheStaleRows() {
+        LocalDate day = LocalDate.of(2023, 5, 1);
+        LocalDate other = day.plusDays(40);
+        long stamp = cache.stamp();
+
+        cache.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(day, day.plusDays(10)));
+        cache.put(day, SERVICES, stamp, rows(day));
+        cache.put(other, SERVICES, stamp, rows(other));
+
+        assertNull(cache.get(day, SERVICES));
+        assertNotNull(cache.get(other, SERVICES));
+
+        stamp = cache.stamp();
+        cache.clear();
+        cache.put(day, SERVICES, stamp, rows(day));
+        assertEquals(0, cache.size());
+
+        cache.put(day, SERVICES, cache.stamp(), rows(day));
+        assertNotNull(cache.get(day, SERVICES));
+    }
+
+    @Test
+    void onDailyStatsUpdated_ShouldEvictRangeOrEverything() {
+        LocalDate d1 = LocalDate.of(2023, 5, 1);
+        LocalDate d2 = LocalDate.of(2023, 6, 1);
+        cache.put(d1, SERVICES, cache.stamp(), rows(d1));
+        cache.put(d2, SERVICES, cache.stamp(), rows(d2));
+
+        cache.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(d1, d1.plusDays(10)));
+        assertNull(cache.get(d1, SERVICES));
+        assertNotNull(cache.get(d2, SERVICES));
+
+        cache.onDailyStatsUpdated(DailyServiceStatsUpdatedEvent.all());
+        assertEquals(0, cache.size());
+    }
+
+    private static DatasetRowDTO[] rows(LocalDate day) {
+        DatasetRowDTO[] rows = new DatasetRowDTO[SERVICES.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new DatasetRowDTO();
+            rows[i].setDate(day.toString());
+            rows[i].setService(SERVICES.get(i));
+        }
+        return rows;
+    }
+}
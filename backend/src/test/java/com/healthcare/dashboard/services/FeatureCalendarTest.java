@@ -0,0 +1,69 @@
+package com.healthcare.dashboard.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour FeatureCalendar
+ */
+class FeatureCalendarTest {
+
+    private final FeatureCalendar calendar = new FeatureCalendar(2020, 2030);
+
+    @Test
+    void easterSunday_ShouldMatchKnownDates() {
+        assertEquals(LocalDate.of(2019, 4, 21), FeatureCalendar.easterSunday(2019));
+        assertEquals(LocalDate.of(2024, 3, 31), FeatureCalendar.easterSunday(2024));
+        assertEquals(LocalDate.of(2025, 4, 20), FeatureCalendar.easterSunday(2025));
+        assertEquals(LocalDate.of(2038, 4, 25), FeatureCalendar.easterSunday(2038));
+    }
+
+    @Test
+    void isFerie_ShouldIncludeEasterBasedHolidays() {
+        assertTrue(calendar.isFerie(LocalDate.of(2024, 4, 1)));   // lundi de Pâques
+        assertTrue(calendar.isFerie(LocalDate.of(2024, 5, 9)));   // Ascension
+        assertTrue(calendar.isFerie(LocalDate.of(2024, 5, 20)));  // lundi de Pentecôte
+        assertTrue(calendar.isFerie(LocalDate.of(2024, 8, 15)));
+        assertTrue(calendar.isFerie(LocalDate.of(2024, 7, 14)));
+        assertFalse(calendar.isFerie(LocalDate.of(2024, 3, 31)));
+        assertFalse(calendar.isFerie(LocalDate.of(2024, 6, 3)));
+    }
+
+    @Test
+    void simulatedWeather_ShouldBeSeededByDate() {
+        FeatureCalendar other = new FeatureCalendar(2022, 2026);
+        for (LocalDate date = LocalDate.of(2024, 1, 1); date.getYear() == 2024; date = date.plusDays(1)) {
+            assertEquals(calendar.getMeteo(date), other.getMeteo(date));
+            assertEquals(calendar.getTemperature(date), other.getTemperature(date));
+        }
+    }
+
+    @Test
+    void outOfRangeDates_ShouldUseSameValuesAsTable() {
+        FeatureCalendar narrow = new FeatureCalendar(2025, 2025);
+        LocalDate date = LocalDate.of(2024, 5, 20);
+
+        assertEquals(calendar.getMeteo(date), narrow.getMeteo(date));
+        assertEquals(calendar.getTemperature(date), narrow.getTemperature(date));
+        assertEquals(calendar.isFerie(date), narrow.isFerie(date));
+        assertEquals("lundi", narrow.getJourSemaine(date));
+        assertEquals("printemps", narrow.getSaison(date));
+    }
+
+    @Test
+    void features_ShouldFollowSeasonalRanges() {
+        LocalDate summer = LocalDate.of(2024, 7, 10);
+        LocalDate winter = LocalDate.of(2024, 1, 10);
+
+        assertEquals("ete", calendar.getSaison(summer));
+        assertEquals("ensoleille", calendar.getMeteo(summer));
+        assertTrue(calendar.getTemperature(summer) >= 20 && calendar.getTemperature(summer) < 35);
+        assertTrue(calendar.getMeteo(winter).equals("neige") || calendar.getMeteo(winter).equals("nuageux"));
+        assertTrue(calendar.getTemperature(winter) >= 0 && calendar.getTemperature(winter) < 8);
+        assertTrue(calendar.isWeekend(LocalDate.of(2024, 7, 13)));
+        assertEquals("samedi", calendar.getJourSemaine(LocalDate.of(2024, 7, 13)));
+    }
+}
@@ -0,0 +1,169 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.entities.ForecastBacktestResult;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.ForecastBacktestResultRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ForecastBacktestService
+ * Vérifie les métriques sur des séries synthétiques, la lecture unique des faits et l'enregistrement des résultats
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ForecastBacktestServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private DailyServiceStatsRepository dailyServiceStatsRepository;
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private ForecastBacktestResultRepository resultRepository;
+
+    private ForecastBacktestService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ForecastBacktestService(dailyServiceStatsRepository, serviceRepository, resultRepository,
+                new BootstrapIntervals(0.90, 200, 200, 0, 1), 2);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(List.<Object[]>of(new Object[]{1L, "Urgences"}));
+        when(resultRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void run_ConstantSeries_ShouldScorePerfectHoltWinters() {
+        stubFacts(facts(200, day -> 20));
+
+        List<ForecastBacktestResult> results = service.run("PATIENTS", List.of(ForecastModel.HOLT_WINTERS_ADDITIF), 14, 4, 7, TODAY);
+
+        assertEquals(1, results.size());
+        ForecastBacktestResult result = results.get(0);
+        assertEquals("Urgences", result.getService());
+        assertEquals(4, result.getWindows());
+        assertEquals(56, result.getPoints());
+        assertEquals(0.0, result.getMape(), 0.01);
+        assertEquals(0.0, result.getSmape(), 0.01);
+        assertEquals(100.0, result.getCoverage());
+    }
+
+    @Test
+    void run_WeeklyPattern_ShouldRankHoltWintersAboveHeuristic() {
+        stubFacts(facts(400, day -> switch (day.getDayOfWeek()) {
+            case SATURDAY -> 12;
+            case SUNDAY -> 8;
+            default -> 30 + day.getDayOfMonth() % 3;
+        }));
+
+        List<ForecastBacktestResult> results = service.run("PATIENTS", null, 28, 8, 7, TODAY);
+
+        assertEquals(3, results.size());
+        ForecastBacktestResult heuristic = find(results, ForecastModel.HEURISTIQUE);
+        ForecastBacktestResult additive = find(results, ForecastModel.HOLT_WINTERS_ADDITIF);
+        ForecastBacktestResult multiplicative = find(results, ForecastModel.HOLT_WINTERS_MULTIPLICATIF);
+        assertTrue(additive.getSmape() < heuristic.getSmape());
+        assertTrue(multiplicative.getMape() < heuristic.getMape());
+        assertTrue(additive.getCoverage() > 50.0);
+        // Une seule exécution, une seule lecture de la table de faits
+        assertEquals(1, results.stream().map(ForecastBacktestResult::getRunId).distinct().count());
+        verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(any(), any());
+        verify(resultRepository).saveAll(anyList());
+    }
+
+    @Test
+    void run_ShouldBeDeterministic() {
+        stubFacts(facts(300, day -> 20 + (day.getDayOfYear() * 7919) % 11));
+
+        List<ForecastBacktestResult> first = service.run("COUT", null, 14, 6, 5, TODAY);
+        List<ForecastBacktestResult> second = service.run("COUT", null, 14, 6, 5, TODAY);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getModele(), second.get(i).getModele());
+            assertEquals(first.get(i).getMape(), second.get(i).getMape());
+            assertEquals(first.get(i).getCoverage(), second.get(i).getCoverage());
+        }
+    }
+
+    @Test
+    void run_HistoryTooShort_ShouldStoreNothing() {
+        stubFacts(facts(20, day -> 20));
+
+        List<ForecastBacktestResult> results = service.run("PATIENTS", null, 14, 4, 7, TODAY);
+
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void run_InvalidParameters_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> service.run("PATIENTS", null, 0, 4, 7));
+        assertThrows(IllegalArgumentException.class, () -> service.run("PATIENTS", null, 30, 500, 7));
+        assertThrows(IllegalArgumentException.class, () -> service.run("PATIENTS", null, 30, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.run("INCONNU", null, 30, 4, 7));
+        verifyNoInteractions(dailyServiceStatsRepository, resultRepository);
+    }
+
+    @Test
+    void getHistory_ShouldFilterByModelWhenGiven() {
+        service.getHistory("Urgences", "PATIENTS", ForecastModel.HEURISTIQUE);
+        service.getHistory("Urgences", "PATIENTS", null);
+
+        verify(resultRepository).findByServiceAndPredictionTypeAndModeleOrderByRunAtDesc(
+            "Urgences", "PATIENTS", ForecastModel.HEURISTIQUE);
+        verify(resultRepository).findByServiceAndPredictionTypeOrderByRunAtDesc("Urgences", "PATIENTS");
+    }
+
+    private void stubFacts(List<DailyServiceStats> facts) {
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            return facts.stream().filter(f -> !f.getStatDate().isBefore(start) && !f.getStatDate().isAfter(end)).toList();
+        });
+    }
+
+    private static List<DailyServiceStats> facts(int days, Function<LocalDate, Integer> patients) {
+        List<DailyServiceStats> facts = new ArrayList<>();
+        for (LocalDate day = TODAY.minusDays(days); day.isBefore(TODAY); day = day.plusDays(1)) {
+            int count = patients.apply(day);
+            DailyServiceStats stats = new DailyServiceStats(day, 1L);
+            stats.setPatientsCount(count);
+            stats.setTarifTotal(100.0 * count);
+            stats.setSejoursCount(count / 2);
+            stats.setDureeMoyenneSejour(4.0);
+            facts.add(stats);
+        }
+        return facts;
+    }
+
+    private static ForecastBacktestResult find(List<ForecastBacktestResult> results, ForecastModel model) {
+        return results.stream().filter(r -> r.getModele() == model).findFirst().orElseThrow();
+    }
+}
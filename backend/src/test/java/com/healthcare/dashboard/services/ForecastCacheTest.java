@@ -0,0 +1,151 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.Service;
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ForecastCache
+ * Vérifie les compteurs succès/échec, l'expiration, la borne de taille et l'éviction sur écriture
+ */
+@ExtendWith(MockitoExtension.class)
+class ForecastCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    private SimpleMeterRegistry registry;
+    private ForecastCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new ForecastCache(3, 300, registry, serviceRepository);
+    }
+
+    @Test
+    void getOrCompute_ShouldComputeOnceAndCountHitsAndMisses() {
+        AtomicInteger computations = new AtomicInteger();
+        String key = key("Urgences", 7);
+
+        MLPredictionResponseDTO first = cache.getOrCompute("Urgences", key, () -> {
+            computations.incrementAndGet();
+            return response("Urgences");
+        });
+        MLPredictionResponseDTO second = cache.getOrCompute("Urgences", key, () -> {
+            computations.incrementAndGet();
+            return response("Urgences");
+        });
+
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+        assertEquals(1.0, registry.get("ml.forecast.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("ml.forecast.cache.requests").tag("result", "miss").counter().count());
+        assertEquals(1.0, registry.get("ml.forecast.cache.size").gauge().value());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldMiss() {
+        ForecastCache expired = new ForecastCache(10, 0, registry, serviceRepository);
+        String key = key("Urgences", 7);
+        expired.put("Urgences", key, expired.stamp(), response("Urgences"));
+
+        assertNull(expired.get(key));
+        assertEquals(0, expired.size());
+    }
+
+    @Test
+    void put_BeyondMaxEntries_ShouldDropLeastRecentlyUsed() {
+        for (int days = 1; days <= 3; days++) {
+            cache.put("Urgences", key("Urgences", days), cache.stamp(), response("Urgences"));
+        }
+        cache.get(key("Urgences", 1));
+
+        cache.put("Urgences", key("Urgences", 4), cache.stamp(), response("Urgences"));
+
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get(key("Urgences", 1)));
+        assertNull(cache.get(key("Urgences", 2)));
+    }
+
+    @Test
+    void put_AfterServiceEviction_ShouldDropStaleResult() {
+        String key = key("Urgences", 7);
+        long stamp = cache.stamp();
+
+        cache.evictService("Urgences");
+        cache.put("Urgences", key, stamp, response("Urgences"));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onMedecinChanged_ShouldEvictOnlyThatService() {
+        Service urgences = new Service();
+        urgences.setId(1L);
+        urgences.setNom("Urgences");
+        when(serviceRepository.findById(1L)).thenReturn(Optional.of(urgences));
+        cache.put("Urgences", key("Urgences", 7), cache.stamp(), response("Urgences"));
+        cache.put("Chirurgie", key("Chirurgie", 7), cache.stamp(), response("Chirurgie"));
+
+        cache.onMedecinChanged(new MedecinChangedEvent(null, new MedecinChangedEvent.Snapshot(10L, 1L, "ACTIF")));
+
+        assertNull(cache.get(key("Urgences", 7)));
+        assertNotNull(cache.get(key("Chirurgie", 7)));
+    }
+
+    @Test
+    void onServiceChanged_ShouldEvictPreviousAndCurrentNames() {
+        cache.put("Urgences", key("Urgences", 7), cache.stamp(), response("Urgences"));
+        cache.put("Urgences adultes", key("Urgences adultes", 7), cache.stamp(), response("Urgences adultes"));
+        cache.put("Chirurgie", key("Chirurgie", 7), cache.stamp(), response("Chirurgie"));
+        long stamp = cache.stamp();
+
+        cache.onServiceChanged(new ServiceChangedEvent(new ServiceChangedEvent.Snapshot(1L, "Urgences", 20),
+                new ServiceChangedEvent.Snapshot(1L, "Urgences adultes", 25)));
+        cache.put("Urgences", key("Urgences", 7), stamp, response("Urgences"));
+
+        assertNull(cache.get(key("Urgences", 7)));
+        assertNull(cache.get(key("Urgences adultes", 7)));
+        assertNotNull(cache.get(key("Chirurgie", 7)));
+        verifyNoInteractions(serviceRepository);
+    }
+
+    @Test
+    void onAlertChanged_ShouldClearCache() {
+        cache.put("Urgences", key("Urgences", 7), cache.stamp(), response("Urgences"));
+
+        cache.onAlertChanged(new AlertChangedEvent(null, new AlertChangedEvent.Snapshot(1L, "HAUTE", false, false)));
+
+        assertEquals(0, cache.size());
+    }
+
+    private static String key(String service, int daysAhead) {
+        return ForecastCache.key(service, "PATIENTS", ForecastModel.HEURISTIQUE, daysAhead, DATE);
+    }
+
+    private static MLPredictionResponseDTO response(String service) {
+        MLPredictionResponseDTO response = new MLPredictionResponseDTO();
+        response.setService(service);
+        return response;
+    }
+}
@@ -0,0 +1,144 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.PrecomputedForecast;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ForecastPrecomputeService
+ * Vérifie les combinaisons précalculées, le recalcul des seuls services modifiés et l'abandon des seuls
+ * services écrits pendant le calcul
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ForecastPrecomputeServiceTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private MLPredictionService mlPredictionService;
+
+    @Mock
+    private PrecomputedForecastStore precomputedForecastStore;
+
+    @InjectMocks
+    private ForecastPrecomputeService precomputeService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(precomputedForecastStore.getModels()).thenReturn(Set.of(ForecastModel.HEURISTIQUE));
+        when(precomputedForecastStore.stampServices()).thenReturn(stamp(0L, 0L));
+        when(mlPredictionService.computeMLPredictions(anyString(), any(), anyInt(), any(), any()))
+            .thenReturn(List.of(new MLPredictionResponseDTO(), new MLPredictionResponseDTO()));
+        when(precomputedForecastStore.toRows(eq(DATE), anyString(), any(), anyInt(), anyList(), any()))
+            .thenAnswer(invocation -> List.of(row("Urgences"), row("Chirurgie")));
+    }
+
+    @Test
+    void precompute_ShouldStoreEveryStandardCombination() throws Exception {
+        int stored = precomputeService.precompute(DATE);
+
+        assertEquals(3 * 4 * 2, stored);
+        for (String type : PrecomputedForecastStore.TYPES) {
+            for (int daysAhead : PrecomputedForecastStore.HORIZONS) {
+                verify(mlPredictionService).computeMLPredictions(type, ForecastModel.HEURISTIQUE, daysAhead, DATE, null);
+            }
+        }
+        verify(precomputedForecastStore).replace(argThat(rows -> rows.size() == 24));
+        verify(precomputedForecastStore, never()).clear();
+    }
+
+    @Test
+    void precompute_WriteDuringComputation_ShouldDiscardOnlyThatService() throws Exception {
+        when(precomputedForecastStore.isStale(any(), eq("Urgences"))).thenReturn(true);
+
+        int stored = precomputeService.precompute(DATE);
+
+        assertEquals(3 * 4, stored);
+        verify(precomputedForecastStore).replace(argThat(rows -> rows.size() == 12
+            && rows.stream().allMatch(row -> row.getService().equals("Chirurgie"))));
+        verify(precomputedForecastStore, never()).clear();
+    }
+
+    @Test
+    void precompute_WriteBetweenCheckAndSave_ShouldRemoveThatServiceAfterwards() throws Exception {
+        // Le premier contrôle passe, le second voit l'écriture
+        when(precomputedForecastStore.isStale(any(), eq("Chirurgie"))).thenReturn(false, true);
+
+        int stored = precomputeService.precompute(DATE);
+
+        assertEquals(3 * 4, stored);
+        verify(precomputedForecastStore).replace(argThat(rows -> rows.size() == 24));
+        verify(precomputedForecastStore).discard(Set.of("Chirurgie"));
+    }
+
+    @Test
+    void refresh_AfterWriteOnOneService_ShouldRecomputeAndReplaceOnlyThatService() throws Exception {
+        precomputeService.refresh(DATE);
+        when(precomputedForecastStore.stampServices()).thenReturn(stamp(1L, 0L));
+        when(precomputedForecastStore.toRows(eq(DATE), anyString(), any(), anyInt(), anyList(), any()))
+            .thenAnswer(invocation -> List.of(row("Urgences")));
+
+        int stored = precomputeService.refresh(DATE);
+
+        assertEquals(3 * 4, stored);
+        verify(mlPredictionService, times(12)).computeMLPredictions(anyString(), any(), anyInt(), eq(DATE), eq(Set.of("Urgences")));
+        verify(precomputedForecastStore).replace(eq(Set.of("Urgences")), argThat(rows -> rows.size() == 12));
+        verify(precomputedForecastStore, times(1)).replace(anyList());
+    }
+
+    @Test
+    void refresh_WithoutWrites_ShouldNotRecompute() throws Exception {
+        precomputeService.refresh(DATE);
+        Mockito.<Object>clearInvocations(mlPredictionService, precomputedForecastStore);
+
+        assertEquals(0, precomputeService.refresh(DATE));
+
+        verifyNoInteractions(mlPredictionService);
+        verify(precomputedForecastStore, never()).replace(anyList());
+        verify(precomputedForecastStore, never()).replace(anyCollection(), anyList());
+    }
+
+    @Test
+    void refresh_DateRolloverOrAllRowsDeleted_ShouldRecomputeEverything() throws Exception {
+        precomputeService.refresh(DATE);
+        when(precomputedForecastStore.toRows(any(), anyString(), any(), anyInt(), anyList(), any()))
+            .thenAnswer(invocation -> List.of(row("Urgences"), row("Chirurgie")));
+
+        precomputeService.refresh(DATE.plusDays(1));
+        when(precomputedForecastStore.stampServices()).thenReturn(new PrecomputedForecastStore.Stamp(1L, Map.of()));
+        precomputeService.refresh(DATE.plusDays(1));
+
+        verify(mlPredictionService, times(24)).computeMLPredictions(anyString(), any(), anyInt(), eq(DATE.plusDays(1)), isNull());
+        verify(precomputedForecastStore, times(3)).replace(anyList());
+        verify(precomputedForecastStore, never()).replace(anyCollection(), anyList());
+    }
+
+    private static PrecomputedForecastStore.Stamp stamp(long urgences, long chirurgie) {
+        return new PrecomputedForecastStore.Stamp(0L, Map.of("Urgences", urgences, "Chirurgie", chirurgie));
+    }
+
+    private static PrecomputedForecast row(String service) {
+        PrecomputedForecast row = new PrecomputedForecast();
+        row.setService(service);
+        return row;
+    }
+}
@@ -0,0 +1,160 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.dto.ScenarioRequestDTO;
+import com.healthcare.dashboard.dto.ScenarioResponseDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ForecastScenarioService
+ * Vérifie l'application des variations aux facteurs actuels, le chargement unique et la validation des demandes
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ForecastScenarioServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private MLPredictionService mlPredictionService;
+
+    @Mock
+    private ServiceRegistry serviceRegistry;
+
+    @Mock
+    private MLPredictionService.PreparedForecast urgences;
+
+    @Mock
+    private MLPredictionService.PreparedForecast radiologie;
+
+    private ForecastScenarioService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ForecastScenarioService(mlPredictionService, serviceRegistry, 2);
+        when(serviceRegistry.getServices()).thenReturn(List.of(
+            new ServiceRegistry.ServiceInfo(1L, "Urgences", 50),
+            new ServiceRegistry.ServiceInfo(2L, "Radiologie", 30),
+            new ServiceRegistry.ServiceInfo(3L, "Chirurgie", 40)));
+        when(urgences.getFactors()).thenReturn(new ServiceImpactSnapshot.Factors(4L, 0.0, 1L));
+        when(radiologie.getFactors()).thenReturn(new ServiceImpactSnapshot.Factors(2L, 100000.0, 0L));
+        Map<Long, MLPredictionService.PreparedForecast> prepared = new LinkedHashMap<>();
+        prepared.put(1L, urgences);
+        prepared.put(2L, radiologie);
+        when(mlPredictionService.prepareForecasts(anyMap(), anyString(), any(), anyInt(), any())).thenReturn(prepared);
+        // Valeur moyenne = 100 + médecins + investissement / 10 000 - alertes
+        when(mlPredictionService.forecastWith(any(), any())).thenAnswer(invocation -> {
+            ServiceImpactSnapshot.Factors factors = invocation.getArgument(1);
+            MLPredictionResponseDTO response = new MLPredictionResponseDTO();
+            response.setService(invocation.getArgument(0) == urgences ? "Urgences" : "Radiologie");
+            response.setValeurMoyenne(100.0 + factors.getActiveMedecins() + factors.getRecentInvestments() / 10000.0
+                                      - factors.getActiveAlerts());
+            return response;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void evaluate_ShouldApplyChangesOnCurrentFactors() {
+        ScenarioRequestDTO request = request(
+            scenario("+2 médecins", change("Urgences", 2, null, null)),
+            scenario("+200k€ équipement", change("Radiologie", null, 200000.0, "EQUIPEMENT")),
+            scenario("Cumul", change("Urgences", 2, null, null),
+                     new ScenarioRequestDTO.Change("Urgences", -10, null, null, -1)));
+
+        ScenarioResponseDTO response = service.evaluate(request);
+
+        assertEquals(List.of("Urgences", "Radiologie"),
+                     response.getReference().stream().map(MLPredictionResponseDTO::getService).toList());
+        assertEquals(103.0, response.getReference().get(0).getValeurMoyenne());
+        assertEquals(3, response.getScenarios().size());
+        ScenarioResponseDTO.ScenarioResult staffed = response.getScenarios().get(0);
+        assertEquals("+2 médecins", staffed.getNom());
+        assertEquals(105.0, staffed.getPredictions().get(0).getValeurMoyenne());
+        assertEquals(1.94, staffed.getVariations().get("Urgences"));
+        assertEquals(132.0, response.getScenarios().get(1).getPredictions().get(0).getValeurMoyenne());
+        // Variations cumulées sur le même service, facteurs jamais négatifs
+        ScenarioResponseDTO.ScenarioResult cumulative = response.getScenarios().get(2);
+        assertEquals(1, cumulative.getPredictions().size());
+        assertEquals(100.0, cumulative.getPredictions().get(0).getValeurMoyenne());
+    }
+
+    @Test
+    void evaluate_ManyScenarios_ShouldLoadHistoryOnceAndKeepOrder() {
+        List<ScenarioRequestDTO.Scenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            scenarios.add(scenario("S" + i, change(i % 2 == 0 ? "Urgences" : "Radiologie", i, null, null)));
+        }
+        ScenarioRequestDTO request = request(scenarios.toArray(new ScenarioRequestDTO.Scenario[0]));
+
+        ScenarioResponseDTO response = service.evaluate(request);
+
+        assertEquals(50, response.getScenarios().size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals("S" + i, response.getScenarios().get(i).getNom());
+        }
+        Map<Long, String> expected = new LinkedHashMap<>();
+        expected.put(1L, "Urgences");
+        expected.put(2L, "Radiologie");
+        verify(mlPredictionService, times(1)).prepareForecasts(eq(expected), eq("PATIENTS"),
+                                                               eq(ForecastModel.HEURISTIQUE), eq(30), eq(TODAY));
+    }
+
+    @Test
+    void evaluate_InvalidRequest_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> service.evaluate(request(scenario("X", change("Inconnu", 1, null, null)))));
+        assertThrows(IllegalArgumentException.class,
+                     () -> service.evaluate(request(scenario("X", change("Urgences", null, 1000.0, "IMMOBILIER")))));
+        assertThrows(IllegalArgumentException.class, () -> service.evaluate(request()));
+        List<ScenarioRequestDTO.Scenario> tooMany = new ArrayList<>();
+        for (int i = 0; i <= ForecastScenarioService.MAX_SCENARIOS; i++) {
+            tooMany.add(scenario("S" + i, change("Urgences", 1, null, null)));
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> service.evaluate(request(tooMany.toArray(new ScenarioRequestDTO.Scenario[0]))));
+        ScenarioRequestDTO badType = request(scenario("X", change("Urgences", 1, null, null)));
+        badType.setPredictionType("INCONNU");
+        assertThrows(IllegalArgumentException.class, () -> service.evaluate(badType));
+        verifyNoInteractions(mlPredictionService);
+    }
+
+    private static ScenarioRequestDTO request(ScenarioRequestDTO.Scenario... scenarios) {
+        return new ScenarioRequestDTO("PATIENTS", 30, TODAY, null, List.of(scenarios));
+    }
+
+    private static ScenarioRequestDTO.Scenario scenario(String nom, ScenarioRequestDTO.Change... changes) {
+        return new ScenarioRequestDTO.Scenario(nom, List.of(changes));
+    }
+
+    private static ScenarioRequestDTO.Change change(String service, Integer medecins, Double investissement,
+                                                    String categorie) {
+        return new ScenarioRequestDTO.Change(service, medecins, investissement, categorie, null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthcare.dashboard.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour HoltWinters
+ * Vérifie l'ajustement sur des séries synthétiques, les cas non ajustables et les intervalles de prévision
+ */
+class HoltWintersTest {
+
+    private static final double[] WEEKLY_OFFSETS = {10, 10, 10, 10, 10, -20, -30};
+    private static final double[] WEEKLY_RATIOS = {1.1, 1.1, 1.1, 1.1, 1.1, 0.8, 0.7};
+
+    @Test
+    void fit_AdditiveWeeklySeries_ShouldForecastTrendAndWeekdays() {
+        int n = 120;
+        double[] y = new double[n];
+        for (int t = 0; t < n; t++) {
+            y[t] = additive(t);
+        }
+
+        HoltWinters.Fit fit = HoltWinters.fit(y, n, HoltWinters.Mode.ADDITIVE);
+
+        assertNotNull(fit);
+        assertFalse(fit.hasYearlySeason());
+        double[] forecast = fit.forecast(14);
+        for (int h = 1; h <= 14; h++) {
+            assertEquals(additive(n - 1 + h), forecast[h - 1], 0.01 * additive(n - 1 + h), "h=" + h);
+        }
+    }
+
+    @Test
+    void fit_MultiplicativeSeriesOverThreeYears_ShouldUseYearlySeason() {
+        int n = 3 * HoltWinters.YEAR;
+        double[] y = new double[n];
+        for (int t = 0; t < n; t++) {
+            y[t] = multiplicative(t);
+        }
+
+        HoltWinters.Fit fit = HoltWinters.fit(y, n, HoltWinters.Mode.MULTIPLICATIVE);
+
+        assertNotNull(fit);
+        assertTrue(fit.hasYearlySeason());
+        double[] forecast = fit.forecast(60);
+        for (int h = 1; h <= 60; h++) {
+            assertEquals(multiplicative(n - 1 + h), forecast[h - 1], 0.05 * multiplicative(n - 1 + h), "h=" + h);
+        }
+    }
+
+    @Test
+    void fit_ShouldBeDeterministic() {
+        double[] y = new double[200];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = additive(t) + ((t * 7919) % 13) - 6;
+        }
+
+        HoltWinters.Fit first = HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE);
+        HoltWinters.Fit second = HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE);
+
+        assertEquals(first.getAlpha(), second.getAlpha());
+        assertEquals(first.getGamma(), second.getGamma());
+        assertArrayEquals(first.forecast(30), second.forecast(30));
+    }
+
+    @Test
+    void fit_WithOffsets_ShouldMatchFitOnCopiedWindow() {
+        double[] y = new double[200];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = additive(t) + ((t * 7919) % 13) - 6;
+        }
+
+        HoltWinters.Fit window = HoltWinters.fit(y, 30, 150, HoltWinters.Mode.ADDITIVE);
+        HoltWinters.Fit copy = HoltWinters.fit(java.util.Arrays.copyOfRange(y, 30, 150), 120, HoltWinters.Mode.ADDITIVE);
+
+        assertEquals(copy.getAlpha(), window.getAlpha());
+        assertEquals(copy.getResidualStd(), window.getResidualStd());
+        assertArrayEquals(copy.forecast(30), window.forecast(30));
+    }
+
+    @Test
+    void fit_TooShortSeries_ShouldReturnNull() {
+        double[] y = new double[HoltWinters.MIN_LENGTH - 1];
+        java.util.Arrays.fill(y, 5.0);
+
+        assertNull(HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE));
+    }
+
+    @Test
+    void fit_MultiplicativeWithZeroDays_ShouldReturnNull() {
+        double[] y = new double[60];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = t % 7 == 6 ? 0.0 : 20.0;
+        }
+
+        assertNull(HoltWinters.fit(y, y.length, HoltWinters.Mode.MULTIPLICATIVE));
+        assertNotNull(HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE));
+    }
+
+    @Test
+    void simulate_ShouldFollowForecastAndBeReproducible() {
+        double[] y = new double[150];
+        for (int t = 0; t < y.length; t++) {
+            y[t] = additive(t) + ((t * 7919) % 21) - 10;
+        }
+        HoltWinters.Fit fit = HoltWinters.fit(y, y.length, HoltWinters.Mode.ADDITIVE);
+        double[] forecast = fit.forecast(14);
+
+        double[] first = new double[14];
+        double[] second = new double[14];
+        double[] mean = new double[14];
+        int paths = 500;
+        for (int i = 0; i < paths; i++) {
+            fit.simulate(new SplittableRandom(i), first, new double[HoltWinters.WEEK], new double[HoltWinters.YEAR]);
+            for (int h = 0; h < first.length; h++) {
+                mean[h] += first[h] / paths;
+            }
+        }
+        fit.simulate(new SplittableRandom(42), first, new double[HoltWinters.WEEK], new double[HoltWinters.YEAR]);
+        fit.simulate(new SplittableRandom(42), second, new double[HoltWinters.WEEK], new double[HoltWinters.YEAR]);
+
+        assertArrayEquals(first, second);
+        for (int h = 0; h < forecast.length; h++) {
+            assertEquals(forecast[h], mean[h], 0.05 * forecast[h], "h=" + h);
+        }
+    }
+
+    private static double additive(int t) {
+        return 100 + 0.1 * t + WEEKLY_OFFSETS[t % 7];
+    }
+
+    private static double multiplicative(int t) {
+        return (200 + 0.05 * t) * (1 + 0.2 * Math.sin(2 * Math.PI * t / HoltWinters.YEAR)) * WEEKLY_RATIOS[t % 7];
+    }
+}
@@ -0,0 +1,188 @@
+package com.healthcare.dashboard.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour KpiBroadcaster
+ * Vérifie l'envoi initial complet, l'envoi des seules valeurs modifiées, le regroupement des écritures
+ * et le retrait des abonnés perdus
+ */
+class KpiBroadcasterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final AtomicInteger snapshots = new AtomicInteger();
+    private KpiBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        values.put("totalPatients", 100L);
+        values.put("sejoursEnCours", 5L);
+        broadcaster = new KpiBroadcaster("dashboard", () -> {
+            snapshots.incrementAndGet();
+            return new LinkedHashMap<>(values);
+        }, scheduler, 500, meterRegistry);
+    }
+
+    @Test
+    void subscribe_ShouldSendAllValuesThenOnlyChangedOnes() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+        assertEquals(List.of(Map.of("totalPatients", 100L, "sejoursEnCours", 5L)), emitter.payloads);
+
+        values.put("sejoursEnCours", 6L);
+        broadcaster.markDirty();
+        broadcaster.flush();
+
+        assertEquals(Map.of("sejoursEnCours", 6L), emitter.payloads.get(1));
+        // Sans changement de valeur, rien n'est envoyé
+        broadcaster.markDirty();
+        broadcaster.flush();
+        assertEquals(2, emitter.payloads.size());
+        assertEquals(1, meterRegistry.get("dashboard.sse.fanout").tag("group", "dashboard").timer().count());
+    }
+
+    @Test
+    void markDirty_BurstOfWrites_ShouldScheduleOneFlush() {
+        broadcaster.subscribe(new RecordingEmitter());
+
+        for (int i = 0; i < 20; i++) {
+            broadcaster.markDirty();
+        }
+
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(1)).schedule(flush.capture(), eq(500L), eq(TimeUnit.MILLISECONDS));
+        values.put("totalPatients", 120L);
+        flush.getValue().run();
+        assertEquals(2, snapshots.get());
+        // Une nouvelle écriture après la diffusion ouvre une nouvelle fenêtre
+        broadcaster.markDirty();
+        verify(scheduler, times(2)).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    void markDirty_WithoutSubscribers_ShouldNotRecompute() {
+        broadcaster.markDirty();
+
+        verifyNoInteractions(scheduler);
+        assertEquals(0, snapshots.get());
+    }
+
+    @Test
+    void subscribe_AfterWritesWithoutSubscribers_ShouldSendFreshValues() {
+        RecordingEmitter first = new RecordingEmitter();
+        broadcaster.subscribe(first);
+        broadcaster.unsubscribe(first);
+
+        values.put("totalPatients", 130L);
+        broadcaster.markDirty();
+
+        RecordingEmitter second = new RecordingEmitter();
+        broadcaster.subscribe(second);
+        assertEquals(List.of(Map.of("totalPatients", 130L, "sejoursEnCours", 5L)), second.payloads);
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    void flush_FailingSubscriber_ShouldBeDroppedAndCounted() {
+        RecordingEmitter healthy = new RecordingEmitter();
+        RecordingEmitter broken = new RecordingEmitter();
+        broadcaster.subscribe(healthy);
+        broadcaster.subscribe(broken);
+        assertEquals(2.0, meterRegistry.get("dashboard.sse.connections").tag("group", "dashboard").gauge().value());
+
+        broken.failing = true;
+        values.put("totalPatients", 101L);
+        broadcaster.markDirty();
+        broadcaster.flush();
+
+        assertEquals(1, broadcaster.size());
+        assertEquals(Map.of("totalPatients", 101L), healthy.payloads.get(1));
+        assertEquals(1.0, meterRegistry.get("dashboard.sse.dropped").tag("group", "dashboard").counter().count());
+        assertEquals(1, meterRegistry.get("dashboard.sse.fanout").tag("group", "dashboard").timer().count());
+    }
+
+    @Test
+    void flush_StalledSubscriber_ShouldNotBlockWritesOrNewSubscribers() throws Exception {
+        RecordingEmitter stalled = new RecordingEmitter();
+        broadcaster.subscribe(stalled);
+        stalled.blocked = new CountDownLatch(1);
+        stalled.entered = new CountDownLatch(1);
+        values.put("totalPatients", 101L);
+        broadcaster.markDirty();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> flush = executor.submit(broadcaster::flush);
+            assertTrue(stalled.entered.await(5, TimeUnit.SECONDS));
+
+            // Envoi bloqué (tampon TCP plein): les écritures et les nouveaux abonnés ne l'attendent pas
+            CompletableFuture.runAsync(broadcaster::markDirty).get(5, TimeUnit.SECONDS);
+            RecordingEmitter other = new RecordingEmitter();
+            CompletableFuture.runAsync(() -> broadcaster.subscribe(other)).get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(Map.of("totalPatients", 101L, "sejoursEnCours", 5L)), other.payloads);
+
+            stalled.blocked.countDown();
+            flush.get(5, TimeUnit.SECONDS);
+            assertEquals(Map.of("totalPatients", 101L), stalled.payloads.get(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Émetteur qui conserve les données envoyées, ou échoue comme une connexion fermée
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Object> payloads = new ArrayList<>();
+        boolean failing;
+        // Envoi suspendu jusqu'à l'ouverture du verrou, après avoir signalé son entrée
+        volatile CountDownLatch blocked;
+        volatile CountDownLatch entered;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (blocked != null) {
+                entered.countDown();
+                try {
+                    blocked.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof Map) {
+                    payloads.add(data.getData());
+                }
+            }
+        }
+    }
+}
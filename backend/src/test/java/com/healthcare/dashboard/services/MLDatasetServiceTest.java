@@ -0,0 +1,412 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.repositories.DailyServiceStatsRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MLDatasetService
+ * Vérifie l'assemblage des lignes à partir de la table de faits et le nombre d'allers-retours SQL
+ */
+@ExtendWith(MockitoExtension.class)
+class MLDatasetServiceTest {
+
+    private static final FeatureCalendar CALENDAR = new FeatureCalendar(2015, 2035);
+
+    private static final List<String> SERVICES = List.of("Urgences", "Chirurgie", "Cardiologie", "Pediatrie",
+                                                          "Maternite", "Radiologie", "Oncologie", "Neurologie");
+
+    @Mock
+    private DailyServiceStatsRepository dailyServiceStatsRepository;
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    private DatasetRowCache datasetRowCache;
+
+    private MLDatasetService mlDatasetService;
+
+    @BeforeEach
+    void setUp() {
+        datasetRowCache = new DatasetRowCache(7, 1500);
+        mlDatasetService = new MLDatasetService(dailyServiceStatsRepository, serviceRepository, null, datasetRowCache, CALENDAR);
+    }
+
+    @Test
+    void generateDataset_ShouldAssembleRowsFromGroupedAggregates() {
+        LocalDate start = LocalDate.of(2024, 3, 4);
+        LocalDate end = LocalDate.of(2024, 3, 6);
+
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(List.of("Urgences", "Chirurgie")));
+        when(dailyServiceStatsRepository.findByStatDateBetween(start, end)).thenReturn(List.of(
+            stats(LocalDate.of(2024, 3, 5), 2L, 5, 1000.0, 200.0, 0, 0.0, 0),
+            stats(LocalDate.of(2024, 3, 4), 1L, 0, 0.0, 0.0, 3, 2.5, 2)));
+
+        List<DatasetRowDTO> dataset = mlDatasetService.generateDataset(start, end);
+
+        assertEquals(6, dataset.size());
+        // Ordre: par date puis par service
+        assertEquals("2024-03-04", dataset.get(0).getDate());
+        assertEquals("Urgences", dataset.get(0).getService());
+        assertEquals("Chirurgie", dataset.get(1).getService());
+
+        DatasetRowDTO urgences = dataset.get(0);
+        assertEquals(3, urgences.getSejoursActifs());
+        assertEquals(2.5, urgences.getDureeMoyenneSejour());
+        assertEquals(2, urgences.getPatientsCount());
+        assertEquals(2, urgences.getUrgencesAdmissions());
+        assertEquals(3, urgences.getHospitalisations());
+        assertEquals(0, urgences.getActesCount());
+        assertEquals(3.0 / 40, urgences.getTauxOccupation());
+
+        DatasetRowDTO chirurgie = dataset.get(3);
+        assertEquals("2024-03-05", chirurgie.getDate());
+        assertEquals("Chirurgie", chirurgie.getService());
+        assertEquals(5, chirurgie.getActesCount());
+        assertEquals(1000.0, chirurgie.getCoutTotal());
+        assertEquals(200.0, chirurgie.getTarifMoyen());
+        assertEquals(200.0, chirurgie.getCoutMoyenActe());
+        assertEquals(2, chirurgie.getInterventionsChirurgicales());
+        assertEquals(3, chirurgie.getConsultations());
+        assertEquals(0, chirurgie.getSejoursActifs());
+
+        DatasetRowDTO empty = dataset.get(5);
+        assertEquals(0, empty.getActesCount());
+        assertEquals(0.0, empty.getCoutTotal());
+        assertEquals(0, empty.getPatientsCount());
+        assertEquals(0.0, empty.getCoutMoyenActe());
+    }
+
+    @Test
+    void generateDataset_WithEndBeforeStart_ShouldReturnEmptyDataset() {
+        List<DatasetRowDTO> dataset = mlDatasetService.generateDataset(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1));
+
+        assertTrue(dataset.isEmpty());
+        verifyNoInteractions(dailyServiceStatsRepository, serviceRepository);
+    }
+
+    @Test
+    void generateDataset_ShouldIgnoreAggregatesForUnknownServices() {
+        LocalDate day = LocalDate.of(2024, 1, 10);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(List.of("Urgences")));
+        when(dailyServiceStatsRepository.findByStatDateBetween(day, day))
+            .thenReturn(List.of(stats(day, 42L, 5, 1000.0, 200.0, 0, 0.0, 0)));
+
+        List<DatasetRowDTO> dataset = mlDatasetService.generateDataset(day, day);
+
+        assertEquals(1, dataset.size());
+        assertEquals(0, dataset.get(0).getActesCount());
+    }
+
+    @Test
+    void streamDataset_ShouldEmitRowsInOrderAcrossWindows() {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = start.plusDays(MLDatasetService.WINDOW_DAYS + 9);
+        LocalDate secondWindowDay = start.plusDays(MLDatasetService.WINDOW_DAYS + 2);
+
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(List.of("Urgences")));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any()))
+            .thenReturn(new ArrayList<>())
+            .thenReturn(List.of(stats(secondWindowDay, 1L, 7, 700.0, 100.0, 0, 0.0, 0)));
+
+        List<DatasetRowDTO> rows = new ArrayList<>();
+        mlDatasetService.streamDataset(start, end, rows::add);
+
+        assertEquals(MLDatasetService.WINDOW_DAYS + 10, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(start.plusDays(i).toString(), rows.get(i).getDate());
+        }
+        assertEquals(7, rows.get(MLDatasetService.WINDOW_DAYS + 2).getActesCount());
+        verify(dailyServiceStatsRepository, times(2)).findByStatDateBetween(any(), any());
+        verify(serviceRepository, times(1)).findAllIdAndNom();
+    }
+
+    @Test
+    void streamChangesSince_ShouldPageThroughChangedRowsByKey() {
+        LocalDateTime since = LocalDateTime.of(2024, 6, 1, 3, 0);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        int days = MLDatasetService.CHANGES_BATCH_ROWS / SERVICES.size() + 1;
+        List<DailyServiceStats> changes = syntheticStats(start, days, 3);
+        List<DailyServiceStats> firstBatch = changes.subList(0, MLDatasetService.CHANGES_BATCH_ROWS);
+        List<DailyServiceStats> secondBatch = changes.subList(MLDatasetService.CHANGES_BATCH_ROWS, changes.size());
+        DailyServiceStats lastOfFirst = firstBatch.get(firstBatch.size() - 1);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findUpdatedAfter(eq(since), any(Pageable.class))).thenReturn(firstBatch);
+        when(dailyServiceStatsRepository.findUpdatedAfter(eq(since), eq(lastOfFirst.getStatDate()),
+                eq(lastOfFirst.getServiceId()), any(Pageable.class))).thenReturn(secondBatch);
+
+        List<DatasetRowDTO> rows = new ArrayList<>();
+        mlDatasetService.streamChangesSince(since, rows::add);
+
+        assertEquals(changes.size(), rows.size());
+        assertEquals(start.toString(), rows.get(0).getDate());
+        assertEquals("Urgences", rows.get(0).getService());
+        assertEquals(3, rows.get(0).getActesCount());
+        assertEquals(start.plusDays(days - 1).toString(), rows.get(rows.size() - 1).getDate());
+        verify(dailyServiceStatsRepository, never()).findByStatDateBetween(any(), any());
+    }
+
+    @Test
+    void nextWatermark_ShouldFollowLastCommittedUpdate() {
+        LocalDateTime lastUpdate = LocalDateTime.of(2024, 6, 1, 3, 0);
+        when(dailyServiceStatsRepository.findMaxUpdatedAt()).thenReturn(lastUpdate, (LocalDateTime) null);
+
+        assertEquals(lastUpdate.minusSeconds(MLDatasetService.WATERMARK_LAG_SECONDS), mlDatasetService.nextWatermark());
+        assertEquals(MLDatasetService.INITIAL_WATERMARK, mlDatasetService.nextWatermark());
+    }
+
+    @Test
+    void streamChangesSince_WithoutChanges_ShouldEmitNothing() {
+        LocalDateTime since = LocalDateTime.of(2024, 6, 1, 3, 0);
+        when(dailyServiceStatsRepository.findUpdatedAfter(eq(since), any(Pageable.class))).thenReturn(List.of());
+
+        List<DatasetRowDTO> rows = new ArrayList<>();
+        mlDatasetService.streamChangesSince(since, rows::add);
+
+        assertTrue(rows.isEmpty());
+        verify(dailyServiceStatsRepository, times(1)).findUpdatedAfter(any(), any(Pageable.class));
+    }
+
+    @Test
+    void streamDataset_WithShards_ShouldEmitRowsInDateOrder() {
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        LocalDate end = start.plusDays(364);
+        DatasetShardExecutor executor = new DatasetShardExecutor(5, 2);
+        MLDatasetService parallel = new MLDatasetService(dailyServiceStatsRepository, serviceRepository, executor, datasetRowCache,
+                CALENDAR);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation ->
+            syntheticStats(invocation.getArgument(0), days(invocation.getArgument(0), invocation.getArgument(1)), 5));
+
+        try {
+            List<DatasetRowDTO> rows = new ArrayList<>();
+            parallel.streamDataset(start, end, 7, rows::add);
+
+            assertEquals(365 * SERVICES.size(), rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(start.plusDays(i / SERVICES.size()).toString(), rows.get(i).getDate());
+                assertEquals(SERVICES.get(i % SERVICES.size()), rows.get(i).getService());
+                assertEquals(5, rows.get(i).getActesCount());
+            }
+            verify(serviceRepository, times(1)).findAllIdAndNom();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void streamDataset_WithFailingShard_ShouldPropagateError() {
+        DatasetShardExecutor executor = new DatasetShardExecutor(5, 2);
+        MLDatasetService parallel = new MLDatasetService(dailyServiceStatsRepository, serviceRepository, executor, datasetRowCache,
+                CALENDAR);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenThrow(new IllegalStateException("pool épuisé"));
+
+        try {
+            IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+                parallel.streamDataset(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), 4, row -> { }));
+            assertEquals("pool épuisé", error.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Les tranches sont lues en même temps, dans la limite du pool de 3 threads (pool Hikari de 5, réserve de 2).
+     * Le cache de lignes est désactivé.
+     */
+    @Test
+    void streamDataset_ShouldReadShardsConcurrentlyWithinPoolBound() {
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        LocalDate end = start.plusDays(1094);
+        DatasetShardExecutor executor = new DatasetShardExecutor(5, 2);
+        MLDatasetService parallel = new MLDatasetService(dailyServiceStatsRepository, serviceRepository, executor,
+                new DatasetRowCache(7, 0), CALENDAR);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicReference<CountDownLatch> overlapping = new AtomicReference<>();
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                // Les premières lectures attendent que le pool soit entièrement occupé
+                CountDownLatch latch = overlapping.get();
+                latch.countDown();
+                assertTrue(latch.await(5, TimeUnit.SECONDS), "tranches lues l'une après l'autre");
+                return syntheticStats(invocation.getArgument(0), days(invocation.getArgument(0), invocation.getArgument(1)), 5);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        try {
+            for (int shards : new int[]{1, 3, 12}) {
+                int expected = Math.min(shards, executor.getParallelism());
+                overlapping.set(new CountDownLatch(expected));
+                maxInFlight.set(0);
+                int[] count = new int[1];
+
+                parallel.streamDataset(start, end, shards, row -> count[0]++);
+
+                assertEquals(1095 * SERVICES.size(), count[0]);
+                assertEquals(expected, maxInFlight.get(), shards + " tranches");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void streamDataset_RollingRange_ShouldOnlyComputeNewDays() {
+        LocalDate today = LocalDate.now();
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation ->
+            syntheticStats(invocation.getArgument(0), days(invocation.getArgument(0), invocation.getArgument(1)), 5));
+
+        List<DatasetRowDTO> first = new ArrayList<>();
+        mlDatasetService.streamDataset(today.minusDays(365), today.minusDays(1), first::add);
+        clearInvocations(dailyServiceStatsRepository);
+
+        // Export du lendemain: la fenêtre glisse d'un jour
+        List<DatasetRowDTO> second = new ArrayList<>();
+        mlDatasetService.streamDataset(today.minusDays(364), today, second::add);
+
+        assertEquals(365 * SERVICES.size(), second.size());
+        assertEquals(today.minusDays(364).toString(), second.get(0).getDate());
+        assertSame(first.get(SERVICES.size()), second.get(0));
+        // Seuls les jours postérieurs à la coupure (7 jours) sont recalculés, en une requête
+        verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(today.minusDays(7), today);
+        verifyNoMoreInteractions(dailyServiceStatsRepository);
+    }
+
+    @Test
+    void streamDataset_AfterEviction_ShouldRecomputeOnlyEvictedDay() {
+        LocalDate start = LocalDate.of(2023, 3, 1);
+        LocalDate end = LocalDate.of(2023, 3, 31);
+        LocalDate changed = LocalDate.of(2023, 3, 15);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation ->
+            syntheticStats(invocation.getArgument(0), days(invocation.getArgument(0), invocation.getArgument(1)), 5));
+
+        mlDatasetService.streamDataset(start, end, row -> { });
+        datasetRowCache.onActeChanged(new ActeMedicalChangedEvent(null,
+            new ActeMedicalChangedEvent.Snapshot(1L, 1L, "CONSULTATION", changed.atTime(10, 0), 25.0)));
+        clearInvocations(dailyServiceStatsRepository);
+
+        List<DatasetRowDTO> rows = new ArrayList<>();
+        mlDatasetService.streamDataset(start, end, rows::add);
+
+        assertEquals(31 * SERVICES.size(), rows.size());
+        verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(changed, changed);
+        verifyNoMoreInteractions(dailyServiceStatsRepository);
+    }
+
+    @Test
+    void streamDataset_RepeatExports_ShouldBeByteIdentical() throws Exception {
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 12, 31);
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation ->
+            syntheticStats(invocation.getArgument(0), days(invocation.getArgument(0), invocation.getArgument(1)), 5));
+
+        byte[] first = exportCsv(start, end);
+        // Nouveau moteur sans cache: les lignes sont recalculées
+        mlDatasetService = new MLDatasetService(dailyServiceStatsRepository, serviceRepository, null,
+                new DatasetRowCache(7, 0), new FeatureCalendar(2015, 2035));
+        byte[] second = exportCsv(start, end);
+
+        assertArrayEquals(first, second);
+    }
+
+    /**
+     * L'ancien moteur faisait 1 + 3 requêtes par (jour, service) plus une lecture des services par jour.
+     * Le moteur lit la table de faits une fois par lot de WINDOW_DAYS jours, plus la lecture des services.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {30, 365, 1095})
+    void generateDataset_RoundTripsShouldOnlyGrowPerWindow(int days) {
+        LocalDate start = LocalDate.of(2022, 1, 1);
+        LocalDate end = start.plusDays(days - 1);
+
+        when(serviceRepository.findAllIdAndNom()).thenReturn(serviceInfos(SERVICES));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenReturn(syntheticStats(start, days, 5));
+
+        List<DatasetRowDTO> dataset = mlDatasetService.generateDataset(start, end);
+
+        int roundTrips = mockingDetails(dailyServiceStatsRepository).getInvocations().size()
+                + mockingDetails(serviceRepository).getInvocations().size();
+        assertEquals(days * SERVICES.size(), dataset.size());
+        int windows = (days + MLDatasetService.WINDOW_DAYS - 1) / MLDatasetService.WINDOW_DAYS;
+        assertEquals(1 + windows, roundTrips);
+    }
+
+    private byte[] exportCsv(LocalDate start, LocalDate end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DatasetCsvWriter writer = new DatasetCsvWriter(out);
+        writer.writeHeader();
+        mlDatasetService.streamDataset(start, end, writer::writeRowUnchecked);
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    private static List<Object[]> serviceInfos(List<String> names) {
+        List<Object[]> infos = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            infos.add(new Object[]{(long) i + 1, names.get(i)});
+        }
+        return infos;
+    }
+
+    private static DailyServiceStats stats(LocalDate day, Long serviceId, int actes, double tarifTotal, double tarifMoyen,
+                                           int sejours, double duree, int patients) {
+        DailyServiceStats stats = new DailyServiceStats(day, serviceId);
+        stats.setActesCount(actes);
+        stats.setTarifTotal(tarifTotal);
+        stats.setTarifMoyen(tarifMoyen);
+        stats.setSejoursCount(sejours);
+        stats.setDureeMoyenneSejour(duree);
+        stats.setPatientsCount(patients);
+        return stats;
+    }
+
+    private static int days(LocalDate start, LocalDate end) {
+        return (int) ChronoUnit.DAYS.between(start, end) + 1;
+    }
+
+    private static List<DailyServiceStats> syntheticStats(LocalDate start, int days, int value) {
+        List<DailyServiceStats> rows = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            for (long s = 1; s <= SERVICES.size(); s++) {
+                rows.add(stats(start.plusDays(d), s, value, value * 100.0, 100.0, value, 2.0, value));
+            }
+        }
+        return rows;
+    }
+}
@@ -1,21 +1,32 @@
 package com.healthcare.dashboard.services;
 
+import com.healthcare.dashboard.dto.DatasetRowDTO;
+import com.healthcare.dashboard.dto.ForecastModel;
 import com.healthcare.dashboard.dto.MLPredictionRequestDTO;
 import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.DailyServiceStats;
+import com.healthcare.dashboard.entities.Service;
 import com.healthcare.dashboard.repositories.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,13 +53,28 @@ class MLPredictionServiceTest {
     private PatientRepository patientRepository;
     
     @Mock
-    private MedecinRepository medecinRepository;
-    
+    private ServiceImpactSnapshot serviceImpactSnapshot;
+
     @Mock
-    private InvestmentRepository investmentRepository;
-    
+    private MLDatasetService mlDatasetService;
+
+    @Mock
+    private DailyServiceStatsRepository dailyServiceStatsRepository;
+
+    // Aucune prévision précalculée par défaut
     @Mock
-    private AlertRepository alertRepository;
+    private PrecomputedForecastStore precomputedForecastStore;
+
+    @Mock
+    private ServiceRegistry serviceRegistry;
+
+    // Cache désactivé: chaque appel recalcule la prévision
+    @Spy
+    private ForecastCache forecastCache = new ForecastCache(0, 0, new SimpleMeterRegistry(), null);
+
+    // Nombre de tirages fixe (pas de budget de latence): bornes reproductibles
+    @Spy
+    private BootstrapIntervals bootstrapIntervals = new BootstrapIntervals(0.90, 200, 200, 0, 2);
 
     @InjectMocks
     private MLPredictionService mlPredictionService;
@@ -62,6 +88,10 @@ class MLPredictionServiceTest {
         requestDTO.setPredictionType("PATIENTS");
         requestDTO.setDaysAhead(7);
         requestDTO.setStartDate(LocalDate.now());
+        when(serviceImpactSnapshot.forServiceNom(anyString())).thenReturn(ServiceImpactSnapshot.Factors.NONE);
+        when(serviceImpactSnapshot.forService(anyLong())).thenReturn(ServiceImpactSnapshot.Factors.NONE);
+        when(precomputedForecastStore.findAll(any(), any(), any(), any())).thenReturn(null);
+        when(serviceRegistry.capacity(anyString())).thenAnswer(invocation -> ServiceRegistry.defaultCapacity(invocation.getArgument(0)));
     }
 
     // ==================== Tests generateMLPredictions ====================
@@ -69,16 +99,10 @@ class MLPredictionServiceTest {
     @Test
     void generateMLPredictions_ShouldReturnValidResponse() {
         // Arrange
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(50L);
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(30L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(5L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -96,16 +120,10 @@ class MLPredictionServiceTest {
     void generateMLPredictions_WithCoutType_ShouldReturnCoutPredictions() {
         // Arrange
         requestDTO.setPredictionType("COUT");
-        when(acteMedicalRepository.findStatsByDateRangeAndService(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumTarifByServiceNom(any(), any(), anyString()))
             .thenReturn(150000.0);
         when(sejourRepository.findAverageCoutByService(anyString()))
             .thenReturn(12000.0);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(3L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -121,16 +139,10 @@ class MLPredictionServiceTest {
     void generateMLPredictions_WithOccupationType_ShouldReturnOccupationPredictions() {
         // Arrange
         requestDTO.setPredictionType("OCCUPATION");
-        when(sejourRepository.findAverageOccupationByService(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.averageDureeSejourByServiceNom(any(), any(), anyString()))
             .thenReturn(75.0);
         when(sejourRepository.countActiveSejoursByService(anyString()))
             .thenReturn(25L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(4L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -144,16 +156,10 @@ class MLPredictionServiceTest {
     void generateMLPredictions_WithNullStartDate_ShouldUseCurrentDate() {
         // Arrange
         requestDTO.setStartDate(null);
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(20L);
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(15L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(2L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -169,17 +175,11 @@ class MLPredictionServiceTest {
     @Test
     void generateMLPredictions_WithPositiveTrend_ShouldReturnHausse() {
         // Arrange
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(100L)
             .thenReturn(50L); // Older avg is lower, so trend is positive
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(80L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(3L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -194,16 +194,12 @@ class MLPredictionServiceTest {
     @Test
     void generateMLPredictions_WithHighMedecinImpact_ShouldIncreaseConfiance() {
         // Arrange
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(40L);
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(25L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(10L); // Many doctors = higher impact
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
+        when(serviceImpactSnapshot.forServiceNom("Cardiologie"))
+            .thenReturn(new ServiceImpactSnapshot.Factors(10L, 0.0, 0L)); // Many doctors = higher impact
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -216,16 +212,12 @@ class MLPredictionServiceTest {
     @Test
     void generateMLPredictions_WithActiveAlerts_ShouldReducePredictions() {
         // Arrange
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(30L);
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(20L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(3L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(5L); // 5 active alerts = -15% impact
+        when(serviceImpactSnapshot.forServiceNom("Cardiologie"))
+            .thenReturn(new ServiceImpactSnapshot.Factors(3L, 0.0, 5L)); // 5 active alerts = -15% impact
 
         // Act
         MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
@@ -266,29 +258,21 @@ class MLPredictionServiceTest {
     // ==================== Tests generateDataset ====================
 
     @Test
-    void generateDataset_WithValidDates_ShouldReturnDataset() {
+    void generateDataset_WithValidDates_ShouldDelegateToDatasetService() {
         // Arrange
         LocalDate startDate = LocalDate.now().minusDays(7);
         LocalDate endDate = LocalDate.now();
-        
-        List<Object[]> serviceInfos = new ArrayList<>();
-        serviceInfos.add(new Object[]{"Cardiologie"});
-        serviceInfos.add(new Object[]{"Urgences"});
-        
-        when(serviceRepository.findAllBasicInfo()).thenReturn(serviceInfos);
-        when(acteMedicalRepository.findStatsByDateAndService(any(), any(), anyString()))
-            .thenReturn(new ArrayList<>());
-        when(sejourRepository.findStatsByDateAndService(any(), any(), anyString()))
-            .thenReturn(new ArrayList<>());
-        when(patientRepository.countDistinctPatientsWithSejoursOnDate(any(), any(), anyString()))
-            .thenReturn(5L);
+        DatasetRowDTO row = new DatasetRowDTO();
+        row.setService("Cardiologie");
+        when(mlDatasetService.generateDataset(startDate, endDate)).thenReturn(List.of(row));
 
         // Act
         var dataset = mlPredictionService.generateDataset(startDate, endDate);
 
         // Assert
-        assertNotNull(dataset);
-        // Le dataset peut être vide si buildDatasetRow renvoie null à cause des exceptions
+        assertEquals(1, dataset.size());
+        assertEquals("Cardiologie", dataset.get(0).getService());
+        verify(mlDatasetService).generateDataset(startDate, endDate);
     }
 
     // ==================== Tests getCurrentStatisticsForAllServices ====================
@@ -296,42 +280,78 @@ class MLPredictionServiceTest {
     @Test
     void getCurrentStatisticsForAllServices_WithPatientsType_ShouldReturnStats() {
         // Arrange
-        when(sejourRepository.countDistinctPatientsByService(anyString())).thenReturn(10L);
-        when(sejourRepository.countActiveSejoursByService(anyString())).thenReturn(5L);
+        stubRegistry();
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.<Object[]>of(
+            new Object[]{1L, 1200.0, 10L, 5L}, new Object[]{2L, 800.0, 3L, 1L}));
 
         // Act
         List<Map<String, Object>> stats = mlPredictionService.getCurrentStatisticsForAllServices("PATIENTS");
 
         // Assert
-        assertNotNull(stats);
-        assertEquals(8, stats.size()); // 8 services
-        assertTrue(stats.stream().allMatch(s -> s.containsKey("service")));
+        assertEquals(2, stats.size());
+        assertEquals("Urgences", stats.get(0).get("service"));
+        assertEquals(10L, stats.get(0).get("total"));
+        assertEquals(5L, stats.get(0).get("actifs"));
+        verify(sejourRepository, times(1)).findCurrentStatsGroupedByService();
+        verify(sejourRepository, never()).countDistinctPatientsByService(anyString());
     }
 
     @Test
     void getCurrentStatisticsForAllServices_WithCoutType_ShouldReturnStats() {
         // Arrange
-        when(sejourRepository.findAverageCoutByService(anyString())).thenReturn(15000.0);
+        stubRegistry();
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.<Object[]>of(
+            new Object[]{1L, 15000.0, 10L, 5L}));
 
         // Act
         List<Map<String, Object>> stats = mlPredictionService.getCurrentStatisticsForAllServices("COUT");
 
         // Assert
-        assertNotNull(stats);
-        assertEquals(8, stats.size());
+        assertEquals(2, stats.size());
+        assertEquals(15000.0, stats.get(0).get("cout_moyen"));
+        // Service sans séjour
+        assertEquals(0.0, stats.get(1).get("cout_moyen"));
     }
 
     @Test
-    void getCurrentStatisticsForAllServices_WithOccupationType_ShouldReturnStats() {
+    void getCurrentStatisticsForAllServices_WithOccupationType_ShouldUseServiceCapacity() {
         // Arrange
-        when(sejourRepository.countActiveSejoursByService(anyString())).thenReturn(20L);
+        stubRegistry();
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.<Object[]>of(
+            new Object[]{1L, 1200.0, 10L, 20L}, new Object[]{2L, 800.0, 3L, 100L}));
 
         // Act
         List<Map<String, Object>> stats = mlPredictionService.getCurrentStatisticsForAllServices("OCCUPATION");
 
         // Assert
-        assertNotNull(stats);
-        assertEquals(8, stats.size());
+        assertEquals(50, stats.get(0).get("capacite"));
+        assertEquals(40.0, stats.get(0).get("taux"));
+        assertEquals(100.0, stats.get(1).get("taux"));
+    }
+
+    @Test
+    void getCurrentStatisticsForAllServices_WithTtl_ShouldReuseResult() {
+        stubRegistry();
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.of());
+        ReflectionTestUtils.setField(mlPredictionService, "currentStatisticsTtlMs", 60000L);
+
+        List<Map<String, Object>> first = mlPredictionService.getCurrentStatisticsForAllServices("PATIENTS");
+        List<Map<String, Object>> second = mlPredictionService.getCurrentStatisticsForAllServices("PATIENTS");
+        mlPredictionService.getCurrentStatisticsForAllServices("COUT");
+
+        assertSame(first, second);
+        verify(sejourRepository, times(2)).findCurrentStatsGroupedByService();
+    }
+
+    @Test
+    void getCurrentStatisticsForAllServices_QueryFailure_ShouldReportError() {
+        stubRegistry();
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenThrow(new RuntimeException("base indisponible"));
+
+        List<Map<String, Object>> stats = mlPredictionService.getCurrentStatisticsForAllServices("PATIENTS");
+
+        assertEquals(2, stats.size());
+        assertEquals("base indisponible", stats.get(0).get("error"));
     }
 
     // ==================== Tests pour différents services ====================
@@ -378,18 +398,368 @@ class MLPredictionServiceTest {
         assertEquals("Maternite", response.getService());
     }
 
+    // ==================== Tests generateMLPredictionsForAllServices ====================
+
+    @Test
+    void generateMLPredictionsForAllServices_ShouldMatchPerServicePredictions() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        List<String> names = List.of("Urgences", "Chirurgie", "Cardiologie");
+        List<DailyServiceStats> facts = new ArrayList<>();
+        for (LocalDate day = today.minusMonths(3); day.isBefore(today); day = day.plusDays(1)) {
+            // Urgences en hausse, Chirurgie stable, Cardiologie sans historique (valeur de repli)
+            facts.add(fact(day, 1L, 100.0 + day.getDayOfYear(), 4 + day.getDayOfYear() % 3, 2, 3.0));
+            facts.add(fact(day, 2L, 500.0, 2, 1, 5.0));
+        }
+        stubServices(names);
+        stubFacts(facts, names);
+        stubCurrentStats(names);
+
+        for (String type : List.of("COUT", "PATIENTS", "OCCUPATION")) {
+            List<MLPredictionResponseDTO> batch = mlPredictionService.generateMLPredictionsForAllServices(type, 14, today);
+
+            assertEquals(names.size(), batch.size());
+            for (int i = 0; i < names.size(); i++) {
+                MLPredictionRequestDTO request = new MLPredictionRequestDTO();
+                request.setService(names.get(i));
+                request.setPredictionType(type);
+                request.setDaysAhead(14);
+                request.setStartDate(today);
+                MLPredictionResponseDTO single = mlPredictionService.generateMLPredictions(request);
+
+                assertEquals(single.getService(), batch.get(i).getService());
+                assertEquals(single.getTendance(), batch.get(i).getTendance(), type + " " + names.get(i));
+                assertEquals(single.getConfiance(), batch.get(i).getConfiance(), type + " " + names.get(i));
+                for (int d = 0; d < 14; d++) {
+                    assertEquals(single.getPredictions().get(d).getValeur(), batch.get(i).getPredictions().get(d).getValeur(),
+                                 type + " " + names.get(i) + " jour " + d);
+                }
+            }
+        }
+    }
+
+    @Test
+    void generateMLPredictionsForAllServices_QueryCountShouldNotDependOnServiceCount() {
+        for (int serviceCount : new int[]{8, 40}) {
+            Mockito.<Object>clearInvocations(serviceRepository, dailyServiceStatsRepository, sejourRepository);
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < serviceCount; i++) {
+                names.add("Service" + i);
+            }
+            stubServices(names);
+            when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenReturn(List.of());
+            when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.of());
+
+            List<MLPredictionResponseDTO> responses =
+                mlPredictionService.generateMLPredictionsForAllServices("PATIENTS", 7, LocalDate.of(2024, 6, 15));
+
+            assertEquals(serviceCount, responses.size());
+            verify(serviceRepository, times(1)).findAllIdAndNom();
+            verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(any(), any());
+            verify(sejourRepository, times(1)).findCurrentStatsGroupedByService();
+            verify(sejourRepository, never()).countDistinctPatientsByService(anyString());
+            verify(serviceImpactSnapshot, never()).forServiceNom(anyString());
+        }
+    }
+
+    // ==================== Tests modèles Holt-Winters ====================
+
+    @Test
+    void generateMLPredictions_WithHoltWinters_ShouldFitDailySeries() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        List<String> names = List.of("Urgences");
+        stubServices(names);
+        stubFacts(weeklyFacts(today, 1L, 200), names);
+        requestDTO.setService("Urgences");
+        requestDTO.setStartDate(today);
+        requestDTO.setDaysAhead(14);
+        requestDTO.setModele(ForecastModel.HOLT_WINTERS_ADDITIF);
+
+        MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
+
+        assertEquals(ForecastModel.HOLT_WINTERS_ADDITIF, response.getModele());
+        assertEquals(14, response.getPredictions().size());
+        // Le creux du dimanche est appris sur l'historique
+        MLPredictionResponseDTO.PredictionPoint sunday = response.getPredictions().get(1);
+        MLPredictionResponseDTO.PredictionPoint monday = response.getPredictions().get(2);
+        assertEquals(DayOfWeek.SUNDAY, sunday.getDate().getDayOfWeek());
+        assertTrue(sunday.getValeur() < monday.getValeur() * 0.7);
+        assertTrue(sunday.getMin() <= sunday.getValeur() && sunday.getValeur() <= sunday.getMax());
+        verify(dailyServiceStatsRepository, never()).sumPatientsByServiceNom(any(), any(), anyString());
+    }
+
+    @Test
+    void generateMLPredictions_WithHoltWintersWithoutHistory_ShouldFallBackToHeuristic() {
+        stubServices(List.of("Cardiologie"));
+        when(dailyServiceStatsRepository.findByServiceIdAndStatDateBetween(anyLong(), any(), any())).thenReturn(List.of());
+        requestDTO.setModele(ForecastModel.HOLT_WINTERS_MULTIPLICATIF);
+
+        MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
+
+        assertEquals(ForecastModel.HEURISTIQUE, response.getModele());
+        assertEquals(7, response.getPredictions().size());
+    }
+
+    @Test
+    void generateMLPredictionsForAllServices_WithHoltWinters_ShouldMatchPerServicePredictions() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        List<String> names = List.of("Urgences", "Chirurgie", "Cardiologie");
+        List<DailyServiceStats> facts = new ArrayList<>(weeklyFacts(today, 1L, 800));
+        facts.addAll(weeklyFacts(today, 2L, 60));
+        stubServices(names);
+        stubFacts(facts, names);
+        stubCurrentStats(names);
+
+        List<MLPredictionResponseDTO> batch = mlPredictionService.generateMLPredictionsForAllServices(
+            "PATIENTS", ForecastModel.HOLT_WINTERS_ADDITIF, 30, today);
+
+        for (int i = 0; i < names.size(); i++) {
+            MLPredictionRequestDTO request = new MLPredictionRequestDTO();
+            request.setService(names.get(i));
+            request.setPredictionType("PATIENTS");
+            request.setDaysAhead(30);
+            request.setStartDate(today);
+            request.setModele(ForecastModel.HOLT_WINTERS_ADDITIF);
+            MLPredictionResponseDTO single = mlPredictionService.generateMLPredictions(request);
+
+            assertEquals(single.getModele(), batch.get(i).getModele(), names.get(i));
+            assertEquals(single.getConfiance(), batch.get(i).getConfiance(), names.get(i));
+            for (int d = 0; d < 30; d++) {
+                assertEquals(single.getPredictions().get(d).getValeur(), batch.get(i).getPredictions().get(d).getValeur(),
+                             names.get(i) + " jour " + d);
+            }
+        }
+        // Cardiologie n'a pas d'historique: heuristique
+        assertEquals(ForecastModel.HOLT_WINTERS_ADDITIF, batch.get(0).getModele());
+        assertEquals(ForecastModel.HEURISTIQUE, batch.get(2).getModele());
+        verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(today.minusDays(MLPredictionService.SERIES_DAYS),
+                                                                            today.minusDays(1));
+    }
+
+    // ==================== Tests scénarios ====================
+
+    @Test
+    void forecastWith_ShouldReuseLoadedHistoryAndApplyFactors() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        List<String> names = List.of("Urgences", "Chirurgie");
+        List<DailyServiceStats> facts = new ArrayList<>(weeklyFacts(today, 1L, 400));
+        facts.addAll(weeklyFacts(today, 2L, 400));
+        stubServices(names);
+        stubFacts(facts, names);
+        stubCurrentStats(names);
+        Map<Long, String> services = new LinkedHashMap<>();
+        services.put(1L, "Urgences");
+
+        Map<Long, MLPredictionService.PreparedForecast> prepared = mlPredictionService.prepareForecasts(
+            services, "PATIENTS", ForecastModel.HOLT_WINTERS_ADDITIF, 30, today);
+        MLPredictionService.PreparedForecast urgences = prepared.get(1L);
+        MLPredictionResponseDTO reference = mlPredictionService.forecastWith(urgences, urgences.getFactors());
+        // 4 puis 9 médecins actifs (+4% puis +14%), 250k€ investis (+5%): facteur 1,09 puis 1,19
+        ServiceImpactSnapshot.Factors current = urgences.getFactors();
+        MLPredictionResponseDTO staffed = mlPredictionService.forecastWith(urgences, new ServiceImpactSnapshot.Factors(
+            current.getActiveMedecins() + 5, current.getRecentInvestments(), current.getActiveAlerts()));
+
+        assertEquals(1, prepared.size());
+        for (int d = 0; d < 30; d++) {
+            MLPredictionResponseDTO.PredictionPoint base = reference.getPredictions().get(d);
+            MLPredictionResponseDTO.PredictionPoint point = staffed.getPredictions().get(d);
+            assertEquals(base.getValeur() * 1.19 / 1.09, point.getValeur(), 0.02, "jour " + d);
+            assertEquals(base.getMax() * 1.19 / 1.09, point.getMax(), 0.02, "jour " + d);
+        }
+        // Même prévision que l'appel direct, lu et ajusté une seule fois
+        MLPredictionRequestDTO request = new MLPredictionRequestDTO("Urgences", 30, "PATIENTS", today,
+            ForecastModel.HOLT_WINTERS_ADDITIF);
+        assertEquals(mlPredictionService.generateMLPredictions(request).getPredictions(), reference.getPredictions());
+        verify(dailyServiceStatsRepository, times(1)).findByStatDateBetween(any(), any());
+    }
+
+    // ==================== Tests cache et déterminisme ====================
+
+    @Test
+    void generateMLPredictions_SameRequest_ShouldReturnSameConfiance() {
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString())).thenReturn(50L);
+
+        MLPredictionResponseDTO first = mlPredictionService.generateMLPredictions(requestDTO);
+        MLPredictionResponseDTO second = mlPredictionService.generateMLPredictions(requestDTO);
+
+        assertEquals(first.getConfiance(), second.getConfiance());
+        assertEquals(first.getValeurMoyenne(), second.getValeurMoyenne());
+    }
+
+    @Test
+    void generateMLPredictions_WithCache_ShouldNotQueryRepositoriesTwice() {
+        MLPredictionService cached = serviceWithCache(new ForecastCache(100, 300, new SimpleMeterRegistry(), serviceRepository));
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString())).thenReturn(50L);
+
+        MLPredictionResponseDTO first = cached.generateMLPredictions(requestDTO);
+        clearInvocations(dailyServiceStatsRepository, sejourRepository, serviceImpactSnapshot);
+        MLPredictionResponseDTO second = cached.generateMLPredictions(requestDTO);
+
+        assertSame(first, second);
+        verifyNoInteractions(dailyServiceStatsRepository, sejourRepository, serviceImpactSnapshot);
+    }
+
+    @Test
+    void generateMLPredictionsForAllServices_WithCache_ShouldOnlyComputeMissingServices() {
+        MLPredictionService cached = serviceWithCache(new ForecastCache(100, 300, new SimpleMeterRegistry(), serviceRepository));
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        stubServices(List.of("Urgences", "Chirurgie"));
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenReturn(List.of());
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(List.of());
+
+        List<MLPredictionResponseDTO> first = cached.generateMLPredictionsForAllServices("PATIENTS", 7, today);
+        clearInvocations(dailyServiceStatsRepository);
+        List<MLPredictionResponseDTO> second = cached.generateMLPredictionsForAllServices("PATIENTS", 7, today);
+
+        assertSame(first.get(0), second.get(0));
+        assertSame(first.get(1), second.get(1));
+        verify(dailyServiceStatsRepository, never()).findByStatDateBetween(any(), any());
+    }
+
     // ==================== Helper Methods ====================
 
+    @Test
+    void generateMLPredictions_Precomputed_ShouldNotQueryData() {
+        MLPredictionResponseDTO stored = new MLPredictionResponseDTO();
+        stored.setService("Cardiologie");
+        requestDTO.setDaysAhead(30);
+        when(precomputedForecastStore.find("Cardiologie", "PATIENTS", ForecastModel.HEURISTIQUE, 30, requestDTO.getStartDate()))
+            .thenReturn(stored);
+
+        MLPredictionResponseDTO response = mlPredictionService.generateMLPredictions(requestDTO);
+
+        assertSame(stored, response);
+        verifyNoInteractions(dailyServiceStatsRepository, sejourRepository, serviceImpactSnapshot);
+    }
+
+    @Test
+    void generateMLPredictionsForAllServices_Precomputed_ShouldReturnStoredList() {
+        LocalDate today = LocalDate.of(2024, 6, 15);
+        MLPredictionResponseDTO stored = new MLPredictionResponseDTO();
+        stored.setService("Urgences");
+        when(precomputedForecastStore.findAll("COUT", ForecastModel.HEURISTIQUE, 90, today)).thenReturn(List.of(stored));
+
+        List<MLPredictionResponseDTO> responses = mlPredictionService.generateMLPredictionsForAllServices("COUT", 90, today);
+
+        assertEquals(List.of(stored), responses);
+        verifyNoInteractions(serviceRepository, dailyServiceStatsRepository, sejourRepository);
+    }
+
+    private void stubRegistry() {
+        when(serviceRegistry.getServices()).thenReturn(List.of(
+            new ServiceRegistry.ServiceInfo(1L, "Urgences", 50), new ServiceRegistry.ServiceInfo(2L, "Chirurgie", 60)));
+    }
+
+    private MLPredictionService serviceWithCache(ForecastCache cache) {
+        return new MLPredictionService(acteMedicalRepository, sejourRepository, serviceRepository, patientRepository,
+                                       mlDatasetService, dailyServiceStatsRepository, cache, serviceImpactSnapshot,
+                                       precomputedForecastStore, serviceRegistry, bootstrapIntervals);
+    }
+
+
+    private void stubServices(List<String> names) {
+        List<Object[]> infos = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            infos.add(new Object[]{(long) i + 1, names.get(i)});
+            Service service = new Service();
+            service.setId((long) i + 1);
+            service.setNom(names.get(i));
+            when(serviceRepository.findByNom(names.get(i))).thenReturn(Optional.of(service));
+        }
+        when(serviceRepository.findAllIdAndNom()).thenReturn(infos);
+    }
+
+    /**
+     * Répond aux requêtes par service et à la requête groupée à partir des mêmes lignes de faits
+     */
+    private void stubFacts(List<DailyServiceStats> facts, List<String> names) {
+        when(dailyServiceStatsRepository.findByStatDateBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            return facts.stream().filter(f -> !f.getStatDate().isBefore(start) && !f.getStatDate().isAfter(end)).toList();
+        });
+        when(dailyServiceStatsRepository.findByServiceIdAndStatDateBetween(anyLong(), any(), any())).thenAnswer(invocation -> {
+            Long serviceId = invocation.getArgument(0);
+            LocalDate start = invocation.getArgument(1);
+            LocalDate end = invocation.getArgument(2);
+            return facts.stream().filter(f -> f.getServiceId().equals(serviceId)
+                && !f.getStatDate().isBefore(start) && !f.getStatDate().isAfter(end)).toList();
+        });
+        when(dailyServiceStatsRepository.sumTarifByServiceNom(any(), any(), anyString())).thenAnswer(invocation -> {
+            List<DailyServiceStats> rows = factsFor(facts, names, invocation.getArgument(0), invocation.getArgument(1),
+                                                    invocation.getArgument(2));
+            return rows.isEmpty() ? null : rows.stream().mapToDouble(DailyServiceStats::getTarifTotal).sum();
+        });
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString())).thenAnswer(invocation -> {
+            List<DailyServiceStats> rows = factsFor(facts, names, invocation.getArgument(0), invocation.getArgument(1),
+                                                    invocation.getArgument(2));
+            return rows.isEmpty() ? null : rows.stream().mapToLong(DailyServiceStats::getPatientsCount).sum();
+        });
+        when(dailyServiceStatsRepository.averageDureeSejourByServiceNom(any(), any(), anyString())).thenAnswer(invocation -> {
+            List<DailyServiceStats> rows = factsFor(facts, names, invocation.getArgument(0), invocation.getArgument(1),
+                                                    invocation.getArgument(2))
+                .stream().filter(f -> f.getSejoursCount() > 0).toList();
+            if (rows.isEmpty()) return null;
+            double total = rows.stream().mapToDouble(f -> f.getDureeMoyenneSejour() * f.getSejoursCount()).sum();
+            return total / rows.stream().mapToLong(DailyServiceStats::getSejoursCount).sum();
+        });
+    }
+
+    private static List<DailyServiceStats> factsFor(List<DailyServiceStats> facts, List<String> names,
+                                                    LocalDate start, LocalDate endExclusive, String service) {
+        long serviceId = names.indexOf(service) + 1;
+        return facts.stream()
+            .filter(f -> f.getServiceId() == serviceId && !f.getStatDate().isBefore(start) && f.getStatDate().isBefore(endExclusive))
+            .toList();
+    }
+
+    /**
+     * Statistiques courantes des séjours et facteurs d'impact, par service et groupées
+     */
+    private void stubCurrentStats(List<String> names) {
+        List<Object[]> grouped = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            long id = i + 1;
+            grouped.add(new Object[]{id, 1000.0 * id, 10L * id, 3L * id});
+            when(sejourRepository.findAverageCoutByService(names.get(i))).thenReturn(1000.0 * id);
+            when(sejourRepository.countDistinctPatientsByService(names.get(i))).thenReturn(10L * id);
+            when(sejourRepository.countActiveSejoursByService(names.get(i))).thenReturn(3L * id);
+            ServiceImpactSnapshot.Factors factors =
+                new ServiceImpactSnapshot.Factors(2L + 2 * id, id == 1 ? 250000.0 : 0.0, id - 1);
+            when(serviceImpactSnapshot.forService(id)).thenReturn(factors);
+            when(serviceImpactSnapshot.forServiceNom(names.get(i))).thenReturn(factors);
+        }
+        when(sejourRepository.findCurrentStatsGroupedByService()).thenReturn(grouped);
+    }
+
+    private static DailyServiceStats fact(LocalDate day, long serviceId, double tarif, int patients, int sejours, double duree) {
+        DailyServiceStats stats = new DailyServiceStats(day, serviceId);
+        stats.setTarifTotal(tarif);
+        stats.setPatientsCount(patients);
+        stats.setSejoursCount(sejours);
+        stats.setDureeMoyenneSejour(duree);
+        return stats;
+    }
+
+    /**
+     * Historique de patients d'un service sur les days derniers jours, avec un creux le week-end
+     */
+    private static List<DailyServiceStats> weeklyFacts(LocalDate today, long serviceId, int days) {
+        List<DailyServiceStats> facts = new ArrayList<>();
+        for (LocalDate day = today.minusDays(days); day.isBefore(today); day = day.plusDays(1)) {
+            int patients = switch (day.getDayOfWeek()) {
+                case SATURDAY -> 12;
+                case SUNDAY -> 8;
+                default -> 30 + day.getDayOfMonth() % 3;
+            };
+            facts.add(fact(day, serviceId, 100.0 * patients, patients, patients / 2, 4.0));
+        }
+        return facts;
+    }
+
     private void setupBasicMocks() {
-        when(patientRepository.countDistinctPatientsWithSejoursInRange(any(), any(), anyString()))
+        when(dailyServiceStatsRepository.sumPatientsByServiceNom(any(), any(), anyString()))
             .thenReturn(30L);
         when(sejourRepository.countDistinctPatientsByService(anyString()))
             .thenReturn(20L);
-        when(medecinRepository.countByServiceNomAndStatut(anyString(), anyString()))
-            .thenReturn(3L);
-        when(investmentRepository.findByServiceNomAndDateAfter(anyString(), any()))
-            .thenReturn(new ArrayList<>());
-        when(alertRepository.countByServiceNomAndStatus(anyString(), anyString()))
-            .thenReturn(0L);
     }
 }
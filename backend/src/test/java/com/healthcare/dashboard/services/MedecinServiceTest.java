@@ -3,14 +3,17 @@ package com.healthcare.dashboard.services;
 import com.healthcare.dashboard.dto.MedecinDTO;
 import com.healthcare.dashboard.entities.Medecin;
 import com.healthcare.dashboard.entities.Service;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
 import com.healthcare.dashboard.repositories.MedecinRepository;
 import com.healthcare.dashboard.repositories.ServiceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -30,6 +33,9 @@ class MedecinServiceTest {
     @Mock
     private ServiceRepository serviceRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private MedecinService medecinService;
 
@@ -100,18 +106,23 @@ class MedecinServiceTest {
 
     @Test
     void deleteMedecin_ShouldDelete() {
-        when(medecinRepository.existsById(1L)).thenReturn(true);
+        when(medecinRepository.findById(1L)).thenReturn(Optional.of(medecin));
 
         medecinService.deleteMedecin(1L);
 
         verify(medecinRepository).deleteById(1L);
+        ArgumentCaptor<MedecinChangedEvent> captor = ArgumentCaptor.forClass(MedecinChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertThat(captor.getValue().getPrevious().getServiceId()).isEqualTo(1L);
+        assertThat(captor.getValue().getCurrent()).isNull();
     }
 
     @Test
     void deleteMedecin_ShouldThrowException_WhenNotFound() {
-        when(medecinRepository.existsById(1L)).thenReturn(false);
+        when(medecinRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(RuntimeException.class, () -> medecinService.deleteMedecin(1L));
+        verify(medecinRepository, never()).deleteById(any());
     }
 
     @Test
@@ -0,0 +1,200 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.entities.MonthlyActeRevenue;
+import com.healthcare.dashboard.events.ActeMedicalChangedEvent;
+import com.healthcare.dashboard.events.MonthlyRevenueUpdatedEvent;
+import com.healthcare.dashboard.repositories.ActeMedicalRepository;
+import com.healthcare.dashboard.repositories.MonthlyActeRevenueRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour MonthlyRevenueService
+ * Vérifie le calcul des lignes mensuelles, la réécriture des seules lignes modifiées et le recalcul
+ * des mois touchés par une écriture d'acte, un mois à la fois et chacun dans sa transaction
+ */
+@ExtendWith(MockitoExtension.class)
+class MonthlyRevenueServiceTest {
+
+    private static final LocalDate MARCH = LocalDate.of(2024, 3, 1);
+
+    @Mock
+    private MonthlyActeRevenueRepository monthlyActeRevenueRepository;
+
+    @Mock
+    private ActeMedicalRepository acteMedicalRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private MonthlyRevenueService monthlyRevenueService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ShouldCreateOneRowPerMonthServiceAndType() {
+        List<Object[]> stats = new ArrayList<>();
+        stats.add(new Object[]{2024, 3, 1L, "CONSULTATION", 4L, 200.0});
+        stats.add(new Object[]{2024, 4, 2L, "CHIRURGIE", 1L, 3000.0});
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(
+                MARCH.atStartOfDay(), LocalDate.of(2024, 5, 1).atStartOfDay())).thenReturn(stats);
+
+        int rows = monthlyRevenueService.rebuild(YearMonth.of(2024, 3), YearMonth.of(2024, 4));
+
+        assertEquals(2, rows);
+        ArgumentCaptor<Iterable<MonthlyActeRevenue>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(monthlyActeRevenueRepository).saveAll(captor.capture());
+        List<MonthlyActeRevenue> saved = new ArrayList<>();
+        captor.getValue().forEach(saved::add);
+        assertEquals(MARCH, saved.get(0).getMois());
+        assertEquals(1L, saved.get(0).getServiceId());
+        assertEquals("CONSULTATION", saved.get(0).getType());
+        assertEquals(4L, saved.get(0).getActesCount());
+        assertEquals(200.0, saved.get(0).getTarifTotal());
+        assertEquals(LocalDate.of(2024, 4, 1), saved.get(1).getMois());
+        verify(monthlyActeRevenueRepository).findByMoisBetween(MARCH, LocalDate.of(2024, 4, 1));
+        verify(monthlyActeRevenueRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void rebuild_ShouldRewriteChangedRowsAndDeleteEmptiedOnes() {
+        List<Object[]> stats = new ArrayList<>();
+        stats.add(new Object[]{2024, 3, 1L, "CONSULTATION", 4L, 200.0});
+        stats.add(new Object[]{2024, 3, 1L, "RADIOLOGIE", 2L, 300.0});
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(any(), any())).thenReturn(stats);
+        MonthlyActeRevenue unchanged = revenue(1L, "CONSULTATION", 4L, 200.0);
+        MonthlyActeRevenue changed = revenue(1L, "RADIOLOGIE", 1L, 150.0);
+        MonthlyActeRevenue emptied = revenue(2L, "CHIRURGIE", 1L, 3000.0);
+        when(monthlyActeRevenueRepository.findByMoisBetween(MARCH, MARCH)).thenReturn(List.of(unchanged, changed, emptied));
+
+        int rows = monthlyRevenueService.rebuild(YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+
+        assertEquals(2, rows);
+        verify(monthlyActeRevenueRepository).saveAll(List.of(changed));
+        assertEquals(2L, changed.getActesCount());
+        assertEquals(300.0, changed.getTarifTotal());
+        verify(monthlyActeRevenueRepository).deleteAll(List.of(emptied));
+        verify(eventPublisher).publishEvent(any(MonthlyRevenueUpdatedEvent.class));
+    }
+
+    @Test
+    void onActeChanged_ShouldRebuildPreviousAndCurrentMonths() {
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(any(), any())).thenReturn(new ArrayList<>());
+
+        monthlyRevenueService.onActeChanged(new ActeMedicalChangedEvent(
+                acte(LocalDateTime.of(2024, 1, 31, 23, 0)), acte(LocalDateTime.of(2024, 3, 2, 9, 0))));
+
+        verify(acteMedicalRepository).findMonthlyStatsByServiceAndType(
+                LocalDate.of(2024, 1, 1).atStartOfDay(), LocalDate.of(2024, 2, 1).atStartOfDay());
+        verify(acteMedicalRepository).findMonthlyStatsByServiceAndType(
+                MARCH.atStartOfDay(), LocalDate.of(2024, 4, 1).atStartOfDay());
+        verifyNoMoreInteractions(acteMedicalRepository);
+        // Aucune ligne modifiée: la version de la table n'avance pas
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void onActeChanged_FailingMonth_ShouldRollBackOnlyThatMonth() {
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(
+                LocalDate.of(2024, 1, 1).atStartOfDay(), LocalDate.of(2024, 2, 1).atStartOfDay()))
+                .thenThrow(new IllegalStateException("Duplicate entry"));
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(
+                MARCH.atStartOfDay(), LocalDate.of(2024, 4, 1).atStartOfDay())).thenReturn(new ArrayList<>());
+
+        assertDoesNotThrow(() -> monthlyRevenueService.onActeChanged(new ActeMedicalChangedEvent(
+                acte(LocalDateTime.of(2024, 1, 31, 23, 0)), acte(LocalDateTime.of(2024, 3, 2, 9, 0)))));
+
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void rebuildMonth_SameMonth_ShouldNotOverlap() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(any(), any())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            firstStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return new ArrayList<>();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> monthlyRevenueService.rebuildMonth(YearMonth.of(2024, 3)));
+            assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> monthlyRevenueService.rebuildMonth(YearMonth.of(2024, 3)));
+            // Le second recalcul attend le premier: il ne lit les actes qu'après son commit
+            Thread.sleep(100);
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxInFlight.get());
+        verify(acteMedicalRepository, times(2)).findMonthlyStatsByServiceAndType(any(), any());
+    }
+
+    @Test
+    void reconcileRecentMonths_ShouldRebuildCurrentMonth() {
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(any(), any())).thenReturn(new ArrayList<>());
+
+        monthlyRevenueService.reconcileRecentMonths();
+
+        verify(acteMedicalRepository).findMonthlyStatsByServiceAndType(
+                YearMonth.now().atDay(1).atStartOfDay(), YearMonth.now().plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    @Test
+    void rebuildAll_ShouldStartAtFirstActeMonth() {
+        when(acteMedicalRepository.findMinDateRealisation()).thenReturn(LocalDateTime.of(2024, 3, 15, 8, 0));
+        when(acteMedicalRepository.findMonthlyStatsByServiceAndType(any(), any())).thenReturn(new ArrayList<>());
+
+        monthlyRevenueService.rebuildAll();
+
+        verify(acteMedicalRepository).findMonthlyStatsByServiceAndType(
+                MARCH.atStartOfDay(), YearMonth.now().plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    private static MonthlyActeRevenue revenue(Long serviceId, String type, Long actes, Double tarif) {
+        MonthlyActeRevenue revenue = new MonthlyActeRevenue(MARCH, serviceId, type);
+        revenue.setActesCount(actes);
+        revenue.setTarifTotal(tarif);
+        return revenue;
+    }
+
+    private static ActeMedicalChangedEvent.Snapshot acte(LocalDateTime date) {
+        return new ActeMedicalChangedEvent.Snapshot(1L, 1L, "CONSULTATION", date, 50.0);
+    }
+}
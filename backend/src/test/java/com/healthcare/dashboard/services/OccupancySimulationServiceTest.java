@@ -0,0 +1,147 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.dto.OccupancySimulationDTO;
+import com.healthcare.dashboard.entities.Sejour;
+import com.healthcare.dashboard.events.SejourChangedEvent;
+import com.healthcare.dashboard.repositories.SejourRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour OccupancySimulationService
+ * Vérifie l'ajustement sur l'historique des séjours, les probabilités de dépassement, la reproductibilité
+ * et la réutilisation du modèle
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OccupancySimulationServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private SejourRepository sejourRepository;
+
+    @Mock
+    private ServiceRegistry serviceRegistry;
+
+    private OccupancySimulationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OccupancySimulationService(sejourRepository, serviceRegistry, 365, 2);
+        when(serviceRegistry.find("Urgences")).thenReturn(new ServiceRegistry.ServiceInfo(1L, "Urgences", 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void simulate_ActiveStaysOnly_ShouldEmptyBedsAfterKnownStay() {
+        // Aucune admission passée ni séjour terminé (durée par défaut de 5 jours), 12 patients entrés aujourd'hui
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            rows.add(stay(TODAY, null, Sejour.StatutSejour.EN_COURS));
+        }
+        stubHistory(rows);
+
+        OccupancySimulationDTO simulation = service.simulate("Urgences", 10, 1000, TODAY);
+
+        assertEquals(12, simulation.getSejoursEnCours());
+        assertEquals(0.0, simulation.getArriveesParJour());
+        assertEquals((double) OccupancySimulationService.DEFAULT_STAY_DAYS, simulation.getDureeMoyenneSejour());
+        assertEquals(TODAY.plusDays(1), simulation.getJours().get(0).getDate());
+        // Sortie le 5e jour après l'entrée: lits occupés du 1er au 4e jour suivant
+        for (int d = 0; d < 10; d++) {
+            OccupancySimulationDTO.Day day = simulation.getJours().get(d);
+            if (d < 4) {
+                assertEquals(12.0, day.getOccupationMoyenne(), "jour " + d);
+                assertEquals(1.0, day.getProbabiliteDepassement(), "jour " + d);
+                assertEquals(120.0, day.getTauxOccupation(), "jour " + d);
+            } else {
+                assertEquals(0.0, day.getOccupationMoyenne(), "jour " + d);
+                assertEquals(0.0, day.getProbabiliteDepassement(), "jour " + d);
+            }
+        }
+    }
+
+    @Test
+    void simulate_SteadyArrivals_ShouldMatchLittleLaw() {
+        // 3 admissions par jour pendant 200 jours, séjours de 2 ou 4 jours: 8 lits occupés en moyenne
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate day = TODAY.minusDays(200); day.isBefore(TODAY); day = day.plusDays(1)) {
+            for (int i = 0; i < 3; i++) {
+                int length = i % 2 == 0 ? 2 : 4;
+                rows.add(stay(day, day.plusDays(length), Sejour.StatutSejour.TERMINE));
+            }
+        }
+        rows.add(stay(TODAY.minusDays(3), null, Sejour.StatutSejour.ANNULE));
+        stubHistory(rows);
+
+        OccupancySimulationDTO simulation = service.simulate("Urgences", 30, 5000, TODAY);
+
+        assertEquals(3.0, simulation.getArriveesParJour());
+        assertEquals(0, simulation.getSejoursEnCours());
+        OccupancySimulationDTO.Day steady = simulation.getJours().get(29);
+        assertEquals(3.0 * (2 * 2 + 4) / 3, steady.getOccupationMoyenne(), 0.3);
+        // Capacité de 10 lits: dépassée une partie du temps seulement
+        assertTrue(steady.getProbabiliteDepassement() > 0.05 && steady.getProbabiliteDepassement() < 0.6,
+                   "p=" + steady.getProbabiliteDepassement());
+    }
+
+    @Test
+    void simulate_ShouldBeReproducibleAndReuseFittedModel() {
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate day = TODAY.minusDays(90); day.isBefore(TODAY); day = day.plusDays(1)) {
+            rows.add(stay(day, day.plusDays(1 + day.getDayOfMonth() % 6), Sejour.StatutSejour.TERMINE));
+        }
+        rows.add(stay(TODAY.minusDays(2), null, Sejour.StatutSejour.EN_COURS));
+        stubHistory(rows);
+
+        OccupancySimulationDTO first = service.simulate("Urgences", 14, 3000, TODAY);
+        OccupancySimulationDTO second = service.simulate("Urgences", 14, 3000, TODAY);
+
+        assertEquals(first.getJours(), second.getJours());
+        verify(sejourRepository, times(1)).findStayHistory(eq(1L), any(), eq(Sejour.StatutSejour.EN_COURS));
+
+        // Une écriture de séjour du service force un nouvel ajustement
+        service.onSejourChanged(new SejourChangedEvent(null, new SejourChangedEvent.Snapshot(
+                99L, 1L, 5L, TODAY.atStartOfDay(), null, Sejour.StatutSejour.EN_COURS, null)));
+        service.simulate("Urgences", 14, 3000, TODAY);
+        verify(sejourRepository, times(2)).findStayHistory(eq(1L), any(), eq(Sejour.StatutSejour.EN_COURS));
+    }
+
+    @Test
+    void simulate_InvalidParameters_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> service.simulate("Inconnu", 30, 1000, TODAY));
+        assertThrows(IllegalArgumentException.class, () -> service.simulate("Urgences", 0, 1000, TODAY));
+        assertThrows(IllegalArgumentException.class, () -> service.simulate("Urgences", 30, 0, TODAY));
+        assertThrows(IllegalArgumentException.class,
+                     () -> service.simulate("Urgences", 30, OccupancySimulationService.MAX_REPLICATIONS + 1, TODAY));
+        verifyNoInteractions(sejourRepository);
+    }
+
+    private void stubHistory(List<Object[]> rows) {
+        when(sejourRepository.findStayHistory(eq(1L), any(), eq(Sejour.StatutSejour.EN_COURS))).thenReturn(rows);
+    }
+
+    private static Object[] stay(LocalDate entree, LocalDate sortie, Sejour.StatutSejour statut) {
+        return new Object[]{entree.atTime(10, 0), sortie != null ? sortie.atTime(14, 0) : null, statut};
+    }
+}
@@ -2,13 +2,16 @@ package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.PatientDTO;
 import com.healthcare.dashboard.entities.Patient;
+import com.healthcare.dashboard.events.PatientChangedEvent;
 import com.healthcare.dashboard.repositories.PatientRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.Arrays;
@@ -24,6 +27,9 @@ class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PatientService patientService;
 
@@ -113,6 +119,23 @@ class PatientServiceTest {
         patientService.deletePatient(1L);
 
         verify(patientRepository, times(1)).deleteById(1L);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void createAndDeletePatient_ShouldPublishSnapshots() {
+        when(patientRepository.save(any(Patient.class))).thenReturn(patient);
+        when(patientRepository.findById(1L)).thenReturn(Optional.of(patient));
+
+        patientService.createPatient(patientDTO);
+        patientService.deletePatient(1L);
+
+        ArgumentCaptor<PatientChangedEvent> captor = ArgumentCaptor.forClass(PatientChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(captor.capture());
+        assertNull(captor.getAllValues().get(0).getPrevious());
+        assertEquals(1L, captor.getAllValues().get(0).getCurrent().getId());
+        assertEquals(1L, captor.getAllValues().get(1).getPrevious().getId());
+        assertNull(captor.getAllValues().get(1).getCurrent());
     }
 
     @Test
@@ -0,0 +1,184 @@
+package com.healthcare.dashboard.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.dashboard.dto.ForecastModel;
+import com.healthcare.dashboard.dto.MLPredictionResponseDTO;
+import com.healthcare.dashboard.entities.PrecomputedForecast;
+import com.healthcare.dashboard.entities.Service;
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.DailyServiceStatsUpdatedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.PrecomputedForecastRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour PrecomputedForecastStore
+ * Vérifie la lecture des horizons standards, le contrôle de complétude et la suppression ciblée sur écriture
+ */
+@ExtendWith(MockitoExtension.class)
+class PrecomputedForecastStoreTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 6, 15);
+
+    @Mock
+    private PrecomputedForecastRepository repository;
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    private PrecomputedForecastStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new PrecomputedForecastStore(repository, serviceRepository, new ObjectMapper().findAndRegisterModules(),
+            Set.of(ForecastModel.HEURISTIQUE));
+    }
+
+    @Test
+    void find_StandardRequest_ShouldReadStoredResponse() throws Exception {
+        List<PrecomputedForecast> rows = store.toRows(DATE, "PATIENTS", ForecastModel.HEURISTIQUE, 30,
+            List.of(response("Urgences")), LocalDateTime.now());
+        when(repository.findByForecastDateAndPredictionTypeAndModeleAndDaysAheadAndService(
+            DATE, "PATIENTS", ForecastModel.HEURISTIQUE, 30, "Urgences")).thenReturn(Optional.of(rows.get(0)));
+
+        MLPredictionResponseDTO response = store.find("Urgences", "PATIENTS", ForecastModel.HEURISTIQUE, 30, DATE);
+
+        assertEquals("Urgences", response.getService());
+        assertEquals(DATE, response.getPredictions().get(0).getDate());
+    }
+
+    @Test
+    void find_NonStandardRequest_ShouldNotQuery() {
+        assertNull(store.find("Urgences", "PATIENTS", ForecastModel.HEURISTIQUE, 45, DATE));
+        assertNull(store.find("Urgences", "PATIENTS", ForecastModel.HOLT_WINTERS_ADDITIF, 30, DATE));
+        assertNull(store.findAll("INCONNU", ForecastModel.HEURISTIQUE, 30, DATE));
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findAll_IncompleteList_ShouldReturnNull() throws Exception {
+        List<PrecomputedForecast> rows = store.toRows(DATE, "COUT", ForecastModel.HEURISTIQUE, 90,
+            List.of(response("Urgences"), response("Chirurgie")), LocalDateTime.now());
+        when(repository.findByForecastDateAndPredictionTypeAndModeleAndDaysAheadOrderByPositionAsc(
+            DATE, "COUT", ForecastModel.HEURISTIQUE, 90)).thenReturn(rows).thenReturn(List.of(rows.get(1)));
+
+        List<MLPredictionResponseDTO> complete = store.findAll("COUT", ForecastModel.HEURISTIQUE, 90, DATE);
+        List<MLPredictionResponseDTO> incomplete = store.findAll("COUT", ForecastModel.HEURISTIQUE, 90, DATE);
+
+        assertEquals(List.of("Urgences", "Chirurgie"), complete.stream().map(MLPredictionResponseDTO::getService).toList());
+        assertNull(incomplete);
+    }
+
+    @Test
+    void onMedecinChanged_ShouldDeleteServiceRowsAndAdvanceGeneration() {
+        when(serviceRepository.findAllById(List.of(1L))).thenReturn(List.of(service(1L, "Urgences")));
+        PrecomputedForecastStore.Stamp services = store.stampServices();
+
+        store.onMedecinChanged(new MedecinChangedEvent(null, new MedecinChangedEvent.Snapshot(10L, 1L, "ACTIF")));
+
+        verify(repository).deleteByService("Urgences");
+        verify(repository, never()).deleteAllRows();
+        assertTrue(store.isStale(services, "Urgences"));
+        assertFalse(store.isStale(services, "Chirurgie"));
+        assertEquals(Set.of("Urgences"), store.stampServices().changedSince(services));
+    }
+
+    @Test
+    void onDailyStatsUpdated_ShouldOnlyDeleteNamedServicesAndAffectedForecastDates() {
+        when(serviceRepository.findAllById(Set.of(2L))).thenReturn(List.of(service(2L, "Chirurgie")));
+        PrecomputedForecastStore.Stamp services = store.stampServices();
+
+        store.onDailyStatsUpdated(new DailyServiceStatsUpdatedEvent(DATE, DATE, Set.of(2L)));
+
+        // Le jour recalculé entre dans l'historique des prévisions datées du lendemain à SERIES_DAYS jours plus tard
+        verify(repository).deleteByServicesAndForecastDateBetween(List.of("Chirurgie"), DATE.plusDays(1),
+            DATE.plusDays(MLPredictionService.SERIES_DAYS));
+        verify(repository, never()).deleteAllRows();
+        verify(repository, never()).deleteByService(anyString());
+        assertTrue(store.isStale(services, "Chirurgie"));
+        assertFalse(store.isStale(services, "Urgences"));
+    }
+
+    @Test
+    void onServiceChanged_ShouldDeleteRowsOfThatService() {
+        PrecomputedForecastStore.Stamp services = store.stampServices();
+
+        store.onServiceChanged(new ServiceChangedEvent(new ServiceChangedEvent.Snapshot(1L, "Urgences", 20),
+            new ServiceChangedEvent.Snapshot(1L, "Urgences", 25)));
+
+        verify(repository).deleteByService("Urgences");
+        verify(repository, never()).deleteAllRows();
+        assertTrue(store.isStale(services, "Urgences"));
+        assertFalse(store.isStale(services, "Chirurgie"));
+    }
+
+    @Test
+    void onServiceCreated_ShouldDeleteAllRows() {
+        PrecomputedForecastStore.Stamp services = store.stampServices();
+
+        store.onServiceChanged(new ServiceChangedEvent(null, new ServiceChangedEvent.Snapshot(3L, "Pédiatrie", 10)));
+
+        // Les positions et le nombre de services de toutes les lignes ont changé
+        verify(repository).deleteAllRows();
+        assertNull(store.stampServices().changedSince(services));
+    }
+
+    @Test
+    void replaceServices_ShouldOnlyDeleteRowsOfThoseServices() {
+        store.replace(Set.of("Urgences"), List.of());
+
+        verify(repository).deleteByService("Urgences");
+        verify(repository, never()).deleteAllRows();
+        verify(repository).saveAll(List.of());
+    }
+
+    @Test
+    void onServiceDeleted_WithoutName_ShouldFallBackToAllRows() {
+        store.onServiceChanged(new ServiceChangedEvent(new ServiceChangedEvent.Snapshot(1L, null, null), null));
+
+        verify(repository).deleteAllRows();
+    }
+
+    @Test
+    void onAlertChanged_ShouldDeleteAllRows() {
+        PrecomputedForecastStore.Stamp services = store.stampServices();
+
+        store.onAlertChanged(new AlertChangedEvent(null, new AlertChangedEvent.Snapshot(1L, "HAUTE", false, false)));
+
+        verify(repository).deleteAllRows();
+        assertTrue(store.isStale(services, "Urgences"));
+    }
+
+    private static Service service(Long id, String nom) {
+        Service service = new Service();
+        service.setId(id);
+        service.setNom(nom);
+        return service;
+    }
+
+    private static MLPredictionResponseDTO response(String service) {
+        MLPredictionResponseDTO response = new MLPredictionResponseDTO();
+        response.setService(service);
+        response.setPredictionType("PATIENTS");
+        response.setModele(ForecastModel.HEURISTIQUE);
+        response.setPredictions(List.of(new MLPredictionResponseDTO.PredictionPoint(DATE, 30.0, 25.0, 35.0)));
+        return response;
+    }
+}
@@ -0,0 +1,138 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.AlertChangedEvent;
+import com.healthcare.dashboard.events.InvestmentChangedEvent;
+import com.healthcare.dashboard.events.MedecinChangedEvent;
+import com.healthcare.dashboard.repositories.AlertRepository;
+import com.healthcare.dashboard.repositories.InvestmentRepository;
+import com.healthcare.dashboard.repositories.MedecinRepository;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ServiceImpactSnapshot
+ * Vérifie le chargement groupé, la mise à jour incrémentale et l'absence de requête à la lecture
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ServiceImpactSnapshotTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @Mock
+    private MedecinRepository medecinRepository;
+
+    @Mock
+    private InvestmentRepository investmentRepository;
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @InjectMocks
+    private ServiceImpactSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        when(serviceRepository.findAllIdAndNom()).thenReturn(rows(new Object[]{1L, "Urgences"}, new Object[]{2L, "Chirurgie"}));
+        when(medecinRepository.countByStatutGroupedByService("ACTIF")).thenReturn(rows(new Object[]{1L, 4L}));
+        when(alertRepository.countByStatusGroupedByService("ACTIVE")).thenReturn(rows(new Object[]{2L, 3L}));
+        when(investmentRepository.findServiceAmountsSince(any())).thenReturn(rows(
+            new Object[]{1L, LocalDateTime.now().minusDays(10), 150000.0},
+            new Object[]{1L, LocalDateTime.now().minusDays(20), 100000.0}));
+    }
+
+    @Test
+    void forServiceNom_ShouldLoadOnceThenReadFromMemory() {
+        ServiceImpactSnapshot.Factors urgences = snapshot.forServiceNom("Urgences");
+        ServiceImpactSnapshot.Factors chirurgie = snapshot.forService(2L);
+
+        assertEquals(4L, urgences.getActiveMedecins());
+        assertEquals(250000.0, urgences.getRecentInvestments());
+        assertEquals(0L, urgences.getActiveAlerts());
+        assertEquals(3L, chirurgie.getActiveAlerts());
+        verify(medecinRepository, times(1)).countByStatutGroupedByService("ACTIF");
+        verify(investmentRepository, times(1)).findServiceAmountsSince(any());
+        verify(alertRepository, times(1)).countByStatusGroupedByService("ACTIVE");
+    }
+
+    @Test
+    void forServiceNom_UnknownService_ShouldReturnNoImpact() {
+        ServiceImpactSnapshot.Factors factors = snapshot.forServiceNom("Inconnu");
+
+        assertEquals(0L, factors.getActiveMedecins());
+        assertEquals(0.0, factors.getRecentInvestments());
+        assertEquals(0L, factors.getActiveAlerts());
+    }
+
+    @Test
+    void onMedecinChanged_ShouldMoveActiveCountWithoutQuerying() {
+        snapshot.refresh();
+        clearInvocations(medecinRepository);
+
+        // Mutation d'Urgences vers Chirurgie, puis passage en congé
+        snapshot.onMedecinChanged(new MedecinChangedEvent(
+            new MedecinChangedEvent.Snapshot(7L, 1L, "ACTIF"), new MedecinChangedEvent.Snapshot(7L, 2L, "ACTIF")));
+        assertEquals(3L, snapshot.forService(1L).getActiveMedecins());
+        assertEquals(1L, snapshot.forService(2L).getActiveMedecins());
+
+        snapshot.onMedecinChanged(new MedecinChangedEvent(
+            new MedecinChangedEvent.Snapshot(7L, 2L, "ACTIF"), new MedecinChangedEvent.Snapshot(7L, 2L, "CONGE")));
+        assertEquals(0L, snapshot.forService(2L).getActiveMedecins());
+
+        verifyNoInteractions(medecinRepository);
+    }
+
+    @Test
+    void onAlertChanged_ShouldReloadAlertCountsOnly() {
+        snapshot.refresh();
+        when(alertRepository.countByStatusGroupedByService("ACTIVE")).thenReturn(rows(new Object[]{2L, 1L}));
+
+        snapshot.onAlertChanged(new AlertChangedEvent(null, new AlertChangedEvent.Snapshot(1L, "HAUTE", false, true)));
+
+        assertEquals(1L, snapshot.forService(2L).getActiveAlerts());
+        verify(medecinRepository, times(1)).countByStatutGroupedByService("ACTIF");
+    }
+
+    @Test
+    void onInvestmentChanged_ShouldReloadInvestments() {
+        snapshot.refresh();
+        when(investmentRepository.findServiceAmountsSince(any()))
+            .thenReturn(rows(new Object[]{2L, LocalDateTime.now().minusDays(1), 50000.0}));
+
+        snapshot.onInvestmentChanged(new InvestmentChangedEvent(null,
+            new InvestmentChangedEvent.Snapshot(3L, "EN_COURS", 50000.0, LocalDateTime.now().minusDays(1))));
+
+        assertEquals(0.0, snapshot.forService(1L).getRecentInvestments());
+        assertEquals(50000.0, snapshot.forService(2L).getRecentInvestments());
+    }
+
+    @Test
+    void refresh_WhenImpactQueryFails_ShouldKeepOtherFactors() {
+        when(alertRepository.countByStatusGroupedByService("ACTIVE")).thenThrow(new RuntimeException("colonne absente"));
+
+        snapshot.refresh();
+
+        assertEquals(4L, snapshot.forService(1L).getActiveMedecins());
+        assertEquals(0L, snapshot.forService(2L).getActiveAlerts());
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
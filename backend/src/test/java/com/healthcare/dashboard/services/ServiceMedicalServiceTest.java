@@ -1,6 +1,7 @@
 package com.healthcare.dashboard.services;
 
 import com.healthcare.dashboard.dto.ServiceDTO;
+import com.healthcare.dashboard.events.ServiceChangedEvent;
 import com.healthcare.dashboard.repositories.ServiceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -23,6 +25,9 @@ class ServiceMedicalServiceTest {
     @Mock
     private ServiceRepository serviceRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ServiceMedicalService serviceMedicalService;
 
@@ -104,6 +109,7 @@ class ServiceMedicalServiceTest {
         serviceMedicalService.deleteService(1L);
 
         verify(serviceRepository, times(1)).deleteById(1L);
+        verify(eventPublisher).publishEvent(any(ServiceChangedEvent.class));
     }
 
     @Test
@@ -0,0 +1,54 @@
+package com.healthcare.dashboard.services;
+
+import com.healthcare.dashboard.events.ServiceChangedEvent;
+import com.healthcare.dashboard.repositories.ServiceRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests unitaires pour ServiceRegistry
+ * Vérifie le chargement unique, la capacité par défaut et le rechargement sur écriture de service
+ */
+@ExtendWith(MockitoExtension.class)
+class ServiceRegistryTest {
+
+    @Mock
+    private ServiceRepository serviceRepository;
+
+    @InjectMocks
+    private ServiceRegistry registry;
+
+    @Test
+    void capacity_ShouldLoadOnceAndFallBackToDefault() {
+        when(serviceRepository.findAllIdNomAndCapacite()).thenReturn(List.of(
+            new Object[]{1L, "Urgences", 55}, new Object[]{2L, "Chirurgie", null}));
+
+        assertEquals(55, registry.capacity("Urgences"));
+        assertEquals(60, registry.capacity("Chirurgie"));
+        assertEquals(ServiceRegistry.DEFAULT_CAPACITY, registry.capacity("Inconnu"));
+        assertEquals(List.of("Urgences", "Chirurgie"),
+            registry.getServices().stream().map(ServiceRegistry.ServiceInfo::getNom).toList());
+        verify(serviceRepository, times(1)).findAllIdNomAndCapacite();
+    }
+
+    @Test
+    void onServiceChanged_ShouldReload() {
+        when(serviceRepository.findAllIdNomAndCapacite())
+            .thenReturn(List.<Object[]>of(new Object[]{1L, "Urgences", 40}))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, "Urgences", 45}));
+        registry.capacity("Urgences");
+
+        registry.onServiceChanged(new ServiceChangedEvent(
+            new ServiceChangedEvent.Snapshot(1L, "Urgences", 40), new ServiceChangedEvent.Snapshot(1L, "Urgences", 45)));
+
+        assertEquals(45, registry.capacity("Urgences"));
+    }
+}
@@ -18,10 +18,22 @@ CORS(app)
 
 # Load dataset at startup
 DATASET_PATH = os.path.join(os.path.dirname(__file__), 'healthcare_dataset.csv')
+# Export columnaire (GET /api/ml/dataset/export avec Accept: application/vnd.apache.arrow.stream)
+ARROW_DATASET_PATH = os.path.join(os.path.dirname(__file__), 'healthcare_dataset.arrows')
 df = None
 
 def load_dataset():
     global df
+    if os.path.exists(ARROW_DATASET_PATH):
+        try:
+            import pyarrow as pa
+            with pa.OSFile(ARROW_DATASET_PATH, 'rb') as source:
+                df = pa.ipc.open_stream(source).read_pandas()
+            df['date'] = df['date'].astype(str)
+            print(f"✅ Dataset loaded (Arrow): {df.shape[0]} rows, {df.shape[1]} columns")
+            return True
+        except ImportError:
+            print("⚠️ pyarrow not installed, falling back to CSV")
     try:
         df = pd.read_csv(DATASET_PATH)
         print(f"✅ Dataset loaded: {df.shape[0]} rows, {df.shape[1]} columns")